@@ -27,6 +27,8 @@ final class BcGpgDoer implements JkInternalGpgDoer {
 
     private static final int HASH_ALGO = HashAlgorithmTags.SHA1;  //NOSONAR
 
+    private static final int BUFFER_SIZE = 65536;
+
     // Accessed through reflection
     static BcGpgDoer of() {
         return new BcGpgDoer();
@@ -77,9 +79,10 @@ final class BcGpgDoer implements JkInternalGpgDoer {
 
         final PGPContentVerifierBuilderProvider builderProvider = new BcPGPContentVerifierBuilderProvider();
         signature.init(builderProvider, publicKey);
-        int character;
-        while ((character = bufferedStream.read()) >= 0) {
-            signature.update((byte) character);
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int length;
+        while ((length = bufferedStream.read(buffer)) >= 0) {
+            signature.update(buffer, 0, length);
         }
         return signature.verify();
     }
@@ -118,12 +121,12 @@ final class BcGpgDoer implements JkInternalGpgDoer {
             final PGPSignatureGenerator signatureGenerator = new PGPSignatureGenerator(signerBuilder);
             signatureGenerator.init(PGPSignature.BINARY_DOCUMENT, pgpPrivKey);
             final BCPGOutputStream bcpgOut = new BCPGOutputStream(out);
-            final InputStream fileInputStream = new BufferedInputStream(toSign);
-            int ch;
-            while ((ch = fileInputStream.read()) >= 0) {
-                signatureGenerator.update((byte) ch);
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int length;
+            while ((length = toSign.read(buffer)) >= 0) {
+                signatureGenerator.update(buffer, 0, length);
             }
-            fileInputStream.close();
+            toSign.close();
             signatureGenerator.generate().encode(bcpgOut);
             out.close();
         } catch (final IOException e) {
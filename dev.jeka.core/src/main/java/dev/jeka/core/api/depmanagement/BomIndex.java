@@ -0,0 +1,167 @@
+package dev.jeka.core.api.depmanagement;
+
+import dev.jeka.core.api.system.JkLocator;
+import dev.jeka.core.api.system.JkLog;
+import dev.jeka.core.api.tooling.JkPom;
+import dev.jeka.core.api.utils.JkUtilsPath;
+import dev.jeka.core.api.utils.JkUtilsString;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Index of the versions managed by BOMs, so that a BOM pom is parsed only once on this machine. Each BOM gets
+ * a binary file in the Jeka cache, memory-mapped when read, and is memoized in memory for the lifetime of the JVM.
+ *
+ * An index is stale as soon as the size or last modified time of the pom it has been computed from changes.
+ *
+ * File layout : magic, format version, pom size, pom last modified time, string table (count then
+ * length-prefixed UTF-8 strings) and entries (count then group, name and version indexes in the string table).
+ */
+final class BomIndex {
+
+    private static final int MAGIC = 0x4A4B424D;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8;
+
+    private final Path dir;
+
+    private final Map<Path, Entry> memo = new ConcurrentHashMap<>();
+
+    BomIndex(Path dir) {
+        this.dir = dir;
+    }
+
+    static BomIndex ofDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * Returns the versions managed by the specified BOM whose pom file is the specified one.
+     */
+    Map<JkModuleId, JkVersion> get(JkCoordinate bom, Path pomFile) {
+        final long size;
+        final long lastModified;
+        try {
+            size = Files.size(pomFile);
+            lastModified = Files.getLastModifiedTime(pomFile).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Path indexFile = dir.resolve(JkUtilsString.toSha256Hex(bom + "\n" + pomFile.toAbsolutePath().normalize()) + ".idx");
+        Entry entry = memo.get(indexFile);
+        if (entry != null && entry.size == size && entry.lastModified == lastModified) {
+            return entry.versions;
+        }
+        Map<JkModuleId, JkVersion> versions = read(indexFile, size, lastModified);
+        if (versions == null) {
+            JkLog.trace("Indexing versions managed by BOM %s", bom);
+            versions = Collections.unmodifiableMap(new HashMap<>(JkPom.of(pomFile).getVersionProvider().toMap()));
+            write(indexFile, size, lastModified, versions);
+        }
+        memo.put(indexFile, new Entry(size, lastModified, versions));
+        return versions;
+    }
+
+    private static Map<JkModuleId, JkVersion> read(Path indexFile, long size, long lastModified) {
+        if (!Files.exists(indexFile)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION
+                    || buffer.getLong() != size || buffer.getLong() != lastModified) {
+                JkLog.trace("BOM index %s is stale.", indexFile);
+                return null;
+            }
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            int entryCount = buffer.getInt();
+            Map<JkModuleId, JkVersion> result = new HashMap<>(entryCount * 4 / 3 + 1);
+            for (int i = 0; i < entryCount; i++) {
+                JkModuleId moduleId = JkModuleId.of(strings[buffer.getInt()], strings[buffer.getInt()]);
+                result.put(moduleId, JkVersion.of(strings[buffer.getInt()]));
+            }
+            return Collections.unmodifiableMap(result);
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException e) {
+            JkLog.trace("Cannot read BOM index %s : %s", indexFile, e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(Path indexFile, long size, long lastModified, Map<JkModuleId, JkVersion> versions) {
+        Map<String, Integer> stringIndexes = new LinkedHashMap<>();
+        int[] entries = new int[versions.size() * 3];
+        int i = 0;
+        for (Map.Entry<JkModuleId, JkVersion> version : versions.entrySet()) {
+            entries[i++] = stringIndex(stringIndexes, version.getKey().getGroup());
+            entries[i++] = stringIndex(stringIndexes, version.getKey().getName());
+            entries[i++] = stringIndex(stringIndexes, version.getValue().getValue());
+        }
+        List<byte[]> strings = new ArrayList<>(stringIndexes.size());
+        int length = HEADER_SIZE + 4 + 4 + entries.length * 4;
+        for (String string : stringIndexes.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            strings.add(bytes);
+            length += 4 + bytes.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(size).putLong(lastModified);
+        buffer.putInt(strings.size());
+        strings.forEach(bytes -> buffer.putInt(bytes.length).put(bytes));
+        buffer.putInt(versions.size());
+        for (int entry : entries) {
+            buffer.putInt(entry);
+        }
+        try {
+            JkUtilsPath.createDirectories(dir);
+            Path tempFile = Files.createTempFile(dir, indexFile.getFileName().toString(), ".tmp");
+            Files.write(tempFile, buffer.array());
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            JkLog.trace("Cannot store BOM index in %s : %s", indexFile, e.getMessage());
+        }
+    }
+
+    private static int stringIndex(Map<String, Integer> stringIndexes, String value) {
+        return stringIndexes.computeIfAbsent(value, key -> stringIndexes.size());
+    }
+
+    private static final class Entry {
+
+        final long size;
+
+        final long lastModified;
+
+        final Map<JkModuleId, JkVersion> versions;
+
+        Entry(long size, long lastModified, Map<JkModuleId, JkVersion> versions) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.versions = versions;
+        }
+    }
+
+    private static final class DefaultHolder {
+
+        static final BomIndex INSTANCE = new BomIndex(JkLocator.getCacheDir().resolve("bom-index"));
+    }
+
+}
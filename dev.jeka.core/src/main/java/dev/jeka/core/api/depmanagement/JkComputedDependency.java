@@ -7,9 +7,12 @@ import dev.jeka.core.api.system.JkProcess;
 import dev.jeka.core.api.utils.JkUtilsIterable;
 import dev.jeka.core.api.utils.JkUtilsPath;
 
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * Dependency on computed resource. More concretely, this is a {@link JkFileDependency }on files that might not
@@ -22,8 +25,10 @@ import java.util.*;
  * This is yet simple but quite powerful mechanism, cause the runnable can be anything as a Maven or an ANT build
  * of another project, a Jeka build of another project, ... <p>
  *
- * This is the way to create multi-projects (and multi-techno) builds.
+ * This is the way to create multi-projects (and multi-techno) builds. <p>
  *
+ * Optionally, a fingerprint of the inputs the files are generated from can be recorded, so files are also
+ * regenerated when inputs have changed since the last generation (see {@link #withInputFingerprint(Supplier)}).
  */
 public class JkComputedDependency implements JkFileDependency {
 
@@ -33,15 +38,32 @@ public class JkComputedDependency implements JkFileDependency {
 
     private final Path ideProjectDir; // Helps to generate ide metadata
 
+    protected final Supplier<String> inputFingerprint; // null means that only missing files trigger generation
+
+    // Guards generation of files, per first file, across instances and threads
+    private static final Map<Path, Object> LOCKS = new ConcurrentHashMap<>();
+
+    // Fingerprint found up-to-date by this instance, to not compute it again during the same run
+    private volatile String checkedFingerprint;
+
     /**
      * Constructs a computed dependency to the specified files and the specified {@link Runnable} to run for
      * generating them.
      */
     protected JkComputedDependency(Runnable runnable, Path ideProjectBaseDir, Iterable<Path> files)  {
+        this(runnable, ideProjectBaseDir, files, null);
+    }
+
+    /**
+     * Same as {@link #JkComputedDependency(Runnable, Path, Iterable)} but specifying the fingerprint of inputs.
+     */
+    protected JkComputedDependency(Runnable runnable, Path ideProjectBaseDir, Iterable<Path> files,
+                                   Supplier<String> inputFingerprint)  {
         super();
         this.runnable = runnable;
         this.files = files;
         this.ideProjectDir = ideProjectBaseDir;
+        this.inputFingerprint = inputFingerprint;
     }
 
     /**
@@ -116,20 +138,95 @@ public class JkComputedDependency implements JkFileDependency {
         return files;
     }
 
+    /**
+     * Returns the files of this dependency, generating them first if some are missing or if inputs have changed
+     * since last generation.
+     */
     @Override
     public List<Path> getFiles() {
+        Iterator<Path> it = files.iterator();
+        Object lock = it.hasNext() ? LOCKS.computeIfAbsent(it.next().toAbsolutePath().normalize(),
+                key -> new Object()) : this;
+        synchronized (lock) {
+            generateIfNeeded();
+        }
+        final List<Path> result = new LinkedList<>();
+        files.forEach(path -> result.add(path));
+        return result;
+    }
+
+    /**
+     * Returns a copy of this dependency that records the fingerprint of the inputs its files are generated from.
+     * Files are then regenerated when the fingerprint differs from the one recorded at last generation, and not
+     * only when they are missing. The fingerprint is recorded in a file sibling to the first file.
+     *
+     * @param inputFingerprint Supplier computing the fingerprint from the current state of inputs,
+     *                         for example a {@link JkInputFingerprint}.
+     */
+    public JkComputedDependency withInputFingerprint(Supplier<String> inputFingerprint) {
+        return new JkComputedDependency(runnable, ideProjectDir, files, inputFingerprint);
+    }
+
+    public Supplier<String> getInputFingerprint() {
+        return inputFingerprint;
+    }
+
+    private void generateIfNeeded() {
+        String fingerprint = null;
+        String reason = null;
         if (this.hasMissingFilesOrEmptyDirs()) {
-            JkLog.startTask("Build dependency : " + this);
-            runnable.run();
-            JkLog.endTask();
+            reason = "missing files";
+        } else if (inputFingerprint != null && checkedFingerprint == null) {
+            fingerprint = inputFingerprint.get();
+            if (!fingerprint.equals(readRecordedFingerprint())) {
+                reason = "inputs changed";
+            } else {
+                checkedFingerprint = fingerprint;
+            }
+        }
+        if (reason == null) {
+            JkLog.trace("Dependency %s is up-to-date.", this);
+            return;
         }
+        JkLog.startTask("Build dependency : " + this + " (" + reason + ")");
+        runnable.run();
+        JkLog.endTask();
         final Set<Path> missingFiles = this.getMissingFilesOrEmptyDirs();
         if (!missingFiles.isEmpty()) {
             throw new IllegalStateException(this + " didn't generate " + missingFiles);
         }
-        final List<Path> result = new LinkedList<>();
-        files.forEach(path -> result.add(path));
-        return result;
+        if (inputFingerprint != null) {
+            fingerprint = fingerprint == null ? inputFingerprint.get() : fingerprint;
+            writeRecordedFingerprint(fingerprint);
+            checkedFingerprint = fingerprint;
+        }
+    }
+
+    // Returns null if this dependency has no file to record the fingerprint beside
+    private Path fingerprintFile() {
+        Iterator<Path> it = files.iterator();
+        if (!it.hasNext()) {
+            return null;
+        }
+        Path first = it.next();
+        return first.resolveSibling(first.getFileName() + ".inputs");
+    }
+
+    // An empty record, as left by an interrupted write, is considered as missing
+    private String readRecordedFingerprint() {
+        Path fingerprintFile = fingerprintFile();
+        if (fingerprintFile == null || !Files.exists(fingerprintFile)) {
+            return null;
+        }
+        String result = new String(JkUtilsPath.readAllBytes(fingerprintFile), StandardCharsets.UTF_8).trim();
+        return result.isEmpty() ? null : result;
+    }
+
+    private void writeRecordedFingerprint(String fingerprint) {
+        Path fingerprintFile = fingerprintFile();
+        if (fingerprintFile != null) {
+            JkUtilsPath.write(fingerprintFile, fingerprint.getBytes(StandardCharsets.UTF_8));
+        }
     }
 
     /**
@@ -142,7 +239,7 @@ public class JkComputedDependency implements JkFileDependency {
 
     @Override
     public JkComputedDependency withIdeProjectDir(Path path) {
-        return new JkComputedDependency(runnable, path, files);
+        return new JkComputedDependency(runnable, path, files, inputFingerprint);
     }
 
     @Override
@@ -0,0 +1,138 @@
+package dev.jeka.core.api.depmanagement;
+
+import dev.jeka.core.api.file.JkPathTree;
+import dev.jeka.core.api.file.JkPathTreeSet;
+import dev.jeka.core.api.utils.JkUtilsString;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Computes a fingerprint of the inputs some files are generated from, as source trees, files and option values.
+ * Files are taken in account through their path, size and last modified time, so computing a fingerprint does
+ * not require reading their content. <p>
+ *
+ * Inputs are read at each call of {@link #get()}, so a same instance reflects the current state of inputs.
+ *
+ * @see JkComputedDependency#withInputFingerprint(Supplier)
+ */
+public final class JkInputFingerprint implements Supplier<String> {
+
+    private final List<Consumer<StringBuilder>> appenders;
+
+    private JkInputFingerprint(List<Consumer<StringBuilder>> appenders) {
+        this.appenders = appenders;
+    }
+
+    public static JkInputFingerprint of() {
+        return new JkInputFingerprint(new LinkedList<>());
+    }
+
+    /**
+     * Returns a fingerprint taking also in account the files of the tree set supplied by the specified supplier.
+     */
+    public JkInputFingerprint andTrees(Supplier<JkPathTreeSet> treeSet) {
+        return and(sb -> {
+            for (JkPathTree tree : treeSet.get().toList()) {
+                sb.append("tree:").append(tree.getRoot()).append('\n');
+                if (tree.exists()) {
+                    appendFiles(sb, tree);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns a fingerprint taking also in account the files supplied by the specified supplier.
+     * Directories are taken in account with their whole content.
+     */
+    public JkInputFingerprint andFiles(Supplier<? extends Iterable<Path>> files) {
+        return and(sb -> {
+            for (Path file : files.get()) {
+                if (Files.isDirectory(file)) {
+                    sb.append("tree:").append(file).append('\n');
+                    appendFiles(sb, JkPathTree.of(file));
+                } else {
+                    appendFile(sb, file.toString(), file);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns a fingerprint taking also in account the string representation of the value supplied
+     * by the specified supplier.
+     */
+    public JkInputFingerprint andValue(String name, Supplier<?> value) {
+        return and(sb -> sb.append(name).append(':').append(value.get()).append('\n'));
+    }
+
+    /**
+     * Returns a fingerprint taking also in account the coordinate dependencies and managed versions of the
+     * dependency set supplied by the specified supplier. Only stable descriptions (module id, version, artifact
+     * specification and transitivity) are used : file and computed dependencies should be taken in account
+     * through {@link #andFiles(Supplier)}.
+     */
+    public JkInputFingerprint andDependencies(String name, Supplier<JkDependencySet> dependencySet) {
+        return and(sb -> {
+            JkDependencySet dependencies = dependencySet.get();
+            for (JkDependency dependency : dependencies.getEntries()) {
+                if (dependency instanceof JkCoordinateDependency) {
+                    JkCoordinateDependency coordinateDependency = (JkCoordinateDependency) dependency;
+                    sb.append(name).append(':').append(coordinateDependency.getCoordinate());
+                    if (coordinateDependency.getTransitivity() != null) {
+                        sb.append(';').append(coordinateDependency.getTransitivity());
+                    }
+                    sb.append('\n');
+                }
+            }
+            JkVersionProvider versionProvider = dependencies.getVersionProvider();
+            versionProvider.toMap().entrySet().stream()
+                    .map(entry -> entry.getKey().getColonNotation() + ':' + entry.getValue().getValue())
+                    .sorted()
+                    .forEach(version -> sb.append(name).append(":version:").append(version).append('\n'));
+            versionProvider.getBoms().forEach(bom -> sb.append(name).append(":bom:").append(bom).append('\n'));
+        });
+    }
+
+    /**
+     * Computes the fingerprint from the current state of inputs.
+     */
+    @Override
+    public String get() {
+        StringBuilder sb = new StringBuilder();
+        appenders.forEach(appender -> appender.accept(sb));
+        return JkUtilsString.toSha256Hex(sb.toString());
+    }
+
+    private JkInputFingerprint and(Consumer<StringBuilder> appender) {
+        List<Consumer<StringBuilder>> result = new LinkedList<>(appenders);
+        result.add(appender);
+        return new JkInputFingerprint(result);
+    }
+
+    private static void appendFiles(StringBuilder sb, JkPathTree<?> tree) {
+        List<Path> relativeFiles = tree.getRelativeFiles();
+        relativeFiles.stream().sorted().forEach(file -> appendFile(sb, file.toString(), tree.getRoot().resolve(file)));
+    }
+
+    private static void appendFile(StringBuilder sb, String name, Path file) {
+        sb.append("file:").append(name).append(';');
+        try {
+            sb.append(Files.size(file)).append(';').append(Files.getLastModifiedTime(file).toMillis());
+        } catch (NoSuchFileException e) {
+            sb.append("missing");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        sb.append('\n');
+    }
+
+}
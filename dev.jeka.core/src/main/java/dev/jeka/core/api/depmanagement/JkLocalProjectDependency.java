@@ -3,6 +3,7 @@ package dev.jeka.core.api.depmanagement;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 
@@ -23,8 +24,8 @@ public class JkLocalProjectDependency extends JkComputedDependency
      */
     private JkLocalProjectDependency(Runnable producer, Path file, Path ideProjectDir,
                                      JkDependencySet exportedDependencies,
-                                     JkTransitivity transitivity) {
-        super(producer, ideProjectDir, Collections.singleton(file));
+                                     JkTransitivity transitivity, Supplier<String> inputFingerprint) {
+        super(producer, ideProjectDir, Collections.singleton(file), inputFingerprint);
         List<JkDependency> relocatedDependencies = exportedDependencies.getEntries().stream()
                 .map(dep -> dep.withIdeProjectDir(ideProjectDir))
                 .collect(Collectors.toList());
@@ -46,7 +47,7 @@ public class JkLocalProjectDependency extends JkComputedDependency
      */
     public static JkLocalProjectDependency of(Runnable producer, Path file, Path basedir,
                                               JkDependencySet dependencies) {
-        return new JkLocalProjectDependency(producer, file, basedir, dependencies, null);
+        return new JkLocalProjectDependency(producer, file, basedir, dependencies, null, null);
     }
 
     /**
@@ -77,17 +78,23 @@ public class JkLocalProjectDependency extends JkComputedDependency
     @Override
     public JkLocalProjectDependency withIdeProjectDir(Path path) {
         return new JkLocalProjectDependency(runnable, files.iterator().next(), path, exportedDependencies,
-                transitivity);
+                transitivity, inputFingerprint);
     }
 
     public JkLocalProjectDependency withTransitivity(JkTransitivity transitivity) {
         return new JkLocalProjectDependency(runnable, files.iterator().next(), getIdeProjectDir(),
-                exportedDependencies, transitivity);
+                exportedDependencies, transitivity, inputFingerprint);
     }
 
     public JkLocalProjectDependency withoutExportedDependencies() {
         return new JkLocalProjectDependency(runnable, files.iterator().next(), getIdeProjectDir(),
-                JkDependencySet.of(), transitivity);
+                JkDependencySet.of(), transitivity, inputFingerprint);
+    }
+
+    @Override
+    public JkLocalProjectDependency withInputFingerprint(Supplier<String> inputFingerprint) {
+        return new JkLocalProjectDependency(runnable, files.iterator().next(), getIdeProjectDir(),
+                exportedDependencies, transitivity, inputFingerprint);
     }
 
     @Override
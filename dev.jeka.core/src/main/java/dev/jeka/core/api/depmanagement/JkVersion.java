@@ -6,6 +6,8 @@ import dev.jeka.core.api.utils.JkUtilsString;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Used to specify a module version. Versions are comparable.
@@ -14,29 +16,64 @@ import java.util.List;
  */
 public final class JkVersion implements Comparable<JkVersion> {
 
+    private static final int INTERNED_MAX_SIZE = 50_000;
+
+    private static final int PACKED_ITEM_COUNT = 4;
+
+    private static final int PACKED_ITEM_BITS = 15;
+
+    private static final long NOT_PACKED = -1L;
+
+    private static final Map<String, JkVersion> INTERNED = new ConcurrentHashMap<>();
+
     /** Mention that the version is unspecified */
-    public static final JkVersion UNSPECIFIED = new JkVersion("UNSPECIFIED-SNAPSHOT");
+    public static final JkVersion UNSPECIFIED = intern(new JkVersion("UNSPECIFIED-SNAPSHOT"));
 
-    public static final Comparator<String> VERSION_COMPARATOR = ComparableVersion.versionComparator();
+    /**
+     * Compares version values the same way as {@link #compareTo(JkVersion)} does for specified versions.
+     */
+    public static final Comparator<String> VERSION_COMPARATOR =
+            (value1, value2) -> compare(JkVersion.of(value1), JkVersion.of(value2));
 
     /**
      * Creates a {@link JkVersion} with the specified value. If specified name is null, then it creates
-     * an {@link #UNSPECIFIED} version.
+     * an {@link #UNSPECIFIED} version. <p>
+     * Versions are interned, so a same value is parsed only once.
      */
     public static JkVersion of(String name) {
         if (name == null) {
             return UNSPECIFIED;
         }
-        return new JkVersion(name);
+        JkVersion result = INTERNED.get(name);
+        if (result != null) {
+            return result;
+        }
+        return intern(new JkVersion(name));
+    }
+
+    private static JkVersion intern(JkVersion version) {
+        if (INTERNED.size() >= INTERNED_MAX_SIZE) {
+            return version;
+        }
+        JkVersion previous = INTERNED.putIfAbsent(version.value, version);
+        return previous == null ? version : previous;
     }
 
     private final String value;
 
+    // Parsed form of the value, used for comparisons
+    private final ComparableVersion comparableVersion;
+
+    // Numeric items packed in a single positive long, or NOT_PACKED if the value is not made of few small numbers
+    private final long packedKey;
+
     private JkVersion(String value) {
         super();
         JkUtilsAssert.argument(value != null, "value can't be null");
         JkUtilsAssert.argument(!JkUtilsString.isBlank(value), "value can't ne blank");
         this.value = value;
+        this.comparableVersion = new ComparableVersion(value);
+        this.packedKey = packedKey(value);
     }
 
     /**
@@ -70,7 +107,49 @@ public final class JkVersion implements Comparable<JkVersion> {
         } else if (other.isUnspecified()) {
             return 1;
         }
-        return VERSION_COMPARATOR.compare(value, other.value);
+        return compare(this, other);
+    }
+
+    private static int compare(JkVersion version1, JkVersion version2) {
+        if (version1 == version2) {
+            return 0;
+        }
+        if (version1.packedKey != NOT_PACKED && version2.packedKey != NOT_PACKED) {
+            return Long.compare(version1.packedKey, version2.packedKey);
+        }
+        return version1.comparableVersion.compareTo(version2.comparableVersion);
+    }
+
+    /*
+     * Packs values as '1.2.30' in a single long, so they compare as ComparableVersion does without walking
+     * its item lists. Missing items count for 0, as '1.0' equals '1.0.0'.
+     */
+    private static long packedKey(String value) {
+        long result = 0;
+        int itemCount = 0;
+        int item = 0;
+        int digitCount = 0;
+        for (int i = 0; i <= value.length(); i++) {
+            char c = i < value.length() ? value.charAt(i) : '.';
+            if (c == '.') {
+                if (digitCount == 0 || itemCount == PACKED_ITEM_COUNT) {
+                    return NOT_PACKED;
+                }
+                result = (result << PACKED_ITEM_BITS) | item;
+                itemCount++;
+                item = 0;
+                digitCount = 0;
+            } else if (c >= '0' && c <= '9') {
+                item = item * 10 + (c - '0');
+                digitCount++;
+                if (item >= 1 << PACKED_ITEM_BITS) {
+                    return NOT_PACKED;
+                }
+            } else {
+                return NOT_PACKED;
+            }
+        }
+        return result << (PACKED_ITEM_BITS * (PACKED_ITEM_COUNT - itemCount));
     }
 
     /**
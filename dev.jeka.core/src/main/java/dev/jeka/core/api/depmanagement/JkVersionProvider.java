@@ -1,6 +1,5 @@
 package dev.jeka.core.api.depmanagement;
 
-import dev.jeka.core.api.tooling.JkPom;
 import dev.jeka.core.api.utils.JkUtilsAssert;
 import dev.jeka.core.api.utils.JkUtilsIterable;
 import dev.jeka.core.api.utils.JkUtilsString;
@@ -229,13 +228,15 @@ public final class JkVersionProvider {
 
     /**
      * Returns an equivalent version provider of this one but resolving its boms into internal version map.
+     * Versions managed by a BOM are indexed in Jeka cache the first time the BOM is met, so its pom is
+     * not parsed anymore while it does not change.
      */
     public JkVersionProvider withResolvedBoms(JkRepoSet repos) {
         JkVersionProvider provider = boms.stream()
                 .distinct()
                 .map(bom -> {
                     JkCoordinateFileProxy bomFile = JkCoordinateFileProxy.of(repos, bom);
-                    return JkPom.of(bomFile.get()).getVersionProvider();
+                    return new JkVersionProvider(BomIndex.ofDefault().get(bom, bomFile.get()), new LinkedHashSet<>());
                 })
                 .reduce(this, (versionProvider1, versionProvider2) -> versionProvider1.and(versionProvider2));
         return new JkVersionProvider(provider.map, new LinkedHashSet<>());
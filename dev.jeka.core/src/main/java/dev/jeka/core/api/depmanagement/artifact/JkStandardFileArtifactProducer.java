@@ -2,14 +2,16 @@ package dev.jeka.core.api.depmanagement.artifact;
 
 import dev.jeka.core.api.system.JkLog;
 import dev.jeka.core.api.utils.JkUtilsAssert;
+import dev.jeka.core.api.utils.JkUtilsPath;
+import dev.jeka.core.api.utils.JkUtilsThrowable;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * This {@link JkArtifactProducer} produces artifacts files at a standardized path
@@ -26,6 +28,10 @@ public class JkStandardFileArtifactProducer<T> implements JkArtifactProducer {
 
     private final Map<JkArtifactId, Consumer<Path>> consumers = new LinkedHashMap<>();
 
+    private final Map<JkArtifactId, Set<JkArtifactId>> prerequisites = new HashMap<>();
+
+    private boolean parallel;
+
     private Function<JkArtifactId, Path> artifactFileFunction;
 
     private String mainArtifactExt = "jar";
@@ -59,6 +65,107 @@ public class JkStandardFileArtifactProducer<T> implements JkArtifactProducer {
         JkLog.endTask();
     }
 
+    /**
+     * Produces the specified artifacts. In parallel mode, artifacts are made concurrently, each one starting once
+     * its prerequisites present in the specified artifacts are made.
+     */
+    @Override
+    public void makeArtifacts(Iterable<JkArtifactId> artifactIds) {
+        List<JkArtifactId> artifactIdList = new LinkedList<>();
+        artifactIds.forEach(artifactIdList::add);
+        if (!parallel || artifactIdList.size() < 2) {
+            artifactIdList.forEach(this::makeArtifact);
+            return;
+        }
+        // Artifacts are few and their makers often wait for external processes : one thread per artifact
+        ExecutorService executor = Executors.newFixedThreadPool(artifactIdList.size(), runnable -> {
+            Thread thread = new Thread(runnable, "jeka-artifact-producer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<JkArtifactId, CompletableFuture<JkLog.JkHeldBack<Void>>> futures = new LinkedHashMap<>();
+            for (JkArtifactId artifactId : artifactIdList) {
+                schedule(artifactId, artifactIdList, futures, new LinkedHashSet<>(), executor);
+            }
+            List<JkLog.JkHeldBack<Void>> heldBacks = new LinkedList<>();
+            for (JkArtifactId artifactId : artifactIdList) {
+                try {
+                    heldBacks.add(futures.get(artifactId).join());
+                } catch (CompletionException e) {
+                    throw JkUtilsThrowable.unchecked(e.getCause(), e.getMessage());
+                }
+            }
+            RuntimeException failure = null;
+            for (JkLog.JkHeldBack<Void> heldBack : heldBacks) {
+                try {
+                    heldBack.release();
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Produces the specified artifacts that do not exist yet, concurrently in parallel mode.
+     */
+    @Override
+    public void makeMissingArtifacts(Iterable<JkArtifactId> artifactIds) {
+        List<JkArtifactId> missingArtifactIds = new LinkedList<>();
+        for (JkArtifactId artifactId : artifactIds) {
+            Path path = getArtifactPath(artifactId);
+            if (!Files.exists(path)) {
+                missingArtifactIds.add(artifactId);
+            } else {
+                JkLog.info("Make artifact file " + JkUtilsPath.relativizeFromWorkingDir(path)
+                        + " ... Skip : already exist.");
+            }
+        }
+        makeArtifacts(missingArtifactIds);
+    }
+
+    // Each artifact is made in its own thread, its logs being held back. They are output once all artifacts are
+    // made, in declaration order, to keep them nested properly. An artifact whose a prerequisite failed is not made.
+    private CompletableFuture<JkLog.JkHeldBack<Void>> schedule(JkArtifactId artifactId, List<JkArtifactId> artifactIds,
+                                             Map<JkArtifactId, CompletableFuture<JkLog.JkHeldBack<Void>>> futures,
+                                             Set<JkArtifactId> visiting, Executor executor) {
+        CompletableFuture<JkLog.JkHeldBack<Void>> future = futures.get(artifactId);
+        if (future != null) {
+            return future;
+        }
+        if (!visiting.add(artifactId)) {
+            throw new IllegalStateException("Cycle found in artifact prerequisites : " + visiting);
+        }
+        Map<JkArtifactId, CompletableFuture<JkLog.JkHeldBack<Void>>> prerequisiteFutures = new LinkedHashMap<>();
+        getPrerequisites(artifactId).stream()
+                .filter(artifactIds::contains)
+                .forEach(prerequisite -> prerequisiteFutures.put(prerequisite,
+                        schedule(prerequisite, artifactIds, futures, visiting, executor)));
+        Supplier<JkLog.JkHeldBack<Void>> maker = () -> JkLog.runHeldBack(() -> {
+            prerequisiteFutures.forEach((prerequisite, prerequisiteFuture) -> {
+                if (prerequisiteFuture.join().isFailed()) {
+                    throw new IllegalStateException("Artifact " + artifactId + " not made cause its prerequisite "
+                            + prerequisite + " failed.");
+                }
+            });
+            makeArtifact(artifactId);
+            return null;
+        });
+        future = CompletableFuture.allOf(prerequisiteFutures.values().toArray(new CompletableFuture[0]))
+                .thenApplyAsync(unused -> maker.get(), executor);
+        visiting.remove(artifactId);
+        futures.put(artifactId, future);
+        return future;
+    }
+
     @Override
     public Path getArtifactPath(JkArtifactId artifactId) {
         JkUtilsAssert.state(artifactFileFunction != null, "artifactFileFunction has not been set.");
@@ -97,6 +204,7 @@ public class JkStandardFileArtifactProducer<T> implements JkArtifactProducer {
 
     public JkStandardFileArtifactProducer<T> removeArtifact(JkArtifactId artifactId) {
         consumers.remove(artifactId);
+        prerequisites.remove(artifactId);
         return this;
     }
 
@@ -104,6 +212,36 @@ public class JkStandardFileArtifactProducer<T> implements JkArtifactProducer {
         return removeArtifact(JkArtifactId.of(name, ext));
     }
 
+    /**
+     * Declares that the specified artifact must be made after the specified prerequisite artifacts, when they are
+     * made along in a same call to {@link #makeArtifacts(Iterable)}. Prerequisites are not made if they are not
+     * requested.
+     */
+    public JkStandardFileArtifactProducer<T> addPrerequisites(JkArtifactId artifactId,
+                                                              JkArtifactId... prerequisiteArtifactIds) {
+        prerequisites.computeIfAbsent(artifactId, key -> new LinkedHashSet<>())
+                .addAll(Arrays.asList(prerequisiteArtifactIds));
+        return this;
+    }
+
+    public Set<JkArtifactId> getPrerequisites(JkArtifactId artifactId) {
+        return Collections.unmodifiableSet(prerequisites.getOrDefault(artifactId, Collections.emptySet()));
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * If <code>true</code>, artifacts are made concurrently, according their prerequisites. Artifact makers must
+     * then be safe to run concurrently. Logs of all artifacts are held back and output once all are made, in
+     * declaration order. Default is <code>false</code>.
+     */
+    public JkStandardFileArtifactProducer<T> setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
     @Override
     public String getMainArtifactExt() {
         return mainArtifactExt;
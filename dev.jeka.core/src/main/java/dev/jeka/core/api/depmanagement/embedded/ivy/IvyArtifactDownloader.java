@@ -0,0 +1,236 @@
+package dev.jeka.core.api.depmanagement.embedded.ivy;
+
+import dev.jeka.core.api.system.JkLog;
+import dev.jeka.core.api.utils.JkUtilsThrowable;
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.IvyContext;
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.DownloadReport;
+import org.apache.ivy.core.report.DownloadStatus;
+import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.resolve.DownloadOptions;
+import org.apache.ivy.core.resolve.IvyNode;
+import org.apache.ivy.plugins.repository.Repository;
+import org.apache.ivy.plugins.repository.Resource;
+import org.apache.ivy.plugins.repository.TransferListener;
+import org.apache.ivy.plugins.repository.url.URLRepository;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.resolver.RepositoryResolver;
+import org.apache.ivy.util.Message;
+import org.apache.ivy.util.filter.Filter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Downloads artifacts of a resolved dependency tree concurrently. This replaces
+ * <code>ResolveEngine#downloadArtifacts</code> which downloads artifacts one after another.<p/>
+ * Ivy URL repositories are not thread-safe, so while downloading, each worker thread accesses repositories
+ * through its own instance.
+ */
+final class IvyArtifactDownloader {
+
+    // Matches the number of idle connections per host the JDK keeps alive, so each worker can reuse its own.
+    private static final int MAX_THREADS = Integer.getInteger("http.maxConnections", 5);
+
+    private IvyArtifactDownloader() {
+    }
+
+    /**
+     * Downloads the artifacts of the dependencies found in the specified report, and registers
+     * the download results in it.
+     */
+    static void downloadArtifacts(Ivy ivy, ResolveReport report, Filter<Artifact> artifactFilter,
+                                  DownloadOptions options) {
+        long start = System.currentTimeMillis();
+        List<IvyNode> dependencies = new ArrayList<>();
+        for (IvyNode dependency : report.getDependencies()) {
+            if (!dependency.isCompletelyEvicted() && !dependency.hasProblem()
+                    && dependency.getModuleRevision() != null) {
+                dependencies.add(dependency);
+            }
+        }
+        List<DownloadReport> downloadReports = download(ivy, dependencies, artifactFilter, options);
+        long totalSize = 0;
+        int downloadCount = 0;
+        for (int i = 0; i < dependencies.size(); i++) {
+            IvyNode dependency = dependencies.get(i);
+            DownloadReport downloadReport = downloadReports.get(i);
+            for (ArtifactDownloadReport adr : downloadReport.getArtifactsReports()) {
+                if (adr.getDownloadStatus() == DownloadStatus.FAILED) {
+                    if (adr.getArtifact().getExtraAttribute("ivy:merged") != null) {
+                        Message.warn("\tmerged artifact not found: " + adr.getArtifact()
+                                + ". It was required in " + adr.getArtifact().getExtraAttribute("ivy:merged"));
+                    } else {
+                        Message.warn("\t" + adr);
+                        dependency.getModuleRevision().getArtifactResolver().reportFailure(adr.getArtifact());
+                    }
+                } else if (adr.getDownloadStatus() == DownloadStatus.SUCCESSFUL) {
+                    totalSize += adr.getSize();
+                    downloadCount++;
+                }
+            }
+            for (String conf : dependency.getRootModuleConfigurations()) {
+                if (dependency.isEvicted(conf) || dependency.isBlacklisted(conf)) {
+                    report.getConfigurationReport(conf).addDependency(dependency);
+                } else {
+                    report.getConfigurationReport(conf).addDependency(dependency, downloadReport);
+                }
+            }
+        }
+        long duration = System.currentTimeMillis() - start;
+        report.setDownloadTime(duration);
+        report.setDownloadSize(totalSize);
+        if (downloadCount > 0) {
+            JkLog.info("Downloaded %s artifact(s), %s KB in %s ms (%s KB/s).", downloadCount, totalSize / 1024,
+                    duration, totalSize * 1000 / 1024 / Math.max(duration, 1));
+        }
+    }
+
+    private static List<DownloadReport> download(Ivy ivy, List<IvyNode> dependencies,
+                                                 Filter<Artifact> artifactFilter, DownloadOptions options) {
+        List<DownloadReport> result = new ArrayList<>();
+        int threadCount = Math.min(MAX_THREADS, dependencies.size());
+        if (threadCount < 2) {
+            for (IvyNode dependency : dependencies) {
+                result.add(download(dependency, artifactFilter, options));
+            }
+            return result;
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "jeka-artifact-download");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<RepositoryResolver, Repository> sharedRepositories = bindRepositoriesToThreads(dependencies);
+        try {
+            List<Future<DownloadReport>> futures = new ArrayList<>();
+            for (IvyNode dependency : dependencies) {
+                futures.add(executorService.submit(() -> {
+                    IvyContext.getContext().setIvy(ivy);  // Ivy context and message logger are thread bound
+                    return download(dependency, artifactFilter, options);
+                }));
+            }
+            for (Future<DownloadReport> future : futures) {
+                result.add(future.get());
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw JkUtilsThrowable.unchecked(e);
+        } catch (ExecutionException e) {
+            throw JkUtilsThrowable.unchecked(e.getCause(), "Error while downloading artifacts.");
+        } finally {
+            executorService.shutdownNow();
+            sharedRepositories.forEach(RepositoryResolver::setRepository);
+        }
+    }
+
+    // Returns the replaced repositories, so they can be restored once download is over
+    private static Map<RepositoryResolver, Repository> bindRepositoriesToThreads(List<IvyNode> dependencies) {
+        Map<RepositoryResolver, Repository> result = new HashMap<>();
+        for (IvyNode dependency : dependencies) {
+            DependencyResolver resolver = dependency.getModuleRevision().getArtifactResolver();
+            if (resolver instanceof RepositoryResolver && !result.containsKey(resolver)) {
+                RepositoryResolver repositoryResolver = (RepositoryResolver) resolver;
+                Repository repository = repositoryResolver.getRepository();
+                if (repository instanceof URLRepository) {
+                    result.put(repositoryResolver, repository);
+                    repositoryResolver.setRepository(new ThreadBoundRepository((URLRepository) repository));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static DownloadReport download(IvyNode dependency, Filter<Artifact> artifactFilter,
+                                           DownloadOptions options) {
+        DependencyResolver resolver = dependency.getModuleRevision().getArtifactResolver();
+        return resolver.download(dependency.getSelectedArtifacts(artifactFilter), options);
+    }
+
+    /*
+     * Delegates to a URL repository specific to the current thread. Transfer listeners registered on this
+     * repository are notified of the transfers made by any of them.
+     */
+    private static final class ThreadBoundRepository implements Repository {
+
+        private final URLRepository sharedRepository;
+
+        private final List<TransferListener> listeners = new CopyOnWriteArrayList<>();
+
+        private final ThreadLocal<URLRepository> threadRepository = ThreadLocal.withInitial(this::newRepository);
+
+        ThreadBoundRepository(URLRepository sharedRepository) {
+            this.sharedRepository = sharedRepository;
+        }
+
+        private URLRepository newRepository() {
+            URLRepository result = new URLRepository(sharedRepository.getTimeoutConstraint());
+            result.setName(sharedRepository.getName());
+            result.addTransferListener(event -> listeners.forEach(listener -> listener.transferProgress(event)));
+            return result;
+        }
+
+        @Override
+        public Resource getResource(String source) throws IOException {
+            return threadRepository.get().getResource(source);
+        }
+
+        @Override
+        public void get(String source, File destination) throws IOException {
+            threadRepository.get().get(source, destination);
+        }
+
+        @Override
+        public void put(Artifact artifact, File source, String destination, boolean overwrite) throws IOException {
+            threadRepository.get().put(artifact, source, destination, overwrite);
+        }
+
+        @Override
+        public List<String> list(String parent) throws IOException {
+            return threadRepository.get().list(parent);
+        }
+
+        @Override
+        public void addTransferListener(TransferListener listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeTransferListener(TransferListener listener) {
+            listeners.remove(listener);
+        }
+
+        @Override
+        public boolean hasTransferListener(TransferListener listener) {
+            return listeners.contains(listener);
+        }
+
+        @Override
+        public String getFileSeparator() {
+            return sharedRepository.getFileSeparator();
+        }
+
+        @Override
+        public String standardize(String source) {
+            return sharedRepository.standardize(source);
+        }
+
+        @Override
+        public String getName() {
+            return sharedRepository.getName();
+        }
+    }
+
+}
@@ -12,6 +12,8 @@ import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 /**
  * BasicURLHandler does not handle http redirect. This class fixes this missing
@@ -39,7 +41,7 @@ final class IvyFollowRedirectUrlHandler extends BasicURLHandler {
                 final boolean redirect = checkRedirect(httpCon);
                 if (redirect) {
                     final String newUrl = httpCon.getHeaderField("Location");
-                    disconnectQuietly(srcConn);
+                    releaseQuietly(srcConn);
                     download(new URL(newUrl), dest, l);
                     return;
                 }
@@ -49,29 +51,37 @@ final class IvyFollowRedirectUrlHandler extends BasicURLHandler {
                 }
             }
 
-            // do the download
-            final InputStream inStream = getDecodingInputStream(srcConn.getContentEncoding(),
-                    srcConn.getInputStream());
-            FileUtil.copy(inStream, dest, l);
-
-            // check content length only if content was not encoded
-            if (srcConn.getContentEncoding() == null) {
-                final int contentLength = srcConn.getContentLength();
-                if (contentLength != -1 && dest.length() != contentLength) {
-                    dest.delete();  //NOSONAR
-                    throw new IOException(
-                            "Downloaded file size doesn't match expected Content Length for " + src
-                                    + ". Please retry.");
+            // do the download in a temp file, so concurrent downloads of the same file never see partial content
+            final File parent = dest.getAbsoluteFile().getParentFile();
+            parent.mkdirs();  //NOSONAR
+            final File tempFile = File.createTempFile(dest.getName(), ".tmp", parent);
+            try {
+                final InputStream inStream = getDecodingInputStream(srcConn.getContentEncoding(),
+                        srcConn.getInputStream());
+                FileUtil.copy(inStream, tempFile, l);
+
+                // check content length only if content was not encoded
+                if (srcConn.getContentEncoding() == null) {
+                    final int contentLength = srcConn.getContentLength();
+                    if (contentLength != -1 && tempFile.length() != contentLength) {
+                        throw new IOException(
+                                "Downloaded file size doesn't match expected Content Length for " + src
+                                        + ". Please retry.");
+                    }
                 }
-            }
 
-            // update modification date
-            final long lastModified = srcConn.getLastModified();
-            if (lastModified > 0) {
-                dest.setLastModified(lastModified);  //NOSONAR
+                // update modification date
+                final long lastModified = srcConn.getLastModified();
+                if (lastModified > 0) {
+                    tempFile.setLastModified(lastModified);  //NOSONAR
+                }
+                Files.move(tempFile.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                tempFile.delete();  //NOSONAR
             }
         } finally {
-            disconnectQuietly(srcConn);
+            releaseQuietly(srcConn);
         }
     }
 
@@ -104,7 +114,11 @@ final class IvyFollowRedirectUrlHandler extends BasicURLHandler {
         return false;
     }
 
-    private void disconnectQuietly(URLConnection con) {
+    /*
+     * Does not disconnect http connections : once the response body has been fully read and closed,
+     * the underlying socket returns to the keep-alive cache, to be reused by next downloads on the same host.
+     */
+    private void releaseQuietly(URLConnection con) {
         if (con instanceof HttpURLConnection) {
             if (!"HEAD".equals(((HttpURLConnection) con).getRequestMethod())) {
                 // We must read the response body before disconnecting!
@@ -115,8 +129,6 @@ final class IvyFollowRedirectUrlHandler extends BasicURLHandler {
                 // so may results in idle TCP connections.[/quote]
                 readResponseBodyQuietly((HttpURLConnection) con);
             }
-
-            ((HttpURLConnection) con).disconnect();
         } else if (con != null) {
             try {
                 con.getInputStream().close();
@@ -30,6 +30,7 @@ import org.apache.ivy.plugins.matcher.PatternMatcher;
 import java.io.File;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -70,18 +71,29 @@ final class IvyInternalDependencyResolver implements JkInternalDependencyResolve
         final ResolveOptions resolveOptions = new ResolveOptions();
         resolveOptions.setConfs(confs);
         resolveOptions.setTransitive(true);
-        resolveOptions.setOutputReport(JkLog.verbosity().isVerbose());
         resolveOptions.setLog(logLevel());
         resolveOptions.setRefresh(parameters.isRefreshed());
         resolveOptions.setCheckIfChanged(true);
-        resolveOptions.setOutputReport(true);
-        final ResolveReport resolveReport;
-        Ivy ivy = IvyTranslatorToIvy.toIvy(repoSet, parameters);
-        try {
-            resolveReport = ivy.resolve(moduleDescriptor, resolveOptions);
-        } catch (final Exception e) {
-            throw JkUtilsThrowable.unchecked(e);
-        }
+        resolveOptions.setOutputReport(false);  // Report is output once artifacts are downloaded
+        resolveOptions.setDownload(false);  // Artifacts are downloaded concurrently below
+        final DownloadOptions downloadOptions = new DownloadOptions();
+        downloadOptions.setLog(resolveOptions.getLog());
+        final ResolveReport resolveReport = IvyTranslatorToIvy.withIvy(repoSet, parameters, ivy -> {
+            final ResolveReport report;
+            try {
+                report = ivy.resolve(moduleDescriptor, resolveOptions);
+                IvyArtifactDownloader.downloadArtifacts(ivy, report, resolveOptions.getArtifactFilter(),
+                        downloadOptions);
+                ivy.getResolveEngine().outputReport(report, ivy.getSettings().getResolutionCacheManager(),
+                        resolveOptions);
+            } catch (final Exception e) {
+                throw JkUtilsThrowable.unchecked(e);
+            }
+            if (coordinateArg == null) {
+                deleteResolveCache(coordinate, ivy);
+            }
+            return report;
+        });
         final JkResolveResult.JkErrorReport errorReport;
         if (resolveReport.hasError()) {
             errorReport = JkResolveResult.JkErrorReport.failure(problems(resolveReport));
@@ -92,9 +104,6 @@ final class IvyInternalDependencyResolver implements JkInternalDependencyResolve
         final IvyArtifactContainer artifactContainer = IvyArtifactContainer.of(artifactDownloadReports);
         final JkResolveResult resolveResult = getResolveConf(resolveReport.getDependencies(), coordinate,
                 errorReport, artifactContainer);
-        if (coordinateArg == null) {
-            deleteResolveCache(coordinate, ivy);
-        }
         return resolveResult;
     }
 
@@ -117,51 +126,51 @@ final class IvyInternalDependencyResolver implements JkInternalDependencyResolve
             artifact = new DefaultArtifact(moduleRevisionId, null, coordinate.getModuleId().getName(), type,
                     type, extra);
         }
-        Ivy ivy = IvyTranslatorToIvy.toIvy(repoSet, JkResolutionParameters.of());
-        final ArtifactDownloadReport report = ivy.getResolveEngine().download(artifact, new DownloadOptions());
+        final ArtifactDownloadReport report = IvyTranslatorToIvy.withIvy(repoSet, JkResolutionParameters.of(),
+                ivy -> ivy.getResolveEngine().download(artifact, new DownloadOptions()));
         return report.getLocalFile();
     }
 
     @Override
     public List<String> searchGroups() {
-        Ivy ivy = IvyTranslatorToIvy.toIvy(repoSet, JkResolutionParameters.of());
-        SearchEngine searchEngine = new SearchEngine(ivy.getSettings());
-        return Arrays.asList(searchEngine.listOrganisations()).stream()
+        String[] result = search(SearchEngine::listOrganisations);
+        return Arrays.asList(result).stream()
                 .sorted()
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<String> searchModules(String groupId) {
-        Ivy ivy = IvyTranslatorToIvy.toIvy(repoSet, JkResolutionParameters.of());
-        SearchEngine searchEngine = new SearchEngine(ivy.getSettings());
-        return Arrays.asList(searchEngine.listModules(groupId)).stream()
+        String[] result = search(searchEngine -> searchEngine.listModules(groupId));
+        return Arrays.asList(result).stream()
                 .sorted()
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<String> searchVersions(JkModuleId jkModuleId) {
-        Ivy ivy = IvyTranslatorToIvy.toIvy(repoSet, JkResolutionParameters.of());
-        SearchEngine searchEngine = new SearchEngine(ivy.getSettings());
-        return Arrays.asList(searchEngine.listRevisions(jkModuleId.getGroup(), jkModuleId.getName())).stream()
+        String[] result = search(searchEngine ->
+                searchEngine.listRevisions(jkModuleId.getGroup(), jkModuleId.getName()));
+        return Arrays.asList(result).stream()
                 .sorted()
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<String> search(String groupCriteria, String moduleNameCtriteria, String versionCriteria) {
-        Ivy ivy = IvyTranslatorToIvy.toIvy(repoSet, JkResolutionParameters.of());
-        SearchEngine searchEngine = new SearchEngine(ivy.getSettings());
         ModuleId moduleId = new ModuleId(groupCriteria, moduleNameCtriteria);
         ModuleRevisionId moduleRevisionId = new ModuleRevisionId(moduleId, versionCriteria);
         PatternMatcher patternMatcher = new GlobPatternMatcher();
-        ModuleRevisionId[] result = searchEngine.listModules(moduleRevisionId, patternMatcher);
+        ModuleRevisionId[] result = search(searchEngine -> searchEngine.listModules(moduleRevisionId, patternMatcher));
         return Arrays.stream(result)
                 .map(mrid -> mrid.getOrganisation() + ":" + mrid.getModuleId() + ":" + mrid.getRevision())
                 .collect(Collectors.toList());
     }
 
+    private <T> T search(Function<SearchEngine, T> query) {
+        return IvyTranslatorToIvy.withIvy(repoSet, JkResolutionParameters.of(),
+                ivy -> query.apply(new SearchEngine(ivy.getSettings())));
+    }
 
     private void deleteResolveCache(JkCoordinate coordinate, Ivy ivy) {
         final ResolutionCacheManager cacheManager = ivy.getSettings().getResolutionCacheManager();
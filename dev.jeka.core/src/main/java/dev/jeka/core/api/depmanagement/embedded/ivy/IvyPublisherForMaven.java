@@ -7,8 +7,11 @@ import dev.jeka.core.api.depmanagement.artifact.JkArtifactLocator;
 import dev.jeka.core.api.depmanagement.publication.JkMavenMetadata;
 import dev.jeka.core.api.depmanagement.publication.JkPomMetadata;
 import dev.jeka.core.api.depmanagement.publication.JkPomTemplateGenerator;
+import dev.jeka.core.api.file.JkPathFile;
 import dev.jeka.core.api.system.JkLog;
 import dev.jeka.core.api.utils.*;
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
 import org.apache.ivy.core.module.id.ModuleId;
@@ -20,7 +23,6 @@ import org.apache.ivy.plugins.repository.Resource;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
 import org.apache.ivy.plugins.resolver.IBiblioResolver;
 import org.apache.ivy.plugins.resolver.RepositoryResolver;
-import org.apache.ivy.util.ChecksumHelper;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -29,18 +31,36 @@ import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Set;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.UnaryOperator;
 
 /**
  * {@link IvyInternalPublisher} delegates to this class for publishing to Maven
- * repositories.
+ * repositories.<p/>
+ * Checksums and signatures are computed concurrently while files are uploaded. As Ivy repositories are not
+ * thread-safe, files are put in the repository one at a time. Maven metadata are uploaded once the files they
+ * mention are.
  */
 final class IvyPublisherForMaven {
 
+    private static final int MAX_UPLOAD_THREADS = Integer.getInteger("http.maxConnections", 5);
+
+    // Checksum algorithm names as used for file extensions, mapped to JDK names
+    private static final Map<String, String> DIGEST_ALGORITHMS = new HashMap<>();
+
+    static {
+        DIGEST_ALGORITHMS.put("md5", "MD5");
+        DIGEST_ALGORITHMS.put("sha1", "SHA-1");
+        DIGEST_ALGORITHMS.put("sha256", "SHA-256");
+        DIGEST_ALGORITHMS.put("sha384", "SHA-384");
+        DIGEST_ALGORITHMS.put("sha512", "SHA-512");
+    }
+
     private final RepositoryResolver resolver;
 
     private final UnaryOperator<Path> signer;
@@ -51,6 +71,10 @@ final class IvyPublisherForMaven {
 
     private final Set<String> checksumAlgos;
 
+    private final List<CompletableFuture<Void>> pendingUploads = new LinkedList<>();
+
+    private ExecutorService uploadExecutor;
+
     IvyPublisherForMaven(UnaryOperator<Path> signer, RepositoryResolver dependencyResolver,
                          Path descriptorOutputDir, boolean uniqueSnapshot, Set<String> checksumAlgos) {
         super();
@@ -68,6 +92,25 @@ final class IvyPublisherForMaven {
         } catch (final IOException e) {
             throw new RuntimeException(e);
         }
+        final Ivy ivy = IvyContext.getContext().getIvy();
+        uploadExecutor = Executors.newFixedThreadPool(MAX_UPLOAD_THREADS, runnable -> {
+            Thread thread = new Thread(() -> {
+                IvyContext.getContext().setIvy(ivy);  // Ivy context and message logger are thread bound
+                runnable.run();
+            }, "jeka-publish-upload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            publish(moduleDescriptor, artifactLocator, metadata, ivyModuleRevisionId);
+        } finally {
+            uploadExecutor.shutdownNow();
+        }
+        commitPublication(resolver);
+    }
+
+    private void publish(DefaultModuleDescriptor moduleDescriptor, JkArtifactLocator artifactLocator,
+                         JkPomMetadata metadata, ModuleRevisionId ivyModuleRevisionId) {
 
         // publish artifacts
         final JkCoordinate coordinate = IvyTranslatorToDependency.toJkCoordinate(ivyModuleRevisionId);
@@ -86,12 +129,14 @@ final class IvyPublisherForMaven {
             final String pomDest = destination(coordinate, "pom", JkArtifactId.MAIN_ARTIFACT_NAME,
                     version);
             putInRepo(pomXml, pomDest, true);
+            awaitUploads();
             mavenMetadata.addSnapshotVersion("pom", JkArtifactId.MAIN_ARTIFACT_NAME);
             push(mavenMetadata, path);
         } else {
             version = coordinate.getVersion().getValue();
             final String pomDest = destination(coordinate, "pom", JkArtifactId.MAIN_ARTIFACT_NAME, version);
             putInRepo(pomXml, pomDest, true);
+            awaitUploads();
         }
         if (this.descriptorOutputDir == null) {
             JkUtilsPath.deleteFile(pomXml);
@@ -102,8 +147,6 @@ final class IvyPublisherForMaven {
             updateMetadata(ivyModuleRevisionId.getModuleId(), ivyModuleRevisionId.getRevision(),
                     returnedMetaData.lastUpdateTimestamp());
         }
-
-        commitPublication(resolver);
     }
 
     private JkMavenMetadata publish(JkCoordinate coordinate, JkArtifactLocator artifactLocator) {
@@ -130,11 +173,14 @@ final class IvyPublisherForMaven {
                 publishUniqueSnapshot(coordinate, artifactId.getName(),
                     artifactLocator.getArtifactPath(artifactId), versionUniqueSnapshot, mavenMetadata);
             }
+            awaitUploads();
+            push(mavenMetadata, path);
             return mavenMetadata;
         } else {
             for (final JkArtifactId artifactId : artifactLocator.getArtifactIds()) {
                 publishNormal(coordinate, artifactId.getName(), artifactLocator.getArtifactPath(artifactId));
             }
+            awaitUploads();
             return null;
         }
     }
@@ -204,9 +250,7 @@ final class IvyPublisherForMaven {
         final String dest = destination(coordinate, extension, classifier,
                 versionForUniqueSnapshot);
         putInRepo(source, dest, false);
-        final String path = snapshotMetadataPath(coordinate);
         mavenMetadata.addSnapshotVersion(extension, classifier);
-        push(mavenMetadata, path);
     }
 
     private void publishNormal(JkCoordinate coordinate, String classifier, Path source) {
@@ -263,6 +307,7 @@ final class IvyPublisherForMaven {
             throw new UncheckedIOException(e);
         }
         putInRepo(file, path, true);
+        awaitUploads();
     }
 
 
@@ -303,32 +348,84 @@ final class IvyPublisherForMaven {
     }
 
 
+    /*
+     * Schedules upload of the specified file, along its checksums and signature. Checksums are computed reading
+     * the file once, while the file is signed.
+     */
     private void putInRepo(Path source, String destination, boolean overwrite) {
-        final Repository repository = this.resolver.getRepository();
         final String dest = completePath(destination);
-        JkLog.info("Publish file " + dest);
+        submit(() -> upload(source, dest, overwrite));
+        if (!checksumAlgos.isEmpty()) {
+            submit(() -> {
+                final String[] digestAlgos = checksumAlgos.stream()
+                        .map(algo -> DIGEST_ALGORITHMS.getOrDefault(algo.toLowerCase(), algo))
+                        .toArray(String[]::new);
+                final Map<String, String> checksums = JkPathFile.of(source).getChecksums(digestAlgos);
+                int i = 0;
+                for (final String algo : checksumAlgos) {
+                    final String checksum = checksums.get(digestAlgos[i++]);
+                    submit(() -> {
+                        final Path temp = JkUtilsPath.createTempFile("jk-checksum-", algo);
+                        JkPathFile.of(temp).write(checksum.getBytes(StandardCharsets.US_ASCII));
+                        upload(temp, dest + "." + algo, overwrite);
+                        JkUtilsPath.deleteIfExists(temp);
+                    });
+                }
+            });
+        }
+        if (this.signer != null) {
+            submit(() -> upload(signer.apply(source), dest + ".asc", overwrite));
+        }
+    }
+
+    private void upload(Path source, String dest, boolean overwrite) {
+        final Repository repository = this.resolver.getRepository();
         try {
-            repository.put(null, source.toFile(), dest, overwrite);
-            for (final String algo : checksumAlgos) {
-                final Path temp = Files.createTempFile("jk-checksum-", algo);
-                final String checkSum = ChecksumHelper.computeAsString(source.toFile(), algo);
-                Files.write(temp, checkSum.getBytes());
-                final String csDest = dest + "." + algo;
-                JkLog.info("Publish file " + csDest);
-                repository.put(null, temp.toFile(), csDest, overwrite);
-                Files.deleteIfExists(temp);
-            }
-            if (this.signer != null) {
-                final Path signed = signer.apply(source);
-                final String signedDest = dest + ".asc";
-                JkLog.info("Publish file " + signedDest);
-                repository.put(null, signed.toFile(), signedDest, overwrite);
+            synchronized (repository) {
+                JkLog.info("Publish file " + dest);
+                repository.put(null, source.toFile(), dest, overwrite);
             }
         } catch (final IOException e) {
             throw new UncheckedIOException(e);
         }
     }
 
+    private void submit(Runnable task) {
+        synchronized (pendingUploads) {
+            pendingUploads.add(CompletableFuture.runAsync(task, uploadExecutor));
+        }
+    }
+
+    /*
+     * Waits for scheduled uploads, including ones scheduled by uploads themselves, then throws the first
+     * failure, if any.
+     */
+    private void awaitUploads() {
+        RuntimeException failure = null;
+        while (true) {
+            final List<CompletableFuture<Void>> uploads;
+            synchronized (pendingUploads) {
+                if (pendingUploads.isEmpty()) {
+                    break;
+                }
+                uploads = new ArrayList<>(pendingUploads);
+                pendingUploads.clear();
+            }
+            for (final CompletableFuture<Void> upload : uploads) {
+                try {
+                    upload.join();
+                } catch (final CompletionException e) {
+                    if (failure == null) {
+                        failure = JkUtilsThrowable.unchecked(e.getCause(), "Error while publishing files.");
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
     private String targetDir() {
         return this.descriptorOutputDir.toAbsolutePath().toString();
     }
@@ -1,9 +1,11 @@
 package dev.jeka.core.api.depmanagement.embedded.ivy;
 
+import dev.jeka.core.api.depmanagement.JkRepo;
 import dev.jeka.core.api.depmanagement.JkRepoSet;
 import dev.jeka.core.api.depmanagement.resolution.JkResolutionParameters;
 import dev.jeka.core.api.system.JkLocator;
 import dev.jeka.core.api.system.JkLog;
+import dev.jeka.core.api.utils.JkUtilsString;
 import org.apache.ivy.Ivy;
 import org.apache.ivy.core.IvyContext;
 import org.apache.ivy.core.settings.IvySettings;
@@ -11,28 +13,68 @@ import org.apache.ivy.plugins.conflict.AbstractConflictManager;
 import org.apache.ivy.plugins.resolver.AbstractResolver;
 import org.apache.ivy.util.url.URLHandlerRegistry;
 
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
 class IvyTranslatorToIvy {
 
     private static final String MAIN_RESOLVER_NAME = "MAIN";
 
+    // Idle Ivy instances, per repository and resolution setting. An instance is used by a single thread at a time.
+    private static final Map<String, Queue<Ivy>> POOL = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new <code>Ivy</code> instance. Use it when the settings are modified by the caller, otherwise
+     * prefer {@link #withIvy(JkRepoSet, JkResolutionParameters, Function)}.
+     */
     static Ivy toIvy(JkRepoSet repoSet, JkResolutionParameters parameters) {
         IvySettings ivySettings = ivySettingsOf(repoSet, parameters);
         return ivy(ivySettings);
     }
 
+    /**
+     * Applies the specified function to an <code>Ivy</code> instance configured for the specified repositories
+     * and parameters. Instances are reused across calls, so module descriptors and resolvers
+     * cached by Ivy survive from one resolution to another. The function must not modify Ivy settings.
+     */
+    static <T> T withIvy(JkRepoSet repoSet, JkResolutionParameters parameters, Function<Ivy, T> function) {
+        Queue<Ivy> idleInstances = POOL.computeIfAbsent(key(repoSet, parameters),
+                key -> new ConcurrentLinkedQueue<>());
+        Ivy ivy = idleInstances.poll();
+        if (ivy == null) {
+            ivy = toIvy(repoSet, parameters);
+        } else {
+            prepare(ivy);
+        }
+        try {
+            return function.apply(ivy);
+        } finally {
+            idleInstances.offer(ivy);
+        }
+    }
+
     private static Ivy ivy(IvySettings ivySettings) {
         final Ivy ivy = new Ivy();
         ivy.getLoggerEngine().popLogger();
         ivy.getLoggerEngine().setDefaultLogger(new IvyMessageLogger());
-        ivy.getLoggerEngine().setShowProgress(JkLog.verbosity() == JkLog.Verbosity.VERBOSE);
-        ivy.getLoggerEngine().clearProblems();
-        IvyContext.getContext().setIvy(ivy);
+        prepare(ivy);
         ivy.setSettings(ivySettings);
         ivy.bind();
         URLHandlerRegistry.setDefault(new IvyFollowRedirectUrlHandler());
         return ivy;
     }
 
+    // Verbosity and Ivy context are specific to the current call and thread
+    private static void prepare(Ivy ivy) {
+        ivy.getLoggerEngine().setShowProgress(JkLog.verbosity() == JkLog.Verbosity.VERBOSE);
+        ivy.getLoggerEngine().clearProblems();
+        IvyContext.getContext().setIvy(ivy);
+    }
+
     /**
      * Creates an <code>IvySettings</code> to the specified repositories.
      */
@@ -52,4 +94,24 @@ class IvyTranslatorToIvy {
         return ivySettings;
     }
 
+    // Contains everything from repos and parameters that is used to build Ivy settings
+    private static String key(JkRepoSet repos, JkResolutionParameters parameters) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(JkLocator.getJekaRepositoryCache()).append('|').append(parameters.getConflictResolver());
+        for (JkRepo repo : repos.getRepos()) {
+            sb.append('|').append(repo.isIvyRepo() ? "ivy:" : "").append(repo.getUrl());
+            if (repo.isIvyRepo()) {
+                sb.append(repo.getIvyConfig().artifactPatterns()).append(repo.getIvyConfig().ivyPatterns());
+            }
+            JkRepo.JkRepoCredentials credentials = repo.getCredentials();
+            if (credentials != null) {
+                // Hashed, so the password does not stay in clear in the key
+                sb.append('#').append(JkUtilsString.toSha256Hex(Objects.toString(credentials.getRealm(), "")
+                        + '\0' + Objects.toString(credentials.getUserName(), "")
+                        + '\0' + Objects.toString(credentials.getPassword(), "")));
+            }
+        }
+        return sb.toString();
+    }
+
 }
@@ -2,7 +2,9 @@ package dev.jeka.core.api.depmanagement.publication;
 
 import dev.jeka.core.api.depmanagement.JkRepo;
 import dev.jeka.core.api.system.JkLog;
+import dev.jeka.core.api.utils.JkUtilsAssert;
 import dev.jeka.core.api.utils.JkUtilsHttp;
+import dev.jeka.core.api.utils.JkUtilsIO;
 import dev.jeka.core.api.utils.JkUtilsSystem;
 import dev.jeka.core.api.utils.JkUtilsXml;
 import org.w3c.dom.Document;
@@ -12,10 +14,11 @@ import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.Base64;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -23,7 +26,11 @@ public class JkNexusRepos {
 
     private static final long CLOSE_TIMEOUT_MILLIS = 15 * 60 * 1000L;
 
-    private static final long CLOSE_WAIT_INTERVAL_MILLIS = 10_000L;
+    private static final long CLOSE_WAIT_INITIAL_INTERVAL_MILLIS = 2_000L;
+
+    private static final long CLOSE_WAIT_MAX_INTERVAL_MILLIS = 30_000L;
+
+    private static final int MAX_THREADS = Integer.getInteger("http.maxConnections", 5);
 
     private final String baseUrl;
 
@@ -31,6 +38,14 @@ public class JkNexusRepos {
 
     private int readTimeout;
 
+    private long closeTimeoutMillis = CLOSE_TIMEOUT_MILLIS;
+
+    private long closeWaitInitialIntervalMillis = CLOSE_WAIT_INITIAL_INTERVAL_MILLIS;
+
+    private long closeWaitMaxIntervalMillis = CLOSE_WAIT_MAX_INTERVAL_MILLIS;
+
+    private volatile List<JkStagingRepoTiming> lastTimings = Collections.emptyList();
+
     private JkNexusRepos(String baseUrl, String basicCredential) {
         this.baseUrl = baseUrl;
         this.basicCredential = basicCredential;
@@ -48,7 +63,7 @@ public class JkNexusRepos {
     public static JkNexusRepos ofRepo(JkRepo repo) {
         JkRepo.JkRepoCredentials repoCredentials = repo.getCredentials();
         URL url = repo.getUrl();
-        String baseUrl = url.getProtocol() + "://" + url.getHost();
+        String baseUrl = url.getProtocol() + "://" + url.getHost() + (url.getPort() == -1 ? "" : ":" + url.getPort());
         if (repo.getCredentials() == null) {
             return new JkNexusRepos(baseUrl, null);
         }
@@ -63,11 +78,34 @@ public class JkNexusRepos {
         return this;
     }
 
+    /**
+     * Sets the maximum time to wait for a repository being closed. Default is 15 minutes.
+     */
+    public JkNexusRepos setCloseTimeout(long millis) {
+        this.closeTimeoutMillis = millis;
+        return this;
+    }
+
+    /**
+     * Sets the intervals between two polls of a closing repository. The first poll happens immediately, then
+     * the interval starts at <code>initialMillis</code> and doubles at each poll, up to <code>maxMillis</code>.
+     * Default is 2 seconds to 30 seconds.
+     */
+    public JkNexusRepos setCloseWaitIntervals(long initialMillis, long maxMillis) {
+        JkUtilsAssert.argument(initialMillis > 0 && maxMillis >= initialMillis,
+                "Wait intervals must be positive with max >= initial. Was %s and %s.", initialMillis, maxMillis);
+        this.closeWaitInitialIntervalMillis = initialMillis;
+        this.closeWaitMaxIntervalMillis = maxMillis;
+        return this;
+    }
+
     /**
      * Closes then releases staging repositories in OPEN status.
      * Repositories not in OPEN status at time of invoking this method won't be released.
+     * Each repository is released as soon as it is closed, without waiting for the others.
      *
      * @param profileNames a filter to take in account only repositories having specified profile names. If empty, no filter applies.
+     * @see #getLastTimings()
      */
     public void closeAndReleaseOpenRepositories(String... profileNames) {
         JkLog.startTask("Closing and releasing staged repositories");
@@ -84,15 +122,16 @@ public class JkNexusRepos {
         }
         JkLog.info("Repositories to close and release : " + openRepoIds);
         close(openRepoIds);
-        openRepoIds.forEach(this::waitForClosing);
-        release(openRepoIds);
+        waitForClosingAndRelease(openRepoIds);
         JkLog.endTask();
     }
 
     /**
-     * Closes repositories in OPEN Status, waits for all repos are closed then releases all repositories.
+     * Closes repositories in OPEN Status, then releases every closing or closed repository. Each repository is
+     * released as soon as it is closed, without waiting for the others.
      *
      * @param profileNames a filter to take in account only repositories having specified profile names. If empty, no filter applies.
+     * @see #getLastTimings()
      */
     public void closeAndRelease(String... profileNames) {
         JkLog.startTask("Closing and releasing staged repository");
@@ -109,23 +148,24 @@ public class JkNexusRepos {
         }
         JkLog.info("Repositories to close : " + openRepoIds);
         close(openRepoIds);
-        List<String> closingRepoIds = findStagingRepositories().stream()
+        List<String> repoIds = findStagingRepositories().stream()
                 .filter(profileNameFilter(profileNames))
-                .filter(repo -> JkStagingRepo.Status.CLOSING == repo.getStatus())
+                .filter(repo -> JkStagingRepo.Status.OPEN != repo.getStatus())
                 .map(JkStagingRepo::getId)
                 .collect(Collectors.toList());
-        JkLog.info("Closing repositories " + closingRepoIds);
-        closingRepoIds.forEach(this::waitForClosing);
-        List<String> closedRepoIds = findStagingRepositories().stream()
-                .filter(profileNameFilter(profileNames))
-                .filter(repo -> JkStagingRepo.Status.CLOSED == repo.getStatus())
-                .map(JkStagingRepo::getId)
-                .collect(Collectors.toList());
-        JkLog.info("Releasing repositories " + closedRepoIds);
-        release(closedRepoIds);
+        JkLog.info("Closing or closed repositories " + repoIds);
+        waitForClosingAndRelease(repoIds);
         JkLog.endTask();
     }
 
+    /**
+     * Returns the timings of each repository released by the last invocation of
+     * {@link #closeAndRelease(String...)} or {@link #closeAndReleaseOpenRepositories(String...)}.
+     */
+    public List<JkStagingRepoTiming> getLastTimings() {
+        return lastTimings;
+    }
+
     public List<JkStagingRepo> findStagingRepositories() {
         try {
             return doFindStagingRepositories();
@@ -143,11 +183,13 @@ public class JkNexusRepos {
     }
 
     public void waitForClosing(String repositoryId) {
+        JkLog.startTask("Waiting for repository " + repositoryId + " been closed. It make take a while ...");
         try {
             doWaitForClosing(repositoryId);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
+        JkLog.endTask();
     }
 
     public void release(List<String> repositoryIds) {
@@ -158,6 +200,65 @@ public class JkNexusRepos {
         }
     }
 
+    /*
+     * Each repository is handled in its own thread, so the slowest repository only determines the overall duration.
+     * Logs are emitted without nested tasks as they come from several threads.
+     */
+    private void waitForClosingAndRelease(List<String> repositoryIds) {
+        lastTimings = Collections.emptyList();
+        if (repositoryIds.isEmpty()) {
+            JkLog.info("No repository to release.");
+            return;
+        }
+        long startMillis = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(repositoryIds.size(), MAX_THREADS), runnable -> {
+            Thread thread = new Thread(runnable, "jeka-nexus-staging");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<CompletableFuture<JkStagingRepoTiming>> futures = repositoryIds.stream()
+                    .map(repositoryId -> CompletableFuture.supplyAsync(
+                            () -> waitForClosingAndRelease(repositoryId, startMillis), executor))
+                    .collect(Collectors.toList());
+            List<JkStagingRepoTiming> result = new LinkedList<>();
+            RuntimeException failure = null;
+            for (CompletableFuture<JkStagingRepoTiming> future : futures) {
+                try {
+                    result.add(future.join());
+                } catch (CompletionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            JkLog.info("Released %s repositories in %s ms :", result.size(), System.currentTimeMillis() - startMillis);
+            result.forEach(timing -> JkLog.info("  " + timing));
+            lastTimings = Collections.unmodifiableList(result);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private JkStagingRepoTiming waitForClosingAndRelease(String repositoryId, long startMillis) {
+        try {
+            int polls = doWaitForClosing(repositoryId);
+            long closedMillis = System.currentTimeMillis();
+            JkLog.info("Repository %s closed after %s ms (%s polls). Releasing ...", repositoryId,
+                    closedMillis - startMillis, polls);
+            post("/service/local/staging/bulk/promote", releaseJson(Collections.singletonList(repositoryId)));
+            long releasedMillis = System.currentTimeMillis();
+            JkLog.info("Repository %s released.", repositoryId);
+            return new JkStagingRepoTiming(repositoryId, closedMillis - startMillis, releasedMillis - closedMillis,
+                    polls);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     private List<JkStagingRepo> doFindStagingRepositories() throws IOException {
         URL url = new URL(baseUrl + "/service/local/staging/profile_repositories");
         HttpURLConnection con = connection(url);
@@ -165,8 +266,8 @@ public class JkNexusRepos {
         con.setRequestProperty("Accept", "application/xml");
         con.setReadTimeout(readTimeout);
         JkUtilsHttp.assertResponseOk(con, null);
-        try (BufferedReader in = new BufferedReader(new InputStreamReader(con.getInputStream()))) {
-            Document doc = JkUtilsXml.documentFrom(in);
+        try (InputStream in = con.getInputStream()) {
+            Document doc = readDocument(in);
             Element data = JkUtilsXml.directChild(doc.getDocumentElement(), "data");
             List<Element> stagingReposEl = JkUtilsXml.directChildren(data, "stagingProfileRepository");
             return stagingReposEl.stream()
@@ -181,8 +282,8 @@ public class JkNexusRepos {
         con.setRequestMethod("GET");
         con.setRequestProperty("Accept", "application/xml");
         JkUtilsHttp.assertResponseOk(con, null);
-        try (BufferedReader in = new BufferedReader(new InputStreamReader(con.getInputStream()))) {
-            Document doc = JkUtilsXml.documentFrom(in);
+        try (InputStream in = con.getInputStream()) {
+            Document doc = readDocument(in);
             Element root = doc.getDocumentElement();
             return JkStagingRepo.fromEl(root);
         }
@@ -194,17 +295,8 @@ public class JkNexusRepos {
             return;
         }
         JkLog.startTask("Closing repositories " + repositoryIds);
-        URL url = new URL(baseUrl + "/service/local/staging/bulk/close");
-        HttpURLConnection con = connection(url);
-        con.setRequestMethod("POST");
-        con.setRequestProperty("Content-Type", "application/json");
-        con.setDoOutput(true);
         String json = "{\"data\":{\"stagedRepositoryIds\":" + toJsonArray(repositoryIds) + "}}";
-        try (OutputStream os = con.getOutputStream()) {
-            byte[] input = json.getBytes("utf-8");
-            os.write(input, 0, input.length);
-        }
-        JkUtilsHttp.assertResponseOk(con, json);
+        post("/service/local/staging/bulk/close", json);
         JkLog.endTask();
     }
 
@@ -214,35 +306,54 @@ public class JkNexusRepos {
             return;
         }
         JkLog.startTask("Releasing repositories " + repositoryIds);
-        URL url = new URL(baseUrl + "/service/local/staging/bulk/promote");
+        post("/service/local/staging/bulk/promote", releaseJson(repositoryIds));
+        JkLog.endTask();
+    }
+
+    private String releaseJson(List<String> repositoryIds) {
+        return "{\"data\":{\"autoDropAfterRelease\":true,\"stagedRepositoryIds\":"
+                + toJsonArray(repositoryIds) + "}}";
+    }
+
+    private void post(String path, String json) throws IOException {
+        URL url = new URL(baseUrl + path);
         HttpURLConnection con = connection(url);
         con.setRequestMethod("POST");
         con.setRequestProperty("Content-Type", "application/json");
         con.setDoOutput(true);
-        String json = "{\"data\":{\"autoDropAfterRelease\":true,\"stagedRepositoryIds\":"
-                + toJsonArray(repositoryIds) + "}}";
+        byte[] input = json.getBytes(StandardCharsets.UTF_8);
+        con.setFixedLengthStreamingMode(input.length);
         try (OutputStream os = con.getOutputStream()) {
-            byte[] input = json.getBytes("utf-8");
             os.write(input, 0, input.length);
         }
         JkUtilsHttp.assertResponseOk(con, json);
-        JkLog.endTask();
+        try (InputStream in = con.getInputStream()) {
+            drain(in);
+        }
     }
 
-    private void doWaitForClosing(String repositoryId) throws IOException {
+    /*
+     * Polls first immediately, then with an interval doubling up to the max one : closing a repository generally
+     * takes from a few seconds to a few minutes.
+     */
+    private int doWaitForClosing(String repositoryId) throws IOException {
         long startMillis = System.currentTimeMillis();
-        JkLog.startTask("Waiting for repository " + repositoryId + " been closed. It make take a while ...");
+        long interval = closeWaitInitialIntervalMillis;
+        int polls = 0;
         while (true) {
-            if (System.currentTimeMillis() - startMillis > CLOSE_TIMEOUT_MILLIS) {
-                throw new IllegalStateException("Timeout waiting for repository close.");
-            }
-            JkUtilsSystem.sleep(CLOSE_WAIT_INTERVAL_MILLIS);
             JkStagingRepo repo = doGetRepository(repositoryId);
+            polls++;
             if ("closed".equals(repo.type) && !repo.transitioning) {
-                break;
+                return polls;
             }
+            long elapsed = System.currentTimeMillis() - startMillis;
+            if (elapsed >= closeTimeoutMillis) {
+                throw new IllegalStateException("Timeout waiting for repository " + repositoryId + " close.");
+            }
+            JkLog.trace("Repository %s still closing after %s ms.", repositoryId, elapsed);
+            JkUtilsSystem.sleep(Math.min(interval, closeTimeoutMillis - elapsed));
+            interval = Math.min(interval * 2, closeWaitMaxIntervalMillis);
         }
-        JkLog.endTask();
     }
 
     private static Predicate<JkStagingRepo> profileNameFilter(String... profileNames) {
@@ -252,15 +363,32 @@ public class JkNexusRepos {
         return repo -> Arrays.asList(profileNames).contains(repo.profileName);
     }
 
+    /*
+     * Connections are kept alive between requests, provided that the response streams are fully read and closed
+     * and that connections are not explicitly disconnected.
+     */
     private HttpURLConnection connection(URL url) throws IOException {
         HttpURLConnection con = (HttpURLConnection) url.openConnection();
-        con.setRequestProperty("Authorization", "basic " + basicCredential);
+        if (basicCredential != null) {
+            con.setRequestProperty("Authorization", "basic " + basicCredential);
+        }
+        con.setRequestProperty("Connection", "keep-alive");
         con.setReadTimeout(5000);
         con.setInstanceFollowRedirects(true);
         return con;
     }
 
+    // Reads the whole response before parsing, as parsers may stop reading before the end of the stream.
+    private static Document readDocument(InputStream in) {
+        return JkUtilsXml.documentFrom(JkUtilsIO.readAsString(in));
+    }
 
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[4096];
+        while (in.read(buffer) != -1) {
+            // consume remaining bytes so the connection can be reused
+        }
+    }
 
     private String toJsonArray(List<String> items) {
         StringBuilder sb = new StringBuilder("[");
@@ -274,6 +402,53 @@ public class JkNexusRepos {
         return sb.toString();
     }
 
+    /**
+     * Timing of a staging repository close and release, as returned by {@link #getLastTimings()}.
+     */
+    public static class JkStagingRepoTiming {
+
+        private final String repositoryId;
+        private final long closingDurationMillis;
+        private final long releaseDurationMillis;
+        private final int pollCount;
+
+        private JkStagingRepoTiming(String repositoryId, long closingDurationMillis, long releaseDurationMillis,
+                                    int pollCount) {
+            this.repositoryId = repositoryId;
+            this.closingDurationMillis = closingDurationMillis;
+            this.releaseDurationMillis = releaseDurationMillis;
+            this.pollCount = pollCount;
+        }
+
+        public String getRepositoryId() {
+            return repositoryId;
+        }
+
+        /**
+         * Returns the time elapsed from the start of the wait until the repository was found closed.
+         */
+        public long getClosingDurationMillis() {
+            return closingDurationMillis;
+        }
+
+        public long getReleaseDurationMillis() {
+            return releaseDurationMillis;
+        }
+
+        /**
+         * Returns the number of status requests made until the repository was found closed.
+         */
+        public int getPollCount() {
+            return pollCount;
+        }
+
+        @Override
+        public String toString() {
+            return repositoryId + " : closed in " + closingDurationMillis + " ms (" + pollCount + " polls), released in "
+                    + releaseDurationMillis + " ms";
+        }
+    }
+
     public static class JkStagingRepo {
 
         enum Status {
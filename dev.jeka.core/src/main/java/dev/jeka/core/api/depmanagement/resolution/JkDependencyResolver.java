@@ -5,10 +5,11 @@ import dev.jeka.core.api.depmanagement.JkModuleId;
 import dev.jeka.core.api.system.JkLog;
 import dev.jeka.core.api.utils.JkUtilsAssert;
 
+import java.time.Duration;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static dev.jeka.core.api.utils.JkUtilsString.pluralize;
@@ -27,10 +28,14 @@ public final class JkDependencyResolver<T> {
 
     private JkRepoSet repos = JkRepoSet.of();
 
-    private final Map<JkQualifiedDependencySet, JkResolveResult> cachedResults = new HashMap<>();
+    private final Map<JkQualifiedDependencySet, JkResolveResult> cachedResults = new ConcurrentHashMap<>();
 
     private boolean useCache;
 
+    private boolean useFileSystemCache = true;
+
+    private Duration fileSystemCacheDynamicVersionTtl = Duration.ZERO;
+
     /**
      * For parent chaining
      */
@@ -86,6 +91,30 @@ public final class JkDependencyResolver<T> {
         return this.useCache;
     }
 
+    /**
+     * If <code>true</code>, module dependency trees are stored on file system, so next resolutions of
+     * the same dependencies, on the same repositories, do not need to query repositories anymore, even in
+     * another JVM. Default is <code>true</code>.
+     */
+    public JkDependencyResolver<T> setUseFileSystemCache(boolean useFileSystemCache) {
+        this.useFileSystemCache = useFileSystemCache;
+        return this;
+    }
+
+    public boolean isUseFileSystemCache() {
+        return this.useFileSystemCache;
+    }
+
+    /**
+     * Sets the duration during which trees involving snapshot or dynamic versions are taken from
+     * the file system cache. Default is zero, meaning that such trees are always resolved against repositories.
+     */
+    public JkDependencyResolver<T> setFileSystemCacheDynamicVersionTtl(Duration ttl) {
+        JkUtilsAssert.argument(ttl != null, "ttl cannot be null");
+        this.fileSystemCacheDynamicVersionTtl = ttl;
+        return this;
+    }
+
     public JkDependencyResolver<T> cleanCache() {
         this.cachedResults.clear();
         return this;
@@ -166,7 +195,7 @@ public final class JkDependencyResolver<T> {
         if (hasModule) {
             JkUtilsAssert.state(!repos.getRepos().isEmpty(), "Cannot resolve module dependency cause no " +
                     "repos has defined on resolver " + this);
-            resolveResult = internalDepResolver.resolve(moduleHolder, moduleQualifiedDependencies, params);
+            resolveResult = resolveModules(internalDepResolver, moduleQualifiedDependencies, params);
         } else {
             resolveResult = JkResolveResult.ofRoot(moduleHolder);
         }
@@ -194,6 +223,26 @@ public final class JkDependencyResolver<T> {
         return resolveResult;
     }
 
+    private JkResolveResult resolveModules(JkInternalDependencyResolver internalDepResolver,
+                                           JkQualifiedDependencySet moduleDependencies,
+                                           JkResolutionParameters params) {
+        if (!useFileSystemCache) {
+            return internalDepResolver.resolve(moduleHolder, moduleDependencies, params);
+        }
+        ResolvedTreeCache treeCache = ResolvedTreeCache.ofDefault();
+        String fingerprint = ResolvedTreeCache.fingerprint(moduleHolder, moduleDependencies, repos, params);
+        JkResolvedDependencyNode cachedTree = treeCache.get(fingerprint, fileSystemCacheDynamicVersionTtl);
+        if (cachedTree != null) {
+            JkLog.trace("Dependency tree taken from file system cache.");
+            return JkResolveResult.of(cachedTree, JkResolveResult.JkErrorReport.allFine());
+        }
+        JkResolveResult result = internalDepResolver.resolve(moduleHolder, moduleDependencies, params);
+        if (!result.getErrorReport().hasErrors()) {
+            treeCache.put(fingerprint, moduleDependencies, result.getDependencyTree());
+        }
+        return result;
+    }
+
     /**
      * Returns an alphabetical sorted list of groupId present in these repositories
      */
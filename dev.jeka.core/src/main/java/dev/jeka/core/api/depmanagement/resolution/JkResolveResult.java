@@ -27,6 +27,9 @@ public final class JkResolveResult {
 
     private final JkErrorReport errorReport;
 
+    // Requested several times per build while both fields are immutable
+    private volatile JkPathSequence files;
+
     private JkResolveResult(JkResolvedDependencyNode depTree, JkErrorReport errorReport) {
         super();
         this.depTree = depTree;
@@ -58,7 +61,13 @@ public final class JkResolveResult {
      * Shorthand for {@link JkResolvedDependencyNode#getResolvedFiles()} on the tree root.
      */
     public JkPathSequence getFiles() {
-        return JkPathSequence.of(this.depTree.getResolvedFiles()).withoutDuplicates().resolvedTo(Paths.get(""));
+        JkPathSequence result = files;
+        if (result == null) {
+            result = JkPathSequence.of(this.depTree.getResolvedFiles()).withoutDuplicates()
+                    .resolvedTo(Paths.get(""));
+            files = result;
+        }
+        return result;
     }
 
     /**
@@ -2,9 +2,10 @@ package dev.jeka.core.api.depmanagement.resolution;
 
 import dev.jeka.core.api.depmanagement.*;
 import dev.jeka.core.api.depmanagement.JkModuleId;
-import dev.jeka.core.api.utils.JkUtilsIterable;
+import dev.jeka.core.api.system.JkLog;
 import dev.jeka.core.api.utils.JkUtilsPath;
 import dev.jeka.core.api.utils.JkUtilsString;
+import dev.jeka.core.api.utils.JkUtilsThrowable;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
@@ -12,6 +13,11 @@ import java.io.File;
 import java.io.Serializable;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 /**
  * A representation of a node in a dependency tree.
@@ -28,6 +34,9 @@ public class JkResolvedDependencyNode {
 
     private final JkVersionProvider resolvedVersions;
 
+    // Nodes are immutable, so the index is computed once, at first query needing it
+    private volatile Index index;
+
     private JkResolvedDependencyNode(JkNodeInfo nodeInfo, List<JkResolvedDependencyNode> children) {
         this.nodeInfo = nodeInfo;
         this.children = children;
@@ -55,6 +64,7 @@ public class JkResolvedDependencyNode {
     }
 
     JkResolvedDependencyNode mergeNonModules(List<? extends JkDependency> dependencies) {
+        computeConcurrently(dependencies);
         final List<JkResolvedDependencyNode> result = new LinkedList<>();
         final Set<JkFileDependency> addedFileDeps = new HashSet<>();
         for (final JkResolvedDependencyNode node : this.children) {
@@ -71,12 +81,7 @@ public class JkResolvedDependencyNode {
      * Returns all files resulting of this dependency node (this node itself plus all descendants).
      */
     public List<Path> getResolvedFiles() {
-        final List<Path> list = new LinkedList<>();
-        JkUtilsIterable.addAllWithoutDuplicate(list, this.nodeInfo.getFiles());
-        for (final JkResolvedDependencyNode child : children) {
-            JkUtilsIterable.addAllWithoutDuplicate(list, child.getResolvedFiles());
-        }
-        return list;
+        return new LinkedList<>(index().files);
     }
 
     /**
@@ -117,16 +122,7 @@ public class JkResolvedDependencyNode {
      * Evicted nodes are not taken in account.
      */
     public boolean contains(JkModuleId moduleId) {
-        if (this.isModuleNode() && moduleId.equals(this.getModuleInfo().getModuleId()) && !this.getModuleInfo().isEvicted()) {
-            return true;
-        }
-        for (final JkResolvedDependencyNode child : this.children) {
-            final boolean contains = child.contains(moduleId);
-            if (contains) {
-                return true;
-            }
-        }
-        return false;
+        return index().containedModuleIds.contains(moduleId);
     }
 
     /**
@@ -140,18 +136,7 @@ public class JkResolvedDependencyNode {
      * Returns the versioned modules which with this result has been created.
      */
     public Set<JkCoordinate> getChildModules() {
-        return resolvedModules(true);
-    }
-
-    private Set<JkCoordinate> resolvedModules(boolean root) {
-        final Set<JkCoordinate> result = new HashSet<>();
-        if (!root && this.isModuleNode() && !this.getModuleInfo().isEvicted()) {
-            result.add(this.getModuleInfo().jkModuleId.toCoordinate(this.getModuleInfo().resolvedVersion.getValue()));
-        }
-        for (final JkResolvedDependencyNode child : this.children) {
-            result.addAll(child.resolvedModules(false));
-        }
-        return result;
+        return new HashSet<>(index().childModules);
     }
 
     /**
@@ -193,6 +178,53 @@ public class JkResolvedDependencyNode {
         return new JkResolvedDependencyNode(this.nodeInfo, resultChildren);
     }
 
+    /*
+     * Computed dependencies are generated concurrently, before being added to the tree in declaration order.
+     * Dependencies among them are still honored, as generating a file waits for the generation in progress
+     * of the same file.
+     */
+    private static void computeConcurrently(List<? extends JkDependency> dependencies) {
+        List<JkComputedDependency> computedDependencies = dependencies.stream()
+                .filter(JkComputedDependency.class::isInstance)
+                .map(JkComputedDependency.class::cast)
+                .distinct()
+                .collect(Collectors.toList());
+        int threadCount = Math.min(computedDependencies.size(), Runtime.getRuntime().availableProcessors());
+        if (threadCount < 2) {
+            return;
+        }
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "jeka-computed-dependency");
+            thread.setContextClassLoader(contextClassLoader);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = computedDependencies.stream()
+                    .map(dependency -> executor.submit(() -> JkLog.runBuffered(dependency::getFiles)))
+                    .collect(Collectors.toList());
+            RuntimeException failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = JkUtilsThrowable.unchecked(e.getCause(), e.getMessage());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw JkUtilsThrowable.unchecked(e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     private static void addFileDepsToTree(List<? extends JkDependency> dependencies, List<JkResolvedDependencyNode> result,
                                           Set<JkFileDependency> addedFileDeps, JkModuleId jkModuleId) {
         for (final JkDependency dependency : depsUntilLast(dependencies, jkModuleId)) {
@@ -209,27 +241,23 @@ public class JkResolvedDependencyNode {
      * Returns all descendant nodes of this one, deep first.
      */
     public List<JkResolvedDependencyNode> toFlattenList() {
-        final List<JkResolvedDependencyNode> result = new LinkedList<>();
-        for (final JkResolvedDependencyNode child : this.getChildren()) {
-            result.add(child);
-            result.addAll(child.toFlattenList());
-        }
-        return result;
+        return new LinkedList<>(index().descendants);
     }
 
     /**
      * Returns first node descendant of this one standing for the specified getModuleId, deep first.
      */
     public JkResolvedDependencyNode getFirst(JkModuleId jkModuleId) {
-        if (this.isModuleNode() && jkModuleId.equals(this.getModuleId())) {
-            return this;
-        }
-        for (final JkResolvedDependencyNode child : this.toFlattenList()) {
-            if (child.isModuleNode() && jkModuleId.equals(child.getModuleId())) {
-                return child;
-            }
+        return index().firstModuleNodes.get(jkModuleId);
+    }
+
+    private Index index() {
+        Index result = index;
+        if (result == null) {
+            result = new Index(this);
+            index = result;
         }
-        return null;
+        return result;
     }
 
     private boolean directChildrenContains(JkModuleId jkModuleId) {
@@ -417,6 +445,10 @@ public class JkResolvedDependencyNode {
             return resolvedVersion == null;
         }
 
+        boolean isTreeRoot() {
+            return treeRoot;
+        }
+
         @Override
         public List<Path> getFiles() {
             return JkUtilsPath.toPaths(artifacts);
@@ -456,11 +488,61 @@ public class JkResolvedDependencyNode {
             }
         }
         for (final JkResolvedDependencyNode child : children) {
-            result = result.and(compute(child.getNodeInfo(), child.getChildren()));
+            result = result.and(child.resolvedVersions);
         }
         return result;
     }
 
+    /*
+     * Flattened view of a tree, computed in a single deep-first walk, so that queries on files and modules do
+     * not walk the tree again. This matters for large trees where a same module appears under many parents.
+     */
+    private static final class Index {
+
+        // Deep-first, excluding the root
+        private final List<JkResolvedDependencyNode> descendants = new ArrayList<>();
+
+        // Deep-first, without duplicates
+        private final List<Path> files;
+
+        private final Map<JkModuleId, JkResolvedDependencyNode> firstModuleNodes = new HashMap<>();
+
+        // Non-evicted modules, including the root
+        private final Set<JkModuleId> containedModuleIds = new HashSet<>();
+
+        // Non-evicted modules, excluding the root
+        private final Set<JkCoordinate> childModules = new HashSet<>();
+
+        Index(JkResolvedDependencyNode root) {
+            Set<Path> fileSet = new LinkedHashSet<>();
+            Deque<JkResolvedDependencyNode> stack = new ArrayDeque<>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                JkResolvedDependencyNode node = stack.pop();
+                if (node != root) {
+                    descendants.add(node);
+                }
+                fileSet.addAll(node.nodeInfo.getFiles());
+                if (node.isModuleNode()) {
+                    JkModuleNodeInfo moduleNodeInfo = node.getModuleInfo();
+                    firstModuleNodes.putIfAbsent(moduleNodeInfo.jkModuleId, node);
+                    if (!moduleNodeInfo.isEvicted()) {
+                        containedModuleIds.add(moduleNodeInfo.jkModuleId);
+                        if (node != root) {
+                            childModules.add(moduleNodeInfo.getResolvedVersionedModule());
+                        }
+                    }
+                }
+                ListIterator<JkResolvedDependencyNode> it = node.children.listIterator(node.children.size());
+                while (it.hasPrevious()) {
+                    stack.push(it.previous());
+                }
+            }
+            this.files = new ArrayList<>(fileSet);
+        }
+
+    }
+
     public static final class JkFileNodeInfo implements Serializable, JkNodeInfo {
 
         private static final long serialVersionUID = 1L;
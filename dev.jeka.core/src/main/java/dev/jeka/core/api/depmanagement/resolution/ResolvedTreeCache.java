@@ -0,0 +1,205 @@
+package dev.jeka.core.api.depmanagement.resolution;
+
+import dev.jeka.core.api.depmanagement.*;
+import dev.jeka.core.api.system.JkLocator;
+import dev.jeka.core.api.system.JkLog;
+import dev.jeka.core.api.utils.JkUtilsPath;
+import dev.jeka.core.api.utils.JkUtilsString;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/*
+ * File system cache of module dependency trees, shared by all builds running on this machine. A tree is stored
+ * under a hash of everything that may impact the resolution : module holder, qualified dependencies,
+ * repositories and resolution parameters.
+ *
+ * Trees involving snapshot or dynamic versions expire after a given duration. Dynamic versions are looked for in
+ * declared dependencies, managed versions and in the versions requested by every node of the tree, as ranges
+ * declared in transitive dependency descriptors. A tree referencing an artifact
+ * file that does not exist anymore is ignored.
+ */
+final class ResolvedTreeCache {
+
+    private static final String FORMAT_VERSION = "1";
+
+    private static final String SEPARATOR = "\t";
+
+    private final Path dir;
+
+    ResolvedTreeCache(Path dir) {
+        this.dir = dir;
+    }
+
+    static ResolvedTreeCache ofDefault() {
+        return new ResolvedTreeCache(JkLocator.getCacheDir().resolve("resolved-trees"));
+    }
+
+    static String fingerprint(JkCoordinate moduleHolder, JkQualifiedDependencySet dependencies, JkRepoSet repos,
+                              JkResolutionParameters parameters) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("format:").append(FORMAT_VERSION).append('\n');
+        sb.append("holder:").append(moduleHolder == null ? "" : moduleHolder).append('\n');
+        sb.append("conflictResolver:").append(parameters.getConflictResolver()).append('\n');
+        for (JkRepo repo : repos.getRepos()) {
+            sb.append("repo:").append(repo.isIvyRepo() ? "ivy:" : "").append(repo.getUrl());
+            if (repo.isIvyRepo()) {
+                sb.append(repo.getIvyConfig().artifactPatterns()).append(repo.getIvyConfig().ivyPatterns());
+            }
+            sb.append('\n');
+        }
+        for (JkQualifiedDependency qualifiedDependency : dependencies.getEntries()) {
+            JkCoordinateDependency dependency = (JkCoordinateDependency) qualifiedDependency.getDependency();
+            sb.append("dep:").append(qualifiedDependency.getQualifier()).append(';')
+                    .append(dependency.getCoordinate()).append(';')
+                    .append(dependency.getTransitivity()).append(';')
+                    .append(dependency.getExclusions().stream()
+                            .map(ResolvedTreeCache::toString)
+                            .collect(Collectors.joining(","))).append('\n');
+        }
+        dependencies.getGlobalExclusions().stream()
+                .map(ResolvedTreeCache::toString)
+                .sorted()
+                .forEach(exclusion -> sb.append("exclude:").append(exclusion).append('\n'));
+        dependencies.getVersionProvider().toMap().entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue().getValue())
+                .sorted()
+                .forEach(version -> sb.append("version:").append(version).append('\n'));
+        return sb.toString();
+    }
+
+    /**
+     * Returns the cached tree for the specified fingerprint or <code>null</code> if none or not valid anymore.
+     */
+    JkResolvedDependencyNode get(String fingerprint, Duration dynamicVersionTtl) {
+        Path file = file(fingerprint);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            int fingerprintLineCount = Integer.parseInt(lines.get(0));
+            String storedFingerprint = String.join("\n", lines.subList(1, fingerprintLineCount + 1)) + "\n";
+            if (!storedFingerprint.equals(fingerprint)) {
+                return null;
+            }
+            List<String> treeLines = lines.subList(fingerprintLineCount + 1, lines.size());
+            boolean dynamic = Boolean.parseBoolean(treeLines.get(0));
+            if (dynamic) {
+                long age = System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis();
+                if (age > dynamicVersionTtl.toMillis()) {
+                    JkLog.trace("Cached dependency tree involves dynamic versions and is expired.");
+                    return null;
+                }
+            }
+            JkResolvedDependencyNode result = readNode(treeLines.listIterator(1), 0);
+            if (result.getResolvedFiles().stream().anyMatch(path -> !Files.exists(path))) {
+                JkLog.trace("Cached dependency tree refers to missing files.");
+                return null;
+            }
+            return result;
+        } catch (IOException | RuntimeException e) {
+            JkLog.trace("Cannot read cached dependency tree %s : %s", file, e.getMessage());
+            return null;
+        }
+    }
+
+    void put(String fingerprint, JkQualifiedDependencySet dependencies, JkResolvedDependencyNode tree) {
+        List<String> fingerprintLines = Arrays.asList(fingerprint.split("\n"));
+        List<String> lines = new LinkedList<>();
+        lines.add(Integer.toString(fingerprintLines.size()));
+        lines.addAll(fingerprintLines);
+        lines.add(Boolean.toString(isDynamic(dependencies, tree)));
+        writeNode(lines, tree, 0);
+        Path file = file(fingerprint);
+        try {
+            JkUtilsPath.createDirectories(dir);
+            Path tempFile = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            Files.write(tempFile, lines, StandardCharsets.UTF_8);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            JkLog.trace("Cannot store dependency tree in %s : %s", file, e.getMessage());
+        }
+    }
+
+    private Path file(String fingerprint) {
+        return dir.resolve(JkUtilsString.toSha256Hex(fingerprint) + ".txt");
+    }
+
+    private static boolean isDynamic(JkQualifiedDependencySet dependencies, JkResolvedDependencyNode tree) {
+        boolean declaredDynamic = dependencies.getEntries().stream()
+                .map(qualifiedDependency -> (JkCoordinateDependency) qualifiedDependency.getDependency())
+                .anyMatch(dependency -> dependency.getCoordinate().getVersion().isDynamic());
+        boolean managedDynamic = dependencies.getVersionProvider().toMap().values().stream()
+                .anyMatch(JkVersion::isDynamic);
+        return declaredDynamic || managedDynamic || tree.toFlattenList().stream()
+                .map(JkResolvedDependencyNode::getModuleInfo)
+                .anyMatch(ResolvedTreeCache::isDynamic);
+    }
+
+    // Requested versions are the ones declared by the caller, before conflict resolution
+    private static boolean isDynamic(JkResolvedDependencyNode.JkModuleNodeInfo moduleNodeInfo) {
+        JkVersion requestedVersion = moduleNodeInfo.getDeclaredVersion();
+        if (requestedVersion != null && requestedVersion.isDynamic()) {
+            return true;
+        }
+        return !moduleNodeInfo.isEvicted() && moduleNodeInfo.getResolvedVersion().isSnapshot();
+    }
+
+    private static void writeNode(List<String> lines, JkResolvedDependencyNode node, int depth) {
+        JkResolvedDependencyNode.JkModuleNodeInfo info = node.getModuleInfo();
+        List<String> items = new LinkedList<>();
+        items.add(Integer.toString(depth));
+        items.add(Boolean.toString(info.isTreeRoot()));
+        items.add(info.getModuleId().toString());
+        items.add(info.getDeclaredVersion().getValue());
+        items.add(String.join(",", info.getDeclaredConfigurations()));
+        items.add(String.join(",", info.getRootConfigurations()));
+        items.add(info.isEvicted() ? "" : info.getResolvedVersion().getValue());
+        info.getFiles().forEach(path -> items.add(path.toString()));
+        lines.add(String.join(SEPARATOR, items));
+        node.getChildren().forEach(child -> writeNode(lines, child, depth + 1));
+    }
+
+    private static JkResolvedDependencyNode readNode(ListIterator<String> it, int depth) {
+        String[] items = it.next().split(SEPARATOR, -1);
+        if (Integer.parseInt(items[0]) != depth) {
+            throw new IllegalStateException("Unexpected depth " + items[0] + " for " + items[2]);
+        }
+        JkVersion resolvedVersion = items[6].isEmpty() ? null : JkVersion.of(items[6]);
+        List<Path> files = Arrays.stream(items, 7, items.length).map(Paths::get).collect(Collectors.toList());
+        JkResolvedDependencyNode.JkModuleNodeInfo info = new JkResolvedDependencyNode.JkModuleNodeInfo(
+                JkModuleId.of(items[2]), JkVersion.of(items[3]), toSet(items[4]), toSet(items[5]),
+                resolvedVersion, files, Boolean.parseBoolean(items[1]));
+        List<JkResolvedDependencyNode> children = new LinkedList<>();
+        while (it.hasNext()) {
+            int nextDepth = Integer.parseInt(it.next().split(SEPARATOR, 2)[0]);
+            it.previous();
+            if (nextDepth <= depth) {
+                break;
+            }
+            children.add(readNode(it, depth + 1));
+        }
+        return JkResolvedDependencyNode.ofModuleDep(info, children);
+    }
+
+    private static Set<String> toSet(String value) {
+        if (value.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(Arrays.asList(value.split(",")));
+    }
+
+    private static String toString(JkDependencyExclusion exclusion) {
+        return exclusion.getModuleId() + ":" + Objects.toString(exclusion.getClassifier(), "") + ":"
+                + Objects.toString(exclusion.getType(), "");
+    }
+
+}
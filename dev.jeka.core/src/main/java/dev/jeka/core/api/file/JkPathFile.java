@@ -16,6 +16,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.attribute.PosixFilePermission;
 import java.security.MessageDigest;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -151,17 +152,34 @@ public final class JkPathFile {
      * @param algorithm Hashing algorithm as MD5, SHA-2, ...
      */
     public String getChecksum(String algorithm) {
+        return getChecksums(algorithm).get(algorithm);
+    }
+
+    /**
+     * Returns ASCII string representations of the checksums of this file for the specified algorithms, computed
+     * while reading the file only once.
+     * @param algorithms Hashing algorithms as MD5, SHA-1, ...
+     * @return A map whose keys are the specified algorithms.
+     */
+    public Map<String, String> getChecksums(String ... algorithms) {
         assertExist();
         try (final InputStream is = Files.newInputStream(path)) {
-            final MessageDigest md = MessageDigest.getInstance(algorithm);
-            md.reset();
-            final byte[] buf = new byte[2048];
+            final MessageDigest[] mds = new MessageDigest[algorithms.length];
+            for (int i = 0; i < algorithms.length; i++) {
+                mds[i] = MessageDigest.getInstance(algorithms[i]);
+            }
+            final byte[] buf = new byte[65536];
             int len;
             while ((len = is.read(buf)) != -1) {
-                md.update(buf, 0, len);
+                for (MessageDigest md : mds) {
+                    md.update(buf, 0, len);
+                }
+            }
+            final Map<String, String> result = new LinkedHashMap<>();
+            for (int i = 0; i < algorithms.length; i++) {
+                result.put(algorithms[i], JkUtilsString.toHexString(mds[i].digest()));
             }
-            final byte[] bytes = md.digest();
-            return JkUtilsString.toHexString(bytes);
+            return result;
         } catch (final Exception e) {
             throw JkUtilsThrowable.unchecked(e);
         }
@@ -191,12 +209,11 @@ public final class JkPathFile {
      * Produces checksum of this file. Checksum files are created in the same directory as this file.
      */
     public JkPathFile checksum(String ... algorithms) {
-        assertExist();
-        for (String algorithm : algorithms) {
+        getChecksums(algorithms).forEach((algorithm, checksum) -> {
             final String fileName = this.path.getFileName().toString() + "." + algorithm.toLowerCase();
             JkPathFile.of(path.resolveSibling(fileName)).deleteIfExist().write(
-                    this.getChecksum(algorithm).getBytes(Charset.forName("ASCII")));
-        }
+                    checksum.getBytes(Charset.forName("ASCII")));
+        });
         return this;
     }
 
@@ -3,8 +3,10 @@ package dev.jeka.core.api.file;
 import dev.jeka.core.api.utils.JkUtilsAssert;
 
 import java.nio.file.*;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.function.Predicate;
 
 /**
@@ -14,6 +16,8 @@ public final class JkPathMatcher implements PathMatcher {
 
     private static final String ALL_LABEL_PREFIX = "all && ";
 
+    private static final PathMatcher ACCEPT_ALL_SUBTREES = path -> true;
+
     static final JkPathMatcher ACCEPT_ALL = JkPathMatcher.of();
 
     // --------------------- Factory methods ------------------------------------------------
@@ -22,7 +26,7 @@ public final class JkPathMatcher implements PathMatcher {
      * Creates an instance from a {@link PathMatcher} instance.
      */
     public static JkPathMatcher of(PathMatcher matcher) {
-        return new JkPathMatcher(matcher, "?");
+        return new JkPathMatcher(matcher, "?", subtreeMatcherOf(matcher));
     }
 
     /**
@@ -76,17 +80,23 @@ public final class JkPathMatcher implements PathMatcher {
             return JkPathMatcher.of();
         }
         String pattern = it.next();
-        PathMatcher result = path -> positive == globMatcher(fileSystem, pattern).matches(path);
+        PathMatcher firstMatcher = globMatcher(fileSystem, pattern);
+        PathMatcher result = path -> positive == firstMatcher.matches(path);
+        PathMatcher subtreeResult = positive ? new GlobSubtreeMatcher(fileSystem, pattern)
+                : new ExcludedSubtreeMatcher(fileSystem, pattern);
         while (it.hasNext()) {
             String itPattern = it.next();
+            PathMatcher itMatcher = globMatcher(fileSystem, itPattern);
             if (positive) {
-                result = new OrMatcher(result, globMatcher(fileSystem, itPattern));
+                result = new OrMatcher(result, itMatcher);
+                subtreeResult = new OrMatcher(subtreeResult, new GlobSubtreeMatcher(fileSystem, itPattern));
             } else {
-                result = new AndMatcher(result, path -> !globMatcher(fileSystem, itPattern).matches(path));
+                result = new AndMatcher(result, path -> !itMatcher.matches(path));
+                subtreeResult = new AndMatcher(subtreeResult, new ExcludedSubtreeMatcher(fileSystem, itPattern));
             }
         }
         String name = positive ? "in" : "out";
-        return new JkPathMatcher(result, name + globPatterns);
+        return new JkPathMatcher(result, name + globPatterns, subtreeResult);
     }
 
     // ---------------------------- fields and constructors
@@ -95,9 +105,17 @@ public final class JkPathMatcher implements PathMatcher {
 
     private final String label;
 
-    private JkPathMatcher(PathMatcher matcher, String label) {
+    // Matches directories (relative paths) under which some paths may be matched by this matcher
+    private final PathMatcher subtreeMatcher;
+
+    private JkPathMatcher(PathMatcher matcher, String label, PathMatcher subtreeMatcher) {
         this.matcher = matcher;
         this.label = label;
+        this.subtreeMatcher = subtreeMatcher;
+    }
+
+    private JkPathMatcher(PathMatcher matcher, String label) {
+        this(matcher, label, ACCEPT_ALL_SUBTREES);
     }
 
     @Override
@@ -122,6 +140,23 @@ public final class JkPathMatcher implements PathMatcher {
         return matcher.matches(path);
     }
 
+    /**
+     * Returns <code>false</code> if this matcher is known to match none of the paths located under the
+     * specified directory, so file walkers can skip the whole directory. The directory is expressed as
+     * a path relative to the walked root, as the paths passed to {@link #matches(Path)}. <p>
+     * This method is conservative : it returns <code>true</code> whenever it can not tell.
+     */
+    public boolean mayMatchUnder(Path relativeDir) {
+        return relativeDir.toString().isEmpty() || subtreeMatcher.matches(relativeDir);
+    }
+
+    /**
+     * Returns <code>true</code> if {@link #mayMatchUnder(Path)} may return <code>false</code> for some directories.
+     */
+    public boolean canPruneDirectories() {
+        return subtreeMatcher != ACCEPT_ALL_SUBTREES;
+    }
+
     // ---------------------------- adders ---------------------------------------
 
     public JkPathMatcher and(PathMatcher other) {
@@ -129,13 +164,17 @@ public final class JkPathMatcher implements PathMatcher {
             if (other == ACCEPT_ALL.matcher || other == ACCEPT_ALL) {
                 return ACCEPT_ALL;
             }
-            return new JkPathMatcher(other, other.toString());
+            return new JkPathMatcher(other, other.toString(), subtreeMatcherOf(other));
         }
         if (other == ACCEPT_ALL.matcher || other ==ACCEPT_ALL) {
             return this;
         }
+        PathMatcher otherSubtreeMatcher = subtreeMatcherOf(other);
+        PathMatcher subtreeResult = this.subtreeMatcher == ACCEPT_ALL_SUBTREES ? otherSubtreeMatcher
+                : otherSubtreeMatcher == ACCEPT_ALL_SUBTREES ? this.subtreeMatcher
+                : new AndMatcher(this.subtreeMatcher, otherSubtreeMatcher);
         return new JkPathMatcher(new AndMatcher(this.matcher, other),
-                this.label + " && " + other.toString());
+                this.label + " && " + other.toString(), subtreeResult);
     }
 
     public JkPathMatcher or(PathMatcher other) {
@@ -143,8 +182,12 @@ public final class JkPathMatcher implements PathMatcher {
         if (this == ACCEPT_ALL || other == ACCEPT_ALL || other == ACCEPT_ALL.matcher) {
             return ACCEPT_ALL;
         }
+        PathMatcher otherSubtreeMatcher = subtreeMatcherOf(other);
+        PathMatcher subtreeResult = this.subtreeMatcher == ACCEPT_ALL_SUBTREES
+                || otherSubtreeMatcher == ACCEPT_ALL_SUBTREES ? ACCEPT_ALL_SUBTREES
+                : new OrMatcher(this.subtreeMatcher, otherSubtreeMatcher);
         return new JkPathMatcher(new OrMatcher(this.matcher, other),
-                this.label + " || " + other.toString());
+                this.label + " || " + other.toString(), subtreeResult);
     }
 
     public JkPathMatcher and(boolean positive, FileSystem fileSystem, String ...patterns) {
@@ -161,6 +204,82 @@ public final class JkPathMatcher implements PathMatcher {
         return fileSystem.getPathMatcher("glob:" + pattern);
     }
 
+    private static PathMatcher subtreeMatcherOf(PathMatcher matcher) {
+        if (matcher instanceof JkPathMatcher) {
+            return ((JkPathMatcher) matcher).subtreeMatcher;
+        }
+        return ACCEPT_ALL_SUBTREES;
+    }
+
+    /*
+     * Matches directories under which a path may match the glob pattern. The pattern is compared
+     * segment by segment with the directory, until a segment containing '**' is met.
+     */
+    private static class GlobSubtreeMatcher implements PathMatcher {
+
+        private final List<PathMatcher> segmentMatchers = new ArrayList<>();
+
+        // true if the pattern can match paths at any depth, or if segments can not be analysed safely
+        private final boolean anyDepth;
+
+        GlobSubtreeMatcher(FileSystem fileSystem, String pattern) {
+            boolean unsafe = pattern.contains("\\") || pattern.matches(".*\\{[^}]*/.*");
+            boolean deep = false;
+            if (!unsafe) {
+                for (String segment : pattern.split("/")) {
+                    if (segment.contains("**")) {
+                        deep = true;
+                        break;
+                    }
+                    segmentMatchers.add(globMatcher(fileSystem, segment));
+                }
+            }
+            this.anyDepth = unsafe || deep;
+        }
+
+        @Override
+        public boolean matches(Path dir) {
+            int depth = dir.getNameCount();
+            if (!anyDepth && depth >= segmentMatchers.size()) {
+                return false;
+            }
+            for (int i = 0; i < depth && i < segmentMatchers.size(); i++) {
+                if (!segmentMatchers.get(i).matches(dir.getName(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /*
+     * For exclusion patterns as 'foo/**' : matches directories having some content not excluded by the pattern.
+     */
+    private static class ExcludedSubtreeMatcher implements PathMatcher {
+
+        private final PathMatcher parentMatcher;
+
+        private final PathMatcher patternMatcher;
+
+        ExcludedSubtreeMatcher(FileSystem fileSystem, String pattern) {
+            if (pattern.endsWith("/**") && pattern.length() > 3) {
+                this.parentMatcher = globMatcher(fileSystem, pattern.substring(0, pattern.length() - 3));
+                this.patternMatcher = globMatcher(fileSystem, pattern);
+            } else {
+                this.parentMatcher = null;
+                this.patternMatcher = null;
+            }
+        }
+
+        @Override
+        public boolean matches(Path dir) {
+            if (parentMatcher == null) {
+                return true;
+            }
+            return !parentMatcher.matches(dir) && !patternMatcher.matches(dir);
+        }
+    }
+
     private static class AndMatcher implements PathMatcher {
 
         private final PathMatcher pathMatcher1;
@@ -86,13 +86,7 @@ public final class JkPathSequence implements Iterable<Path>, Serializable {
      * sequence.
      */
     public JkPathSequence withoutDuplicates() {
-        final List<Path> files = new LinkedList<>();
-        for (final Path file : this.entries) {
-            if (!files.contains(file)) {
-                files.add(file);
-            }
-        }
-        return new JkPathSequence(files);
+        return new JkPathSequence(new LinkedList<>(new LinkedHashSet<>(this.entries)));
     }
 
     public JkPathSequence normalized() {
@@ -120,8 +120,10 @@ public class JkPathTree<T extends JkPathTree> {
         }
         final JkPathMatcher matcher = JkPathMatcher.of(this.matcher);
         Path root = getRoot().toString().equals("") ? Paths.get(".") : getRoot();
-        return JkUtilsPath.walk(root, options)
-                .filter(path -> matcher.matches(root.relativize(path)));
+        Stream<Path> paths = matcher.canPruneDirectories()
+                ? JkUtilsPath.walk(root, matcher::mayMatchUnder, options)
+                : JkUtilsPath.walk(root, options);
+        return paths.filter(path -> matcher.matches(root.relativize(path)));
     }
 
     /**
@@ -317,7 +319,7 @@ public class JkPathTree<T extends JkPathTree> {
         if (!Files.exists(destinationDir)) {
             JkUtilsPath.createDirectories(destinationDir);
         }
-        return JkUtilsPath.copyDirContent(getRoot(), destinationDir, matcher, copyOptions);
+        return JkUtilsPath.copyDirContent(getRoot(), destinationDir, matcher, matcher::mayMatchUnder, copyOptions);
     }
 
     /**
@@ -382,7 +384,8 @@ public class JkPathTree<T extends JkPathTree> {
         if (!exists()) {
             return 0;
         }
-        return JkUtilsPath.childrenCount(getRoot(), max, includeDirectories, this.matcher);
+        return JkUtilsPath.childrenCount(getRoot(), max, includeDirectories, this.matcher,
+                this.matcher::mayMatchUnder);
     }
 
     public boolean containFiles() {
@@ -1,11 +1,17 @@
 package dev.jeka.core.api.java;
 
 import dev.jeka.core.api.file.JkPathMatcher;
+import dev.jeka.core.api.file.JkPathTree;
 import dev.jeka.core.api.file.JkPathTreeSet;
 import dev.jeka.core.api.utils.JkUtilsAssert;
+import dev.jeka.core.api.utils.JkUtilsPath;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
 
 /**
  * Utilities class to produce Jar files.
@@ -24,15 +30,19 @@ public final class JkJarPacker {
 
     private final JkPathTreeSet extraFiles;
 
-    private JkJarPacker(JkPathTreeSet classTrees, JkManifest manifest, JkPathTreeSet extraFiles) {
+    private final boolean reproducible;
+
+    private JkJarPacker(JkPathTreeSet classTrees, JkManifest manifest, JkPathTreeSet extraFiles,
+                        boolean reproducible) {
         this.classtrees = classTrees;
         this.manifest = manifest;
         this.extraFiles = extraFiles;
+        this.reproducible = reproducible;
     }
 
     public static JkJarPacker of(JkPathTreeSet classTrees) {
         JkUtilsAssert.argument(!classTrees.toList().isEmpty(), "Nothing to create jar from : " + classTrees);
-        return new JkJarPacker(classTrees, null, null);
+        return new JkJarPacker(classTrees, null, null, false);
     }
 
     public static JkJarPacker of(Path classDir) {
@@ -40,43 +50,75 @@ public final class JkJarPacker {
     }
 
     public JkJarPacker withManifest(JkManifest manifest) {
-        return new JkJarPacker(this.classtrees, manifest, this.extraFiles);
+        return new JkJarPacker(this.classtrees, manifest, this.extraFiles, this.reproducible);
     }
 
     public JkJarPacker withExtraFiles(JkPathTreeSet extraFiles) {
-        return new JkJarPacker(this.classtrees, this.manifest, extraFiles);
+        return new JkJarPacker(this.classtrees, this.manifest, extraFiles, this.reproducible);
+    }
+
+    /**
+     * Returns a packer producing byte-for-byte identical jars from identical content : entries are
+     * sorted and have a constant timestamp.
+     * @see JkJarWriter#setReproducible(boolean)
+     */
+    public JkJarPacker withReproducible(boolean reproducible) {
+        return new JkJarPacker(this.classtrees, this.manifest, this.extraFiles, reproducible);
     }
 
     /**
-     * Creates a jar file including extra files and manifest.
+     * Creates a jar file including extra files and manifest. If the result file already exists, it is replaced.
      * @param resultFile Result file
      */
     public void makeJar(Path resultFile) {
-        if (manifest != null && !manifest.isEmpty()) {
-            manifest.writeToStandardLocation(classtrees.toList().get(0).getRoot());
-        }
         JkPathTreeSet treeSet = extraFiles == null ? JkPathTreeSet.ofEmpty() : extraFiles;
-        classtrees.and(treeSet).zipTo(resultFile);
+        List<JkPathTree> trees = new LinkedList<>(classtrees.and(treeSet).toList());
+        Collections.reverse(trees);  // extra files take precedence over class files
+        try (JkJarWriter writer = JkJarWriter.of(resultFile).setReproducible(reproducible)) {
+            addManifest(writer);
+            trees.forEach(writer::addTree);
+            writer.write();
+        }
     }
 
     /**
      * Creates a fat jar file according specified parameters. Fat jar file including the content of other jars.
      * The result jar does not contain other jars as zip entry but content of the other jars is merged with the content
-     * of original jar.
+     * of original jar. Entries of other jars are copied without being recompressed.
      * @param resultFile Result file
      * @param otherJars content of other jar to merge with the original jar
      * @param filter Only files matching this filter will be included in the resulting fat jar, either it comes from
      *               dependencies or not.
      */
     public void makeFatJar(Path resultFile, Iterable<Path> otherJars, PathMatcher filter) {
-        if (manifest != null && !manifest.isEmpty()) {
-            manifest.writeToStandardLocation(classtrees.toList().get(0).getRoot());
+        JkPathMatcher matcher = EXCLUDE_SIGNATURE_MATCHER.and(filter);
+        List<JkPathTree> trees = new LinkedList<>(classtrees.toList());
+        Collections.reverse(trees);
+        List<Path> jars = JkUtilsPath.disambiguate(otherJars);
+        Collections.reverse(jars);
+
+        // main jar files must take precedence over files coming form dependencies
+        try (JkJarWriter writer = JkJarWriter.of(resultFile).setReproducible(reproducible)) {
+            addManifest(writer);
+            trees.forEach(tree -> writer.addTree(tree.andMatcher(matcher)));
+            for (Path jar : jars) {
+                if (Files.isDirectory(jar)) {
+                    writer.addTree(JkPathTree.of(jar).andMatcher(matcher));
+                } else {
+                    writer.addZipContent(jar, matcher);
+                }
+            }
+            writer.write();
         }
-        JkPathTreeSet.ofEmpty().andZips(otherJars).and(classtrees).andMatcher(EXCLUDE_SIGNATURE_MATCHER)
-                .andMatcher(filter)
-                .zipTo(resultFile)  // main jar files must take precedence over files coming form dependencies
-                .close();
     }
 
+    private void addManifest(JkJarWriter writer) {
+        if (manifest == null || manifest.isEmpty()) {
+            return;
+        }
+        Path classRoot = classtrees.toList().get(0).getRoot();
+        manifest.writeToStandardLocation(classRoot);
+        writer.addFile(JkManifest.STANDARD_LOCATION, classRoot.resolve(JkManifest.STANDARD_LOCATION));
+    }
 
 }
@@ -0,0 +1,918 @@
+package dev.jeka.core.api.java;
+
+import dev.jeka.core.api.file.JkPathTree;
+import dev.jeka.core.api.utils.JkUtilsIO;
+import dev.jeka.core.api.utils.JkUtilsPath;
+import dev.jeka.core.api.utils.JkUtilsThrowable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Writes jar (or zip) files without mounting any zip file system. <p>
+ * Entries are first registered using <code>add</code> methods, then written by {@link #write()}. The jar is
+ * written in a temporary file moved to its final location once complete, so a failure never leaves a partial
+ * jar : closing a writer without having called {@link #write()}, as when registering entries fails, writes nothing.
+ * An entry name is registered only once : the first one wins. Parent directory entries are added when missing.
+ * Entries taken from other zip files are copied as is, already deflated data is not inflated then deflated
+ * again. Other entries are deflated concurrently on the common fork-join pool, then written in order. <p>
+ * In reproducible mode, entries are written in a fixed order (manifest first, then sorted by name) with
+ * a constant timestamp, so the same content always produces the same bytes.
+ */
+public final class JkJarWriter implements Closeable {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+    private static final int LOCAL_HEADER_SIZE = 30;
+
+    private static final int CENTRAL_HEADER_SIZE = 46;
+
+    private static final int END_SIZE = 22;
+
+    private static final int ENCRYPTED_FLAG = 0x01;
+
+    private static final int DATA_DESCRIPTOR_FLAG = 0x08;
+
+    private static final int UTF8_FLAG = 0x800;
+
+    private static final int VERSION = 20;
+
+    private static final int ZIP64_VERSION = 45;
+
+    private static final long MAX_32 = 0xFFFFFFFFL;
+
+    private static final int MAX_16 = 0xFFFF;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Bigger entries are deflated while being written instead of being deflated ahead in memory
+    private static final long MAX_PREPARED_SIZE = 1024 * 1024;
+
+    // 1980-02-01 00:00:00, as used by other reproducible build tools
+    private static final long REPRODUCIBLE_DOS_TIME = (2 << 21) | (1 << 16);
+
+    private static final String MANIFEST_DIR = "META-INF/";
+
+    private final Path file;
+
+    private final Map<String, Source> sources = new LinkedHashMap<>();
+
+    private boolean reproducible;
+
+    private CountingOutputStream out;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private JkJarWriter(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Creates a writer for the specified file. If the file already exists, it is replaced when
+     * {@link #write()} succeeds.
+     */
+    public static JkJarWriter of(Path file) {
+        return new JkJarWriter(file);
+    }
+
+    /**
+     * If <code>true</code>, entries are written in a fixed order with a constant timestamp.
+     */
+    public JkJarWriter setReproducible(boolean reproducible) {
+        this.reproducible = reproducible;
+        return this;
+    }
+
+    public boolean isReproducible() {
+        return reproducible;
+    }
+
+    /**
+     * Returns <code>true</code> if an entry with the specified name has already been added.
+     */
+    public boolean contains(String entryName) {
+        return sources.containsKey(entryName);
+    }
+
+    /**
+     * Adds an entry having the specified content.
+     */
+    public JkJarWriter addEntry(String entryName, byte[] content) {
+        return add(entryName, new ContentSource(dosTime(System.currentTimeMillis()), content.length, true,
+                () -> new ByteArrayInputStream(content)));
+    }
+
+    /**
+     * Adds a deflated entry having the content of the specified file.
+     */
+    public JkJarWriter addFile(String entryName, Path file) {
+        return addFile(entryName, file, true);
+    }
+
+    /**
+     * Adds an entry having the content of the specified file, stored without compression. This is
+     * typically used for nested jars.
+     * @param time The entry time in milliseconds since epoch.
+     */
+    public JkJarWriter addStoredFile(String entryName, Path file, long time) {
+        return add(entryName, new ContentSource(dosTime(time), size(file), false,
+                () -> Files.newInputStream(file)));
+    }
+
+    /**
+     * Same as {@link #addStoredFile(String, Path, long)} but with the CRC-32 of the file content already known,
+     * so the file is read only once, while being written. The CRC is checked while copying : {@link #write()}
+     * fails if it does not match the file content.
+     */
+    public JkJarWriter addStoredFile(String entryName, Path file, long time, long crc) {
+        return add(entryName, new KnownCrcSource(dosTime(time), size(file), crc, () -> Files.newInputStream(file)));
+    }
+
+    /**
+     * Adds files and directories of the specified tree, relative to the tree root.
+     */
+    public JkJarWriter addTree(JkPathTree tree) {
+        Path root = tree.getRoot();
+        try (Stream<Path> stream = tree.stream()) {
+            stream.forEach(path -> {
+                String entryName = entryName(root.relativize(path));
+                if (entryName.isEmpty()) {
+                    return;
+                }
+                if (Files.isDirectory(path)) {
+                    add(entryName + "/", new DirectorySource(lastModifiedDosTime(path)));
+                } else {
+                    addFile(entryName, path, true);
+                }
+            });
+        }
+        return this;
+    }
+
+    /**
+     * Adds entries of the specified zip file, whose path matches the specified matcher.
+     * @see #addZipContent(Path, String, PathMatcher)
+     */
+    public JkJarWriter addZipContent(Path zipFile, PathMatcher matcher) {
+        return addZipContent(zipFile, "", matcher);
+    }
+
+    /**
+     * Adds entries of the specified zip file, whose path matches the specified matcher, prefixing
+     * their name with the specified prefix. Entry data is copied without being decompressed, except for
+     * zip files whose layout is not supported (zip64, prepended data) that are read through {@link ZipFile}.
+     * @param entryPrefix A prefix as <code>BOOT-INF/classes/</code> or an empty string.
+     */
+    public JkJarWriter addZipContent(Path zipFile, String entryPrefix, PathMatcher matcher) {
+        List<Entry> sourceEntries;
+        try (FileChannel channel = FileChannel.open(zipFile, StandardOpenOption.READ)) {
+            sourceEntries = readCentralDirectory(channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error while reading " + zipFile, e);
+        }
+        if (sourceEntries == null) {
+            return addZipContentThroughZipFile(zipFile, entryPrefix, matcher);
+        }
+        for (Entry sourceEntry : sourceEntries) {
+            if (!matcher.matches(Paths.get(sourceEntry.name))) {
+                continue;
+            }
+            if (sourceEntry.isDirectory()) {
+                add(entryPrefix + sourceEntry.name, new DirectorySource(sourceEntry.dosTime));
+            } else {
+                add(entryPrefix + sourceEntry.name, new RawZipSource(zipFile, sourceEntry));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Writes the registered entries to the jar file, replacing it atomically if it already exists.
+     */
+    public void write() {
+        Path dir = file.toAbsolutePath().getParent();
+        JkUtilsPath.createDirectories(dir);
+        Map<Path, FileChannel> channels = new HashMap<>();
+        Map<Path, ZipFile> zipFiles = new HashMap<>();
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                this.out = new CountingOutputStream(new BufferedOutputStream(outputStream, BUFFER_SIZE));
+                List<Entry> entries = writeEntries(channels, zipFiles);
+                writeCentralDirectory(entries);
+                out.flush();
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error while writing " + file, e);
+        } finally {
+            channels.values().forEach(channel -> JkUtilsIO.closeQuietly(channel));
+            zipFiles.values().forEach(zipFile -> JkUtilsIO.closeQuietly(zipFile));
+            if (tempFile != null) {
+                JkUtilsPath.deleteIfExists(tempFile);
+            }
+        }
+    }
+
+    /**
+     * Forgets the registered entries. Nothing is written if {@link #write()} has not been called before.
+     */
+    @Override
+    public void close() {
+        sources.clear();
+    }
+
+    private JkJarWriter addFile(String entryName, Path file, boolean deflate) {
+        return add(entryName, new ContentSource(lastModifiedDosTime(file), size(file), deflate,
+                () -> Files.newInputStream(file)));
+    }
+
+    private JkJarWriter addZipContentThroughZipFile(Path zipFile, String entryPrefix, PathMatcher matcher) {
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry zipEntry = zipEntries.nextElement();
+                String name = zipEntry.getName();
+                if (!matcher.matches(Paths.get(name))) {
+                    continue;
+                }
+                if (zipEntry.isDirectory()) {
+                    add(entryPrefix + name, new DirectorySource(dosTime(zipEntry.getTime())));
+                } else {
+                    add(entryPrefix + name, new ZipFileSource(dosTime(zipEntry.getTime()), zipEntry.getSize(),
+                            zipFile, name));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error while reading " + zipFile, e);
+        }
+        return this;
+    }
+
+    private JkJarWriter add(String entryName, Source source) {
+        if (sources.containsKey(entryName)) {
+            return this;
+        }
+        int index = entryName.indexOf('/');
+        while (index >= 0 && index < entryName.length() - 1) {
+            sources.putIfAbsent(entryName.substring(0, index + 1), new DirectorySource(source.dosTime));
+            index = entryName.indexOf('/', index + 1);
+        }
+        sources.put(entryName, source);
+        return this;
+    }
+
+    private List<String> orderedNames() {
+        List<String> names = new ArrayList<>(sources.keySet());
+        if (reproducible) {
+            names.sort(Comparator.comparingInt(JkJarWriter::rank).thenComparing(Comparator.naturalOrder()));
+        } else {
+            names.sort(Comparator.comparingInt(JkJarWriter::rank));  // stable : keeps registration order
+        }
+        return names;
+    }
+
+    // Manifest must come first so JarInputStream can read it
+    private static int rank(String entryName) {
+        if (entryName.equals(MANIFEST_DIR)) {
+            return 0;
+        }
+        if (entryName.equals(JkManifest.STANDARD_LOCATION)) {
+            return 1;
+        }
+        return 2;
+    }
+
+    private List<Entry> writeEntries(Map<Path, FileChannel> channels, Map<Path, ZipFile> zipFiles)
+            throws IOException {
+        List<String> names = orderedNames();
+        List<Entry> result = new ArrayList<>(names.size());
+        boolean concurrent = ForkJoinPool.getCommonPoolParallelism() > 1;
+        int window = ForkJoinPool.getCommonPoolParallelism() * 4;
+        Map<Integer, CompletableFuture<Prepared>> pending = new HashMap<>();
+        int next = 0;
+        for (int i = 0; i < names.size(); i++) {
+            for (; concurrent && next < names.size() && next <= i + window; next++) {
+                Source source = sources.get(names.get(next));
+                if (source.isPreparable()) {
+                    pending.put(next, CompletableFuture.supplyAsync(() -> prepare(source, zipFiles)));
+                }
+            }
+            String name = names.get(i);
+            Source source = sources.get(name);
+            CompletableFuture<Prepared> future = pending.remove(i);
+            Prepared prepared = null;
+            if (future != null) {
+                prepared = join(future);
+            } else if (source.isPreparable()) {
+                prepared = prepare(source, zipFiles);
+            }
+            long dosTime = reproducible ? REPRODUCIBLE_DOS_TIME : source.dosTime;
+            result.add(source.write(this, name, dosTime, prepared, channels, zipFiles));
+        }
+        return result;
+    }
+
+    private Prepared prepare(Source source, Map<Path, ZipFile> zipFiles) {
+        try (InputStream inputStream = ((ContentSource) source).open(zipFiles)) {
+            return ((ContentSource) source).deflate ? deflate(inputStream) : crc(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Prepared join(CompletableFuture<Prepared> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw JkUtilsThrowable.unchecked(e.getCause(), "Error while preparing jar entry.");
+        }
+    }
+
+    private static Prepared deflate(InputStream inputStream) throws IOException {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            byte[] readBuffer = new byte[BUFFER_SIZE];
+            byte[] deflateBuffer = new byte[BUFFER_SIZE];
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            CRC32 crc = new CRC32();
+            int read;
+            while ((read = inputStream.read(readBuffer)) != -1) {
+                crc.update(readBuffer, 0, read);
+                deflater.setInput(readBuffer, 0, read);
+                while (!deflater.needsInput()) {
+                    result.write(deflateBuffer, 0, deflater.deflate(deflateBuffer));
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                result.write(deflateBuffer, 0, deflater.deflate(deflateBuffer));
+            }
+            return new Prepared(crc.getValue(), deflater.getBytesRead(), result.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static Prepared crc(InputStream inputStream) throws IOException {
+        byte[] readBuffer = new byte[BUFFER_SIZE];
+        CRC32 crc = new CRC32();
+        long size = 0;
+        int read;
+        while ((read = inputStream.read(readBuffer)) != -1) {
+            crc.update(readBuffer, 0, read);
+            size += read;
+        }
+        return new Prepared(crc.getValue(), size, null);
+    }
+
+    private Entry writeDirectory(String name, long dosTime) throws IOException {
+        Entry entry = new Entry(name, UTF8_FLAG, ZipEntry.STORED, dosTime);
+        writeLocalHeader(entry);
+        return entry;
+    }
+
+    private Entry writePrepared(String name, long dosTime, Prepared prepared, InputStream storedContent)
+            throws IOException {
+        boolean deflated = prepared.deflatedContent != null;
+        Entry entry = new Entry(name, UTF8_FLAG, deflated ? ZipEntry.DEFLATED : ZipEntry.STORED, dosTime);
+        entry.crc = prepared.crc;
+        entry.size = prepared.size;
+        entry.compressedSize = deflated ? prepared.deflatedContent.length : prepared.size;
+        writeLocalHeader(entry);
+        if (deflated) {
+            out.write(prepared.deflatedContent);
+        } else {
+            CRC32 crc = new CRC32();
+            long copied = copy(storedContent, crc);
+            if (copied != prepared.size || crc.getValue() != prepared.crc) {
+                throw new IOException("Content of entry " + name + " does not match its size or CRC : it has "
+                        + "changed while being written or the provided CRC is stale.");
+            }
+        }
+        return entry;
+    }
+
+    private Entry writeDeflating(String name, long dosTime, InputStream inputStream) throws IOException {
+        Entry entry = new Entry(name, UTF8_FLAG | DATA_DESCRIPTOR_FLAG, ZipEntry.DEFLATED, dosTime);
+        writeLocalHeader(entry);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            byte[] deflateBuffer = new byte[BUFFER_SIZE];
+            CRC32 crc = new CRC32();
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+                deflater.setInput(buffer, 0, read);
+                while (!deflater.needsInput()) {
+                    out.write(deflateBuffer, 0, deflater.deflate(deflateBuffer));
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                out.write(deflateBuffer, 0, deflater.deflate(deflateBuffer));
+            }
+            entry.crc = crc.getValue();
+            entry.compressedSize = deflater.getBytesWritten();
+            entry.size = deflater.getBytesRead();
+        } finally {
+            deflater.end();
+        }
+        checkSize(entry.compressedSize);
+        checkSize(entry.size);
+        out.writeInt(DATA_DESCRIPTOR_SIGNATURE);
+        out.writeInt(entry.crc);
+        out.writeInt(entry.compressedSize);
+        out.writeInt(entry.size);
+        return entry;
+    }
+
+    private Entry copyRaw(String name, long dosTime, FileChannel channel, Entry sourceEntry) throws IOException {
+        ByteBuffer localHeader = read(channel, sourceEntry.offset, LOCAL_HEADER_SIZE);
+        if (localHeader.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new IOException("Invalid local header for entry " + sourceEntry.name);
+        }
+        long dataStart = sourceEntry.offset + LOCAL_HEADER_SIZE + unsignedShort(localHeader, 26)
+                + unsignedShort(localHeader, 28);
+        Entry entry = new Entry(name, (sourceEntry.flags & ~DATA_DESCRIPTOR_FLAG) | UTF8_FLAG,
+                sourceEntry.method, dosTime);
+        entry.crc = sourceEntry.crc;
+        entry.compressedSize = sourceEntry.compressedSize;
+        entry.size = sourceEntry.size;
+        writeLocalHeader(entry);
+        long remaining = sourceEntry.compressedSize;
+        long position = dataStart;
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        while (remaining > 0) {
+            byteBuffer.clear();
+            byteBuffer.limit((int) Math.min(buffer.length, remaining));
+            int read = channel.read(byteBuffer, position);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of file while reading entry " + sourceEntry.name);
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+            position += read;
+        }
+        return entry;
+    }
+
+    private long copy(InputStream inputStream, CRC32 crc) throws IOException {
+        long result = 0;
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            crc.update(buffer, 0, read);
+            out.write(buffer, 0, read);
+            result += read;
+        }
+        return result;
+    }
+
+    private void writeLocalHeader(Entry entry) throws IOException {
+        entry.offset = out.count;
+        checkSize(entry.offset);
+        boolean descriptor = (entry.flags & DATA_DESCRIPTOR_FLAG) != 0;
+        out.writeInt(LOCAL_HEADER_SIGNATURE);
+        out.writeShort(VERSION);
+        out.writeShort(entry.flags);
+        out.writeShort(entry.method);
+        out.writeInt(entry.dosTime);
+        out.writeInt(descriptor ? 0 : entry.crc);
+        out.writeInt(descriptor ? 0 : entry.compressedSize);
+        out.writeInt(descriptor ? 0 : entry.size);
+        out.writeShort(entry.nameBytes.length);
+        out.writeShort(0);
+        out.write(entry.nameBytes);
+    }
+
+    private void writeCentralDirectory(List<Entry> entries) throws IOException {
+        long centralDirectoryOffset = out.count;
+        for (Entry entry : entries) {
+            out.writeInt(CENTRAL_HEADER_SIGNATURE);
+            out.writeShort(VERSION);
+            out.writeShort(VERSION);
+            out.writeShort(entry.flags);
+            out.writeShort(entry.method);
+            out.writeInt(entry.dosTime);
+            out.writeInt(entry.crc);
+            out.writeInt(entry.compressedSize);
+            out.writeInt(entry.size);
+            out.writeShort(entry.nameBytes.length);
+            out.writeShort(0);  // extra field length
+            out.writeShort(0);  // comment length
+            out.writeShort(0);  // disk number
+            out.writeShort(0);  // internal attributes
+            out.writeInt(entry.isDirectory() ? 0x10 : 0);  // external attributes
+            out.writeInt(entry.offset);
+            out.write(entry.nameBytes);
+        }
+        long centralDirectorySize = out.count - centralDirectoryOffset;
+        int entryCount = entries.size();
+        if (entryCount >= MAX_16 || centralDirectoryOffset >= MAX_32) {
+            long zip64EndOffset = out.count;
+            out.writeInt(ZIP64_END_SIGNATURE);
+            out.writeLong(44);  // size of the remaining record
+            out.writeShort(ZIP64_VERSION);
+            out.writeShort(ZIP64_VERSION);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeLong(entryCount);
+            out.writeLong(entryCount);
+            out.writeLong(centralDirectorySize);
+            out.writeLong(centralDirectoryOffset);
+            out.writeInt(ZIP64_LOCATOR_SIGNATURE);
+            out.writeInt(0);
+            out.writeLong(zip64EndOffset);
+            out.writeInt(1);
+        }
+        out.writeInt(END_SIGNATURE);
+        out.writeShort(0);
+        out.writeShort(0);
+        out.writeShort(Math.min(entryCount, MAX_16));
+        out.writeShort(Math.min(entryCount, MAX_16));
+        out.writeInt(Math.min(centralDirectorySize, MAX_32));
+        out.writeInt(Math.min(centralDirectoryOffset, MAX_32));
+        out.writeShort(0);
+    }
+
+    /*
+     * Returns null if the zip file layout can not be copied raw.
+     */
+    private static List<Entry> readCentralDirectory(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        int tailSize = (int) Math.min(fileSize, END_SIZE + MAX_16);
+        if (tailSize < END_SIZE) {
+            return null;
+        }
+        ByteBuffer tail = read(channel, fileSize - tailSize, tailSize);
+        int endPosition = -1;
+        for (int i = tailSize - END_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == END_SIGNATURE) {
+                endPosition = i;
+                break;
+            }
+        }
+        if (endPosition < 0) {
+            return null;
+        }
+        int entryCount = unsignedShort(tail, endPosition + 10);
+        long centralDirectorySize = unsignedInt(tail, endPosition + 12);
+        long centralDirectoryOffset = unsignedInt(tail, endPosition + 16);
+        if (entryCount == MAX_16 || centralDirectorySize == MAX_32 || centralDirectoryOffset == MAX_32
+                || centralDirectoryOffset + centralDirectorySize != fileSize - tailSize + endPosition) {
+            return null;
+        }
+        ByteBuffer centralDirectory = read(channel, centralDirectoryOffset, (int) centralDirectorySize);
+        List<Entry> result = new ArrayList<>(entryCount);
+        int position = 0;
+        for (int i = 0; i < entryCount; i++) {
+            if (centralDirectory.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+                return null;
+            }
+            int flags = unsignedShort(centralDirectory, position + 8);
+            int method = unsignedShort(centralDirectory, position + 10);
+            int nameLength = unsignedShort(centralDirectory, position + 28);
+            byte[] nameBytes = new byte[nameLength];
+            centralDirectory.position(position + CENTRAL_HEADER_SIZE);
+            centralDirectory.get(nameBytes);
+            Entry entry = new Entry(new String(nameBytes, StandardCharsets.UTF_8), flags, method,
+                    unsignedInt(centralDirectory, position + 12));
+            entry.crc = unsignedInt(centralDirectory, position + 16);
+            entry.compressedSize = unsignedInt(centralDirectory, position + 20);
+            entry.size = unsignedInt(centralDirectory, position + 24);
+            entry.offset = unsignedInt(centralDirectory, position + 42);
+            if ((flags & ENCRYPTED_FLAG) != 0
+                    || (method != ZipEntry.STORED && method != ZipEntry.DEFLATED)
+                    || entry.compressedSize == MAX_32 || entry.size == MAX_32 || entry.offset == MAX_32) {
+                return null;
+            }
+            result.add(entry);
+            position += CENTRAL_HEADER_SIZE + nameLength + unsignedShort(centralDirectory, position + 30)
+                    + unsignedShort(centralDirectory, position + 32);
+        }
+        return result;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer result = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (result.hasRemaining()) {
+            if (channel.read(result, position + result.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        result.flip();
+        return result;
+    }
+
+    private static int unsignedShort(ByteBuffer byteBuffer, int index) {
+        return byteBuffer.getShort(index) & MAX_16;
+    }
+
+    private static long unsignedInt(ByteBuffer byteBuffer, int index) {
+        return byteBuffer.getInt(index) & MAX_32;
+    }
+
+    private static void checkSize(long value) {
+        if (value >= MAX_32) {
+            throw new IllegalStateException("Jar entries located after or bigger than 4 GB are not supported.");
+        }
+    }
+
+    private static String entryName(Path relativePath) {
+        return relativePath.toString().replace(relativePath.getFileSystem().getSeparator(), "/");
+    }
+
+    private static long lastModifiedDosTime(Path path) {
+        return dosTime(JkUtilsPath.getLastModifiedTime(path).orElse(System.currentTimeMillis()));
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Time and date in MS-DOS format, as stored in zip headers
+    private static long dosTime(long epochMillis) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return ((long) (time.getYear() - 1980) << 25) | (time.getMonthValue() << 21) | (time.getDayOfMonth() << 16)
+                | (time.getHour() << 11) | (time.getMinute() << 5) | (time.getSecond() >> 1);
+    }
+
+    private interface InputStreamSupplier {
+
+        InputStream get() throws IOException;
+
+    }
+
+    private abstract static class Source {
+
+        final long dosTime;
+
+        Source(long dosTime) {
+            this.dosTime = dosTime;
+        }
+
+        // Returns true if CRC or compressed content can be computed ahead, concurrently
+        boolean isPreparable() {
+            return false;
+        }
+
+        abstract Entry write(JkJarWriter writer, String name, long dosTime, Prepared prepared,
+                             Map<Path, FileChannel> channels, Map<Path, ZipFile> zipFiles) throws IOException;
+
+    }
+
+    private static class DirectorySource extends Source {
+
+        DirectorySource(long dosTime) {
+            super(dosTime);
+        }
+
+        @Override
+        Entry write(JkJarWriter writer, String name, long dosTime, Prepared prepared,
+                    Map<Path, FileChannel> channels, Map<Path, ZipFile> zipFiles) throws IOException {
+            return writer.writeDirectory(name, dosTime);
+        }
+
+    }
+
+    private static class ContentSource extends Source {
+
+        final long size;
+
+        final boolean deflate;
+
+        private final InputStreamSupplier inputStreamSupplier;
+
+        ContentSource(long dosTime, long size, boolean deflate, InputStreamSupplier inputStreamSupplier) {
+            super(dosTime);
+            this.size = size;
+            this.deflate = deflate;
+            this.inputStreamSupplier = inputStreamSupplier;
+        }
+
+        @Override
+        boolean isPreparable() {
+            return !deflate || (size >= 0 && size <= MAX_PREPARED_SIZE);
+        }
+
+        InputStream open(Map<Path, ZipFile> zipFiles) throws IOException {
+            return inputStreamSupplier.get();
+        }
+
+        @Override
+        Entry write(JkJarWriter writer, String name, long dosTime, Prepared prepared,
+                    Map<Path, FileChannel> channels, Map<Path, ZipFile> zipFiles) throws IOException {
+            if (prepared != null && prepared.deflatedContent != null) {
+                return writer.writePrepared(name, dosTime, prepared, null);
+            }
+            try (InputStream inputStream = open(zipFiles)) {
+                if (prepared != null) {
+                    return writer.writePrepared(name, dosTime, prepared, inputStream);
+                }
+                return writer.writeDeflating(name, dosTime, inputStream);
+            }
+        }
+
+    }
+
+    private static class KnownCrcSource extends ContentSource {
+
+        private final long crc;
+
+        KnownCrcSource(long dosTime, long size, long crc, InputStreamSupplier inputStreamSupplier) {
+            super(dosTime, size, false, inputStreamSupplier);
+            this.crc = crc;
+        }
+
+        @Override
+        boolean isPreparable() {
+            return false;
+        }
+
+        @Override
+        Entry write(JkJarWriter writer, String name, long dosTime, Prepared prepared,
+                    Map<Path, FileChannel> channels, Map<Path, ZipFile> zipFiles) throws IOException {
+            try (InputStream inputStream = open(zipFiles)) {
+                return writer.writePrepared(name, dosTime, new Prepared(crc, size, null), inputStream);
+            }
+        }
+
+    }
+
+    private static class ZipFileSource extends ContentSource {
+
+        private final Path zipFile;
+
+        private final String entryName;
+
+        ZipFileSource(long dosTime, long size, Path zipFile, String entryName) {
+            super(dosTime, size, true, null);
+            this.zipFile = zipFile;
+            this.entryName = entryName;
+        }
+
+        @Override
+        InputStream open(Map<Path, ZipFile> zipFiles) throws IOException {
+            ZipFile zip;
+            synchronized (zipFiles) {
+                zip = zipFiles.get(zipFile);
+                if (zip == null) {
+                    zip = new ZipFile(zipFile.toFile());
+                    zipFiles.put(zipFile, zip);
+                }
+            }
+            return zip.getInputStream(zip.getEntry(entryName));
+        }
+
+    }
+
+    private static class RawZipSource extends Source {
+
+        private final Path zipFile;
+
+        private final Entry sourceEntry;
+
+        RawZipSource(Path zipFile, Entry sourceEntry) {
+            super(sourceEntry.dosTime);
+            this.zipFile = zipFile;
+            this.sourceEntry = sourceEntry;
+        }
+
+        @Override
+        Entry write(JkJarWriter writer, String name, long dosTime, Prepared prepared,
+                    Map<Path, FileChannel> channels, Map<Path, ZipFile> zipFiles) throws IOException {
+            FileChannel channel = channels.get(zipFile);
+            if (channel == null) {
+                channel = FileChannel.open(zipFile, StandardOpenOption.READ);
+                channels.put(zipFile, channel);
+            }
+            return writer.copyRaw(name, dosTime, channel, sourceEntry);
+        }
+
+    }
+
+    private static final class Prepared {
+
+        final long crc;
+
+        final long size;
+
+        final byte[] deflatedContent;  // null for stored entries
+
+        Prepared(long crc, long size, byte[] deflatedContent) {
+            this.crc = crc;
+            this.size = size;
+            this.deflatedContent = deflatedContent;
+        }
+
+    }
+
+    private static final class Entry {
+
+        final String name;
+
+        final byte[] nameBytes;
+
+        final int flags;
+
+        final int method;
+
+        final long dosTime;
+
+        long crc;
+
+        long compressedSize;
+
+        long size;
+
+        long offset;
+
+        Entry(String name, int flags, int method, long dosTime) {
+            this.name = name;
+            this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            this.flags = flags;
+            this.method = method;
+            this.dosTime = dosTime;
+        }
+
+        boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            count += length;
+        }
+
+        void writeShort(int value) throws IOException {
+            write(value & 0xFF);
+            write((value >>> 8) & 0xFF);
+        }
+
+        void writeInt(long value) throws IOException {
+            writeShort((int) (value & MAX_16));
+            writeShort((int) ((value >>> 16) & MAX_16));
+        }
+
+        void writeLong(long value) throws IOException {
+            writeInt(value & MAX_32);
+            writeInt(value >>> 32);
+        }
+
+    }
+
+}
@@ -23,6 +23,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Stands for the whole project model for building purpose. It has the same purpose and scope than the Maven _POM_ but
@@ -271,7 +272,28 @@ public class JkProject implements JkIdeSupport.JkSupplier {
        JkDependencySet exportedDependencies = prodCompilation.getDependencies()
                .merge(packaging.getRuntimeDependencies()).getResult();
         return JkLocalProjectDependency.of(maker, artifactPath, this.baseDir, exportedDependencies)
-                .withTransitivity(transitivity);
+                .withTransitivity(transitivity)
+                .withInputFingerprint(inputFingerprint(artifactId));
+    }
+
+    /*
+     * Inputs artifacts are made from, so dependent projects rebuild this one exactly when they have changed.
+     * Files of local dependencies are included, so changes propagate through chains of projects.
+     */
+    private JkInputFingerprint inputFingerprint(JkArtifactId artifactId) {
+        return JkInputFingerprint.of()
+                .andValue("artifact", () -> artifactId)
+                .andTrees(() -> prodCompilation.layout.resolveSources()
+                        .and(prodCompilation.layout.resolveResources()))
+                .andDependencies("dependencies", prodCompilation::getDependencies)
+                .andDependencies("runtimeDependencies", packaging::getRuntimeDependencies)
+                .andFiles(() -> prodCompilation.getDependencies().getEntries().stream()
+                        .filter(JkFileDependency.class::isInstance)
+                        .flatMap(dependency -> ((JkFileDependency) dependency).getFiles().stream())
+                        .collect(Collectors.toList()))
+                .andValue("compileOptions", prodCompilation::getExtraJavaCompilerOptions)
+                .andValue("jvmTarget", this::getJvmTargetVersion)
+                .andValue("encoding", this::getSourceEncoding);
     }
 
     private Path getArtifactPath(JkArtifactId artifactId) {
@@ -282,16 +304,22 @@ public class JkProject implements JkIdeSupport.JkSupplier {
     }
 
     /**
-     * Shorthand to build all missing artifacts for publication.
+     * Shorthand to build all missing artifacts for publication. Artifacts are made concurrently if
+     * the artifact producer is set in parallel mode.
      */
     public void pack() {
         artifactProducer.makeAllMissingArtifacts();
     }
 
+    /*
+     * Javadoc jar does not depend on compilation, so it is made concurrently with the main jar.
+     * Sources jar waits for the main jar, as compilation may generate sources.
+     */
     private void registerArtifacts() {
         artifactProducer.putMainArtifact(packaging::createBinJar);
         artifactProducer.putArtifact(SOURCES_ARTIFACT_ID, packaging::createSourceJar);
         artifactProducer.putArtifact(JAVADOC_ARTIFACT_ID, packaging::createJavadocJar);
+        artifactProducer.addPrerequisites(SOURCES_ARTIFACT_ID, artifactProducer.getMainArtifactId());
     }
 
     /**
@@ -305,6 +333,7 @@ public class JkProject implements JkIdeSupport.JkSupplier {
         }
         if (includeSources) {
             artifactProducer.putArtifact(SOURCES_ARTIFACT_ID, packaging::createSourceJar);
+            artifactProducer.addPrerequisites(SOURCES_ARTIFACT_ID, artifactProducer.getMainArtifactId());
         } else {
             artifactProducer.removeArtifact(SOURCES_ARTIFACT_ID);
         }
@@ -110,8 +110,9 @@ public class JkProjectCompilation<T> {
 
     /**
      * As #run but perform only if not already done.
+     * Concurrent invocations wait for the first one to complete.
      */
-    public void runIfNeeded() {
+    public synchronized void runIfNeeded() {
         if (done) {
             JkLog.trace(JAVA_SOURCES_COMPILE_ACTION + " already done. Won't perform again.");
         } else {
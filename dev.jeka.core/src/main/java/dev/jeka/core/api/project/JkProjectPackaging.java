@@ -31,6 +31,8 @@ public class JkProjectPackaging {
 
     private PathMatcher fatJarFilter = JkPathMatcher.of(); // take all
 
+    private boolean reproducibleJars;
+
     public final JkJavadocProcessor<JkProjectPackaging> javadocProcessor;
 
     private Function<JkDependencySet, JkDependencySet> dependencySetModifier = x -> x;
@@ -122,6 +124,19 @@ public class JkProjectPackaging {
         return this;
     }
 
+    public boolean isReproducibleJars() {
+        return reproducibleJars;
+    }
+
+    /**
+     * If <code>true</code>, bin and fat jars are byte-for-byte reproducible : entries are written in a fixed
+     * order with a constant timestamp. Default is <code>false</code>.
+     */
+    public JkProjectPackaging setReproducibleJars(boolean reproducibleJars) {
+        this.reproducibleJars = reproducibleJars;
+        return this;
+    }
+
     /**
      * Specify the dependencies to add or remove from the production compilation dependencies to
      * get the runtime dependencies.
@@ -163,6 +178,7 @@ public class JkProjectPackaging {
         JkJarPacker.of(classDir)
                 .withManifest(manifest)
                 .withExtraFiles(getFatJarExtraContent())
+                .withReproducible(reproducibleJars)
                 .makeJar(target);
     }
 
@@ -175,6 +191,7 @@ public class JkProjectPackaging {
         JkJarPacker.of(project.prodCompilation.layout.resolveClassDir())
                 .withManifest(manifest)
                 .withExtraFiles(getFatJarExtraContent())
+                .withReproducible(reproducibleJars)
                 .makeFatJar(target, classpath, this.fatJarFilter);
         JkLog.endTask();
     }
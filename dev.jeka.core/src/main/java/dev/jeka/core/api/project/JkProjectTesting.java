@@ -22,6 +22,8 @@ import java.util.function.UnaryOperator;
  */
 public class JkProjectTesting {
 
+    private static final String RESULT_CACHE_DIR = "test-result-cache";
+
     private final JkProject project;
 
     public final JkProjectCompilation<JkProjectTesting> testCompilation;
@@ -45,6 +47,8 @@ public class JkProjectTesting {
 
     private boolean breakOnFailures = true;
 
+    private boolean resultCached;
+
     /**
      * For parent chaining
      */
@@ -105,6 +109,24 @@ public class JkProjectTesting {
         return this;
     }
 
+    /**
+     * Returns if test classes that passed at a previous run should be skipped as long as they and the classes
+     * they depend on are unchanged.
+     */
+    public boolean isResultCached() {
+        return resultCached;
+    }
+
+    /**
+     * Specifies if test classes that passed at a previous run should be skipped as long as they and the classes
+     * they depend on are unchanged. Results are cached in <i>[output dir]/test-result-cache</i>.
+     * @see JkTestProcessor#setResultCacheDir(Path)
+     */
+    public JkProjectTesting setResultCached(boolean resultCached) {
+        this.resultCached = resultCached;
+        return this;
+    }
+
     public Path getReportDir() {
         return project.getOutputDir().resolve(reportDir);
     }
@@ -133,8 +155,9 @@ public class JkProjectTesting {
 
     /**
      * As #run, but performs only if not already done.
+     * Concurrent invocations wait for the first one to complete.
      */
-    public void runIfNeeded() {
+    public synchronized void runIfNeeded() {
         if (done) {
             JkLog.trace("Tests has already been performed. Won't do it again.");
         } else if (skipped) {
@@ -152,6 +175,9 @@ public class JkProjectTesting {
     private void executeWithTestProcessor() {
         UnaryOperator<JkPathSequence> op = paths -> paths.resolvedTo(project.getOutputDir());
         testSelection.setTestClassRoots(op);
+        if (resultCached) {
+            testProcessor.setResultCacheDir(project.getOutputDir().resolve(RESULT_CACHE_DIR));
+        }
         JkTestResult result = testProcessor.launch(getTestClasspath(), testSelection);
         if (breakOnFailures) {
             result.assertNoFailure();
@@ -120,6 +120,38 @@ public final class JkBraceLogDecorator extends JkLog.JkLogDecorator {
             lastByte = aByte;
         }
 
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            int start = offset;
+            int end = offset + length;
+            for (int i = offset; i < end; i++) {
+                if (bytes[i] == LINE_SEPARATOR) {
+                    writeLine(bytes, start, i + 1);
+                    start = i + 1;
+                }
+            }
+            writeLine(bytes, start, end);
+        }
+
+        private void writeLine(byte[] bytes, int start, int end) {
+            if (start == end) {
+                return;
+            }
+            if (pendingStart && !closingBrace) {
+                delegate.write(LINE_SEPARATOR);
+                lastByte = LINE_SEPARATOR;
+                pendingStart = false;
+            }
+            if (lastByte == LINE_SEPARATOR) {
+                Integer level = JkLog.getCurrentNestedLevel();
+                for (int j = 0; j < level; j++) {
+                    delegate.write(MARGIN_UNIT, 0, MARGIN_UNIT.length);
+                }
+            }
+            delegate.write(bytes, start, end - start);
+            lastByte = bytes[end - 1];
+        }
+
         @Override
         public void flush() {
             delegate.flush();
@@ -98,6 +98,30 @@ public final class JkIndentLogDecorator extends JkLog.JkLogDecorator {
             mustPrintMargin = (aByte == LINE_SEPARATOR);
         }
 
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            int start = offset;
+            int end = offset + length;
+            for (int i = offset; i < end; i++) {
+                if (bytes[i] == LINE_SEPARATOR) {
+                    writeLine(bytes, start, i + 1);
+                    start = i + 1;
+                }
+            }
+            writeLine(bytes, start, end);
+        }
+
+        private void writeLine(byte[] bytes, int start, int end) throws IOException {
+            if (start == end) {
+                return;
+            }
+            if (mustPrintMargin) {
+                printMargin();
+            }
+            delegate.write(bytes, start, end - start);
+            mustPrintMargin = (bytes[end - 1] == LINE_SEPARATOR);
+        }
+
         void printMargin() throws IOException {
             Integer level = JkLog.getCurrentNestedLevel();
             for (int j = 0; j < level; j++) {
@@ -8,7 +8,9 @@ import java.io.PrintStream;
 import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * Provides static methods for logging events. <p>
@@ -66,6 +68,9 @@ public final class JkLog implements Serializable {
 
     private static final ThreadLocal<LinkedList<Long>> START_TIMES = new ThreadLocal<>();  //NOSONAR
 
+    // Events held back while the current thread runs a buffered task
+    private static final ThreadLocal<List<JkLogEvent>> BUFFERED_EVENTS = new ThreadLocal<>();  //NOSONAR
+
     private static Style decoratorStyle;
 
     // if false, no animation should be displayed.
@@ -108,6 +113,7 @@ public final class JkLog implements Serializable {
         System.setOut(INITIAL_OUT);
         System.setErr(INITIAL_ERR);
         decorator = NO_OP_DECORATOR;
+        currentNestedTaskLevel.set(0);
     }
 
     public static void redirect(PrintStream out, PrintStream err) {
@@ -185,7 +191,9 @@ public final class JkLog implements Serializable {
     public static void startTask(String message, Object ... params) {
         consume(JkLogEvent.ofRegular(Type.START_TASK, String.format(message, params)));
         if (shouldPrint(Type.START_TASK)) {
-            currentNestedTaskLevel.incrementAndGet();
+            if (BUFFERED_EVENTS.get() == null) {
+                currentNestedTaskLevel.incrementAndGet();
+            }
             getStartTimes().addLast(System.nanoTime());
         }
     }
@@ -197,7 +205,9 @@ public final class JkLog implements Serializable {
      */
     public static void endTask(String message) {
         if (shouldPrint(Type.END_TASK)) {
-            currentNestedTaskLevel.decrementAndGet();
+            if (BUFFERED_EVENTS.get() == null) {
+                currentNestedTaskLevel.decrementAndGet();
+            }
             Long startTime = getStartTimes().pollLast();
             if (startTime == null) {
                 for (StackTraceElement ste : Thread.currentThread().getStackTrace()) {
@@ -219,6 +229,72 @@ public final class JkLog implements Serializable {
         endTask("");
     }
 
+    /**
+     * Runs the specified task, holding back the log events it emits from the current thread until it completes.
+     * Held events are then output at once, nested in the current task. This way, the hierarchical logs of tasks
+     * running concurrently are not interleaved.
+     */
+    public static void runBuffered(Runnable task) {
+        if (BUFFERED_EVENTS.get() != null) {
+            task.run();
+            return;
+        }
+        List<JkLogEvent> events = new LinkedList<>();
+        BUFFERED_EVENTS.set(events);
+        try {
+            task.run();
+        } finally {
+            BUFFERED_EVENTS.remove();
+            output(events);
+        }
+    }
+
+    /**
+     * Runs the specified task, holding back the log events it emits from the current thread. Unlike
+     * {@link #runBuffered(Runnable)}, events are not output when the task completes : the caller outputs them
+     * by invoking {@link JkHeldBack#release()}, typically once several concurrent tasks are complete, in a
+     * deterministic order. This works even if the current thread is already holding back events, as a fork-join
+     * worker running a task while joining another one.
+     */
+    public static <T> JkHeldBack<T> runHeldBack(Supplier<T> task) {
+        List<JkLogEvent> previousEvents = BUFFERED_EVENTS.get();
+        List<JkLogEvent> events = new LinkedList<>();
+        BUFFERED_EVENTS.set(events);
+        try {
+            return new JkHeldBack<>(task.get(), null, events);
+        } catch (RuntimeException e) {
+            return new JkHeldBack<>(null, e, events);
+        } finally {
+            if (previousEvents == null) {
+                BUFFERED_EVENTS.remove();
+            } else {
+                BUFFERED_EVENTS.set(previousEvents);
+            }
+        }
+    }
+
+    // Events are appended to the ones held back by the current thread, if any
+    private static void replay(List<JkLogEvent> events) {
+        List<JkLogEvent> bufferedEvents = BUFFERED_EVENTS.get();
+        if (bufferedEvents != null) {
+            bufferedEvents.addAll(events);
+            return;
+        }
+        output(events);
+    }
+
+    private static synchronized void output(List<JkLogEvent> events) {
+        for (JkLogEvent event : events) {
+            if (event.getType() == Type.END_TASK) {
+                currentNestedTaskLevel.decrementAndGet();
+            }
+            consume(event);
+            if (event.getType() == Type.START_TASK) {
+                currentNestedTaskLevel.incrementAndGet();
+            }
+        }
+    }
+
     public static boolean isVerbose() {
         return verbosity == Verbosity.VERBOSE;
     }
@@ -230,6 +306,11 @@ public final class JkLog implements Serializable {
         if (!shouldPrint(event.getType()) ){
             return;
         }
+        List<JkLogEvent> bufferedEvents = BUFFERED_EVENTS.get();
+        if (bufferedEvents != null) {
+            bufferedEvents.add(event);
+            return;
+        }
 
         // This is necessary for avoiding class cast exception when run in other classloader (unit tests)
         if (event.getClass().getClassLoader() != decorator.getClass().getClassLoader()) {  // survive to classloader change
@@ -250,6 +331,44 @@ public final class JkLog implements Serializable {
         return decorator;
     }
 
+    /**
+     * Result of a task run by {@link #runHeldBack(Supplier)}, along the log events it has emitted.
+     */
+    public static final class JkHeldBack<T> {
+
+        private final T value;
+
+        private final RuntimeException failure;
+
+        private final List<JkLogEvent> events;
+
+        private JkHeldBack(T value, RuntimeException failure, List<JkLogEvent> events) {
+            this.value = value;
+            this.failure = failure;
+            this.events = events;
+        }
+
+        /**
+         * Returns <code>true</code> if the task has thrown an exception.
+         */
+        public boolean isFailed() {
+            return failure != null;
+        }
+
+        /**
+         * Outputs the held back events nested in the current task, then returns the value returned by the task
+         * or rethrows the exception it has thrown. If the current thread is itself holding back events, the
+         * events are appended to them.
+         */
+        public T release() {
+            replay(events);
+            if (failure != null) {
+                throw failure;
+            }
+            return value;
+        }
+    }
+
     public static class JkLogEvent implements Serializable {
 
         private JkLogEvent(Type type, String message, long duration) {
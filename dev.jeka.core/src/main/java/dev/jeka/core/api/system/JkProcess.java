@@ -199,6 +199,13 @@ public class JkProcess<T extends JkProcess> implements Runnable {
         return (T) this;
     }
 
+    /**
+     * Returns the environment variables set specifically for this process.
+     */
+    public Map<String, String> getEnv() {
+        return Collections.unmodifiableMap(env);
+    }
+
     /**
      * @see #setWorkingDir(Path) .
      */
@@ -328,10 +335,10 @@ public class JkProcess<T extends JkProcess> implements Runnable {
         processConsumer.accept(process);
         OutputStream consoleOutputStream = logOutput ? JkLog.getOutPrintStream() : JkUtilsIO.nopOutputStream();
         OutputStream consoleErrStream = logOutput ? JkLog.getErrPrintStream() : JkUtilsIO.nopOutputStream();
-        final JkUtilsIO.JkStreamGobbler outputStreamGobbler = JkUtilsIO.newStreamGobbler(
-                process.getInputStream(), consoleOutputStream, collectOs);
-        final JkUtilsIO.JkStreamGobbler errorStreamGobbler = JkUtilsIO.newStreamGobbler(
-                process.getErrorStream(), consoleErrStream, collectOs);
+        final JkUtilsIO.JkStreamGobbler outputStreamGobbler = JkUtilsIO.newLineFramedStreamGobbler(
+                process.getInputStream(), () -> !process.isAlive(), consoleOutputStream, collectOs);
+        final JkUtilsIO.JkStreamGobbler errorStreamGobbler = JkUtilsIO.newLineFramedStreamGobbler(
+                process.getErrorStream(), () -> !process.isAlive(), consoleErrStream, collectOs);
         int exitCode;
         try {
             exitCode = process.waitFor();
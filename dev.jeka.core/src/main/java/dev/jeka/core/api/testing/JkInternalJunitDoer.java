@@ -16,6 +16,10 @@ public interface JkInternalJunitDoer {
                 .createCrossClassloaderProxy(JkInternalJunitDoer.class, IMPL_CLASS, "of");
     }
 
-    JkTestResult launch(JkTestProcessor.JkEngineBehavior engineBehavior, JkTestSelection testSelection);
+    /**
+     * @param eventWriter if not <code>null</code>, test events are written to it while tests are running.
+     */
+    JkTestResult launch(JkTestProcessor.JkEngineBehavior engineBehavior, JkTestSelection testSelection,
+                        JkInternalTestEventWriter eventWriter);
 
 }
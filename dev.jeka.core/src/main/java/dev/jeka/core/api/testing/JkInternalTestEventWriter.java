@@ -0,0 +1,195 @@
+package dev.jeka.core.api.testing;
+
+import dev.jeka.core.api.testing.JkTestResult.JkTestIdentifier.JkType;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Not part of the public API.<p/>
+ * Writes test execution events in a compact binary form, so a JVM running tests can report progress, durations and
+ * failures to the JVM that has launched it, while tests are running.
+ */
+public final class JkInternalTestEventWriter implements Closeable {
+
+    public enum JkStatus {
+        SUCCESSFUL, ABORTED, FAILED
+    }
+
+    private static final byte PLAN_STARTED = 1;
+
+    private static final byte STARTED = 2;
+
+    private static final byte SKIPPED = 3;
+
+    private static final byte FINISHED = 4;
+
+    private final Closeable closeable;
+
+    private final DataOutputStream out;
+
+    private boolean broken;
+
+    private JkInternalTestEventWriter(Closeable closeable, OutputStream outputStream) {
+        this.closeable = closeable;
+        this.out = new DataOutputStream(new BufferedOutputStream(outputStream));
+    }
+
+    static JkInternalTestEventWriter of(OutputStream outputStream) {
+        return new JkInternalTestEventWriter(outputStream, outputStream);
+    }
+
+    /**
+     * Creates a writer sending events to the local port the launching JVM listens to.
+     */
+    static JkInternalTestEventWriter connect(int port) {
+        try {
+            Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            return new JkInternalTestEventWriter(socket, socket.getOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void planStarted(long testCount) {
+        write(() -> {
+            out.writeByte(PLAN_STARTED);
+            out.writeLong(testCount);
+        });
+    }
+
+    public synchronized void started(String id, JkType type, String displayName) {
+        write(() -> {
+            out.writeByte(STARTED);
+            writeIdentifier(id, type, displayName);
+        });
+    }
+
+    public synchronized void skipped(String id, JkType type, String displayName, String reason) {
+        write(() -> {
+            out.writeByte(SKIPPED);
+            writeIdentifier(id, type, displayName);
+            writeString(reason);
+        });
+    }
+
+    public synchronized void finished(String id, JkType type, String displayName, JkStatus status,
+                                      long durationMillis, Throwable throwable) {
+        write(() -> {
+            out.writeByte(FINISHED);
+            writeIdentifier(id, type, displayName);
+            out.writeByte(status.ordinal());
+            out.writeLong(durationMillis);
+            out.writeBoolean(throwable != null);
+            if (throwable != null) {
+                writeString(throwable.getMessage());
+                StackTraceElement[] stackTrace = throwable.getStackTrace();
+                out.writeInt(stackTrace.length);
+                for (StackTraceElement element : stackTrace) {
+                    writeString(element.getClassName());
+                    writeString(element.getMethodName());
+                    writeString(element.getFileName());
+                    out.writeInt(element.getLineNumber());
+                }
+            }
+        });
+    }
+
+    @Override
+    public synchronized void close() {
+        write(out::flush);
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Launching JVM may have gone
+        }
+    }
+
+    /*
+     * Reads all events from the specified stream until its end and passes them to the specified collector.
+     */
+    static void read(InputStream inputStream, TestEventCollector collector) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+        while (true) {
+            int eventType = in.read();
+            if (eventType < 0) {
+                return;
+            }
+            if (eventType == PLAN_STARTED) {
+                collector.planStarted(in.readLong());
+                continue;
+            }
+            String id = readString(in);
+            JkType type = JkType.values()[in.readByte()];
+            String displayName = readString(in);
+            if (eventType == STARTED) {
+                collector.started(id, type, displayName);
+            } else if (eventType == SKIPPED) {
+                collector.skipped(id, type, displayName, readString(in));
+            } else if (eventType == FINISHED) {
+                JkStatus status = JkStatus.values()[in.readByte()];
+                long duration = in.readLong();
+                String message = null;
+                StackTraceElement[] stackTrace = null;
+                if (in.readBoolean()) {
+                    message = readString(in);
+                    stackTrace = new StackTraceElement[in.readInt()];
+                    for (int i = 0; i < stackTrace.length; i++) {
+                        stackTrace[i] = new StackTraceElement(readString(in), readString(in), readString(in),
+                                in.readInt());
+                    }
+                }
+                collector.finished(id, type, displayName, status, duration, message, stackTrace);
+            } else {
+                throw new IllegalStateException("Unknown test event type " + eventType);
+            }
+        }
+    }
+
+    private void writeIdentifier(String id, JkType type, String displayName) throws IOException {
+        writeString(id);
+        out.writeByte(type.ordinal());
+        writeString(displayName);
+    }
+
+    // Unlike DataOutputStream#writeUTF, supports strings larger than 64K and null values
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void write(IOAction action) {
+        if (broken) {
+            return;
+        }
+        try {
+            action.run();
+            out.flush();
+        } catch (IOException e) {
+            broken = true;  // Launching JVM has gone : tests keep on running
+        }
+    }
+
+    @FunctionalInterface
+    private interface IOAction {
+        void run() throws IOException;
+    }
+
+}
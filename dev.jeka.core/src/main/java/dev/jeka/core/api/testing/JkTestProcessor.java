@@ -4,6 +4,7 @@ import dev.jeka.core.api.depmanagement.JkCoordinateFileProxy;
 import dev.jeka.core.api.depmanagement.JkRepoProperties;
 import dev.jeka.core.api.depmanagement.JkRepoSet;
 import dev.jeka.core.api.file.JkPathSequence;
+import dev.jeka.core.api.file.JkPathTree;
 import dev.jeka.core.api.function.JkRunnables;
 import dev.jeka.core.api.function.JkUnaryOperator;
 import dev.jeka.core.api.java.*;
@@ -12,14 +13,26 @@ import dev.jeka.core.api.system.JkProperties;
 import dev.jeka.core.api.utils.JkUtilsAssert;
 import dev.jeka.core.api.utils.JkUtilsIO;
 import dev.jeka.core.api.utils.JkUtilsPath;
+import dev.jeka.core.api.utils.JkUtilsThrowable;
 import org.junit.platform.launcher.core.LauncherConfig;
 
 import java.io.Serializable;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Processor executing a given bunch of tests existing in compiled Java classes. <p/>
@@ -56,6 +69,11 @@ public final class JkTestProcessor<T> {
 
     private static final String JUNIT_PLATFORM_REPORTING_MODULE = "org.junit.platform:junit-platform-reporting";
 
+    private static final String DURATION_FILE_NAME = "test-durations.txt";
+
+    // Avoid resolving junit-platform modules at each launch
+    private static final Map<String, Path> RESOLVED_PLATFORM_MODULES = new ConcurrentHashMap<>();
+
     private JkJavaProcess forkingProcess = JkJavaProcess.ofJava(JkTestProcessor.class.getName());  // Tests are forked by default
 
     public final JkEngineBehavior<T> engineBehavior;
@@ -68,6 +86,16 @@ public final class JkTestProcessor<T> {
 
     private JvmHints jvmHints = JvmHints.ofDefault();
 
+    private Path resultCacheDir;
+
+    private int shardCount = 1;
+
+    private boolean forkedProcessReused;
+
+    private int maxFailures;
+
+    private int slowestTestCount;
+
     private Supplier<JkRepoSet> repoSetSupplier = () ->
             JkRepoProperties.of(JkProperties.SYSTEM_PROPERTIES.withFallback(JkProperties.ENVIRONMENT_VARIABLES))
                     .getDownloadRepos();
@@ -126,6 +154,86 @@ public final class JkTestProcessor<T> {
         return this;
     }
 
+    public Path getResultCacheDir() {
+        return resultCacheDir;
+    }
+
+    /**
+     * Sets the directory where are stored the test classes that passed, so they are not run again as long as
+     * they, the classes they depend on and the test classpath are unchanged. Cached test classes are reported in
+     * {@link JkTestResult#getCachedTestClasses()}.<p/>
+     * Caching is disabled if {@code null} (default) or if the test selection has a discovery configurer.
+     */
+    public JkTestProcessor<T> setResultCacheDir(Path resultCacheDir) {
+        this.resultCacheDir = resultCacheDir;
+        return this;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Sets the number of forked processes the test classes are split across, so tests can run in parallel.
+     * This applies only when tests are run in a forked process. <p/>
+     * Test classes are assigned to processes according their durations recorded at previous runs, in a
+     * <i>test-durations.txt</i> file next to the legacy report dir. Results and legacy reports of each process
+     * are merged.
+     */
+    public JkTestProcessor<T> setShardCount(int shardCount) {
+        JkUtilsAssert.argument(shardCount > 0, "Shard count must be greater than 0, was %s", shardCount);
+        this.shardCount = shardCount;
+        return this;
+    }
+
+    public boolean isForkedProcessReused() {
+        return forkedProcessReused;
+    }
+
+    /**
+     * Specifies if forked processes should be kept alive to run further tests, instead of starting a new JVM at
+     * each launch. Processes are shared by all test processors of the running JVM having the same forking process
+     * setup, and reload test classes only when the test classpath content changes.<p/>
+     * Note that static state of test classes may be preserved across launches when the classpath is unchanged.
+     */
+    public JkTestProcessor<T> setForkedProcessReused(boolean forkedProcessReused) {
+        this.forkedProcessReused = forkedProcessReused;
+        return this;
+    }
+
+    public int getMaxFailures() {
+        return maxFailures;
+    }
+
+    /**
+     * Sets the number of test failures after which tests running in forked processes are aborted, in order to
+     * get feedback early on failing builds. The returned result only reflects tests run before abort.
+     * 0 (default) means tests are never aborted.
+     */
+    public JkTestProcessor<T> setMaxFailures(int maxFailures) {
+        JkUtilsAssert.argument(maxFailures >= 0, "Max failures cannot be negative, was %s", maxFailures);
+        this.maxFailures = maxFailures;
+        return this;
+    }
+
+    public int getSlowestTestCount() {
+        return slowestTestCount;
+    }
+
+    /**
+     * Sets the number of slowest tests to log once tests have run, with their duration trend since the previous
+     * run. Durations are recorded in a <i>test-durations.txt</i> file next to the legacy report dir, rewritten at
+     * each run. If no legacy
+     * report dir is set, trends are not computed. 0 (default) means no test is logged.
+     * @see JkTestResult#getTestTimings()
+     */
+    public JkTestProcessor<T> setSlowestTestCount(int slowestTestCount) {
+        JkUtilsAssert.argument(slowestTestCount >= 0, "Slowest test count cannot be negative, was %s",
+                slowestTestCount);
+        this.slowestTestCount = slowestTestCount;
+        return this;
+    }
+
     public JkTestProcessor<T> setRepoSetSupplier(Supplier<JkRepoSet> repoSetSupplier) {
         this.repoSetSupplier = repoSetSupplier;
         return this;
@@ -147,7 +255,11 @@ public final class JkTestProcessor<T> {
         if (!classloader.isDefined(className)) {
             if (result.getEntryContainingClass(className) == null) {
                 String dep = moduleName + ":" + this.junitPlatformVersion;
-                Path path = JkCoordinateFileProxy.of(this.repoSetSupplier.get(), dep).get();
+                Path path = RESOLVED_PLATFORM_MODULES.get(dep);
+                if (path == null || !Files.exists(path)) {
+                    path = JkCoordinateFileProxy.of(this.repoSetSupplier.get(), dep).get();
+                    RESOLVED_PLATFORM_MODULES.put(dep, path);
+                }
                 result = result.and(path);
             }
         }
@@ -163,32 +275,173 @@ public final class JkTestProcessor<T> {
             JkLog.trace("No test class found in %s. No test to run." , testSelection.getTestClassRoots() );
             return JkTestResult.of();
         }
-        final JkTestResult result;
+        TestResultCache resultCache = null;
+        List<String> cachedTestClasses = Collections.emptyList();
+        JkTestSelection effectiveSelection = testSelection;
+        if (resultCacheDir != null && testSelection.getDiscoveryConfigurer() != null) {
+            JkLog.trace("Test selection has a discovery configurer : test results are not cached.");
+        } else if (resultCacheDir != null) {
+            resultCache = TestResultCache.of(resultCacheDir, extraTestClasspath, testSelection, javaId());
+            cachedTestClasses = resultCache.upToDateTestClasses();
+            if (resultCache.isUpToDate()) {
+                JkLog.info("All %s test classes passed at a previous run and are unchanged. Won't run tests.",
+                        cachedTestClasses.size());
+                return JkTestResult.of().withCachedTestClasses(cachedTestClasses);
+            }
+            if (!cachedTestClasses.isEmpty()) {
+                JkLog.info("Skip %s test classes that passed at a previous run and are unchanged.",
+                        cachedTestClasses.size());
+                effectiveSelection = testSelection.copy()
+                        .addExcludePatterns(JkTestSelection.classesPattern(cachedTestClasses));
+            }
+        }
+        Path reportDir = engineBehavior.getLegacyReportDir();
+        TestTimingReport timingReport = TestTimingReport.of(reportDir == null ? null
+                : reportDir.resolveSibling(DURATION_FILE_NAME));
+        JkTestResult result;
+        boolean aborted = false;
         preActions.run();
         if (forkingProcess == null) {
             JkLog.startTask("Executing tests");
-            result = launchInClassloader(extraTestClasspath, testSelection);
+            result = launchInClassloader(extraTestClasspath, effectiveSelection);
         } else {
-            JkLog.startTask("Execute tests in forked process");
-            result = launchInForkedProcess(extraTestClasspath, testSelection);
+            // Progress is displayed by this process from the events streamed by forked ones when possible
+            TestProgressDisplay progressDisplay = TestProgressDisplay.of(engineBehavior.getProgressDisplayer());
+            TestEventCollector eventCollector = new TestEventCollector(progressDisplay, maxFailures);
+            JkEngineBehavior forkedBehavior = engineBehavior;
+            if (progressDisplay != null) {
+                forkedBehavior = engineBehavior.copy().setProgressDisplayer(JkProgressOutputStyle.SILENT);
+            }
+            if (shardCount > 1) {
+                JkLog.startTask("Execute tests in %s forked processes", shardCount);
+                result = launchInShards(extraTestClasspath, effectiveSelection, cachedTestClasses,
+                        timingReport.classDurations(), forkedBehavior, eventCollector);
+            } else {
+                JkLog.startTask("Execute tests in forked process");
+                result = launchInForkedProcess(extraTestClasspath, effectiveSelection, forkedBehavior,
+                        eventCollector);
+            }
+            eventCollector.end();
+            if (eventCollector.isAborted()) {
+                JkLog.warn("Tests aborted after %s failures.", maxFailures);
+                result = eventCollector.toResult();
+                aborted = true;
+            }
         }
         postActions.run();
+        if (resultCache != null && !aborted) {
+            resultCache.store(result, cachedTestClasses);
+            result = result.withCachedTestClasses(cachedTestClasses);
+        }
+        if (slowestTestCount > 0) {
+            timingReport.log(result, slowestTestCount);
+        }
+        if (!aborted) {
+            timingReport.store(result, cachedTestClasses);
+        }
         JkLog.info("Result : " + result.getTestCount());
         JkLog.endTask();
         return result;
     }
 
+    private String javaId() {
+        Path specificJdkHome = this.jvmHints.javaHome();
+        if (specificJdkHome != null) {
+            return specificJdkHome.toString();
+        }
+        return System.getProperty("java.home") + ";" + System.getProperty("java.version");
+    }
+
     private JkTestResult launchInClassloader(JkPathSequence testClasspath, JkTestSelection testSelection) {
         List<Path> classpath = computeClasspath(testClasspath);
-        return JkInternalJunitDoer.instance(classpath).launch(engineBehavior, testSelection);
+        return JkInternalJunitDoer.instance(classpath).launch(engineBehavior, testSelection, null);
+    }
+
+    private JkTestResult launchInShards(JkPathSequence testClasspath, JkTestSelection testSelection,
+                                        List<String> excludedClasses, Map<String, Double> classDurations,
+                                        JkEngineBehavior engineBehavior, TestEventCollector eventCollector) {
+        List<String> testClasses = testSelection.topLevelTestClasses();
+        testClasses.removeAll(new HashSet<>(excludedClasses));
+        Path reportDir = engineBehavior.getLegacyReportDir();
+        List<List<String>> shards = TestShards.split(testClasses, classDurations, shardCount);
+        JkLog.trace("Test classes split in %s shards of sizes %s.", shards.size(),
+                shards.stream().map(List::size).collect(Collectors.toList()));
+        List<Path> shardReportDirs = new LinkedList<>();
+        ExecutorService executorService = Executors.newFixedThreadPool(shards.size());
+        try {
+            List<CompletableFuture<JkTestResult>> futures = new LinkedList<>();
+            for (List<String> shard : shards) {
+                List<String> otherClasses = new ArrayList<>(testClasses);
+                otherClasses.removeAll(new HashSet<>(shard));
+                JkTestSelection shardSelection = testSelection.copy();
+                if (!otherClasses.isEmpty()) {
+                    shardSelection.addExcludePatterns(JkTestSelection.classesPattern(otherClasses));
+                }
+                JkEngineBehavior shardBehavior = engineBehavior.copy();
+                if (reportDir != null) {
+                    Path shardReportDir = JkUtilsPath.createTempDirectory("test-report-");
+                    shardReportDirs.add(shardReportDir);
+                    shardBehavior.setLegacyReportDir(shardReportDir);
+                }
+                futures.add(CompletableFuture.supplyAsync(
+                        () -> launchInForkedProcess(testClasspath, shardSelection, shardBehavior, eventCollector),
+                        executorService));
+            }
+            JkTestResult result = JkTestResult.of();
+            for (CompletableFuture<JkTestResult> future : futures) {
+                result = result.and(join(future));
+            }
+            if (reportDir != null) {
+                TestShards.mergeReports(shardReportDirs, reportDir);
+            }
+            return result;
+        } finally {
+            executorService.shutdown();
+            shardReportDirs.forEach(dir -> JkPathTree.of(dir).deleteRoot());
+        }
+    }
+
+    private static JkTestResult join(CompletableFuture<JkTestResult> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw JkUtilsThrowable.unchecked(e.getCause(), "Error while running tests in forked process.");
+        }
     }
 
-    private JkTestResult launchInForkedProcess(JkPathSequence testClasspath, JkTestSelection testSelection) {
+    /*
+     * Returns an empty result if tests have been aborted.
+     */
+    private JkTestResult launchInForkedProcess(JkPathSequence testClasspath, JkTestSelection testSelection,
+                                               JkEngineBehavior engineBehavior, TestEventCollector eventCollector) {
+        try (TestEventCollector.Channel eventChannel = eventCollector.openChannel()) {
+            if (forkedProcessReused) {
+                JkJavaProcess workerProcess = forkingProcess.copy()
+                        .setClasspath(JkClassLoader.ofCurrent().getClasspath());
+                Path specificJdkHome = this.jvmHints.javaHome();
+                if (specificJdkHome != null) {
+                    workerProcess.setCommand(specificJdkHome.resolve("bin/java").toString());
+                }
+                return TestWorkerPool.launch(workerProcess, computeClasspath(testClasspath), engineBehavior,
+                        testSelection, eventChannel.getPort(), eventCollector);
+            }
+            return launchInNewForkedProcess(testClasspath, testSelection, engineBehavior, eventChannel.getPort(),
+                    eventCollector);
+        }
+    }
+
+    private JkTestResult launchInNewForkedProcess(JkPathSequence testClasspath, JkTestSelection testSelection,
+                                                  JkEngineBehavior engineBehavior, int eventPort,
+                                                  TestEventCollector eventCollector) {
         Path serializedResultPath = JkUtilsPath.createTempFile("testResult-", ".ser");
         Args args = new Args();
         args.resultFile = serializedResultPath.toAbsolutePath().toString();
-        args.engineBehavior = this.engineBehavior;
+        args.engineBehavior = engineBehavior;
         args.testSelection = testSelection;
+        args.eventPort = eventPort;
         Path serializedArgPath = JkUtilsPath.createTempFile("testArgs-", ".ser");
         JkUtilsIO.serialize(args, serializedArgPath);
         String arg = serializedArgPath.toAbsolutePath().toString();
@@ -196,7 +449,7 @@ public final class JkTestProcessor<T> {
                 .andPrepend(computeClasspath(testClasspath)).withoutDuplicates().getEntries();
         JkJavaProcess clonedProcess = forkingProcess.copy()
                 .setLogCommand(JkLog.isVerbose())
-                .setFailOnError(true)
+                .setFailOnError(false)
                 .setClasspath(classpath)
                 .addParams(arg);
         Path specificJdkHome = this.jvmHints.javaHome();
@@ -204,22 +457,37 @@ public final class JkTestProcessor<T> {
             JkLog.info("Run tests on JVM %s", specificJdkHome);
             clonedProcess.setCommand(specificJdkHome.resolve("bin/java").toString());
         }
-        clonedProcess.exec();
-
+        int exitCode = clonedProcess.exec(process -> eventCollector.onAbort(process::destroyForcibly));
         JkUtilsPath.deleteFile(serializedArgPath);
+        if (eventCollector.isAborted()) {
+            JkUtilsPath.deleteIfExists(serializedResultPath);
+            return JkTestResult.of();
+        }
+        if (exitCode != 0) {
+            throw new IllegalStateException("Forked test process has returned with error code " + exitCode);
+        }
         JkTestResult result = JkUtilsIO.deserialize(serializedResultPath);
         JkUtilsPath.deleteFile(serializedResultPath);
         return result;
     }
 
     /**
-     * Non-public API. Used by #launchInClassloader.
+     * Non-public API. Used by #launchInForkedProcess.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        if (TestWorkerPool.WORKER_ARG.equals(args[0])) {
+            TestWorkerPool.serve(Integer.parseInt(args[1]), args[2]);
+            System.exit(0);
+        }
         Path argFile = Paths.get(args[0]);
         Args data = JkUtilsIO.deserialize(argFile);
-        JkTestResult result =
-                JkInternalJunitDoer.instance(Collections.emptyList()).launch(data.engineBehavior, data.testSelection);
+        JkInternalTestEventWriter eventWriter = data.eventPort > 0
+                ? JkInternalTestEventWriter.connect(data.eventPort) : null;
+        JkTestResult result = JkInternalJunitDoer.instance(Collections.emptyList())
+                .launch(data.engineBehavior, data.testSelection, eventWriter);
+        if (eventWriter != null) {
+            eventWriter.close();
+        }
         JkUtilsIO.serialize(result, Paths.get(data.resultFile));
         System.exit(0);  // Triggers shutdown hooks
     }
@@ -234,6 +502,8 @@ public final class JkTestProcessor<T> {
 
         JkTestSelection testSelection;
 
+        int eventPort;
+
     }
 
     public static class JkEngineBehavior<T> implements Serializable {
@@ -251,10 +521,21 @@ public final class JkTestProcessor<T> {
 
         private JkUnaryOperator<LauncherConfig.Builder> launcherConfigurer;
 
+        private boolean resourceUsageMeasured;
+
         private JkEngineBehavior(JkTestProcessor<T> __) {
             this.__ = __;
         }
 
+        private JkEngineBehavior<T> copy() {
+            JkEngineBehavior<T> result = new JkEngineBehavior<>(__);
+            result.legacyReportDir = legacyReportDir;
+            result.progressDisplayer = progressDisplayer;
+            result.launcherConfigurer = launcherConfigurer;
+            result.resourceUsageMeasured = resourceUsageMeasured;
+            return result;
+        }
+
         public Path getLegacyReportDir() {
             return legacyReportDir == null ? null : Paths.get(legacyReportDir);
         }
@@ -267,6 +548,10 @@ public final class JkTestProcessor<T> {
             return launcherConfigurer;
         }
 
+        public boolean isResourceUsageMeasured() {
+            return resourceUsageMeasured;
+        }
+
         /**
          * Sets the directory where will be generated the legacy standard XML report.
          * If {@code null}, no legacy standard XML report will be generated.
@@ -296,6 +581,16 @@ public final class JkTestProcessor<T> {
             return this;
         }
 
+        /**
+         * Specifies if CPU time and allocated memory should be measured for each test, in addition to wall-clock
+         * time. Measures are taken on the thread running the test, using the JVM management API, and are reported
+         * in {@link JkTestResult#getTestTimings()}.
+         */
+        public JkEngineBehavior<T> setResourceUsageMeasured(boolean resourceUsageMeasured) {
+            this.resourceUsageMeasured = resourceUsageMeasured;
+            return this;
+        }
+
     }
 
     private static class JvmHints {
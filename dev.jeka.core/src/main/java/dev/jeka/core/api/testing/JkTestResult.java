@@ -1,10 +1,13 @@
 package dev.jeka.core.api.testing;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 public final class JkTestResult implements Serializable {
 
@@ -20,16 +23,32 @@ public final class JkTestResult implements Serializable {
 
     private final List<JkFailure> failures;
 
-    private JkTestResult(long timeStarted, long timeFinished, JkCount containerCount, JkCount testCount, List<JkFailure> failures) {
+    private final List<String> cachedTestClasses;
+
+    private final List<JkTestTiming> timings;
+
+    private JkTestResult(long timeStarted, long timeFinished, JkCount containerCount, JkCount testCount,
+                         List<JkFailure> failures, List<String> cachedTestClasses, List<JkTestTiming> timings) {
         this.timeStarted = timeStarted;
         this.timeFinished = timeFinished;
         this.containerCount = containerCount;
         this.testCount = testCount;
         this.failures = failures;
+        this.cachedTestClasses = cachedTestClasses;
+        this.timings = timings;
     }
 
     public static JkTestResult of(long timeStarted, long timeFinished, JkCount containerCount, JkCount testCount, List<JkFailure> failures) {
-        return new JkTestResult(timeStarted, timeFinished, containerCount, testCount, failures);
+        return of(timeStarted, timeFinished, containerCount, testCount, failures, Collections.emptyList());
+    }
+
+    /**
+     * @param timings Timings of tests and top-level test classes.
+     */
+    public static JkTestResult of(long timeStarted, long timeFinished, JkCount containerCount, JkCount testCount,
+                                  List<JkFailure> failures, List<JkTestTiming> timings) {
+        return new JkTestResult(timeStarted, timeFinished, containerCount, testCount, failures,
+                Collections.emptyList(), Collections.unmodifiableList(new ArrayList<>(timings)));
     }
 
     public static JkTestResult of() {
@@ -57,6 +76,68 @@ public final class JkTestResult implements Serializable {
         return failures;
     }
 
+    /**
+     * Returns the names of the test classes that have not been run cause they passed at a previous run and
+     * nothing they depend on has changed since.
+     */
+    public List<String> getCachedTestClasses() {
+        return cachedTestClasses;
+    }
+
+    /**
+     * Returns a copy of this result with the specified cached test classes.
+     * @see #getCachedTestClasses()
+     */
+    public JkTestResult withCachedTestClasses(List<String> cachedTestClasses) {
+        return new JkTestResult(timeStarted, timeFinished, containerCount, testCount, failures,
+                Collections.unmodifiableList(new ArrayList<>(cachedTestClasses)), timings);
+    }
+
+    /**
+     * Returns the timings of the tests that have been run.
+     */
+    public List<JkTestTiming> getTestTimings() {
+        return timings.stream()
+                .filter(timing -> timing.testId.type != JkTestIdentifier.JkType.CONTAINER)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the timings of the top-level test classes that have been run. A class duration includes its
+     * tests, nested classes and setup methods.
+     */
+    public List<JkTestTiming> getClassTimings() {
+        return timings.stream()
+                .filter(timing -> timing.testId.type == JkTestIdentifier.JkType.CONTAINER)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the timings of the specified number of slowest tests, slowest first.
+     */
+    public List<JkTestTiming> getSlowestTests(int count) {
+        return getTestTimings().stream()
+                .sorted(Comparator.comparingLong(JkTestTiming::getDurationMillis).reversed())
+                .limit(count)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns a result combining this result and the specified one, as if they were produced by a single run.
+     */
+    public JkTestResult and(JkTestResult other) {
+        List<JkFailure> mergedFailures = new ArrayList<>(failures);
+        mergedFailures.addAll(other.failures);
+        List<String> mergedCachedTestClasses = new ArrayList<>(cachedTestClasses);
+        mergedCachedTestClasses.addAll(other.cachedTestClasses);
+        List<JkTestTiming> mergedTimings = new ArrayList<>(timings);
+        mergedTimings.addAll(other.timings);
+        return new JkTestResult(Math.min(timeStarted, other.timeStarted), Math.max(timeFinished, other.timeFinished),
+                containerCount.and(other.containerCount), testCount.and(other.testCount),
+                Collections.unmodifiableList(mergedFailures), Collections.unmodifiableList(mergedCachedTestClasses),
+                Collections.unmodifiableList(mergedTimings));
+    }
+
     @Override
     public String toString() {
         return "{" +
@@ -65,6 +146,7 @@ public final class JkTestResult implements Serializable {
                 ", containerCount=" + containerCount +
                 ", testCount=" + testCount +
                 ", failures=" + failures +
+                ", cachedTestClasses=" + cachedTestClasses +
                 '}';
     }
 
@@ -125,6 +207,14 @@ public final class JkTestResult implements Serializable {
             return failed;
         }
 
+        /**
+         * Returns a count summing this count and the specified one.
+         */
+        public JkCount and(JkCount other) {
+            return new JkCount(found + other.found, started + other.started, skipped + other.skipped,
+                    aborted + other.aborted, succeeded + other.succeeded, failed + other.failed);
+        }
+
         @Override
         public String toString() {
             return "{" +
@@ -213,6 +303,83 @@ public final class JkTestResult implements Serializable {
         }
     }
 
+    /**
+     * Time and resources spent running a test or a test class.
+     */
+    public static final class JkTestTiming implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final JkTestIdentifier testId;
+
+        private final long durationMillis;
+
+        private final long cpuTimeMillis;
+
+        private final long allocatedBytes;
+
+        private JkTestTiming(JkTestIdentifier testId, long durationMillis, long cpuTimeMillis, long allocatedBytes) {
+            this.testId = testId;
+            this.durationMillis = durationMillis;
+            this.cpuTimeMillis = cpuTimeMillis;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        /**
+         * @param cpuTimeMillis -1 if not measured
+         * @param allocatedBytes -1 if not measured
+         */
+        public static JkTestTiming of(JkTestIdentifier testId, long durationMillis, long cpuTimeMillis,
+                                      long allocatedBytes) {
+            return new JkTestTiming(testId, durationMillis, cpuTimeMillis, allocatedBytes);
+        }
+
+        public JkTestIdentifier getTestId() {
+            return testId;
+        }
+
+        /**
+         * Returns the name of the top-level class the test belongs to, or <code>null</code> if it can not be
+         * determined.
+         */
+        public String getTestClassName() {
+            return TestResultCache.testClassName(testId.id);
+        }
+
+        /**
+         * Returns the wall-clock time spent running the test.
+         */
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        /**
+         * Returns the CPU time consumed by the thread running the test, or -1 if it has not been measured.
+         * @see JkTestProcessor.JkEngineBehavior#setResourceUsageMeasured(boolean)
+         */
+        public long getCpuTimeMillis() {
+            return cpuTimeMillis;
+        }
+
+        /**
+         * Returns the memory allocated by the thread running the test, or -1 if it has not been measured.
+         * @see JkTestProcessor.JkEngineBehavior#setResourceUsageMeasured(boolean)
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "{" +
+                    "testId=" + testId +
+                    ", durationMillis=" + durationMillis +
+                    ", cpuTimeMillis=" + cpuTimeMillis +
+                    ", allocatedBytes=" + allocatedBytes +
+                    '}';
+        }
+    }
+
     public static final class JkTestIdentifier implements Serializable {
 
         private static final long serialVersionUID = 1L;
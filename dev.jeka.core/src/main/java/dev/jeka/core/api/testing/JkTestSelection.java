@@ -1,16 +1,21 @@
 package dev.jeka.core.api.testing;
 
 import dev.jeka.core.api.file.JkPathSequence;
+import dev.jeka.core.api.file.JkPathTree;
 import dev.jeka.core.api.file.JkPathTreeSet;
 import dev.jeka.core.api.function.JkUnaryOperator;
 import dev.jeka.core.api.utils.JkUtilsIterable;
 import dev.jeka.core.api.utils.JkUtilsPath;
+import dev.jeka.core.api.utils.JkUtilsString;
 import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
 
 import java.io.Serializable;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * Mutable object to specify a set of test to run according class root dirs, file patterns and tags.<p>
@@ -197,7 +202,7 @@ public final class JkTestSelection<T> implements Serializable {
     public String toString() {
         return "testClassRoots=" + testClassRoots.relativizeFromWorkingDir() +
                 ", includePatterns=" + includePatterns +
-                ", excludePatterns=" + excludePatterns +
+                ", excludePatterns=" + abbreviate(excludePatterns) +
                 ", includeTags=" + includeTags +
                 ", excludeTags=" + excludeTags +
                 ", discoveryConfigurer=" + discoveryConfigurer;
@@ -206,4 +211,39 @@ public final class JkTestSelection<T> implements Serializable {
     boolean hasTestClasses() {
         return JkPathTreeSet.ofRoots(this.testClassRoots.getEntries()).containFiles();
     }
+
+    /*
+     * Returns the names of the top-level classes found in the test class roots.
+     */
+    List<String> topLevelTestClasses() {
+        List<String> result = new LinkedList<>();
+        for (Path root : testClassRoots.getEntries()) {
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            List<Path> classFiles = JkPathTree.of(root).andMatching(true, "**.class").getRelativeFiles();
+            classFiles.stream()
+                    .map(relativePath -> relativePath.toString().replace('\\', '/'))
+                    .map(path -> path.substring(0, path.length() - ".class".length()).replace('/', '.'))
+                    .filter(className -> !className.contains("$"))
+                    .forEach(result::add);
+        }
+        return result;
+    }
+
+    /*
+     * Returns a regex pattern matching the specified classes along with their nested classes.
+     */
+    static String classesPattern(Collection<String> classNames) {
+        return classNames.stream()
+                .map(Pattern::quote)
+                .collect(Collectors.joining("|", "(?:", ")(?:\\$.*)?"));
+    }
+
+    // Patterns generated to exclude cached or other shard classes may be huge
+    private static String abbreviate(Set<String> patterns) {
+        return patterns.stream()
+                .map(pattern -> JkUtilsString.ellipse(pattern, 120))
+                .collect(Collectors.toList()).toString();
+    }
 }
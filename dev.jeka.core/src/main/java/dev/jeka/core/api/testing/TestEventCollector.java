@@ -0,0 +1,207 @@
+package dev.jeka.core.api.testing;
+
+import dev.jeka.core.api.system.JkLog;
+import dev.jeka.core.api.testing.JkInternalTestEventWriter.JkStatus;
+import dev.jeka.core.api.testing.JkTestResult.JkTestIdentifier.JkType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/*
+ * Collects test events streamed by forked processes while they are running. Events of several processes running
+ * concurrently can be collected by a single instance.
+ *
+ * Collected events are used to display progress, and to abort the run after a given number of failures. When
+ * the run is aborted, the result is computed from collected events.
+ */
+final class TestEventCollector {
+
+    // Ids of top-level test class containers
+    private static final Pattern CLASS_ID = Pattern.compile(".*\\[(?:class|runner):[^$\\]]+]");
+
+    private final TestProgressDisplay progressDisplay;
+
+    private final int maxFailures;
+
+    private final List<Runnable> abortActions = new LinkedList<>();
+
+    private final List<JkTestResult.JkFailure> failures = new ArrayList<>();
+
+    private final List<JkTestResult.JkTestTiming> timings = new ArrayList<>();
+
+    private final long timeStarted = System.currentTimeMillis();
+
+    private final long[] testCounts = new long[Count.values().length];
+
+    private final long[] containerCounts = new long[Count.values().length];
+
+    private volatile boolean aborted;
+
+    private enum Count {
+        STARTED, SKIPPED, ABORTED, SUCCEEDED, FAILED
+    }
+
+    /**
+     * @param progressDisplay Can be <code>null</code>, meaning that progress is not displayed by this JVM.
+     * @param maxFailures The number of failures triggering abort. 0 means never abort.
+     */
+    TestEventCollector(TestProgressDisplay progressDisplay, int maxFailures) {
+        this.progressDisplay = progressDisplay;
+        this.maxFailures = maxFailures;
+    }
+
+    synchronized void planStarted(long testCount) {
+        if (progressDisplay != null) {
+            progressDisplay.planStarted(testCount);
+        }
+    }
+
+    synchronized void started(String id, JkType type, String displayName) {
+        counts(type)[Count.STARTED.ordinal()]++;
+        if (progressDisplay != null) {
+            progressDisplay.started(id, type, displayName);
+        }
+    }
+
+    synchronized void skipped(String id, JkType type, String displayName, String reason) {
+        counts(type)[Count.SKIPPED.ordinal()]++;
+        if (progressDisplay != null) {
+            progressDisplay.skipped(id, type, displayName);
+        }
+    }
+
+    synchronized void finished(String id, JkType type, String displayName, JkStatus status, long durationMillis,
+                               String message, StackTraceElement[] stackTrace) {
+        Count count = status == JkStatus.SUCCESSFUL ? Count.SUCCEEDED
+                : status == JkStatus.ABORTED ? Count.ABORTED : Count.FAILED;
+        counts(type)[count.ordinal()]++;
+        if (progressDisplay != null) {
+            progressDisplay.finished(id, type, displayName, status);
+        }
+        JkTestResult.JkTestIdentifier testIdentifier = JkTestResult.JkTestIdentifier.of(type, id, displayName,
+                Collections.emptySet());
+        if (type != JkType.CONTAINER) {
+            JkLog.trace("%s %s in %s ms.", displayName, status, durationMillis);
+        }
+        if (type != JkType.CONTAINER || CLASS_ID.matcher(id).matches()) {
+            timings.add(JkTestResult.JkTestTiming.of(testIdentifier, durationMillis, -1, -1));
+        }
+        if (status != JkStatus.FAILED) {
+            return;
+        }
+        failures.add(JkTestResult.JkFailure.of(testIdentifier, message,
+                stackTrace == null ? new StackTraceElement[0] : stackTrace));
+        if (maxFailures > 0 && failures.size() >= maxFailures && !aborted) {
+            aborted = true;
+            abortActions.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Registers an action to run if the run is aborted. The action is run immediately if it is already aborted.
+     */
+    synchronized void onAbort(Runnable action) {
+        if (aborted) {
+            action.run();
+        } else {
+            abortActions.add(action);
+        }
+    }
+
+    boolean isAborted() {
+        return aborted;
+    }
+
+    synchronized void end() {
+        if (progressDisplay != null) {
+            progressDisplay.end();
+        }
+    }
+
+    /**
+     * Returns a result computed from the collected events.
+     */
+    synchronized JkTestResult toResult() {
+        return JkTestResult.of(timeStarted, System.currentTimeMillis(), toCount(containerCounts),
+                toCount(testCounts), new ArrayList<>(failures), timings);
+    }
+
+    /**
+     * Opens a channel that forked processes can connect to, for streaming events to this collector.
+     */
+    Channel openChannel() {
+        return new Channel(this);
+    }
+
+    private long[] counts(JkType type) {
+        return type == JkType.CONTAINER ? containerCounts : testCounts;
+    }
+
+    private static JkTestResult.JkCount toCount(long[] counts) {
+        long started = counts[Count.STARTED.ordinal()];
+        long skipped = counts[Count.SKIPPED.ordinal()];
+        return JkTestResult.JkCount.of(started + skipped, started, skipped, counts[Count.ABORTED.ordinal()],
+                counts[Count.SUCCEEDED.ordinal()], counts[Count.FAILED.ordinal()]);
+    }
+
+    /*
+     * Local server socket accepting a single connection, whose events are read in a dedicated thread.
+     */
+    static final class Channel implements Closeable {
+
+        private final ServerSocket serverSocket;
+
+        private final Thread thread;
+
+        private Channel(TestEventCollector collector) {
+            try {
+                this.serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.thread = new Thread(() -> {
+                try (Socket socket = serverSocket.accept(); InputStream inputStream = socket.getInputStream()) {
+                    JkInternalTestEventWriter.read(inputStream, collector);
+                } catch (IOException e) {
+                    if (!serverSocket.isClosed() && !collector.isAborted()) {
+                        JkLog.trace("Test event stream interrupted : %s", e.getMessage());
+                    }
+                }
+            }, "jeka-test-events");
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        /**
+         * Waits for all events to be read, then releases the channel. This must be invoked once the process
+         * sending events has stopped sending them.
+         */
+        @Override
+        public void close() {
+            try {
+                serverSocket.close();
+                thread.join();
+            } catch (IOException e) {
+                JkLog.trace("Cannot close test event channel : %s", e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+}
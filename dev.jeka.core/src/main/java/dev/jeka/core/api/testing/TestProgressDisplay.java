@@ -0,0 +1,161 @@
+package dev.jeka.core.api.testing;
+
+import dev.jeka.core.api.testing.JkInternalTestEventWriter.JkStatus;
+import dev.jeka.core.api.testing.JkTestResult.JkTestIdentifier.JkType;
+import dev.jeka.core.api.utils.JkUtilsString;
+
+import java.io.PrintStream;
+
+/*
+ * Displays progress of tests running in forked processes, from the events they stream. This mimics progress
+ * listeners used when tests run in the current process, but accounts for tests of several processes running
+ * concurrently.
+ */
+abstract class TestProgressDisplay {
+
+    final PrintStream out = System.out;
+
+    /**
+     * Returns a display for the specified style, or <code>null</code> if the style has to be handled by the
+     * process running the tests.
+     */
+    static TestProgressDisplay of(JkTestProcessor.JkProgressOutputStyle style) {
+        if (style == null) {
+            return null;
+        }
+        switch (style) {
+            case ONE_LINE: return new OneLine();
+            case BAR: return new Bar();
+            case TREE: return new Tree();
+            default: return null;
+        }
+    }
+
+    void planStarted(long testCount) {
+    }
+
+    void started(String id, JkType type, String displayName) {
+    }
+
+    void skipped(String id, JkType type, String displayName) {
+    }
+
+    void finished(String id, JkType type, String displayName, JkStatus status) {
+    }
+
+    void end() {
+        out.println();
+        out.flush();
+    }
+
+    private static final class OneLine extends TestProgressDisplay {
+
+        private long testCount;
+
+        @Override
+        void planStarted(long testCount) {
+            if (this.testCount == 0) {
+                out.print("Launch tests ");
+            }
+            this.testCount += testCount;
+            out.flush();
+        }
+
+        @Override
+        void started(String id, JkType type, String displayName) {
+            if (type != JkType.CONTAINER) {
+                out.print(".");
+                out.flush();
+            }
+        }
+
+    }
+
+    private static final class Bar extends TestProgressDisplay {
+
+        private static final int BAR_LENGTH = 50;
+
+        private long testCount;
+
+        private long index;
+
+        private int charCount;
+
+        @Override
+        void planStarted(long testCount) {
+            if (this.testCount == 0) {
+                out.println("Launch tests ");
+            }
+            this.testCount += testCount;
+        }
+
+        @Override
+        void skipped(String id, JkType type, String displayName) {
+            if (type != JkType.CONTAINER) {
+                index++;
+            }
+        }
+
+        @Override
+        void started(String id, JkType type, String displayName) {
+            if (type == JkType.CONTAINER) {
+                return;
+            }
+            index++;
+            out.print(JkUtilsString.repeat("\b", charCount));
+            out.print(JkUtilsString.repeat(" ", charCount));
+            out.print(JkUtilsString.repeat("\b", charCount));
+            String line = line(id, displayName);
+            charCount = line.length();
+            out.print(line);
+            out.flush();
+        }
+
+        private String line(String id, String displayName) {
+            long total = Math.max(testCount, index);
+            int digitLength = Long.toString(total).length();
+            int count = (int) Math.min(BAR_LENGTH, (BAR_LENGTH * index) / total);
+            String bar = "[" + JkUtilsString.repeat("=", count) + JkUtilsString.repeat(" ", BAR_LENGTH - count) + "]";
+            String parentId = id.contains("/") ? id.substring(0, id.lastIndexOf('/')) : "";
+            return String.format("Executing test %s/%s %s %s",
+                    JkUtilsString.padStart(Long.toString(index), digitLength, '0'),
+                    JkUtilsString.padStart(Long.toString(total), digitLength, '0'),
+                    bar,
+                    parentId + "." + JkUtilsString.ellipse(displayName, 50));
+        }
+
+    }
+
+    private static final class Tree extends TestProgressDisplay {
+
+        @Override
+        void started(String id, JkType type, String displayName) {
+            if (type == JkType.CONTAINER) {
+                out.println(indent(id) + displayName);
+                out.flush();
+            }
+        }
+
+        @Override
+        void skipped(String id, JkType type, String displayName) {
+            out.println(indent(id) + displayName + " : SKIPPED");
+            out.flush();
+        }
+
+        @Override
+        void finished(String id, JkType type, String displayName, JkStatus status) {
+            if (type != JkType.CONTAINER) {
+                out.println(indent(id) + displayName + " : " + status);
+                out.flush();
+            }
+        }
+
+        // Depth is deduced from unique id segments, as tests of several processes may be interleaved
+        private static String indent(String id) {
+            int depth = id.split("/\\[").length - 1;
+            return JkUtilsString.repeat("  ", depth);
+        }
+
+    }
+
+}
@@ -0,0 +1,287 @@
+package dev.jeka.core.api.testing;
+
+import dev.jeka.core.api.file.JkPathSequence;
+import dev.jeka.core.api.file.JkPathTree;
+import dev.jeka.core.api.system.JkLog;
+import dev.jeka.core.api.utils.JkUtilsPath;
+import dev.jeka.core.api.utils.JkUtilsString;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/*
+ * Stores the test classes that passed at last runs, along with a fingerprint of everything they may depend on, so
+ * unchanged test classes can be skipped.
+ *
+ * The fingerprint of a test class combines a global fingerprint (JVM, test selection, jars of the classpath and
+ * non-class files of class dirs) with the content of the test class, its nested classes and the classes it
+ * references transitively within the class dirs. References are read from the constant pool of class files, so
+ * dependencies established only by reflection (class names in strings, service loaders, ...) are not detected.
+ */
+final class TestResultCache {
+
+    private static final String FORMAT_VERSION = "1";
+
+    private static final String STATE_FILE_NAME = "test-results.txt";
+
+    private static final String SEPARATOR = "\t";
+
+    private static final Pattern CLASS_SEGMENT = Pattern.compile("\\[(?:class|runner):([^\\]]+)]");
+
+    private static final Pattern DESCRIPTOR_TYPE = Pattern.compile("L([\\w/$]+);");
+
+    private final Path stateFile;
+
+    private final List<Path> classDirs;
+
+    private final String globalFingerprint;
+
+    private final Map<String, String> candidates;  // top-level test class name -> fingerprint
+
+    private final Map<Path, String> fileHashes = new HashMap<>();
+
+    private final Map<String, Set<String>> references = new HashMap<>();
+
+    private TestResultCache(Path dir, List<Path> classDirs, String globalFingerprint, List<String> testClasses) {
+        this.stateFile = dir.resolve(STATE_FILE_NAME);
+        this.classDirs = classDirs;
+        this.globalFingerprint = globalFingerprint;
+        this.candidates = new TreeMap<>();
+        testClasses.forEach(className -> candidates.put(className, fingerprint(className)));
+    }
+
+    /**
+     * Creates a cache for the specified tests.
+     * @param javaId an identifier of the JVM running the tests.
+     */
+    static TestResultCache of(Path dir, JkPathSequence classpath, JkTestSelection<?> testSelection, String javaId) {
+        List<Path> testClassDirs = testSelection.getTestClassRoots().getEntries().stream()
+                .filter(Files::isDirectory)
+                .collect(Collectors.toList());
+        List<Path> classDirs = new LinkedList<>(testClassDirs);
+        StringBuilder sb = new StringBuilder();
+        sb.append("format:").append(FORMAT_VERSION).append('\n');
+        sb.append("java:").append(javaId).append('\n');
+        sb.append("include:").append(testSelection.getIncludePatterns()).append('\n');
+        sb.append("exclude:").append(testSelection.getExcludePatterns()).append('\n');
+        sb.append("includeTags:").append(testSelection.getIncludeTags()).append('\n');
+        sb.append("excludeTags:").append(testSelection.getExcludeTags()).append('\n');
+        for (Path entry : classpath.withoutDuplicates().getEntries()) {
+            if (Files.isDirectory(entry)) {
+                if (!classDirs.contains(entry)) {
+                    classDirs.add(entry);
+                }
+            } else if (Files.exists(entry)) {
+                sb.append("jar:").append(entry).append(';').append(JkUtilsPath.getLastModifiedTime(entry).orElse(0L))
+                        .append(';').append(size(entry)).append('\n');
+            } else {
+                sb.append("missing:").append(entry).append('\n');
+            }
+        }
+        for (Path classDir : classDirs) {
+            List<Path> resources = JkPathTree.of(classDir).andMatching(false, "**.class").getRelativeFiles();
+            resources.stream()
+                    .map(Object::toString)
+                    .sorted()
+                    .forEach(relativePath -> sb.append("resource:").append(classDir).append(';').append(relativePath)
+                            .append(';').append(hash(classDir.resolve(relativePath))).append('\n'));
+        }
+        return new TestResultCache(dir, classDirs, JkUtilsString.toSha256Hex(sb.toString()), testSelection.topLevelTestClasses());
+    }
+
+    /**
+     * Returns the test classes that passed at a previous run and that are unchanged since.
+     */
+    List<String> upToDateTestClasses() {
+        Map<String, String> stored = readState();
+        return candidates.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(stored.get(entry.getKey())))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    boolean isUpToDate() {
+        return upToDateTestClasses().size() == candidates.size();
+    }
+
+    /**
+     * Records the result of the run that has been launched for all test classes but the specified up-to-date ones.
+     */
+    void store(JkTestResult result, List<String> upToDateTestClasses) {
+        Set<String> failedClasses = new HashSet<>();
+        for (JkTestResult.JkFailure failure : result.getFailures()) {
+            String className = testClassName(failure.getTestId().getId());
+            if (className == null) {
+                JkLog.trace("Cannot determine the test class of failure %s : test results are not cached.",
+                        failure.getTestId().getId());
+                failedClasses.addAll(candidates.keySet());
+                break;
+            }
+            failedClasses.add(className);
+        }
+        Set<String> upToDate = new HashSet<>(upToDateTestClasses);
+        List<String> lines = new LinkedList<>();
+        candidates.forEach((className, fingerprint) -> {
+            if (upToDate.contains(className) || !failedClasses.contains(className)) {
+                lines.add(className + SEPARATOR + fingerprint);
+            }
+        });
+        try {
+            JkUtilsPath.createDirectories(stateFile.getParent());
+            Path tempFile = Files.createTempFile(stateFile.getParent(), STATE_FILE_NAME, ".tmp");
+            Files.write(tempFile, lines, StandardCharsets.UTF_8);
+            Files.move(tempFile, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            JkLog.trace("Cannot store test results in %s : %s", stateFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the top-level class name involved in the specified junit-platform unique id, or <code>null</code>
+     * if none.
+     */
+    static String testClassName(String uniqueId) {
+        Matcher matcher = CLASS_SEGMENT.matcher(uniqueId);
+        if (!matcher.find()) {
+            return null;
+        }
+        String className = matcher.group(1);
+        int index = className.indexOf('$');
+        return index < 0 ? className : className.substring(0, index);
+    }
+
+    private Map<String, String> readState() {
+        Map<String, String> result = new HashMap<>();
+        if (!Files.exists(stateFile)) {
+            return result;
+        }
+        try {
+            for (String line : Files.readAllLines(stateFile, StandardCharsets.UTF_8)) {
+                String[] items = line.split(SEPARATOR);
+                if (items.length == 2) {
+                    result.put(items[0], items[1]);
+                }
+            }
+        } catch (IOException e) {
+            JkLog.trace("Cannot read test results from %s : %s", stateFile, e.getMessage());
+        }
+        return result;
+    }
+
+    private String fingerprint(String testClassName) {
+        String internalName = testClassName.replace('.', '/');
+        Set<String> closure = new TreeSet<>();
+        Deque<String> toVisit = new LinkedList<>();
+        toVisit.add(internalName);
+        Path testClassFile = classFile(internalName);
+        if (testClassFile != null) {
+            String prefix = testClassFile.getFileName().toString().replace(".class", "$");
+            JkUtilsPath.listDirectChildren(testClassFile.getParent()).stream()
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(".class"))
+                    .map(name -> internalName + name.substring(prefix.length() - 1, name.length() - 6))
+                    .forEach(toVisit::add);
+        }
+        while (!toVisit.isEmpty()) {
+            String name = toVisit.poll();
+            if (closure.contains(name)) {
+                continue;
+            }
+            Path file = classFile(name);
+            if (file == null) {
+                continue;
+            }
+            closure.add(name);
+            toVisit.addAll(references.computeIfAbsent(name, key -> readReferences(file)));
+        }
+        StringBuilder sb = new StringBuilder(globalFingerprint).append('\n');
+        closure.forEach(name -> sb.append(name).append(':')
+                .append(fileHashes.computeIfAbsent(classFile(name), TestResultCache::hash)).append('\n'));
+        return JkUtilsString.toSha256Hex(sb.toString());
+    }
+
+    private Path classFile(String internalName) {
+        for (Path classDir : classDirs) {
+            Path candidate = classDir.resolve(internalName + ".class");
+            if (Files.exists(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Returns the internal names of the classes referenced in the constant pool of the specified class file.
+     */
+    static Set<String> readReferences(Path classFile) {
+        Set<String> result = new HashSet<>();
+        try (InputStream inputStream = Files.newInputStream(classFile);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream))) {
+            in.readInt();  // magic
+            in.readUnsignedShort();  // minor version
+            in.readUnsignedShort();  // major version
+            int count = in.readUnsignedShort();
+            for (int i = 1; i < count; i++) {
+                int tag = in.readUnsignedByte();
+                switch (tag) {
+                    case 1:  // utf8
+                        String value = in.readUTF();
+                        Matcher matcher = DESCRIPTOR_TYPE.matcher(value);
+                        while (matcher.find()) {
+                            result.add(matcher.group(1));
+                        }
+                        if (value.indexOf('/') > 0 && value.indexOf(';') < 0 && value.indexOf('(') < 0) {
+                            result.add(value);  // possibly a class name
+                        }
+                        break;
+                    case 7: case 8: case 16: case 19: case 20:
+                        in.skipBytes(2);
+                        break;
+                    case 15:
+                        in.skipBytes(3);
+                        break;
+                    case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                        in.skipBytes(4);
+                        break;
+                    case 5: case 6:
+                        in.skipBytes(8);
+                        i++;
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown constant pool tag " + tag + " in " + classFile);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String hash(Path file) {
+        try {
+            return JkUtilsString.toSha256Hex(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
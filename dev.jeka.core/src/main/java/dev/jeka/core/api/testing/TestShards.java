@@ -0,0 +1,131 @@
+package dev.jeka.core.api.testing;
+
+import dev.jeka.core.api.file.JkPathTree;
+import dev.jeka.core.api.utils.JkUtilsPath;
+import dev.jeka.core.api.utils.JkUtilsXml;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/*
+ * Splits test classes across shards, balancing them according durations recorded at previous runs, and merges
+ * legacy XML reports produced by each shard.
+ *
+ * Durations are the ones recorded per top-level test class by TestTimingReport. Classes having no recorded
+ * duration are assumed to last the average duration of the known ones.
+ */
+final class TestShards {
+
+    private static final String[] SUMMED_ATTRIBUTES = {"tests", "skipped", "failures", "errors"};
+
+    private TestShards() {
+    }
+
+    /**
+     * Splits the specified classes into at most <code>count</code> non-empty shards, assigning the longest classes
+     * first to the least loaded shard.
+     */
+    static List<List<String>> split(List<String> classNames, Map<String, Double> durations, int count) {
+        double defaultDuration = durations.values().stream().mapToDouble(Double::doubleValue).average().orElse(1d);
+        List<String> sortedClasses = new ArrayList<>(classNames);
+        sortedClasses.sort(Comparator.<String>comparingDouble(name -> durations.getOrDefault(name, defaultDuration))
+                .reversed().thenComparing(Comparator.naturalOrder()));
+        int shardCount = Math.max(1, Math.min(count, classNames.size()));
+        List<List<String>> shards = new ArrayList<>();
+        double[] loads = new double[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new LinkedList<>());
+        }
+        for (String className : sortedClasses) {
+            int lightest = 0;
+            for (int i = 1; i < shardCount; i++) {
+                if (loads[i] < loads[lightest]) {
+                    lightest = i;
+                }
+            }
+            shards.get(lightest).add(className);
+            loads[lightest] += durations.getOrDefault(className, defaultDuration);
+        }
+        return shards.stream().filter(shard -> !shard.isEmpty()).collect(Collectors.toList());
+    }
+
+    /**
+     * Merges the legacy XML reports found in the specified shard report dirs into the target dir. Reports having
+     * the same name (one per test engine) are merged into a single test suite.
+     */
+    static void mergeReports(List<Path> shardReportDirs, Path targetDir) {
+        Map<String, Document> merged = new LinkedHashMap<>();
+        for (Path shardReportDir : shardReportDirs) {
+            for (Path report : reports(shardReportDir)) {
+                String name = report.getFileName().toString();
+                Document document = JkUtilsXml.documentFrom(report);
+                Document target = merged.get(name);
+                if (target == null) {
+                    merged.put(name, document);
+                } else {
+                    merge(document.getDocumentElement(), target);
+                }
+            }
+        }
+        JkUtilsPath.createDirectories(targetDir);
+        merged.forEach((name, document) -> {
+            try (OutputStream outputStream = Files.newOutputStream(targetDir.resolve(name))) {
+                JkUtilsXml.output(document, outputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static void merge(Element testsuite, Document target) {
+        Element targetSuite = target.getDocumentElement();
+        for (String attribute : SUMMED_ATTRIBUTES) {
+            long sum = parseLong(targetSuite.getAttribute(attribute)) + parseLong(testsuite.getAttribute(attribute));
+            targetSuite.setAttribute(attribute, Long.toString(sum));
+        }
+        // Shards run concurrently, so the suite lasts as long as the longest shard
+        double time = Math.max(parseTime(targetSuite.getAttribute("time")), parseTime(testsuite.getAttribute("time")));
+        targetSuite.setAttribute("time", String.format(Locale.ROOT, "%.3f", time));
+        Node anchor = JkUtilsXml.directChild(targetSuite, "system-out");
+        NodeList children = testsuite.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+            if (child instanceof Element && "testcase".equals(child.getNodeName())) {
+                targetSuite.insertBefore(target.importNode(child, true), anchor);
+            }
+        }
+    }
+
+    private static List<Path> reports(Path reportDir) {
+        if (!Files.isDirectory(reportDir)) {
+            return Collections.emptyList();
+        }
+        List<Path> result = JkPathTree.of(reportDir).andMatching(true, "TEST-*.xml").getFiles();
+        return result;
+    }
+
+    private static long parseLong(String value) {
+        return value.isEmpty() ? 0 : Long.parseLong(value);
+    }
+
+    private static double parseTime(String value) {
+        if (value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(value.replace(",", ""));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+}
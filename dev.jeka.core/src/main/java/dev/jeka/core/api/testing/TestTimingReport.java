@@ -0,0 +1,143 @@
+package dev.jeka.core.api.testing;
+
+import dev.jeka.core.api.system.JkLog;
+import dev.jeka.core.api.utils.JkUtilsPath;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/*
+ * Records the test durations of the last run, to list the slowest tests along with their trend against the
+ * previous run and to balance test classes across shards.
+ *
+ * Durations are recorded per unique id of tests and top-level test classes in a text file. The file is rewritten
+ * at each run with the measured durations, plus the recorded ones of test classes skipped cause their result is
+ * cached : tests that do not exist anymore are forgotten, so the file does not grow beyond the test suite.
+ */
+final class TestTimingReport {
+
+    private static final String SEPARATOR = "\t";
+
+    private static final Pattern TOP_LEVEL_CLASS_ID = Pattern.compile(".*\\[(?:class|runner):[^\\]$]+]");
+
+    private final Path file;
+
+    private final Map<String, Long> previousDurations;
+
+    private TestTimingReport(Path file, Map<String, Long> previousDurations) {
+        this.file = file;
+        this.previousDurations = previousDurations;
+    }
+
+    /**
+     * @param file The file where durations are recorded. If <code>null</code>, trends are not computed.
+     */
+    static TestTimingReport of(Path file) {
+        return new TestTimingReport(file, read(file));
+    }
+
+    void log(JkTestResult result, int count) {
+        List<String> lines = lines(result, count);
+        if (lines.isEmpty()) {
+            return;
+        }
+        JkLog.info("Slowest tests (duration, trend since previous run, test) :");
+        lines.forEach(line -> JkLog.info("%s", line));
+    }
+
+    List<String> lines(JkTestResult result, int count) {
+        List<String> lines = new LinkedList<>();
+        for (JkTestResult.JkTestTiming timing : result.getSlowestTests(count)) {
+            String className = timing.getTestClassName();
+            String name = className == null ? timing.getTestId().getDisplayName()
+                    : className + " > " + timing.getTestId().getDisplayName();
+            StringBuilder line = new StringBuilder(String.format("%7d ms %6s  %s", timing.getDurationMillis(),
+                    trend(timing), name));
+            if (timing.getCpuTimeMillis() >= 0) {
+                line.append(String.format("  [cpu %d ms", timing.getCpuTimeMillis()));
+                if (timing.getAllocatedBytes() >= 0) {
+                    line.append(String.format(", %.1f MB allocated", timing.getAllocatedBytes() / (1024d * 1024d)));
+                }
+                line.append(']');
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Returns the durations in milliseconds recorded at previous runs for top-level test classes, per class name.
+     */
+    Map<String, Double> classDurations() {
+        Map<String, Double> result = new HashMap<>();
+        previousDurations.forEach((id, duration) -> {
+            if (TOP_LEVEL_CLASS_ID.matcher(id).matches()) {
+                result.put(TestResultCache.testClassName(id), duration.doubleValue());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Records the durations measured by the specified run, in which the specified test classes have been skipped.
+     */
+    void store(JkTestResult result, Collection<String> skippedTestClasses) {
+        if (file == null) {
+            return;
+        }
+        Set<String> skippedClasses = new HashSet<>(skippedTestClasses);
+        Map<String, Long> durations = new TreeMap<>();
+        previousDurations.forEach((id, duration) -> {
+            if (skippedClasses.contains(TestResultCache.testClassName(id))) {
+                durations.put(id, duration);
+            }
+        });
+        result.getTestTimings().forEach(timing -> durations.put(timing.getTestId().getId(),
+                timing.getDurationMillis()));
+        result.getClassTimings().forEach(timing -> durations.put(timing.getTestId().getId(),
+                timing.getDurationMillis()));
+        List<String> lines = new ArrayList<>(durations.size());
+        durations.forEach((id, duration) -> lines.add(duration + SEPARATOR + id));
+        try {
+            JkUtilsPath.createDirectories(file.getParent());
+            Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            Files.write(tempFile, lines, StandardCharsets.UTF_8);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            JkLog.trace("Cannot record test durations in %s : %s", file, e.getMessage());
+        }
+    }
+
+    private String trend(JkTestResult.JkTestTiming timing) {
+        Long previous = previousDurations.get(timing.getTestId().getId());
+        if (previous == null) {
+            return "new";
+        }
+        long percent = Math.round((timing.getDurationMillis() - previous) * 100d / Math.max(previous, 1));
+        return String.format("%+d%%", percent);
+    }
+
+    private static Map<String, Long> read(Path file) {
+        Map<String, Long> result = new HashMap<>();
+        if (file == null || !Files.exists(file)) {
+            return result;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                int index = line.indexOf(SEPARATOR);
+                if (index > 0) {
+                    result.put(line.substring(index + 1), Long.parseLong(line.substring(0, index)));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            JkLog.trace("Cannot read test durations from %s : %s", file, e.getMessage());
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,295 @@
+package dev.jeka.core.api.testing;
+
+import dev.jeka.core.api.java.JkJavaProcess;
+import dev.jeka.core.api.system.JkLog;
+import dev.jeka.core.api.utils.JkUtilsThrowable;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/*
+ * Pool of long-lived JVMs running tests on behalf of this one. Each worker connects to a server socket opened by
+ * this JVM at startup, then handles test requests one at a time until the connection is closed. A worker
+ * authenticates with the secret passed in its arguments, before any object is read from the connection.
+ *
+ * A worker keeps the classloader used to run tests as long as the test classpath and its content remain unchanged.
+ * Test events are streamed through a distinct connection, opened by the worker for each request.
+ * Workers are shared by all test processors of this JVM having the same forking process command line.
+ */
+final class TestWorkerPool {
+
+    static final String WORKER_ARG = "-worker";
+
+    private static final long START_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+    private static final Map<String, Deque<Worker>> IDLE_WORKERS = new HashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(TestWorkerPool::closeAll));
+    }
+
+    private TestWorkerPool() {
+    }
+
+    /**
+     * Runs the specified tests in a worker started with the specified process, if no such one is idle.
+     */
+    static JkTestResult launch(JkJavaProcess workerProcess, List<Path> classpath,
+                               JkTestProcessor.JkEngineBehavior engineBehavior, JkTestSelection testSelection,
+                               int eventPort, TestEventCollector eventCollector) {
+        String key = workerProcess.getCommand() + " " + workerProcess.getParams() + " " + workerProcess.getWorkingDir()
+                + " " + new TreeMap<>(workerProcess.getEnv());
+        Worker worker = acquire(key);
+        if (worker == null) {
+            worker = Worker.start(workerProcess, key);
+        }
+        Request request = new Request();
+        request.classpath = classpath.stream().map(Path::toString).collect(Collectors.toList());
+        request.classpathState = classpathState(classpath);
+        request.engineBehavior = engineBehavior;
+        request.testSelection = testSelection;
+        request.eventPort = eventPort;
+        eventCollector.onAbort(worker::destroy);
+        Object response;
+        try {
+            response = worker.send(request);
+        } catch (IOException | ClassNotFoundException e) {
+            worker.close();
+            if (eventCollector.isAborted()) {
+                return JkTestResult.of();
+            }
+            throw JkUtilsThrowable.unchecked(e, "Test worker process has stopped unexpectedly.");
+        }
+        release(worker);
+        if (response instanceof String) {
+            throw new IllegalStateException("Error while running tests in worker process : " + response);
+        }
+        return (JkTestResult) response;
+    }
+
+    /**
+     * Serves test requests coming from the JVM listening on the specified port. Returns when the connection is
+     * closed.
+     */
+    static void serve(int port, String secret) throws IOException, ClassNotFoundException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            DataOutputStream dataOutputStream = new DataOutputStream(socket.getOutputStream());
+            dataOutputStream.writeUTF(secret);
+            dataOutputStream.flush();
+            ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.flush();
+            ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+            String classpathState = null;
+            JkInternalJunitDoer junitDoer = null;
+            while (true) {
+                Request request;
+                try {
+                    request = (Request) in.readObject();
+                } catch (EOFException e) {
+                    return;
+                }
+                if (!request.classpathState.equals(classpathState)) {
+                    List<Path> classpath = request.classpath.stream().map(Paths::get).collect(Collectors.toList());
+                    junitDoer = JkInternalJunitDoer.instance(classpath);
+                    classpathState = request.classpathState;
+                }
+                Object response;
+                JkInternalTestEventWriter eventWriter = JkInternalTestEventWriter.connect(request.eventPort);
+                try {
+                    response = junitDoer.launch(request.engineBehavior, request.testSelection, eventWriter);
+                } catch (RuntimeException | Error e) {
+                    StringWriter stringWriter = new StringWriter();
+                    e.printStackTrace(new PrintWriter(stringWriter));
+                    response = stringWriter.toString();
+                    classpathState = null;  // Recreate the classloader at next request
+                } finally {
+                    eventWriter.close();
+                }
+                out.writeObject(response);
+                out.flush();
+                out.reset();
+            }
+        }
+    }
+
+    private static synchronized Worker acquire(String key) {
+        Deque<Worker> workers = IDLE_WORKERS.getOrDefault(key, new LinkedList<>());
+        while (!workers.isEmpty()) {
+            Worker worker = workers.pop();
+            if (worker.isAlive()) {
+                JkLog.trace("Reuse test worker process.");
+                return worker;
+            }
+            worker.close();
+        }
+        return null;
+    }
+
+    private static synchronized void release(Worker worker) {
+        IDLE_WORKERS.computeIfAbsent(worker.key, key -> new LinkedList<>()).push(worker);
+    }
+
+    private static synchronized void closeAll() {
+        IDLE_WORKERS.values().forEach(workers -> workers.forEach(Worker::close));
+        IDLE_WORKERS.clear();
+    }
+
+    /*
+     * Returns a string that changes when an entry of the classpath is added, removed or modified.
+     */
+    static String classpathState(List<Path> classpath) {
+        StringBuilder sb = new StringBuilder();
+        for (Path entry : classpath) {
+            sb.append(entry).append(';');
+            if (!Files.exists(entry)) {
+                sb.append("missing\n");
+                continue;
+            }
+            long[] state = new long[3];  // file count, total size, last modified
+            try {
+                Files.walkFileTree(entry, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        state[0]++;
+                        state[1] += attrs.size();
+                        state[2] = Math.max(state[2], attrs.lastModifiedTime().toMillis());
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            sb.append(state[0]).append(';').append(state[1]).append(';').append(state[2]).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static class Request implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        List<String> classpath;
+
+        String classpathState;
+
+        JkTestProcessor.JkEngineBehavior engineBehavior;
+
+        JkTestSelection testSelection;
+
+        int eventPort;
+
+    }
+
+    private static final class Worker {
+
+        private final String key;
+
+        private final Process process;
+
+        private final Socket socket;
+
+        private final ObjectOutputStream out;
+
+        private final ObjectInputStream in;
+
+        private Worker(String key, Process process, Socket socket) throws IOException {
+            this.key = key;
+            this.process = process;
+            this.socket = socket;
+            this.out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            this.out.flush();
+            this.in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+        }
+
+        static Worker start(JkJavaProcess workerProcess, String key) {
+            try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+                serverSocket.setSoTimeout(500);
+                String secret = UUID.randomUUID().toString();
+                AtomicReference<Process> processRef = new AtomicReference<>();
+                JkJavaProcess javaProcess = workerProcess.copy()
+                        .setFailOnError(false)
+                        .setLogCommand(false)
+                        .setDestroyAtJvmShutdown(true);
+                Thread thread = new Thread(() -> javaProcess.exec(processRef::set, WORKER_ARG,
+                        Integer.toString(serverSocket.getLocalPort()), secret), "jeka-test-worker");
+                thread.setDaemon(true);
+                thread.start();
+                long deadline = System.currentTimeMillis() + START_TIMEOUT_MILLIS;
+                while (true) {
+                    try {
+                        Socket socket = serverSocket.accept();
+                        if (!authenticate(socket, secret)) {
+                            JkLog.warn("Rejected test worker connection with wrong secret.");
+                            socket.close();
+                            continue;
+                        }
+                        JkLog.trace("Test worker process started.");
+                        return new Worker(key, processRef.get(), socket);
+                    } catch (SocketTimeoutException e) {
+                        if (!thread.isAlive()) {
+                            throw new IllegalStateException("Test worker process has exited before being ready.");
+                        }
+                        if (System.currentTimeMillis() > deadline) {
+                            if (processRef.get() != null) {
+                                processRef.get().destroyForcibly();
+                            }
+                            throw new IllegalStateException("Test worker process has not connected in "
+                                    + START_TIMEOUT_MILLIS + " ms.");
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static boolean authenticate(Socket socket, String secret) {
+            try {
+                socket.setSoTimeout((int) TimeUnit.SECONDS.toMillis(10));
+                String received = new DataInputStream(socket.getInputStream()).readUTF();
+                socket.setSoTimeout(0);
+                return MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8),
+                        received.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        Object send(Request request) throws IOException, ClassNotFoundException {
+            out.writeObject(request);
+            out.flush();
+            out.reset();
+            return in.readObject();
+        }
+
+        boolean isAlive() {
+            return process.isAlive() && !socket.isClosed();
+        }
+
+        void destroy() {
+            process.destroyForcibly();
+            close();
+        }
+
+        void close() {
+            try {
+                socket.close();  // The worker exits when the connection is closed
+            } catch (IOException e) {
+                JkLog.trace("Cannot close test worker connection : %s", e.getMessage());
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,62 @@
+package dev.jeka.core.api.testing.embedded.junitplatform;
+
+import dev.jeka.core.api.testing.JkInternalTestEventWriter;
+import dev.jeka.core.api.testing.JkInternalTestEventWriter.JkStatus;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Streams test execution events to the JVM that has launched the tests.
+ */
+class EventWriterListener implements TestExecutionListener {
+
+    private final JkInternalTestEventWriter eventWriter;
+
+    private final Map<String, Long> startTimes = new ConcurrentHashMap<>();
+
+    EventWriterListener(JkInternalTestEventWriter eventWriter) {
+        this.eventWriter = eventWriter;
+    }
+
+    @Override
+    public void testPlanExecutionStarted(TestPlan testPlan) {
+        eventWriter.planStarted(testPlan.countTestIdentifiers(TestIdentifier::isTest));
+    }
+
+    @Override
+    public void executionSkipped(TestIdentifier testIdentifier, String reason) {
+        eventWriter.skipped(testIdentifier.getUniqueId(), JunitPlatformDoer.toType(testIdentifier),
+                testIdentifier.getDisplayName(), reason);
+    }
+
+    @Override
+    public void executionStarted(TestIdentifier testIdentifier) {
+        startTimes.put(testIdentifier.getUniqueId(), System.nanoTime());
+        eventWriter.started(testIdentifier.getUniqueId(), JunitPlatformDoer.toType(testIdentifier),
+                testIdentifier.getDisplayName());
+    }
+
+    @Override
+    public void executionFinished(TestIdentifier testIdentifier, TestExecutionResult testExecutionResult) {
+        Long startTime = startTimes.remove(testIdentifier.getUniqueId());
+        long duration = startTime == null ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        eventWriter.finished(testIdentifier.getUniqueId(), JunitPlatformDoer.toType(testIdentifier),
+                testIdentifier.getDisplayName(), toStatus(testExecutionResult.getStatus()), duration,
+                testExecutionResult.getThrowable().orElse(null));
+    }
+
+    private static JkStatus toStatus(TestExecutionResult.Status status) {
+        switch (status) {
+            case SUCCESSFUL: return JkStatus.SUCCESSFUL;
+            case ABORTED: return JkStatus.ABORTED;
+            default: return JkStatus.FAILED;
+        }
+    }
+
+}
@@ -3,6 +3,7 @@ package dev.jeka.core.api.testing.embedded.junitplatform;
 import dev.jeka.core.api.function.JkUnaryOperator;
 import dev.jeka.core.api.system.JkLog;
 import dev.jeka.core.api.testing.JkInternalJunitDoer;
+import dev.jeka.core.api.testing.JkInternalTestEventWriter;
 import dev.jeka.core.api.testing.JkTestProcessor;
 import dev.jeka.core.api.testing.JkTestResult;
 import dev.jeka.core.api.testing.JkTestSelection;
@@ -14,6 +15,7 @@ import org.junit.platform.engine.discovery.DiscoverySelectors;
 import org.junit.platform.launcher.Launcher;
 import org.junit.platform.launcher.TagFilter;
 import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
 import org.junit.platform.launcher.TestPlan;
 import org.junit.platform.launcher.core.LauncherConfig;
 import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
@@ -35,7 +37,8 @@ class JunitPlatformDoer implements JkInternalJunitDoer {
         return new JunitPlatformDoer();
     }
 
-    public JkTestResult launch(JkTestProcessor.JkEngineBehavior engineBehavior, JkTestSelection testSelection) {
+    public JkTestResult launch(JkTestProcessor.JkEngineBehavior engineBehavior, JkTestSelection testSelection,
+                               JkInternalTestEventWriter eventWriter) {
 
         // creating launcher
         LauncherConfig.Builder launcherBuilder = LauncherConfig.builder();
@@ -70,12 +73,17 @@ class JunitPlatformDoer implements JkInternalJunitDoer {
                     new PrintWriter(JkUtilsIO.nopOutputStream()));
             listeners.add(reportGeneratingListener);
         }
+        TimingListener timingListener = new TimingListener(engineBehavior.isResourceUsageMeasured());
+        listeners.add(timingListener);
+        if (eventWriter != null) {
+            listeners.add(new EventWriterListener(eventWriter));
+        }
         listeners.add(new RestoreJkLogListener());
 
         // Execution
         launcher.execute(testPlan, listeners.toArray(new TestExecutionListener[0]));
         TestExecutionSummary summary = summaryListener.getSummary();
-        return toTestResult(summary);
+        return toTestResult(summary, timingListener.getTimings());
     }
 
     private static Filter[] getFilters(JkTestSelection testSelection) {
@@ -95,7 +103,7 @@ class JunitPlatformDoer implements JkInternalJunitDoer {
         return result.toArray(new Filter[0]);
     }
 
-    private static JkTestResult toTestResult(TestExecutionSummary summary) {
+    private static JkTestResult toTestResult(TestExecutionSummary summary, List<JkTestResult.JkTestTiming> timings) {
         JkTestResult.JkCount containerCount = JkTestResult.JkCount.of(
                 summary.getContainersFoundCount(),
                 summary.getContainersStartedCount(),
@@ -113,7 +121,7 @@ class JunitPlatformDoer implements JkInternalJunitDoer {
         List<JkTestResult.JkFailure> failures = summary.getFailures().stream()
                 .map(JunitPlatformDoer::toFailure).collect(Collectors.toList());
         return JkTestResult.of(summary.getTimeStarted(), summary.getTimeFinished(),
-                containerCount, testCount, failures);
+                containerCount, testCount, failures, timings);
     }
 
     private static String[] toArray(Set<String> strings) {
@@ -121,18 +129,7 @@ class JunitPlatformDoer implements JkInternalJunitDoer {
     }
 
     private static JkTestResult.JkFailure toFailure(TestExecutionSummary.Failure failure) {
-        JkTestResult.JkTestIdentifier.JkType type;
-        switch (failure.getTestIdentifier().getType()) {
-            case CONTAINER:
-                type = JkTestResult.JkTestIdentifier.JkType.CONTAINER;
-                break;
-            case CONTAINER_AND_TEST:
-                type = JkTestResult.JkTestIdentifier.JkType.CONTAINER_AND_TEST;
-                break;
-            default:
-                type = JkTestResult.JkTestIdentifier.JkType.TEST;
-                break;
-        }
+        JkTestResult.JkTestIdentifier.JkType type = toType(failure.getTestIdentifier());
         String testId = failure.getTestIdentifier().getUniqueId();
         String displayName = failure.getTestIdentifier().getDisplayName();
         Set<String> tags = failure.getTestIdentifier().getTags().stream().map(TestTag::toString)
@@ -142,6 +139,17 @@ class JunitPlatformDoer implements JkInternalJunitDoer {
                 failure.getException().getStackTrace());
     }
 
+    static JkTestResult.JkTestIdentifier.JkType toType(TestIdentifier testIdentifier) {
+        switch (testIdentifier.getType()) {
+            case CONTAINER:
+                return JkTestResult.JkTestIdentifier.JkType.CONTAINER;
+            case CONTAINER_AND_TEST:
+                return JkTestResult.JkTestIdentifier.JkType.CONTAINER_AND_TEST;
+            default:
+                return JkTestResult.JkTestIdentifier.JkType.TEST;
+        }
+    }
+
     private static class RestoreJkLogListener implements TestExecutionListener {
 
         @Override
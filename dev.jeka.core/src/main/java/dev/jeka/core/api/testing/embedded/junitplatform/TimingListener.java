@@ -0,0 +1,120 @@
+package dev.jeka.core.api.testing.embedded.junitplatform;
+
+import dev.jeka.core.api.testing.JkTestResult;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.TestTag;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/*
+ * Measures time spent running each test and each top-level test class. Optionally, measures CPU time and memory
+ * allocated by the thread running them.
+ */
+class TimingListener implements TestExecutionListener {
+
+    private final ThreadMXBean threadMXBean;
+
+    private final Map<String, Sample> startSamples = new ConcurrentHashMap<>();
+
+    private final List<JkTestResult.JkTestTiming> timings = new ArrayList<>();
+
+    TimingListener(boolean resourceUsageMeasured) {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        this.threadMXBean = resourceUsageMeasured && bean.isCurrentThreadCpuTimeSupported() ? bean : null;
+        if (this.threadMXBean != null && !threadMXBean.isThreadCpuTimeEnabled()) {
+            threadMXBean.setThreadCpuTimeEnabled(true);
+        }
+    }
+
+    @Override
+    public void executionStarted(TestIdentifier testIdentifier) {
+        if (isTimed(testIdentifier)) {
+            startSamples.put(testIdentifier.getUniqueId(), sample());
+        }
+    }
+
+    @Override
+    public void executionFinished(TestIdentifier testIdentifier, TestExecutionResult testExecutionResult) {
+        Sample start = startSamples.remove(testIdentifier.getUniqueId());
+        if (start == null) {
+            return;
+        }
+        Sample end = sample();
+        long cpuTime = -1;
+        long allocatedBytes = -1;
+        if (threadMXBean != null && start.threadId == end.threadId) {
+            cpuTime = TimeUnit.NANOSECONDS.toMillis(end.cpuNanos - start.cpuNanos);
+            allocatedBytes = start.allocatedBytes < 0 ? -1 : end.allocatedBytes - start.allocatedBytes;
+        }
+        Set<String> tags = testIdentifier.getTags().stream().map(TestTag::toString).collect(Collectors.toSet());
+        JkTestResult.JkTestIdentifier id = JkTestResult.JkTestIdentifier.of(JunitPlatformDoer.toType(testIdentifier),
+                testIdentifier.getUniqueId(), testIdentifier.getDisplayName(), tags);
+        JkTestResult.JkTestTiming timing = JkTestResult.JkTestTiming.of(id,
+                TimeUnit.NANOSECONDS.toMillis(end.nanos - start.nanos), cpuTime, allocatedBytes);
+        synchronized (timings) {
+            timings.add(timing);
+        }
+    }
+
+    List<JkTestResult.JkTestTiming> getTimings() {
+        synchronized (timings) {
+            return new ArrayList<>(timings);
+        }
+    }
+
+    // Top-level classes are timed, but not engines nor nested classes
+    private static boolean isTimed(TestIdentifier testIdentifier) {
+        if (testIdentifier.isTest()) {
+            return true;
+        }
+        return testIdentifier.getSource()
+                .filter(ClassSource.class::isInstance)
+                .map(source -> !((ClassSource) source).getClassName().contains("$"))
+                .orElse(false);
+    }
+
+    private Sample sample() {
+        Sample sample = new Sample();
+        sample.nanos = System.nanoTime();
+        sample.threadId = Thread.currentThread().getId();
+        if (threadMXBean != null) {
+            sample.cpuNanos = threadMXBean.getCurrentThreadCpuTime();
+            sample.allocatedBytes = allocatedBytes(sample.threadId);
+        }
+        return sample;
+    }
+
+    private long allocatedBytes(long threadId) {
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(threadId);
+            }
+        }
+        return -1;
+    }
+
+    private static class Sample {
+
+        long nanos;
+
+        long threadId;
+
+        long cpuNanos;
+
+        long allocatedBytes = -1;
+
+    }
+
+}
@@ -10,7 +10,10 @@ import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 import java.util.zip.ZipFile;
 
 /**
@@ -381,43 +384,84 @@ public final class JkUtilsIO {
     }
 
     /**
-     * Returns a thread that write each data read to the specified input
-     * getOutputStream to the specified output getOutputStream.
+     * Returns a gobbler that writes each data read from the specified input stream to the specified
+     * output streams.
      */
     public static JkStreamGobbler newStreamGobbler(InputStream is, OutputStream ... outputStreams) {
-        return new JkStreamGobbler(is, outputStreams);
+        return new JkStreamGobbler(is, false, () -> false, outputStreams);
     }
 
     /**
-     * Runs a thread copying all data from the specified input stream to specified  output streams. The
-     * thread is started when the instance is created. You have to call
-     * {@link #stop()} to stop the thread.
+     * Same as {@link #newStreamGobbler(InputStream, OutputStream...)} but data are written to output streams
+     * by whole lines, so lines from concurrent gobblers writing to a same stream are not mixed.
+     */
+    public static JkStreamGobbler newLineFramedStreamGobbler(InputStream is, OutputStream ... outputStreams) {
+        return new JkStreamGobbler(is, true, () -> false, outputStreams);
+    }
+
+    /**
+     * Same as {@link #newLineFramedStreamGobbler(InputStream, OutputStream...)} but failures to read the input
+     * stream are ignored once the specified supplier returns <code>true</code>, as for the streams of a process
+     * that are closed when the process is destroyed.
+     */
+    public static JkStreamGobbler newLineFramedStreamGobbler(InputStream is, BooleanSupplier sourceTerminated,
+                                                             OutputStream ... outputStreams) {
+        return new JkStreamGobbler(is, true, sourceTerminated, outputStreams);
+    }
+
+    /**
+     * Copies all data from the specified input stream to specified output streams, by blocks, on a thread
+     * borrowed from a pool shared by all gobblers. The copy starts when the instance is created and ends
+     * when the input stream is exhausted, or when {@link #stop()} is called.
      */
     public static final class JkStreamGobbler {
 
+        private static final int BUFFER_SIZE = 8192;
+
+        private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "jeka-stream-gobbler-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
         private final InnerRunnable innerRunnable;
 
-        private final Thread thread;
+        private final Future<?> future;
 
-        private JkStreamGobbler(InputStream is, OutputStream... outputStreams) {
-            this.innerRunnable = new InnerRunnable(is, outputStreams);
-            thread = new Thread(innerRunnable);
-            thread.start();
+        private JkStreamGobbler(InputStream is, boolean lineFramed, BooleanSupplier sourceTerminated,
+                                OutputStream... outputStreams) {
+            this.innerRunnable = new InnerRunnable(is, lineFramed, sourceTerminated, outputStreams);
+            this.future = EXECUTOR.submit(innerRunnable);
         }
 
         /**
-         * Stop the gobbling, meaning stop the thread.
+         * Stop the gobbling. Data already read are still written to output streams.
          */
         public void stop() {
             this.innerRunnable.stop.set(true);
         }
 
+        /**
+         * Waits for the gobbling to end. Throws an {@link UncheckedIOException} if writing failed, or if reading
+         * failed while the gobbling was not stopped and the source not terminated.
+         */
         public void join() {
             try {
-                thread.join();
+                future.get();
             } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();;
+                Thread.currentThread().interrupt();
                 throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw JkUtilsThrowable.unchecked(e.getCause(), "Error while gobbling stream");
             }
         }
 
@@ -425,32 +469,93 @@ public final class JkUtilsIO {
 
             private final InputStream in;
 
+            private final boolean lineFramed;
+
+            private final BooleanSupplier sourceTerminated;
+
             private final OutputStream[] outs;
 
             private final AtomicBoolean stop = new AtomicBoolean(false);
 
-            private InnerRunnable(InputStream is, OutputStream[] outputStreams) {
+            private InnerRunnable(InputStream is, boolean lineFramed, BooleanSupplier sourceTerminated,
+                                  OutputStream[] outputStreams) {
                 this.in = is;
+                this.lineFramed = lineFramed;
+                this.sourceTerminated = sourceTerminated;
                 this.outs = outputStreams;
             }
 
             @Override
             public void run() {
-                try (InputStreamReader isr = new InputStreamReader(in); BufferedReader br = new BufferedReader(isr)) {
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                int pending = 0;
+                try {
                     while (!stop.get()) {
-                        int c = br.read();
-                        if (c == -1) {
+                        int count = read(buffer, pending);
+                        if (count == -1) {
                             break;
                         }
-                        for (OutputStream out : outs) {
-                            out.write((char) c);
-                            out.flush();
+                        int length = pending + count;
+                        int writeLength = length;
+
+                        // Keep the trailing partial line only if more data is coming right now, so prompts
+                        // not ending with a line separator are still displayed. A line longer than the buffer
+                        // is written in several parts.
+                        if (lineFramed && available() > 0) {
+                            int lineEnd = lastLineEnd(buffer, length);
+                            if (lineEnd > 0 || length < buffer.length) {
+                                writeLength = lineEnd;
+                            }
                         }
+                        write(buffer, writeLength);
+                        pending = length - writeLength;
+                        System.arraycopy(buffer, writeLength, buffer, 0, pending);
                     }
-                } catch (final IOException e) {
+                    write(buffer, pending);
+                } catch (IOException e) {
                     throw new UncheckedIOException(e);
                 }
             }
+
+            // Returns -1 if the read fails once stopped or once the source is terminated.
+            private int read(byte[] buffer, int offset) {
+                try {
+                    return in.read(buffer, offset, buffer.length - offset);
+                } catch (IOException e) {
+                    if (stop.get() || sourceTerminated.getAsBoolean()) {
+                        return -1;
+                    }
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            // A failure here shows up on the next read
+            private int available() {
+                try {
+                    return in.available();
+                } catch (IOException e) {
+                    return 0;
+                }
+            }
+
+            private void write(byte[] buffer, int length) throws IOException {
+                if (length == 0) {
+                    return;
+                }
+                for (OutputStream out : outs) {
+                    out.write(buffer, 0, length);
+                    out.flush();
+                }
+            }
+
+            private static int lastLineEnd(byte[] buffer, int length) {
+                for (int i = length - 1; i >= 0; i--) {
+                    if (buffer[i] == '\n') {
+                        return i + 1;
+                    }
+                }
+                return 0;
+            }
         }
     }
 
@@ -356,6 +356,37 @@ public final class JkUtilsPath {
         }
     }
 
+    /**
+     * Same as {@link #walk(Path, FileVisitOption...)} but does not descend into directories whose path,
+     * relative to the walked one, is not matched by the specified subtree matcher. Such directories are
+     * still part of the returned stream.
+     */
+    public static Stream<Path> walk(Path path, PathMatcher subtreeMatcher, FileVisitOption ...options) {
+        final List<Path> result = new ArrayList<>();
+        final Set<FileVisitOption> visitOptions = options.length == 0 ? EnumSet.noneOf(FileVisitOption.class)
+                : EnumSet.copyOf(Arrays.asList(options));
+        try {
+            Files.walkFileTree(path, visitOptions, Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    result.add(dir);
+                    return subtreeMatcher.matches(path.relativize(dir)) ? FileVisitResult.CONTINUE
+                            : FileVisitResult.SKIP_SUBTREE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    result.add(file);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result.stream();
+    }
+
     public static void walkFileTree(Path path, FileVisitor<Path> visitor) {
         try {
             Files.walkFileTree(path, visitor);
@@ -370,7 +401,17 @@ public final class JkUtilsPath {
      * @return the copied file count.
      */
     public static int copyDirContent(Path sourceDir, Path targetDir, PathMatcher pathMatcher, CopyOption ... copyOptions)  {
-        final CopyDirVisitor visitor = new CopyDirVisitor(sourceDir, targetDir, pathMatcher, copyOptions);
+        return copyDirContent(sourceDir, targetDir, pathMatcher, path -> true, copyOptions);
+    }
+
+    /**
+     * Same as {@link #copyDirContent(Path, Path, PathMatcher, CopyOption...)} but skipping directories
+     * whose relative path is not matched by the specified subtree matcher.
+     */
+    public static int copyDirContent(Path sourceDir, Path targetDir, PathMatcher pathMatcher,
+                                     PathMatcher subtreeMatcher, CopyOption ... copyOptions)  {
+        final CopyDirVisitor visitor = new CopyDirVisitor(sourceDir, targetDir, pathMatcher, subtreeMatcher,
+                copyOptions);
         createDirectories(targetDir);
         walkFileTree(sourceDir, visitor);
         return visitor.count;
@@ -382,7 +423,17 @@ public final class JkUtilsPath {
      * This method is designed to stop file traversal as soon as count is greater than max.
      */
     public static int childrenCount(Path dir, int max, boolean includeDirectories, PathMatcher pathMatcher)  {
-        final CountFileVisitor visitor = new CountFileVisitor(dir, max, includeDirectories, pathMatcher);
+        return childrenCount(dir, max, includeDirectories, pathMatcher, path -> true);
+    }
+
+    /**
+     * Same as {@link #childrenCount(Path, int, boolean, PathMatcher)} but skipping directories
+     * whose relative path is not matched by the specified subtree matcher.
+     */
+    public static int childrenCount(Path dir, int max, boolean includeDirectories, PathMatcher pathMatcher,
+                                    PathMatcher subtreeMatcher)  {
+        final CountFileVisitor visitor = new CountFileVisitor(dir, max, includeDirectories, pathMatcher,
+                subtreeMatcher);
         walkFileTree(dir, visitor);
         return visitor.count;
     }
@@ -406,16 +457,19 @@ public final class JkUtilsPath {
 
     private static class CopyDirVisitor extends SimpleFileVisitor<Path> {
 
-        CopyDirVisitor(Path fromDir, Path toDir, PathMatcher pathMatcher, CopyOption ... options) {
+        CopyDirVisitor(Path fromDir, Path toDir, PathMatcher pathMatcher, PathMatcher subtreeMatcher,
+                       CopyOption ... options) {
             this.fromDir = fromDir;
             this.toDir = toDir;
             this.options = options;
             this.pathMatcher = pathMatcher;
+            this.subtreeMatcher = subtreeMatcher;
         }
 
         private final Path fromDir;
         private final Path toDir;
         private final PathMatcher pathMatcher;
+        private final PathMatcher subtreeMatcher;
         private final CopyOption[] options;
         int count;
 
@@ -423,12 +477,14 @@ public final class JkUtilsPath {
         @Override
         public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
             final Path sourceRelativePath = fromDir.relativize(dir);
+            final FileVisitResult result = subtreeMatcher.matches(sourceRelativePath) ? FileVisitResult.CONTINUE
+                    : FileVisitResult.SKIP_SUBTREE;
             if (!pathMatcher.matches(sourceRelativePath)) {
-                return FileVisitResult.CONTINUE;
+                return result;
             }
             final Path relativePath = toDir.getFileSystem().getPath(toDir.toString(), sourceRelativePath.toString());
             Files.createDirectories(relativePath);
-            return FileVisitResult.CONTINUE;
+            return result;
         }
 
         @Override
@@ -454,20 +510,25 @@ public final class JkUtilsPath {
         private final int countMax;
         private int count;
         private final PathMatcher pathMatcher;
+        private final PathMatcher subtreeMatcher;
 
 
-        CountFileVisitor(Path fromPath, int countMax , boolean includeDirectories, PathMatcher pathMatcher) {
+        CountFileVisitor(Path fromPath, int countMax , boolean includeDirectories, PathMatcher pathMatcher,
+                         PathMatcher subtreeMatcher) {
             this.fromPath = fromPath;
             this.countMax = countMax;
             this.includeDirectories = includeDirectories;
             this.pathMatcher = pathMatcher;
+            this.subtreeMatcher = subtreeMatcher;
         }
 
         @Override
         public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
             final Path sourceRelativePath = fromPath.relativize(dir);
+            final FileVisitResult result = subtreeMatcher.matches(sourceRelativePath) ? FileVisitResult.CONTINUE
+                    : FileVisitResult.SKIP_SUBTREE;
             if (!pathMatcher.matches(sourceRelativePath)) {
-                return FileVisitResult.CONTINUE;
+                return result;
             }
             if (includeDirectories && !fromPath.equals(dir)) {
                 count ++;
@@ -475,7 +536,7 @@ public final class JkUtilsPath {
             if (count > countMax) {
                 return FileVisitResult.TERMINATE;
             }
-            return FileVisitResult.CONTINUE;
+            return result;
         }
 
         @Override
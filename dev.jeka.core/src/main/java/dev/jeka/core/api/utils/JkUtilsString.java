@@ -1,6 +1,8 @@
 package dev.jeka.core.api.utils;
 
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.function.Function;
 
@@ -181,6 +183,24 @@ public final class JkUtilsString {
         return new String(hex, StandardCharsets.US_ASCII);
     }
 
+    /**
+     * Returns the hexadecimal form of the SHA-256 digest of the specified bytes.
+     */
+    public static String toSha256Hex(byte[] bytes) {
+        try {
+            return toHexString(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw JkUtilsThrowable.unchecked(e);
+        }
+    }
+
+    /**
+     * Returns the hexadecimal form of the SHA-256 digest of the UTF-8 bytes of the specified string.
+     */
+    public static String toSha256Hex(String value) {
+        return toSha256Hex(value.getBytes(StandardCharsets.UTF_8));
+    }
+
     /**
      * Returns <code>true</code> if the specified string ends with any of the
      * candidates.
@@ -0,0 +1,448 @@
+package dev.jeka.core.tool;
+
+import dev.jeka.core.api.file.JkPathFile;
+import dev.jeka.core.api.system.JkLocator;
+import dev.jeka.core.api.system.JkLog;
+import dev.jeka.core.api.utils.JkUtilsPath;
+import dev.jeka.core.api.utils.JkUtilsSystem;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.*;
+
+/*
+ * Long-lived process executing Jeka commands on behalf of 'jeka -daemon' invocations, so JVM startup, loading of
+ * Jeka, Ivy and ClassGraph classes and JIT compilation are paid once per project instead of once per invocation.
+ *
+ * There is at most one daemon per project directory. It listens on a loopback port, which is mentioned along
+ * a secret token in [project dir]/jeka/.work/daemon.txt. Commands are executed one at a time, each in a fresh
+ * classloader on top of the warm Jeka classes, so def classes changed since the last run are picked up, while
+ * unchanged ones are neither recompiled nor re-resolved thanks to the caches stored in jeka/.work.
+ * KBean instances are stateful so JkRuntimes are recreated for each command.
+ *
+ * The daemon runs in the environment (env variables, JVM options) of the invocation that started it. It is
+ * restarted automatically if the Jeka distribution changes, and stops after one hour of inactivity or when
+ * 'jeka -daemon.stop' is invoked.
+ */
+final class Daemon {
+
+    static final String SERVE_ARG = "-daemon.serve";
+
+    private static final String STOP_ARG = "-daemon.stop";
+
+    private static final String DAEMON_FILE_NAME = "daemon.txt";
+
+    private static final String DAEMON_LOG_FILE_NAME = "daemon.log";
+
+    private static final int IDLE_TIMEOUT_MILLIS = 60 * 60 * 1000;
+
+    private static final int START_TIMEOUT_MILLIS = 30 * 1000;
+
+    private static final byte OUT_FRAME = 1;
+
+    private static final byte ERR_FRAME = 2;
+
+    private static final byte EXIT_FRAME = 3;
+
+    // Exit code sent back when the daemon cannot serve the client and has to be replaced
+    private static final int RESTART_CODE = Integer.MIN_VALUE;
+
+    private static boolean daemonProcess;
+
+    private Daemon() {
+    }
+
+    static boolean isDaemonProcess() {
+        return daemonProcess;
+    }
+
+    // ------------------------------- Client side --------------------------------------
+
+    /**
+     * Executes the specified command line in the daemon attached to the specified project, starting it if needed.
+     * Returns the exit code of the command.
+     */
+    static int execute(Path projectDir, String[] args) {
+        Path daemonFile = daemonFile(projectDir);
+        if (!Files.isDirectory(projectDir.resolve(JkConstants.JEKA_DIR))) {
+            throw new JkException("Daemon mode is only available within a Jeka project, as " + projectDir
+                    + " does not contain a 'jeka' folder.");
+        }
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Address address = Address.read(daemonFile);
+            if (address == null) {
+                address = start(projectDir);
+            }
+            int code;
+            try {
+                code = send(address, args);
+            } catch (ConnectException e) {
+                JkLog.trace("Cannot connect to daemon %s : %s", address, e.getMessage());
+                JkUtilsPath.deleteIfExists(daemonFile);
+                continue;
+            } catch (IOException e) {
+                throw new JkException("Connection to Jeka daemon lost : " + e.getMessage());
+            }
+            if (code != RESTART_CODE) {
+                return code;
+            }
+            JkLog.trace("Running daemon does not match the current Jeka distribution. Restart it.");
+            waitForDeletion(daemonFile);
+        }
+        throw new JkException("Unable to execute command through Jeka daemon. See " +
+                projectDir.resolve(JkConstants.WORK_PATH).resolve(DAEMON_LOG_FILE_NAME));
+    }
+
+    /**
+     * Stops the daemon attached to the specified project, if any.
+     */
+    static void stop(Path projectDir) {
+        Address address = Address.read(daemonFile(projectDir));
+        if (address == null) {
+            System.out.println("No Jeka daemon running for " + projectDir);
+            return;
+        }
+        try {
+            send(address, new String[] {STOP_ARG});
+            System.out.println("Jeka daemon stopped.");
+        } catch (IOException e) {
+            JkUtilsPath.deleteIfExists(daemonFile(projectDir));
+            System.out.println("No Jeka daemon running for " + projectDir);
+        }
+    }
+
+    private static int send(Address address, String[] args) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), address.port)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeUTF(address.secret);
+            out.writeUTF(distributionKey());
+            out.writeInt(args.length);
+            for (String arg : args) {
+                out.writeUTF(arg);
+            }
+            out.flush();
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            byte[] buffer = new byte[8192];
+            while (true) {
+                byte type = in.readByte();
+                if (type == EXIT_FRAME) {
+                    System.out.flush();
+                    System.err.flush();
+                    return in.readInt();
+                }
+                PrintStream target = type == ERR_FRAME ? System.err : System.out;
+                int remaining = in.readInt();
+                while (remaining > 0) {
+                    int read = in.read(buffer, 0, Math.min(buffer.length, remaining));
+                    if (read < 0) {
+                        throw new EOFException();
+                    }
+                    target.write(buffer, 0, read);
+                    remaining -= read;
+                }
+                target.flush();
+            }
+        }
+    }
+
+    private static Address start(Path projectDir) {
+        Path daemonFile = daemonFile(projectDir);
+        Path logFile = projectDir.resolve(JkConstants.WORK_PATH).resolve(DAEMON_LOG_FILE_NAME);
+        JkUtilsPath.createDirectories(logFile.getParent());
+        List<String> command = new LinkedList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(daemonClasspath(projectDir));
+        command.add(Main.class.getName());
+        command.add(SERVE_ARG);
+        JkLog.trace("Start Jeka daemon : %s", command);
+        try {
+            new ProcessBuilder(command)
+                    .directory(projectDir.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile.toFile()))
+                    .redirectInput(ProcessBuilder.Redirect.PIPE)
+                    .start()
+                    .getOutputStream().close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long deadline = System.currentTimeMillis() + START_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            Address address = Address.read(daemonFile);
+            if (address != null) {
+                return address;
+            }
+            JkUtilsSystem.sleep(50);
+        }
+        throw new JkException("Jeka daemon did not start within " + START_TIMEOUT_MILLIS / 1000 + " seconds. See "
+                + logFile);
+    }
+
+    /*
+     * The Jeka jar and the boot libs are not on the system classpath when launched through the wrapper, as they
+     * are loaded by the wrapper own class loader.
+     */
+    private static String daemonClasspath(Path projectDir) {
+        Set<String> entries = new LinkedHashSet<>();
+        entries.add(JkLocator.getJekaJarPath().toAbsolutePath().normalize().toString());
+        Path bootDir = projectDir.resolve(JkConstants.BOOT_DIR);
+        if (Files.isDirectory(bootDir)) {
+            JkUtilsPath.listDirectChildren(bootDir).stream()
+                    .filter(path -> path.toString().endsWith(".jar"))
+                    .sorted()
+                    .forEach(path -> entries.add(path.toAbsolutePath().normalize().toString()));
+        }
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (!entry.isEmpty()) {
+                entries.add(entry);
+            }
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static void waitForDeletion(Path daemonFile) {
+        long deadline = System.currentTimeMillis() + START_TIMEOUT_MILLIS;
+        while (Files.exists(daemonFile) && System.currentTimeMillis() < deadline) {
+            JkUtilsSystem.sleep(50);
+        }
+        JkUtilsPath.deleteIfExists(daemonFile);
+    }
+
+    // ------------------------------- Daemon side --------------------------------------
+
+    /**
+     * Runs the daemon for the working directory project, until it is stopped or idle for too long.
+     * This must be invoked prior {@link JkLog} is loaded, as JkLog captures standard streams at load time.
+     */
+    static void serve() {
+        daemonProcess = true;
+        RoutingOutputStream out = new RoutingOutputStream(System.out);
+        RoutingOutputStream err = new RoutingOutputStream(System.err);
+        System.setOut(new PrintStream(out, true));
+        System.setErr(new PrintStream(err, true));
+        Path projectDir = Paths.get("").toAbsolutePath();
+        Path daemonFile = daemonFile(projectDir);
+        Properties initialProperties = (Properties) System.getProperties().clone();
+        String distributionKey = distributionKey();
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            serverSocket.setSoTimeout(IDLE_TIMEOUT_MILLIS);
+            Address address = new Address(serverSocket.getLocalPort(), UUID.randomUUID().toString());
+            address.write(daemonFile);
+            System.out.println("Jeka daemon listening on port " + address.port + " for project " + projectDir);
+            boolean stopped = false;
+            while (!stopped) {
+                try (Socket socket = serverSocket.accept()) {
+                    stopped = handle(socket, address.secret, distributionKey, out, err);
+                } catch (SocketTimeoutException e) {
+                    System.out.println("Jeka daemon idle for too long.");
+                    stopped = true;
+                } catch (IOException e) {
+                    System.err.println("Error while serving client : " + e);
+                } finally {
+                    out.route(null);
+                    err.route(null);
+                    System.setProperties((Properties) initialProperties.clone());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            JkUtilsPath.deleteIfExists(daemonFile);
+        }
+        System.out.println("Jeka daemon stopped.");
+        System.exit(0);
+    }
+
+    // Returns true if the daemon must stop
+    private static boolean handle(Socket socket, String secret, String distributionKey,
+                                  RoutingOutputStream out, RoutingOutputStream err) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        if (!secret.equals(in.readUTF())) {
+            System.err.println("Rejected client with wrong secret.");
+            return false;
+        }
+        if (!distributionKey.equals(in.readUTF())) {
+            writeExit(dataOut, RESTART_CODE);
+            return true;
+        }
+        String[] args = new String[in.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = in.readUTF();
+        }
+        if (args.length == 1 && STOP_ARG.equals(args[0])) {
+            writeExit(dataOut, 0);
+            return true;
+        }
+        out.route(new FrameOutputStream(dataOut, OUT_FRAME));
+        err.route(new FrameOutputStream(dataOut, ERR_FRAME));
+        int code = runInFreshClassloader(args);
+        out.route(null);
+        err.route(null);
+        writeExit(dataOut, code);
+        return false;
+    }
+
+    private static int runInFreshClassloader(String[] args) {
+        int[] code = new int[] {1};
+        Thread thread = new Thread(() -> {
+            Thread.currentThread().setContextClassLoader(new AppendableUrlClassloader());
+            code[0] = Main.run(args);
+        });
+        thread.setName("jeka-daemon-run");
+        thread.start();
+        JkUtilsSystem.join(thread);
+        JkRuntime.clear();
+        JkLog.restoreToInitialState();
+        JkLog.setVerbosity(JkLog.Verbosity.NORMAL);
+        return code[0];
+    }
+
+    private static void writeExit(DataOutputStream out, int code) throws IOException {
+        synchronized (out) {
+            out.writeByte(EXIT_FRAME);
+            out.writeInt(code);
+            out.flush();
+        }
+    }
+
+    // ------------------------------- Common --------------------------------------
+
+    private static Path daemonFile(Path projectDir) {
+        return projectDir.resolve(JkConstants.WORK_PATH).resolve(DAEMON_FILE_NAME);
+    }
+
+    // Identifies the Jeka distribution in use, so client and daemon run the same one.
+    private static String distributionKey() {
+        Path jekaJar = JkLocator.getJekaJarPath();
+        return jekaJar + "@" + jekaJar.toFile().lastModified() + "@" + System.getProperty("java.home");
+    }
+
+    private static class Address {
+
+        final int port;
+
+        final String secret;
+
+        Address(int port, String secret) {
+            this.port = port;
+            this.secret = secret;
+        }
+
+        static Address read(Path daemonFile) {
+            if (!Files.exists(daemonFile)) {
+                return null;
+            }
+            try {
+                String[] items = JkPathFile.of(daemonFile).readAsString().trim().split(";");
+                return new Address(Integer.parseInt(items[0]), items[1]);
+            } catch (RuntimeException e) {   // file may be partially written
+                return null;
+            }
+        }
+
+        void write(Path daemonFile) {
+            Path tempFile = daemonFile.resolveSibling(DAEMON_FILE_NAME + ".tmp");
+            JkPathFile.of(tempFile).deleteIfExist().createIfNotExist();
+            try {
+                Files.setPosixFilePermissions(tempFile, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException | IOException e) {
+                // Non-posix file system
+            }
+            JkPathFile.of(tempFile).write((port + ";" + secret).getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(tempFile, daemonFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "localhost:" + port;
+        }
+    }
+
+    // Output stream forwarding to the connected client if any, or to the daemon log otherwise.
+    private static class RoutingOutputStream extends OutputStream {
+
+        private final OutputStream defaultTarget;
+
+        private volatile OutputStream target;
+
+        RoutingOutputStream(OutputStream defaultTarget) {
+            this.defaultTarget = defaultTarget;
+            this.target = defaultTarget;
+        }
+
+        void route(OutputStream clientTarget) {
+            this.target = clientTarget == null ? defaultTarget : clientTarget;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+    }
+
+    // Output stream sending its content to the client as typed frames.
+    private static class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream out;
+
+        private final byte type;
+
+        FrameOutputStream(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            synchronized (out) {
+                out.writeByte(type);
+                out.writeInt(len);
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (out) {
+                out.flush();
+            }
+        }
+    }
+
+}
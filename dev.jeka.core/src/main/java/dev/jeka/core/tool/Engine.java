@@ -19,12 +19,18 @@ import dev.jeka.core.api.system.JkLocator;
 import dev.jeka.core.api.system.JkLog;
 import dev.jeka.core.api.system.JkMemoryBufferLogDecorator;
 import dev.jeka.core.api.utils.JkUtilsPath;
+import dev.jeka.core.api.utils.JkUtilsThrowable;
 
 import javax.tools.ToolProvider;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -80,8 +86,9 @@ final class Engine {
                 || commandLine.involvedBeanNames().contains("scaffold");
         if (hasJekaDir) {
             boolean failOnError = !Environment.standardOptions.ignoreCompileFail && !commandLine.isHelp();
-            result = resolveAndCompile(new HashMap<>(), true,
-                    failOnError);
+            EngineCompilationScheduler scheduler = EngineCompilationScheduler.of(
+                    !Environment.standardOptions.sequentialCompile, true, failOnError);
+            result = scheduler.compile(projectBaseDir, this);
             computedClasspath = result.classpath;
                     // the command deps has been included in cache for classpath resolution
                     //.andPrepend(dependencyResolver.resolve(commandLineDependencies).getFiles());
@@ -128,6 +135,88 @@ final class Engine {
         runtime.run(resolvedCommands);
     }
 
+    /*
+     * Executes the specified command line on each of the specified projects. Def classes are compiled in a single
+     * pass, so projects imported by several ones are parsed, resolved and compiled once. Then KBeans are
+     * instantiated sequentially and commands are run on each project, concurrently if parallel is true. In this
+     * case, the logs of each project are held back until its commands complete, so they are not interleaved.
+     */
+    static void executeOnProjects(List<Path> projectDirs, CommandLine commandLine, boolean parallel) {
+        JkLog.startTask("Compile def and initialise KBeans of " + projectDirs.size() + " projects");
+        boolean failOnError = !Environment.standardOptions.ignoreCompileFail;
+        EngineCompilationScheduler scheduler = EngineCompilationScheduler.of(
+                !Environment.standardOptions.sequentialCompile, true, failOnError);
+        List<CompilationResult> results = scheduler.compileAll(projectDirs);
+        Map<JkRuntime, List<EngineCommand>> runtimeCommands = new LinkedHashMap<>();
+        List<Path> compileFailedProjects = new LinkedList<>();
+        for (int i = 0; i < projectDirs.size(); i++) {
+            Path projectDir = projectDirs.get(i);
+            CompilationResult result = results.get(i);
+            compileFailedProjects.addAll(result.compileFailedProjects.getEntries());
+            AppendableUrlClassloader.addEntriesOnContextClassLoader(result.classpath);
+            EngineBeanClassResolver beanClassResolver = new EngineBeanClassResolver(projectDir);
+            beanClassResolver.setClasspath(result.classpath, result.classpathChanged);
+            JkRuntime runtime = JkRuntime.get(projectDir);
+            List<EngineCommand> resolvedCommands = beanClassResolver.resolve(commandLine,
+                    Environment.standardOptions.kBeanName());
+            runtime.init(resolvedCommands);
+            runtimeCommands.put(runtime, resolvedCommands);
+        }
+        JkLog.endTask();
+        if (!compileFailedProjects.isEmpty()) {
+            JkLog.warn("Def compilation failed on projects " + compileFailedProjects.stream().distinct()
+                    .map(path -> "'" + path + "'").collect(Collectors.toList()));
+        }
+        if (!parallel || runtimeCommands.size() < 2) {
+            runtimeCommands.forEach((runtime, commands) -> run(runtime, commands));
+            return;
+        }
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(runtimeCommands.size(), Runtime.getRuntime().availableProcessors()), runnable -> {
+                    Thread thread = new Thread(runnable, "jeka-project-run-" + threadIndex.getAndIncrement());
+                    thread.setContextClassLoader(contextClassLoader);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            Map<JkRuntime, Future<JkLog.JkHeldBack<Void>>> futures = new LinkedHashMap<>();
+            runtimeCommands.forEach((runtime, commands) ->
+                    futures.put(runtime, executor.submit(() -> JkLog.runHeldBack(() -> {
+                        run(runtime, commands);
+                        return null;
+                    }))));
+            RuntimeException failure = null;
+
+            // Logs are output in project order, as soon as the project and the preceding ones are done
+            for (Map.Entry<JkRuntime, Future<JkLog.JkHeldBack<Void>>> entry : futures.entrySet()) {
+                try {
+                    entry.getValue().get().release();
+                } catch (ExecutionException | RuntimeException e) {
+                    if (failure == null) {
+                        Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                        failure = JkUtilsThrowable.unchecked(cause, "Command failed on project '"
+                                + entry.getKey().getProjectBaseDir() + "'");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw JkUtilsThrowable.unchecked(e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void run(JkRuntime runtime, List<EngineCommand> commands) {
+        JkRuntime.setBaseDirContext(runtime.getProjectBaseDir());
+        runtime.run(commands);
+    }
+
     private boolean isHelpCmd() {
         if (Environment.isPureHelpCmd()) {
             return true;
@@ -157,14 +246,7 @@ final class Engine {
      * Resolves dependencies and compiles and sources classes contained in jeka/def.
      * It returns a path sequence containing the resolved dependencies and result of compilation.
      */
-    private CompilationResult resolveAndCompile(Map<Path, JkPathSequence> yetCompiledProjects, boolean compileSources,
-                                             boolean failOnCompileError) {
-        if (yetCompiledProjects.containsKey(this.projectBaseDir)) {
-            JkLog.trace("Project '%s' already compiled. Skip", this.projectBaseDir);
-            return new CompilationResult(JkPathSequence.of(), JkPathSequence.of(),
-                    yetCompiledProjects.get(this.projectBaseDir), false);
-        }
-        yetCompiledProjects.put(this.projectBaseDir, JkPathSequence.of());
+    CompilationResult resolveAndCompile(EngineCompilationScheduler scheduler) {
         if (Environment.standardOptions.workClean()) {
             Path workDir = projectBaseDir.resolve(JkConstants.WORK_PATH);
             JkLog.info("Clean .work directory " + workDir.toAbsolutePath().normalize());
@@ -177,49 +259,57 @@ final class Engine {
         List<Path> importedProjectClasspath = new LinkedList<>();
         List<Path> failedProjects = new LinkedList<>();
         boolean importedProjectClasspathChanged = false;
-        for (Path importedProjectDir : compilationContext.importedProjectDirs) {
-            Engine importedProjectEngine = new Engine(importedProjectDir);
-            CompilationResult compilationResult = importedProjectEngine.resolveAndCompile(yetCompiledProjects,
-                    compileSources, failOnCompileError);
+        boolean importedDefClassesChanged = false;
+        List<CompilationResult> importedCompilationResults = scheduler.compileImportedProjects(this.projectBaseDir,
+                compilationContext.importedProjectDirs);
+        for (CompilationResult compilationResult : importedCompilationResults) {
             importedProjectClasspath.addAll(compilationResult.classpath.getEntries());
             failedProjects.addAll(compilationResult.compileFailedProjects.getEntries());
             importedProjectClasspathChanged = importedProjectClasspathChanged || compilationResult.classpathChanged;
+            importedDefClassesChanged = importedDefClassesChanged || compilationResult.defClassesChanged;
         }
         JkPathSequence classpath = compilationContext.classpath.and(importedProjectClasspath).withoutDuplicates();
         EngineCompilationUpdateTracker compilationTracker = new EngineCompilationUpdateTracker(projectBaseDir);
-        boolean outdated = compilationTracker.isOutdated();
+        EngineCompilationUpdateTracker.CompilationPlan plan = compilationTracker.plan(
+                compilationContext.compileOptions, importedDefClassesChanged);
+        JkLog.trace("Def compilation plan : %s", plan);
+        boolean defClassesChanged = false;
         if (!beanClassesResolver.hasDefSource() && beanClassesResolver.hasClassesInWorkDir()) {
             JkPathTree.of(beanClassesResolver.defClassDir).deleteContent();
+            defClassesChanged = true;
         }
-        if (compileSources && this.beanClassesResolver.hasDefSource()) {
+        if (scheduler.compileSources && this.beanClassesResolver.hasDefSource()) {
             boolean missingBinayFiles = compilationTracker.isMissingBinaryFiles();
             if (missingBinayFiles) {
                 JkLog.trace("Some binary files seem missing.");
+                plan = EngineCompilationUpdateTracker.CompilationPlan.full();
             }
-            if (outdated || missingBinayFiles) {
+            if (!plan.upToDate) {
                 JkLog.trace("Compile classpath : " + classpath);
-                SingleCompileResult result = compileDef(classpath, compilationContext.compileOptions, failOnCompileError);
+                SingleCompileResult result = compileDef(classpath, compilationContext.compileOptions, plan,
+                        scheduler.failOnCompileError);
+                defClassesChanged = true;
                 if (!result.success) {
                     failedProjects.add(projectBaseDir);
-                    compilationTracker.deleteCompileFlag();
+                    compilationTracker.deleteState();
                 } else {
                     classpath = classpath.and(result.extraClasspath);
-                    compilationTracker.updateCompileFlag();
+                    compilationTracker.updateState(compilationContext.compileOptions);
                 }
             } else {
                 JkLog.trace("Last def classes are up-to-date : No need to compile.");
             }
-        } else if (outdated) {
-            compilationTracker.updateCompileFlag();
+        } else if (!plan.upToDate) {
+            compilationTracker.updateState(compilationContext.compileOptions);
         }
         JkLog.endTask();
         JkPathSequence resultClasspath = classpath.andPrepend(beanClassesResolver.defClassDir);
-        yetCompiledProjects.put(this.projectBaseDir, resultClasspath);
         CompilationResult compilationResult = new CompilationResult(
                 JkPathSequence.of(compilationContext.importedProjectDirs),
                 JkPathSequence.of(failedProjects).withoutDuplicates(),
                 resultClasspath,
-                compilationContext.classpathChanged || importedProjectClasspathChanged);
+                compilationContext.classpathChanged || importedProjectClasspathChanged,
+                defClassesChanged);
         JkRuntime runtime = JkRuntime.get(projectBaseDir);
         runtime.setDependencyResolver(dependencyResolver);
         runtime.setImportedProjects(compilationResult.importedProjects);
@@ -228,8 +318,13 @@ final class Engine {
     }
 
     private SingleCompileResult compileDef(JkPathSequence defClasspath, List<String> compileOptions,
+                                           EngineCompilationUpdateTracker.CompilationPlan plan,
                                            boolean failOnCompileError) {
-        JkPathTree.of(beanClassesResolver.defClassDir).deleteContent();
+        if (plan.full) {
+            JkPathTree.of(beanClassesResolver.defClassDir).deleteContent();
+        } else {
+            plan.deleteStaleFiles(beanClassesResolver.defClassDir);
+        }
         JkPathSequence extraClasspath = JkPathSequence.of();
         if (hasKotlinSource()) {
             JkKotlinCompiler kotlinCompiler = JkKotlinCompiler.ofJvm(dependencyResolver.getRepos())
@@ -251,13 +346,16 @@ final class Engine {
                 AppendableUrlClassloader.addEntriesOnContextClassLoader(kotlinCompiler.getStdLib());
             }
         }
-        final JkJavaCompileSpec javaCompileSpec = defJavaCompileSpec(defClasspath, compileOptions);
+        final JkJavaCompileSpec javaCompileSpec = defJavaCompileSpec(defClasspath, compileOptions, plan);
         if (javaCompileSpec.getSources().containFiles() && ToolProvider.getSystemJavaCompiler() == null) {
             throw new JkException("The running Java platform (" +  System.getProperty("java.home") +
                     ") does not provide compiler (javac). Please provide a JDK java platform by pointing JAVA_HOME" +
                     " or JEKA_JDK environment variable to a JDK directory.");
         }
-        boolean success = wrapCompile(() -> JkJavaCompiler.of().compile(javaCompileSpec), failOnCompileError);
+        boolean success = true;
+        if (plan.full || !plan.sourcesToCompile.isEmpty()) {
+            success = wrapCompile(() -> JkJavaCompiler.of().compile(javaCompileSpec), failOnCompileError);
+        }
         if (!success) {
             return new SingleCompileResult(false, JkPathSequence.of());
         }
@@ -303,8 +401,13 @@ final class Engine {
                 .count(1, false) > 0;
     }
 
-    private JkJavaCompileSpec defJavaCompileSpec(JkPathSequence classpath, List<String> options) {
-        final JkPathTree defSource = JkPathTree.of(beanClassesResolver.defSourceDir).andMatcher(JAVA_DEF_SOURCE_MATCHER);
+    private JkJavaCompileSpec defJavaCompileSpec(JkPathSequence classpath, List<String> options,
+                                                 EngineCompilationUpdateTracker.CompilationPlan plan) {
+        JkPathTree defSource = JkPathTree.of(beanClassesResolver.defSourceDir).andMatcher(JAVA_DEF_SOURCE_MATCHER);
+        if (!plan.full) {
+            defSource = defSource.andMatcher(path -> plan.sourcesToCompile.contains(
+                    path.toString().replace('\\', '/')));
+        }
         JkUtilsPath.createDirectories(beanClassesResolver.defClassDir);
         return JkJavaCompileSpec.of()
                 .setClasspath(classpath.and(beanClassesResolver.defClassDir))
@@ -364,7 +467,7 @@ final class Engine {
         HelpDisplayer.help(localBeanClasses, globalBeanClasses, false, this.projectBaseDir);
     }
 
-    private static class CompilationResult {
+    static class CompilationResult {
 
         final JkPathSequence compileFailedProjects;
 
@@ -375,12 +478,20 @@ final class Engine {
 
         final boolean classpathChanged;
 
+        // True if def classes of this project have been (re)compiled or deleted during this run
+        final boolean defClassesChanged;
+
         CompilationResult(JkPathSequence importedProjects, JkPathSequence compileFailedProjects,
-                          JkPathSequence resultClasspath, boolean classpathChanged) {
+                          JkPathSequence resultClasspath, boolean classpathChanged, boolean defClassesChanged) {
             this.importedProjects = importedProjects;
             this.compileFailedProjects = compileFailedProjects;
             this.classpath = resultClasspath;
             this.classpathChanged = classpathChanged;
+            this.defClassesChanged = defClassesChanged;
+        }
+
+        static CompilationResult empty() {
+            return new CompilationResult(JkPathSequence.of(), JkPathSequence.of(), JkPathSequence.of(), false, false);
         }
     }
 
@@ -17,6 +17,9 @@ class EngineClasspathCache {
 
     private static final String RESOLVED_CLASSPATH_FILE = "resolved-classpath.txt";
 
+    // Def projects may be processed concurrently but Ivy cache is not guarded against concurrent writes
+    private static final Object RESOLVE_LOCK = new Object();
+
     private final Path baseDir;
 
     private final JkDependencyResolver dependencyResolver;
@@ -29,7 +32,7 @@ class EngineClasspathCache {
     Result resolvedClasspath(JkDependencySet dependencySet) {
         boolean changed = compareAndStore(dependencySet);
         if (changed) {
-           JkPathSequence pathSequence = dependencyResolver.resolve(dependencySet).getFiles();
+           JkPathSequence pathSequence = resolve(dependencySet);
            storeResolvedClasspath(pathSequence);
            return new Result(true, pathSequence);
         } else {
@@ -38,16 +41,22 @@ class EngineClasspathCache {
                 JkLog.trace("Cached resolved-classpath : " + cachedPathSequence.toPath());
                 if (cachedPathSequence.hasNonExisting()) {
                     JkLog.trace("Cached classpath contains some non-existing element -> need resolve.");
-                    dependencyResolver.resolve(dependencySet);
+                    resolve(dependencySet);
                 }
                 return new Result(false, cachedPathSequence);
             }
-            JkPathSequence resolved = dependencyResolver.resolve(dependencySet).getFiles();
+            JkPathSequence resolved = resolve(dependencySet);
             storeResolvedClasspath(resolved);
             return new Result(false, resolved);
         }
     }
 
+    private JkPathSequence resolve(JkDependencySet dependencySet) {
+        synchronized (RESOLVE_LOCK) {
+            return dependencyResolver.resolve(dependencySet).getFiles();
+        }
+    }
+
     /**
      * Returns true if cached unresolved-classpath is not equals to current one.
      */
@@ -0,0 +1,257 @@
+package dev.jeka.core.tool;
+
+import dev.jeka.core.api.file.JkPathSequence;
+import dev.jeka.core.api.system.JkLog;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * Schedules def compilation of a project and its imported projects. Each project is compiled at most once,
+ * even if it is imported by several projects.
+ *
+ * In parallel mode, independent branches of the import graph are parsed, resolved and compiled concurrently
+ * on a fork-join pool. Import cycles are broken, as in sequential mode, by returning an empty result to the
+ * project that would otherwise wait on itself. Logs of each compilation are then held back and output by the
+ * project that has requested it, in import order, so they are nested as in sequential mode.
+ */
+class EngineCompilationScheduler {
+
+    // Requester standing for the caller of compileAll, that no project can import
+    private static final Path ALL_PROJECTS = null;
+
+    final boolean compileSources;
+
+    final boolean failOnCompileError;
+
+    private final ForkJoinPool pool;  // null means sequential mode
+
+    // Compilation task of each project, either running or completed. Guarded by 'this'.
+    private final Map<Path, ForkJoinTask<Compilation>> tasks = new HashMap<>();
+
+    // Projects each project is currently waiting for. Guarded by 'this'.
+    private final Map<Path, Set<Path>> waitsFor = new HashMap<>();
+
+    private EngineCompilationScheduler(boolean compileSources, boolean failOnCompileError, ForkJoinPool pool) {
+        this.compileSources = compileSources;
+        this.failOnCompileError = failOnCompileError;
+        this.pool = pool;
+    }
+
+    static EngineCompilationScheduler of(boolean parallel, boolean compileSources, boolean failOnCompileError) {
+        if (!parallel || Runtime.getRuntime().availableProcessors() < 2) {
+            return new EngineCompilationScheduler(compileSources, failOnCompileError, null);
+        }
+
+        // Worker threads must see the same classloader as the caller to load def dependencies
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("jeka-def-compile-" + thread.getPoolIndex());
+            thread.setContextClassLoader(contextClassLoader);
+            return thread;
+        }, null, false);
+        return new EngineCompilationScheduler(compileSources, failOnCompileError, pool);
+    }
+
+    /**
+     * Compiles the specified root project. Its imported projects are compiled through
+     * {@link #compileImportedProjects(Path, List)}.
+     */
+    Engine.CompilationResult compile(Path projectDir, Engine engine) {
+        ForkJoinTask<Compilation> task = newTask(engine);
+        synchronized (this) {
+            tasks.put(projectDir, task);
+        }
+        if (pool == null) {
+            return task.invoke().release();
+        }
+        try {
+            return join(pool.submit(task)).release();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Compiles the specified root projects and returns their results in the same order. A project imported by
+     * several root projects, or being itself a root project, is compiled once.
+     */
+    List<Engine.CompilationResult> compileAll(List<Path> projectDirs) {
+        if (pool == null) {
+            compileImportedProjects(ALL_PROJECTS, projectDirs);
+        } else {
+            try {
+                join(pool.submit(() -> JkLog.runHeldBack(() -> compileImportedProjects(ALL_PROJECTS, projectDirs))))
+                        .release();
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        // Results returned to requesters are stripped when the project has been compiled for another requester
+        List<Engine.CompilationResult> results = new ArrayList<>();
+        for (Path projectDir : projectDirs) {
+            ForkJoinTask<Compilation> task;
+            synchronized (this) {
+                task = tasks.get(projectDir);
+            }
+            results.add(task == null ? Engine.CompilationResult.empty() : join(task).result(projectDir));
+        }
+        return results;
+    }
+
+    /**
+     * Compiles the specified projects imported by the requester project, and returns their results in the same order.
+     * A project that has already been compiled for another requester returns a result with its classpath only.
+     */
+    List<Engine.CompilationResult> compileImportedProjects(Path requester, List<Path> importedProjectDirs) {
+        List<Engine.CompilationResult> results = new ArrayList<>();
+        if (pool == null) {
+            for (Path importedProjectDir : importedProjectDirs) {
+                Acquisition acquisition = acquire(requester, importedProjectDir);
+                if (acquisition.owner) {
+                    acquisition.task.invoke();
+                }
+                results.add(await(requester, importedProjectDir, acquisition));
+            }
+            return results;
+        }
+        List<Acquisition> acquisitions = new ArrayList<>();
+        for (Path importedProjectDir : importedProjectDirs) {
+            Acquisition acquisition = acquire(requester, importedProjectDir);
+            if (acquisition.owner) {
+                acquisition.task.fork();
+            }
+            acquisitions.add(acquisition);
+        }
+        for (int i = 0; i < importedProjectDirs.size(); i++) {
+            results.add(await(requester, importedProjectDirs.get(i), acquisitions.get(i)));
+        }
+        return results;
+    }
+
+    private synchronized Acquisition acquire(Path requester, Path projectDir) {
+        if (isWaitingOn(projectDir, requester)) {
+            JkLog.trace("Project '%s' already in compilation process. Skip", projectDir);
+            return new Acquisition(null, false);
+        }
+        waitsFor.computeIfAbsent(requester, key -> new HashSet<>()).add(projectDir);
+        ForkJoinTask<Compilation> task = tasks.get(projectDir);
+        if (task != null) {
+            return new Acquisition(task, false);
+        }
+        task = newTask(new Engine(projectDir));
+        tasks.put(projectDir, task);
+        return new Acquisition(task, true);
+    }
+
+    // Logs are held back only in parallel mode
+    private ForkJoinTask<Compilation> newTask(Engine engine) {
+        return ForkJoinTask.adapt(() -> {
+            if (pool == null) {
+                return new Compilation(engine.resolveAndCompile(this), null);
+            }
+            AtomicReference<Engine.CompilationResult> result = new AtomicReference<>();
+            JkLog.JkHeldBack<Engine.CompilationResult> heldBack = JkLog.runHeldBack(() -> {
+                result.set(engine.resolveAndCompile(this));
+                return result.get();
+            });
+            return new Compilation(result.get(), heldBack);
+        });
+    }
+
+    private Engine.CompilationResult await(Path requester, Path projectDir, Acquisition acquisition) {
+        if (acquisition.task == null) {
+            return Engine.CompilationResult.empty();
+        }
+        Compilation compilation;
+        try {
+            compilation = join(acquisition.task);
+        } finally {
+            synchronized (this) {
+                waitsFor.get(requester).remove(projectDir);
+            }
+        }
+        if (acquisition.owner) {
+            return compilation.release();
+        }
+        Engine.CompilationResult result = compilation.result(projectDir);
+        JkLog.trace("Project '%s' already compiled. Skip", projectDir);
+        return new Engine.CompilationResult(JkPathSequence.of(), JkPathSequence.of(), result.classpath, false,
+                result.defClassesChanged);
+    }
+
+    // Returns true if 'from' is 'to' or is (transitively) waiting for 'to'.
+    private boolean isWaitingOn(Path from, Path to) {
+        Deque<Path> toVisit = new LinkedList<>();
+        Set<Path> visited = new HashSet<>();
+        toVisit.add(from);
+        while (!toVisit.isEmpty()) {
+            Path current = toVisit.pop();
+            if (current.equals(to)) {
+                return true;
+            }
+            if (visited.add(current)) {
+                toVisit.addAll(waitsFor.getOrDefault(current, Collections.emptySet()));
+            }
+        }
+        return false;
+    }
+
+    // Fork-join framework may wrap exceptions thrown in another thread in a new instance of the same type.
+    private static <T> T join(ForkJoinTask<T> task) {
+        try {
+            return task.join();
+        } catch (RuntimeException e) {
+            if (e.getCause() != null && e.getCause().getClass() == e.getClass()) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static class Acquisition {
+
+        final ForkJoinTask<Compilation> task;
+
+        // True if the requester is responsible for running the task and outputting its logs
+        final boolean owner;
+
+        Acquisition(ForkJoinTask<Compilation> task, boolean owner) {
+            this.task = task;
+            this.owner = owner;
+        }
+    }
+
+    private static class Compilation {
+
+        // Null if the compilation has failed
+        private final Engine.CompilationResult result;
+
+        // Null if logs have not been held back
+        private final JkLog.JkHeldBack<Engine.CompilationResult> heldBack;
+
+        Compilation(Engine.CompilationResult result, JkLog.JkHeldBack<Engine.CompilationResult> heldBack) {
+            this.result = result;
+            this.heldBack = heldBack;
+        }
+
+        // Outputs held back logs then returns the result or rethrows the failure. Only the owner calls this.
+        Engine.CompilationResult release() {
+            return heldBack == null ? result : heldBack.release();
+        }
+
+        Engine.CompilationResult result(Path projectDir) {
+            if (result == null) {
+                throw new IllegalStateException("Def compilation of project '" + projectDir + "' has failed.");
+            }
+            return result;
+        }
+    }
+
+}
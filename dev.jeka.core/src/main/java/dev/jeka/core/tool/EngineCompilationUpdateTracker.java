@@ -4,164 +4,493 @@ import dev.jeka.core.api.file.JkPathFile;
 import dev.jeka.core.api.file.JkPathTree;
 import dev.jeka.core.api.java.JkJavaVersion;
 import dev.jeka.core.api.system.JkLog;
+import dev.jeka.core.api.utils.JkUtilsIterable;
 import dev.jeka.core.api.utils.JkUtilsPath;
+import dev.jeka.core.api.utils.JkUtilsString;
+import dev.jeka.core.api.utils.JkUtilsThrowable;
 
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.stream.Stream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
 
+/*
+ * Keeps track of the state of def sources at last compilation in order to determine what needs to be recompiled.
+ * The state consists in a content hash for each file of jeka/def and jeka/boot dirs, plus a dependency graph
+ * between def source files, so only changed sources and the sources depending on them are recompiled.
+ *
+ * Dependencies between def sources are detected by matching identifiers found in a source file against top-level
+ * type names declared in other def source files. This may over-estimate dependencies but never misses one.
+ * Projects containing Kotlin def sources are always fully recompiled.
+ */
 class EngineCompilationUpdateTracker {
 
-    private final static String LAST_UPDATE_FILE_NAME = "def-last-update-time.txt";
+    private static final String STATE_FILE_NAME = "def-compile-state.txt";
+
+    private static final String SEPARATOR = ";";
+
+    private static final String LIST_SEPARATOR = ",";
 
     private final Path projectBaseDir;
 
-    // When a subproject is outdated then all projects are considered outdated as well
-    private static boolean globallyOutdated;
+    private final Path defDir;
+
+    private final Path bootDir;
 
     EngineCompilationUpdateTracker(Path projectBaseDir) {
         this.projectBaseDir = projectBaseDir;
+        this.defDir = projectBaseDir.resolve(JkConstants.DEF_DIR);
+        this.bootDir = projectBaseDir.resolve(JkConstants.BOOT_DIR);
     }
 
-    boolean isOutdated() {
-        if (globallyOutdated) {
-            JkLog.trace("Compilation cache outdated.");
-            return true;
+    /**
+     * Compares the state stored at last compilation against the current def and boot files.
+     * @param forceFull if <code>true</code>, the returned plan is a full compilation, even if no def or boot file
+     *                  changed. It is used when def classes of imported projects changed.
+     */
+    CompilationPlan plan(List<String> compileOptions, boolean forceFull) {
+        State stored = readState();
+        if (stored == null) {
+            JkLog.trace("No compilation state found : full compilation needed.");
+            return CompilationPlan.full();
+        }
+        if (!stored.javaVersion.equals(JkJavaVersion.ofCurrent())) {
+            JkLog.trace("Def classes compiled with Java %s : full compilation needed.", stored.javaVersion);
+            return CompilationPlan.full();
+        }
+        if (!stored.options.equals(String.join(" ", compileOptions))) {
+            JkLog.trace("Compile options changed : full compilation needed.");
+            return CompilationPlan.full();
+        }
+        if (!stored.bootFiles.equals(currentHashes(bootDir))) {
+            JkLog.trace("Content of jeka/boot changed : full compilation needed.");
+            return CompilationPlan.full();
+        }
+        if (forceFull) {
+            JkLog.trace("Imported projects changed : full compilation needed.");
+            return CompilationPlan.full();
+        }
+        Map<String, String> currentDefFiles = currentHashes(defDir);
+        Set<String> changedSources = new TreeSet<>();
+        Set<String> deletedSources = new TreeSet<>();
+        List<String> changedResources = new LinkedList<>();
+        List<String> deletedResources = new LinkedList<>();
+        currentDefFiles.forEach((relativePath, hash) -> {
+            FileState fileState = stored.defFiles.get(relativePath);
+            if (fileState == null || !fileState.hash.equals(hash)) {
+                if (isSource(relativePath)) {
+                    changedSources.add(relativePath);
+                } else {
+                    changedResources.add(relativePath);
+                }
+            }
+        });
+        stored.defFiles.keySet().stream()
+                .filter(relativePath -> !currentDefFiles.containsKey(relativePath))
+                .forEach(relativePath -> {
+                    if (isSource(relativePath)) {
+                        deletedSources.add(relativePath);
+                    } else {
+                        deletedResources.add(relativePath);
+                    }
+                });
+        if (changedSources.isEmpty() && deletedSources.isEmpty()
+                && changedResources.isEmpty() && deletedResources.isEmpty()) {
+            return CompilationPlan.upToDate();
+        }
+        if (currentDefFiles.keySet().stream().anyMatch(EngineCompilationUpdateTracker::isKotlin)
+                || deletedSources.stream().anyMatch(EngineCompilationUpdateTracker::isKotlin)) {
+            JkLog.trace("Def sources contain Kotlin files : full compilation needed.");
+            return CompilationPlan.full();
         }
-        boolean result = isWorkOutdated();
-        JkLog.trace("Cached compile outdated : %s", result);
-        globallyOutdated = result;
-        return result;
-    }
-
-    void updateCompileFlag() {
-        long defLastUptateTime = lastModifiedAccordingFileAttributes();
-        int fileCount = fileCount();
-        JkLog.trace("Cached file count for compilation : %s", fileCount);
-        writeLastUpdateFile(fileCount, defLastUptateTime, JkJavaVersion.ofCurrent());
-    }
-
-    void deleteCompileFlag() {
-        flagFile().deleteIfExist();
-    }
 
-    private boolean isWorkOutdated() {
-        CountTimestampAndJavaVersion flag = stateFromFlagFile();
-        CountTimestampAndJavaVersion current = stateFromFlagCurrent();
-        JkLog.trace("Comparing flagged %s and  current %s", flag, current);
-        return !flag.equals(current);
-    }
+        // Recompile changed sources + all sources depending directly or transitively on changed/deleted ones
+        Set<String> sourcesToCompile = new TreeSet<>(changedSources);
+        Deque<String> toVisit = new LinkedList<>(changedSources);
+        toVisit.addAll(deletedSources);
+        while (!toVisit.isEmpty()) {
+            String visited = toVisit.pop();
+            stored.dependentsOf(visited).stream()
+                    .filter(currentDefFiles::containsKey)
+                    .filter(sourcesToCompile::add)
+                    .forEach(toVisit::add);
+        }
 
-    private long lastModifiedAccordingFileAttributes() {
-        Path def = projectBaseDir.resolve(JkConstants.DEF_DIR);
-        Stream<Path> stream = JkPathTree.of(def).stream();
-        return stream
-                .map(path -> JkUtilsPath.getLastModifiedTime(path))
-                .map(optional -> optional.orElse(System.currentTimeMillis()))
-                .reduce(0L, Math::max);
+        // Class files generated from recompiled or deleted sources, and copied resources, are stale
+        List<String> staleClassFiles = new LinkedList<>();
+        sourcesToCompile.stream().map(stored.defFiles::get).filter(Objects::nonNull)
+                .forEach(fileState -> staleClassFiles.addAll(fileState.declaredTypes));
+        deletedSources.stream().map(stored.defFiles::get)
+                .forEach(fileState -> staleClassFiles.addAll(fileState.declaredTypes));
+        JkLog.trace("Def sources to recompile : %s. Deleted def sources : %s", sourcesToCompile, deletedSources);
+        return new CompilationPlan(false, false, new LinkedList<>(sourcesToCompile), staleClassFiles,
+                deletedResources);
     }
 
-    private void writeLastUpdateFile(int fileCount, long lastModifiedAccordingFileAttributes, JkJavaVersion javaVersion) {
+    /**
+     * Stores the state of current def and boot files, to be compared at next run.
+     */
+    void updateState(List<String> compileOptions) {
         Path work = projectBaseDir.resolve(JkConstants.WORK_PATH);
         if (!Files.exists(work)) {
             return;
         }
-        String infoString = String.format("%s;%s;%s", fileCount, lastModifiedAccordingFileAttributes, javaVersion);
-        flagFile()
+        Map<String, FileState> defFiles = new TreeMap<>();
+        Map<String, SourceInfo> sourceInfos = new HashMap<>();
+        if (Files.isDirectory(defDir)) {
+            List<Path> files = JkPathTree.of(defDir).getFiles();
+            for (Path file : files) {
+                String relativePath = relativePath(defDir, file);
+                byte[] content = JkUtilsPath.readAllBytes(file);
+                if (isJava(relativePath)) {
+                    sourceInfos.put(relativePath, SourceInfo.of(new String(content, StandardCharsets.UTF_8)));
+                }
+                defFiles.put(relativePath, new FileState(hash(content), Collections.emptyList(),
+                        Collections.emptyList()));
+            }
+        }
+
+        // Index top-level type simple names to the source declaring them
+        Map<String, List<String>> declaringSources = new HashMap<>();
+        sourceInfos.forEach((relativePath, sourceInfo) -> sourceInfo.topLevelTypes.forEach(
+                typeName -> declaringSources.computeIfAbsent(typeName, key -> new LinkedList<>()).add(relativePath)));
+        sourceInfos.forEach((relativePath, sourceInfo) -> {
+            Set<String> dependencies = new TreeSet<>();
+            sourceInfo.identifiers.stream()
+                    .map(declaringSources::get)
+                    .filter(Objects::nonNull)
+                    .forEach(dependencies::addAll);
+            dependencies.remove(relativePath);
+            List<String> declaredTypes = new LinkedList<>();
+            sourceInfo.topLevelTypes.forEach(typeName -> declaredTypes.add(sourceInfo.packagePath + typeName));
+            defFiles.put(relativePath, new FileState(defFiles.get(relativePath).hash, declaredTypes,
+                    new ArrayList<>(dependencies)));
+        });
+        State state = new State(JkJavaVersion.ofCurrent(), String.join(" ", compileOptions),
+                currentHashes(bootDir), defFiles);
+        stateFile()
                 .deleteIfExist()
                 .createIfNotExist()
-                .write(infoString.getBytes(StandardCharsets.UTF_8));
+                .write(state.toText().getBytes(StandardCharsets.UTF_8));
     }
 
-    private JkPathFile flagFile() {
-        return JkPathFile.of(projectBaseDir.resolve(JkConstants.WORK_PATH).resolve(LAST_UPDATE_FILE_NAME));
+    void deleteState() {
+        stateFile().deleteIfExist();
     }
 
-    private CountTimestampAndJavaVersion stateFromFlagCurrent() {
-        long defLastUptateTime = lastModifiedAccordingFileAttributes();
-        return new CountTimestampAndJavaVersion(fileCount(), defLastUptateTime, JkJavaVersion.ofCurrent());
+    boolean isMissingBinaryFiles() {
+        Path work = projectBaseDir.resolve(JkConstants.DEF_BIN_DIR);
+        Path def = projectBaseDir.resolve(JkConstants.DEF_DIR);
+        return JkPathTree.of(work).count(Integer.MAX_VALUE, false) <
+                JkPathTree.of(def).count(Integer.MAX_VALUE, false);
     }
 
-    private CountTimestampAndJavaVersion stateFromFlagFile() {
-        Path work = projectBaseDir.resolve(JkConstants.WORK_PATH);
-        if (!Files.exists(work)) {
-            return new CountTimestampAndJavaVersion(0, 0L, JkJavaVersion.ofCurrent());
-        }
-        Path lastUpdateFile = work.resolve(LAST_UPDATE_FILE_NAME);
-        if (!Files.exists(lastUpdateFile)) {
-            return new CountTimestampAndJavaVersion(0, 0L, JkJavaVersion.ofCurrent());
+    private JkPathFile stateFile() {
+        return JkPathFile.of(projectBaseDir.resolve(JkConstants.WORK_PATH).resolve(STATE_FILE_NAME));
+    }
+
+    private State readState() {
+        Path stateFile = stateFile().get();
+        if (!Files.exists(stateFile)) {
+            return null;
         }
-        JkLog.trace("Read compilation flag file " + lastUpdateFile);
+        JkLog.trace("Read compilation state file " + stateFile);
         try {
-            String content = JkUtilsPath.readAllLines(lastUpdateFile).get(0);
-            String[] items = content.split(";");
-            if (items.length != 3) {
-                return new CountTimestampAndJavaVersion(0, 0L, JkJavaVersion.ofCurrent());
-            }
-            return new CountTimestampAndJavaVersion(Integer.parseInt(items[0]), Long.parseLong(items[1]),
-                    JkJavaVersion.of(items[2]));
+            return State.ofLines(JkUtilsPath.readAllLines(stateFile));
         } catch (RuntimeException e) {
-            JkLog.warn("Error caught when reading file content of " + lastUpdateFile + ". " + e.getMessage() );
-            return new CountTimestampAndJavaVersion(0,0L, JkJavaVersion.ofCurrent());
+            JkLog.warn("Error caught when reading file content of " + stateFile + ". " + e.getMessage() );
+            return null;
         }
     }
 
-    private int fileCount() {
-        return JkPathTree.of(projectBaseDir.toAbsolutePath()).andMatching("jeka/def/**", "jeka/boot/**")
-                .count(5000, true);
+    private static Map<String, String> currentHashes(Path dir) {
+        Map<String, String> result = new TreeMap<>();
+        if (!Files.isDirectory(dir)) {
+            return result;
+        }
+        List<Path> files = JkPathTree.of(dir).getFiles();
+        files.forEach(file -> result.put(relativePath(dir, file), hash(JkUtilsPath.readAllBytes(file))));
+        return result;
     }
 
-    boolean isMissingBinaryFiles() {
-        Path work = projectBaseDir.resolve(JkConstants.DEF_BIN_DIR);
-        Path def = projectBaseDir.resolve(JkConstants.DEF_DIR);
-        return JkPathTree.of(work).count(Integer.MAX_VALUE, false) <
-                JkPathTree.of(def).count(Integer.MAX_VALUE, false);
+    private static String relativePath(Path root, Path file) {
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+            return JkUtilsString.toHexString(messageDigest.digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw JkUtilsThrowable.unchecked(e);
+        }
     }
 
-    private static class CountTimestampAndJavaVersion {
+    private static boolean isSource(String relativePath) {
+        return isJava(relativePath) || isKotlin(relativePath);
+    }
+
+    private static boolean isJava(String relativePath) {
+        return relativePath.endsWith(".java");
+    }
 
-        final int fileCount;
+    private static boolean isKotlin(String relativePath) {
+        return relativePath.endsWith(".kt");
+    }
 
-        final long timestamp;
+    /*
+     * What to do for bringing def classes up-to-date.
+     */
+    static class CompilationPlan {
 
-        final JkJavaVersion javaVersion;
+        final boolean upToDate;
 
-        public CountTimestampAndJavaVersion(int fileCount, long timestamp, JkJavaVersion javaVersion) {
-            this.fileCount = fileCount;
-            this.timestamp = timestamp;
-            this.javaVersion = javaVersion;
+        final boolean full;
+
+        // Relative paths (to jeka/def) of the sources to compile, when compilation is not full
+        final List<String> sourcesToCompile;
+
+        // Class file paths, relative to class dir and without '.class' extension, to delete before compiling
+        final List<String> staleClassFiles;
+
+        // Relative paths of resources that have been deleted from jeka/def
+        final List<String> deletedResources;
+
+        private CompilationPlan(boolean upToDate, boolean full, List<String> sourcesToCompile,
+                                List<String> staleClassFiles, List<String> deletedResources) {
+            this.upToDate = upToDate;
+            this.full = full;
+            this.sourcesToCompile = Collections.unmodifiableList(sourcesToCompile);
+            this.staleClassFiles = Collections.unmodifiableList(staleClassFiles);
+            this.deletedResources = Collections.unmodifiableList(deletedResources);
+        }
+
+        static CompilationPlan full() {
+            return new CompilationPlan(false, true, Collections.emptyList(), Collections.emptyList(),
+                    Collections.emptyList());
+        }
+
+        static CompilationPlan upToDate() {
+            return new CompilationPlan(true, false, Collections.emptyList(), Collections.emptyList(),
+                    Collections.emptyList());
+        }
+
+        /**
+         * Deletes class files and resources in def class dir, that are made stale by this plan.
+         */
+        void deleteStaleFiles(Path defClassDir) {
+            for (String staleClassFile : staleClassFiles) {
+                Path classFile = defClassDir.resolve(staleClassFile + ".class");
+                Path parent = classFile.getParent();
+                JkUtilsPath.deleteIfExists(classFile);
+                if (Files.isDirectory(parent)) {
+                    String simpleName = classFile.getFileName().toString().replace(".class", "");
+                    List<Path> nestedClassFiles = JkPathTree.of(parent)
+                            .andMatching(true, simpleName + "$*.class").getFiles();
+                    nestedClassFiles.forEach(JkUtilsPath::deleteIfExists);
+                }
+            }
+            deletedResources.forEach(resource -> JkUtilsPath.deleteIfExists(defClassDir.resolve(resource)));
         }
 
         @Override
         public String toString() {
-            return "{" +
-                    "fileCount=" + fileCount +
-                    ", timestamp=" + timestamp +
-                    ", javaVersion=" + javaVersion +
-                    '}';
+            if (upToDate) {
+                return "up-to-date";
+            }
+            return full ? "full compilation" : "incremental compilation of " + sourcesToCompile;
         }
+    }
 
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
+    private static class State {
+
+        final JkJavaVersion javaVersion;
+
+        final String options;
 
-            CountTimestampAndJavaVersion that = (CountTimestampAndJavaVersion) o;
+        final Map<String, String> bootFiles;
 
-            if (fileCount != that.fileCount) return false;
-            if (timestamp != that.timestamp) return false;
-            if (!javaVersion.equals(that.javaVersion)) return false;
+        final Map<String, FileState> defFiles;
 
-            return true;
+        State(JkJavaVersion javaVersion, String options, Map<String, String> bootFiles,
+              Map<String, FileState> defFiles) {
+            this.javaVersion = javaVersion;
+            this.options = options;
+            this.bootFiles = bootFiles;
+            this.defFiles = defFiles;
         }
 
-        @Override
-        public int hashCode() {
-            int result = fileCount;
-            result = 31 * result + (int) (timestamp ^ (timestamp >>> 32));
-            result = 31 * result + javaVersion.hashCode();
+        static State ofLines(List<String> lines) {
+            JkJavaVersion javaVersion = null;
+            String options = "";
+            Map<String, String> bootFiles = new TreeMap<>();
+            Map<String, FileState> defFiles = new TreeMap<>();
+            for (String line : lines) {
+                String[] items = line.split(SEPARATOR, -1);
+                if ("java".equals(items[0])) {
+                    javaVersion = JkJavaVersion.of(items[1]);
+                } else if ("options".equals(items[0])) {
+                    options = items[1];
+                } else if ("boot".equals(items[0])) {
+                    bootFiles.put(items[1], items[2]);
+                } else if ("def".equals(items[0])) {
+                    defFiles.put(items[1], new FileState(items[2], split(items[3]), split(items[4])));
+                }
+            }
+            if (javaVersion == null) {
+                throw new IllegalStateException("No java version mentioned.");
+            }
+            return new State(javaVersion, options, bootFiles, defFiles);
+        }
+
+        String toText() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("java").append(SEPARATOR).append(javaVersion).append("\n");
+            sb.append("options").append(SEPARATOR).append(options).append("\n");
+            bootFiles.forEach((path, hash) -> sb.append("boot").append(SEPARATOR).append(path)
+                    .append(SEPARATOR).append(hash).append("\n"));
+            defFiles.forEach((path, fileState) -> sb.append("def").append(SEPARATOR).append(path)
+                    .append(SEPARATOR).append(fileState.hash)
+                    .append(SEPARATOR).append(String.join(LIST_SEPARATOR, fileState.declaredTypes))
+                    .append(SEPARATOR).append(String.join(LIST_SEPARATOR, fileState.dependencies))
+                    .append("\n"));
+            return sb.toString();
+        }
+
+        List<String> dependentsOf(String relativePath) {
+            List<String> result = new LinkedList<>();
+            defFiles.forEach((path, fileState) -> {
+                if (fileState.dependencies.contains(relativePath)) {
+                    result.add(path);
+                }
+            });
             return result;
         }
+
+        private static List<String> split(String value) {
+            if (value.isEmpty()) {
+                return Collections.emptyList();
+            }
+            return Arrays.asList(value.split(LIST_SEPARATOR));
+        }
     }
+
+    private static class FileState {
+
+        final String hash;
+
+        // Top level types declared in the source file, as class file paths relative to class dir
+        final List<String> declaredTypes;
+
+        // Def source files, this source file depends on
+        final List<String> dependencies;
+
+        FileState(String hash, List<String> declaredTypes, List<String> dependencies) {
+            this.hash = hash;
+            this.declaredTypes = declaredTypes;
+            this.dependencies = dependencies;
+        }
+    }
+
+    /*
+     * Light lexical analysis of a Java source file, ignoring comments and literals.
+     */
+    static class SourceInfo {
+
+        private static final Set<String> TYPE_KEYWORDS = JkUtilsIterable.setOf("class", "interface", "enum", "record");
+
+        final String packagePath;
+
+        final Set<String> topLevelTypes;
+
+        final Set<String> identifiers;
+
+        private SourceInfo(String packagePath, Set<String> topLevelTypes, Set<String> identifiers) {
+            this.packagePath = packagePath;
+            this.topLevelTypes = topLevelTypes;
+            this.identifiers = identifiers;
+        }
+
+        static SourceInfo of(String content) {
+            List<String> tokens = tokenize(content);
+            StringBuilder packagePath = new StringBuilder();
+            Set<String> topLevelTypes = new LinkedHashSet<>();
+            Set<String> identifiers = new HashSet<>();
+            int depth = 0;
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                if ("{".equals(token)) {
+                    depth++;
+                } else if ("}".equals(token)) {
+                    depth--;
+                } else if (depth == 0 && "package".equals(token)) {
+                    for (i++; i < tokens.size() && !";".equals(tokens.get(i)); i++) {
+                        packagePath.append(".".equals(tokens.get(i)) ? "/" : tokens.get(i));
+                    }
+                    packagePath.append("/");
+                } else if (depth == 0 && TYPE_KEYWORDS.contains(token) && i + 1 < tokens.size()
+                        && (i == 0 || !".".equals(tokens.get(i - 1)))
+                        && Character.isJavaIdentifierStart(tokens.get(i + 1).charAt(0))) {
+                    String typeName = tokens.get(i + 1);
+                    boolean isRecord = "record".equals(token);
+                    String next = i + 2 < tokens.size() ? tokens.get(i + 2) : "";
+                    if (!isRecord || "(".equals(next) || "<".equals(next)) {
+                        topLevelTypes.add(typeName);
+                    }
+                } else if (Character.isJavaIdentifierStart(token.charAt(0))) {
+                    identifiers.add(token);
+                }
+            }
+            return new SourceInfo(packagePath.toString(), topLevelTypes, identifiers);
+        }
+
+        // Returns identifiers and single char symbols, skipping whitespaces, comments and literals.
+        private static List<String> tokenize(String content) {
+            List<String> result = new ArrayList<>();
+            int length = content.length();
+            int i = 0;
+            while (i < length) {
+                char c = content.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (content.startsWith("//", i)) {
+                    int end = content.indexOf('\n', i);
+                    i = end < 0 ? length : end + 1;
+                } else if (content.startsWith("/*", i)) {
+                    int end = content.indexOf("*/", i + 2);
+                    i = end < 0 ? length : end + 2;
+                } else if (content.startsWith("\"\"\"", i)) {
+                    int end = content.indexOf("\"\"\"", i + 3);
+                    while (end > 0 && content.charAt(end - 1) == '\\') {
+                        end = content.indexOf("\"\"\"", end + 1);
+                    }
+                    i = end < 0 ? length : end + 3;
+                } else if (c == '"' || c == '\'') {
+                    i++;
+                    while (i < length && content.charAt(i) != c && content.charAt(i) != '\n') {
+                        i += content.charAt(i) == '\\' ? 2 : 1;
+                    }
+                    i++;
+                } else if (Character.isJavaIdentifierStart(c)) {
+                    int start = i;
+                    while (i < length && Character.isJavaIdentifierPart(content.charAt(i))) {
+                        i++;
+                    }
+                    result.add(content.substring(start, i));
+                } else if (Character.isDigit(c)) {
+                    while (i < length && (Character.isJavaIdentifierPart(content.charAt(i))
+                            || content.charAt(i) == '.')) {
+                        i++;
+                    }
+                } else {
+                    result.add(String.valueOf(c));
+                    i++;
+                }
+            }
+            return result;
+        }
+    }
+
 }
@@ -88,6 +88,12 @@ class Environment {
 
         boolean ignoreCompileFail;
 
+        boolean sequentialCompile;
+
+        boolean daemon;
+
+        boolean daemonStop;
+
         private String jkBeanName;
 
         private boolean cleanWork;
@@ -108,6 +114,9 @@ class Environment {
             this.logStyle = valueOf(JkLog.Style.class, map, JkLog.Style.INDENT, "log.style", "ls");
             this.jkBeanName = valueOf(String.class, map, null, "kbean", "kb");
             this.ignoreCompileFail = valueOf(boolean.class, map, false, "def.compile.ignore-failure", "dci");
+            this.sequentialCompile = valueOf(boolean.class, map, false, "def.compile.sequential", "dcs");
+            this.daemon = valueOf(boolean.class, map, false, "daemon");
+            this.daemonStop = valueOf(boolean.class, map, false, "daemon.stop");
             this.cleanWork = valueOf(boolean.class, map, false, "clean.work", "cw");
             this.noHelp = valueOf(boolean.class, map, false, "no.help");
         }
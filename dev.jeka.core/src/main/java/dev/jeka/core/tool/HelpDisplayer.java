@@ -75,6 +75,9 @@ final class HelpDisplayer {
         sb.append("  -clean.work (shorthand -cw) : Delete all files cached in jeka/.work.\n");
         sb.append("  -no.help : Does not display help if no method is invoked.\n");
         sb.append("  -def.compile.ignore-failure (shorthand -dci) : Try to compile def classes. If fail, ignore failure and continue.\n");
+        sb.append("  -def.compile.sequential (shorthand -dcs) : Compile def classes of imported projects one after the other instead of concurrently.\n");
+        sb.append("  -daemon : Execute the command in a long-lived Jeka process attached to the project, starting it if needed.\n");
+        sb.append("  -daemon.stop : Stop the long-lived Jeka process attached to the project.\n");
         return sb.toString();
     }
 
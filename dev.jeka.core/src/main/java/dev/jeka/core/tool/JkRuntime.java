@@ -24,7 +24,8 @@ import java.util.stream.Collectors;
  */
 public final class JkRuntime {
 
-    private static final ThreadLocal<Path> BASE_DIR_CONTEXT = new ThreadLocal<>();   //NOSONAR
+    // Inherited, so threads started by a project, as the ones building computed dependencies, run in its context
+    private static final ThreadLocal<Path> BASE_DIR_CONTEXT = new InheritableThreadLocal<>();   //NOSONAR
 
     private static final Map<Path, JkRuntime> RUNTIMES = new LinkedHashMap<>();
 
@@ -47,10 +48,15 @@ public final class JkRuntime {
         this.properties = constructProperties(projectBaseDir);
     }
 
-    public static JkRuntime get(Path projectBaseDir) {
+    public static synchronized JkRuntime get(Path projectBaseDir) {
         return RUNTIMES.computeIfAbsent(projectBaseDir, path -> new JkRuntime(path));
     }
 
+    // Forgets all runtimes, so a new command can be run within the same JVM.
+    static synchronized void clear() {
+        RUNTIMES.clear();
+    }
+
     static JkRuntime getCurrentContextBaseDir() {
         return get(getBaseDirContext());
     }
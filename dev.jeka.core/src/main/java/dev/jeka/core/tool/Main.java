@@ -15,6 +15,7 @@ import java.net.URLClassLoader;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Main class for launching Jeka from command line.
@@ -27,6 +28,10 @@ public final class Main {
      * Entry point for Jeka application when launched from command-line
      */
     public static void main(String[] args) {
+        if (args.length == 1 && Daemon.SERVE_ARG.equals(args[0])) {
+            Daemon.serve();
+            return;
+        }
         if (!(Thread.currentThread().getContextClassLoader() instanceof AppendableUrlClassloader)) {
             final URLClassLoader urlClassLoader = new AppendableUrlClassloader();
             Thread.currentThread().setContextClassLoader(urlClassLoader);
@@ -35,9 +40,24 @@ public final class Main {
                     "main" , argArray);
             return;
         }
+        System.exit(run(args)); // Triggers shutdown hooks
+    }
+
+    /*
+     * Runs the specified command line in the current JVM and returns the exit code.
+     */
+    static int run(String[] args) {
         final long start = System.nanoTime();
         try {
             Environment.initialize(args);
+            final Path workingDir = Paths.get("");
+            if (Environment.standardOptions.daemonStop) {
+                Daemon.stop(workingDir.toAbsolutePath());
+                return 0;
+            }
+            if (Environment.standardOptions.daemon && !Daemon.isDaemonProcess()) {
+                return Daemon.execute(workingDir.toAbsolutePath(), args);
+            }
             Environment.commandLine.getSystemProperties().forEach((k,v) -> System.setProperty(k, v));
             JkLog.setDecorator(Environment.standardOptions.logStyle);
             if (Environment.standardOptions.logBanner) {
@@ -46,7 +66,6 @@ public final class Main {
             if (Environment.standardOptions.logRuntimeInformation) {
                 JkInit.displayRuntimeInfo();
             }
-            final Path workingDir = Paths.get("");
             JkLog.setAcceptAnimation(!Environment.standardOptions.logNoAnimation);
             if (!Environment.standardOptions.logSetup) {  // log in memory and flush in console only on error
                 JkBusyIndicator.start("Preparing Jeka classes and instance (Use -lsu option for details)");
@@ -61,7 +80,7 @@ public final class Main {
             if (Environment.standardOptions.logDuration && !Environment.standardOptions.logBanner) {
                 displayDuration(start);
             }
-            System.exit(0); // Triggers shutdown hooks
+            return 0;
         } catch (final Throwable e) {
             JkBusyIndicator.stop();
             JkLog.restoreToInitialState();
@@ -81,7 +100,7 @@ public final class Main {
             } else {
                 System.err.println("Failed !");
             }
-            System.exit(1);
+            return 1;
         }
     }
 
@@ -130,6 +149,27 @@ public final class Main {
         engine.execute(CommandLine.parse(args));
     }
 
+    /**
+     * Entry point to call Jeka on several folders at once. Def classes of the specified projects and of their
+     * imported projects are compiled once, then the command is run on each project, concurrently if
+     * <code>parallel</code> is <code>true</code>.
+     */
+    public static void execOnProjects(List<Path> projectDirs, boolean parallel, String... args) {
+        ClassLoader originalClassloader = Thread.currentThread().getContextClassLoader();
+        if (!(originalClassloader instanceof URLClassLoader)) {
+            final URLClassLoader urlClassLoader = new URLClassLoader(new URL[] {}, originalClassloader);
+            Thread.currentThread().setContextClassLoader(urlClassLoader);
+            JkClassLoader.of(urlClassLoader).invokeStaticMethod(false, "dev.jeka.core.tool.Main",
+                    "execOnProjects" , projectDirs, parallel, args);
+            return;
+        }
+        List<Path> normalizedDirs = projectDirs.stream()
+                .map(path -> path.toAbsolutePath().normalize())
+                .distinct()
+                .collect(Collectors.toList());
+        Engine.executeOnProjects(normalizedDirs, CommandLine.parse(args), parallel);
+    }
+
     private static int printAscii(boolean error, String fileName) {
         final InputStream inputStream = Main.class.getResourceAsStream(fileName);
         final List<String> lines = JkUtilsIO.readAsLines(inputStream);
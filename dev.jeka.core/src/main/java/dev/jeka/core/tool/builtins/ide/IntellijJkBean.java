@@ -15,10 +15,9 @@ import dev.jeka.core.tool.Main;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Collections;
-import java.util.LinkedHashSet;
-import java.util.Optional;
+import java.util.*;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @JkDoc("Generates Idea Intellij metadata files (*.iml and modules.xml).")
@@ -38,6 +37,9 @@ public final class IntellijJkBean extends JkBean {
     @JkDoc("The path where iml file must be generated. If null, Jeka will decide for a proper place. Mostly used by external tools.")
     public Path imlFile;
 
+    @JkDoc("If true, allIml and fullProject generate iml files of the modules concurrently.")
+    public boolean parallel = true;
+
     private LinkedHashSet<String> projectLibraries = new LinkedHashSet<>();
 
     private Consumer<JkImlGenerator> imlGeneratorConfigurer = jkImlGenerator2 -> {};
@@ -102,21 +104,40 @@ public final class IntellijJkBean extends JkBean {
 
     @JkDoc("Generates iml files on this folder and its descendant recursively.")
     public void allIml() {
+        generateImls(scanModules().moduleDirs);
+    }
+
+    /*
+     * Def classes of all modules are compiled in a single pass, so def projects shared between modules are parsed,
+     * resolved and compiled only once. Iml files are then generated concurrently, unless specified otherwise.
+     */
+    private List<Path> generateImls(List<Path> moduleDirs) {
+        JkLog.startTask("Generate iml files on %s modules", moduleDirs.size());
+        Main.execOnProjects(moduleDirs, parallel, "intellij#iml", "-dci");
+        JkLog.endTask();
+        return moduleDirs.stream()
+                .map(JkImlGenerator::getImlFilePath)
+                .collect(Collectors.toList());
+    }
+
+    // Finds module dirs and existing iml files in a single walk
+    private ModuleScan scanModules() {
+        ModuleScan result = new ModuleScan();
         Stream<Path> stream = JkPathTree.of(getBaseDir())
-                .andMatching(true, "**/" + JkConstants.DEF_DIR, JkConstants.DEF_DIR)
+                .andMatching(true, "**/" + JkConstants.DEF_DIR, JkConstants.DEF_DIR, "**.iml")
                 .andMatching(false, "**/" + JkConstants.OUTPUT_PATH + "/**")
                 .stream();
         stream
-            .distinct()
-            .map(path -> path.getParent().getParent())
-            .map(path -> path == null ? getBaseDir() : path)
-            .forEach(this::generateImlExec);
-    }
-
-    private void generateImlExec(Path moduleDir) {
-        JkLog.startTask("Generate iml file on '%s'", moduleDir);
-        Main.exec(moduleDir, "intellij#iml", "-dci");
-        JkLog.endTask();
+                .distinct()
+                .forEach(path -> {
+                    if (path.toString().endsWith(".iml")) {
+                        result.imlFiles.add(path);
+                    } else {
+                        Path moduleDir = path.getParent().getParent();
+                        result.moduleDirs.add(moduleDir == null ? getBaseDir() : moduleDir);
+                    }
+                });
+        return result;
     }
 
     public IntellijJkBean addProjectLibrary(String xml) {
@@ -127,8 +148,14 @@ public final class IntellijJkBean extends JkBean {
     @JkDoc("Shorthand for intellij#allIml + intellij#modulesXml.")
     public void fullProject() {
         checkProjectRoot();
-        allIml();
-        modulesXml();
+        ModuleScan moduleScan = scanModules();
+        LinkedHashSet<Path> imls = new LinkedHashSet<>();
+        moduleScan.imlFiles.forEach(path -> imls.add(path.toAbsolutePath().normalize()));
+        generateImls(moduleScan.moduleDirs).forEach(path -> imls.add(path.toAbsolutePath().normalize()));
+        final IntellijModulesXmlGenerator intellijModulesXmlGenerator = new IntellijModulesXmlGenerator(
+                getBaseDir().toAbsolutePath().normalize(), imls);
+        intellijModulesXmlGenerator.generate();
+        JkLog.info("File generated at : " + intellijModulesXmlGenerator.outputFile());
     }
 
     private void checkProjectRoot() {
@@ -151,4 +178,12 @@ public final class IntellijJkBean extends JkBean {
         return imlGenerator;
     }
 
-}
\ No newline at end of file
+    private static class ModuleScan {
+
+        private final List<Path> moduleDirs = new LinkedList<>();
+
+        private final List<Path> imlFiles = new LinkedList<>();
+
+    }
+
+}
@@ -150,6 +150,9 @@ public class ProjectJkBean extends JkBean implements JkIdeSupport.JkSupplier {
             Consumer<Path> javadocJar = aProject.packaging::createJavadocJar;
             artifactProducer.putArtifact(javadoc, javadocJar);
         }
+        if (pack.reproducible != null) {
+            aProject.packaging.setReproducibleJars(pack.reproducible);
+        }
         JkTestProcessor testProcessor = aProject.testing.testProcessor;
         testProcessor.setJvmHints(jdks(), aProject.getJvmTargetVersion());
         if (test.fork != null && test.fork && testProcessor.getForkingProcess() == null) {
@@ -167,6 +170,24 @@ public class ProjectJkBean extends JkBean implements JkIdeSupport.JkSupplier {
         } else if (test.fork != null && !test.fork && testProcessor.getForkingProcess() != null) {
             testProcessor.setForkingProcess(false);
         }
+        if (test.reuseFork != null) {
+            testProcessor.setForkedProcessReused(test.reuseFork);
+        }
+        if (test.shards != null) {
+            testProcessor.setShardCount(test.shards);
+        }
+        if (test.maxFailures != null) {
+            testProcessor.setMaxFailures(test.maxFailures);
+        }
+        if (test.slowest != null) {
+            testProcessor.setSlowestTestCount(test.slowest);
+        }
+        if (test.measureResources != null) {
+            testProcessor.engineBehavior.setResourceUsageMeasured(test.measureResources);
+        }
+        if (test.cache != null) {
+            aProject.testing.setResultCached(test.cache);
+        }
         if (test.fork == null)
         if (test.skip != null) {
             aProject.testing.setSkipped(test.skip);
@@ -335,6 +356,11 @@ public class ProjectJkBean extends JkBean implements JkIdeSupport.JkSupplier {
         @JkDoc("If true, sources jar is added in the list of artifact to produce/publish.")
         public Boolean sources;
 
+        /** When true, produced bin and fat jars are byte-for-byte reproducible.*/
+        @JkDoc("If true, bin and fat jar entries are sorted and have a constant timestamp so identical content " +
+                "produces identical jars.")
+        public Boolean reproducible;
+
     }
 
     /**
@@ -354,6 +380,34 @@ public class ProjectJkBean extends JkBean implements JkIdeSupport.JkSupplier {
         @JkDoc("Argument passed to the JVM if tests are executed in a forked process. E.g. -Xms2G -Xmx2G.")
         public String jvmOptions;
 
+        /** Turn it on to skip test classes that passed at previous run and are unchanged since. */
+        @JkDoc("If true, test classes that passed at a previous run are not run again as long as they, the classes " +
+                "they depend on and the test classpath are unchanged.")
+        public Boolean cache;
+
+        /** Number of forked processes to split test classes across. Example : 4 */
+        @JkDoc("Number of forked processes the test classes are split across, in order to run them in parallel. " +
+                "Only applies if tests are executed in a forked process.")
+        public Integer shards;
+
+        /** Turn it on to keep forked test processes alive across launches. */
+        @JkDoc("If true, forked test processes are kept alive to run further tests instead of starting a new JVM " +
+                "each time.")
+        public Boolean reuseFork;
+
+        /** Number of test failures after which the run is aborted. Example : 1 */
+        @JkDoc("Number of test failures after which the remaining tests are not run. " +
+                "Only applies if tests are executed in a forked process.")
+        public Integer maxFailures;
+
+        /** Number of slowest tests to list once tests have run. Example : 10 */
+        @JkDoc("Number of slowest tests to list once tests have run, with their duration trend since previous run.")
+        public Integer slowest;
+
+        /** Turn it on to measure CPU time and memory allocated by each test. */
+        @JkDoc("If true, CPU time and memory allocated by each test are measured and listed along slowest tests.")
+        public Boolean measureResources;
+
     }
 
     public static class JkLayoutOptions {
@@ -0,0 +1,55 @@
+package dev.jeka.core.api.depmanagement;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class BomIndexTest {
+
+    private static final JkCoordinate BOM = JkCoordinate.of("my.group:my-bom::pom:1.0");
+
+    @Test
+    public void get_indexedBom_readFromIndexUntilPomChanges() throws IOException {
+        Path root = Files.createTempDirectory("jekatest");
+        Path indexDir = root.resolve("index");
+        Path pom = root.resolve("my-bom.pom");
+        Files.write(pom, bom("1.0").getBytes(StandardCharsets.UTF_8));
+
+        Map<JkModuleId, JkVersion> versions = new BomIndex(indexDir).get(BOM, pom);
+        Assert.assertEquals("1.0", versions.get(JkModuleId.of("org.foo:foo-core")).getValue());
+        Assert.assertEquals("2.1", versions.get(JkModuleId.of("org.bar:bar")).getValue());
+        try (Stream<Path> files = Files.list(indexDir)) {
+            Assert.assertEquals(1, files.filter(file -> file.toString().endsWith(".idx"))
+                    .collect(Collectors.toList()).size());
+        }
+
+        // A fresh instance has no memo, so it reads the index file
+        Assert.assertEquals(versions, new BomIndex(indexDir).get(BOM, pom));
+
+        Files.write(pom, bom("1.0.1").getBytes(StandardCharsets.UTF_8));
+        Map<JkModuleId, JkVersion> newVersions = new BomIndex(indexDir).get(BOM, pom);
+        Assert.assertEquals("1.0.1", newVersions.get(JkModuleId.of("org.foo:foo-core")).getValue());
+    }
+
+    private static String bom(String fooVersion) {
+        return "<project>\n" +
+                "  <properties><foo.version>" + fooVersion + "</foo.version></properties>\n" +
+                "  <dependencyManagement><dependencies>\n" +
+                "    <dependency><groupId>org.foo</groupId><artifactId>foo-core</artifactId>" +
+                "<version>${foo.version}</version></dependency>\n" +
+                "    <dependency><groupId>org.foo</groupId><artifactId>foo-extra</artifactId>" +
+                "<version>${foo.version}</version></dependency>\n" +
+                "    <dependency><groupId>org.bar</groupId><artifactId>bar</artifactId>" +
+                "<version>2.1</version></dependency>\n" +
+                "  </dependencies></dependencyManagement>\n" +
+                "</project>\n";
+    }
+
+}
@@ -1,12 +1,16 @@
 package dev.jeka.core.api.depmanagement;
 
 import dev.jeka.core.api.project.JkProject;
+import dev.jeka.core.api.utils.JkUtilsPath;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class JkComputedDependencyTest {
@@ -21,4 +25,60 @@ public class JkComputedDependencyTest {
         Assert.assertEquals(root, computedDependency.getIdeProjectDir().toAbsolutePath().normalize());
     }
 
+    @Test
+    public void getFiles_withInputFingerprint_rebuildsOnlyWhenInputsChange() throws IOException {
+        Path root = Files.createTempDirectory("jekatest");
+        Path input = root.resolve("input.txt");
+        Path output = root.resolve("output.txt");
+        Files.write(input, "v1".getBytes());
+        AtomicInteger runCount = new AtomicInteger();
+        Runnable generator = () -> {
+            runCount.incrementAndGet();
+            JkUtilsPath.copy(input, output, StandardCopyOption.REPLACE_EXISTING);
+        };
+        JkInputFingerprint fingerprint = JkInputFingerprint.of().andFiles(() -> Collections.singletonList(input));
+
+        JkComputedDependency.of(generator, output).withInputFingerprint(fingerprint).getFiles();
+        Assert.assertEquals(1, runCount.get());
+
+        JkComputedDependency.of(generator, output).withInputFingerprint(fingerprint).getFiles();
+        Assert.assertEquals("Inputs have not changed", 1, runCount.get());
+
+        Files.write(input, "version 2".getBytes());
+        JkComputedDependency.of(generator, output).withInputFingerprint(fingerprint).getFiles();
+        Assert.assertEquals("Inputs have changed", 2, runCount.get());
+        Assert.assertEquals("version 2", new String(Files.readAllBytes(output)));
+    }
+
+    @Test
+    public void getFiles_withInputFingerprintAndEmptyRecord_rebuilds() throws IOException {
+        Path root = Files.createTempDirectory("jekatest");
+        Path output = root.resolve("output.txt");
+        AtomicInteger runCount = new AtomicInteger();
+        Runnable generator = () -> {
+            runCount.incrementAndGet();
+            JkUtilsPath.write(output, new byte[0]);  // zero-length output
+        };
+        JkInputFingerprint fingerprint = JkInputFingerprint.of().andValue("option", () -> "value");
+
+        JkComputedDependency.of(generator, output).withInputFingerprint(fingerprint).getFiles();
+        Files.write(root.resolve("output.txt.inputs"), new byte[0]);
+        JkComputedDependency.of(generator, output).withInputFingerprint(fingerprint).getFiles();
+
+        Assert.assertEquals(2, runCount.get());
+        Assert.assertEquals(fingerprint.get(), new String(Files.readAllBytes(root.resolve("output.txt.inputs"))));
+    }
+
+    @Test
+    public void getFiles_withInputFingerprintAndNoFile_runsOncePerInstance() {
+        AtomicInteger runCount = new AtomicInteger();
+        JkComputedDependency dependency = JkComputedDependency.of(runCount::incrementAndGet)
+                .withInputFingerprint(JkInputFingerprint.of().andValue("option", () -> "value"));
+
+        dependency.getFiles();
+        dependency.getFiles();
+
+        Assert.assertEquals(1, runCount.get());
+    }
+
 }
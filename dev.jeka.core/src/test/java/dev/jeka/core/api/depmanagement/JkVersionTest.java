@@ -2,9 +2,13 @@ package dev.jeka.core.api.depmanagement;
 
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class JkVersionTest {
@@ -22,6 +26,30 @@ public class JkVersionTest {
         assertTrue(comp.compare("1.0", "1.0.1") < 0);
         assertTrue(comp.compare("1.0.0", "1.0.0.1") < 0);
         assertTrue(comp.compare("1.0.0", "1.0.0.0") == 0);
+        assertTrue(comp.compare("1.01", "1.1") == 0);
+        assertTrue(comp.compare("1.2.3.4.5", "1.2.3.4") > 0);
+        assertTrue(comp.compare("40000.1", "39999.2") > 0);
+    }
+
+    @Test
+    public void compareTo_sameOrderAsComparableVersion() {
+        List<String> values = Arrays.asList("1", "1.0", "1.0.0", "1.0.0.0", "1.0.0.1", "1.0.1", "1.1", "1.10",
+                "1.9.9", "2", "2.0-RC1", "2.0.M1", "2.0-SNAPSHOT", "2.0.0.RELEASE", "01.2", "1..2", "1.2.3.4.5",
+                "32767.1", "32768.1", "123456789012", "1.0-alpha", "1.0a1", "1.0-sp");
+        for (String value1 : values) {
+            for (String value2 : values) {
+                int expected = Integer.signum(
+                        new ComparableVersion(value1).compareTo(new ComparableVersion(value2)));
+                assertEquals(value1 + " vs " + value2, expected,
+                        Integer.signum(JkVersion.of(value1).compareTo(JkVersion.of(value2))));
+            }
+        }
+    }
+
+    @Test
+    public void of_sameValue_returnsInternedInstance() {
+        assertSame(JkVersion.of("3.4.5"), JkVersion.of(new String("3.4.5")));
+        assertSame(JkVersion.UNSPECIFIED, JkVersion.of("UNSPECIFIED-SNAPSHOT"));
     }
 
     @Test
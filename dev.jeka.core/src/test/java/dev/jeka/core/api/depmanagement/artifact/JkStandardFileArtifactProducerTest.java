@@ -0,0 +1,125 @@
+package dev.jeka.core.api.depmanagement.artifact;
+
+import dev.jeka.core.api.file.JkPathTree;
+import dev.jeka.core.api.system.JkLog;
+import dev.jeka.core.api.utils.JkUtilsPath;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JkStandardFileArtifactProducerTest {
+
+    @Test
+    public void makeAllArtifacts_parallel_runsIndependentArtifactsConcurrentlyAfterPrerequisites() throws Exception {
+        Path dir = Files.createTempDirectory("jeka-test");
+        JkArtifactId sources = JkArtifactId.of("sources", "jar");
+        JkArtifactId javadoc = JkArtifactId.of("javadoc", "jar");
+        CountDownLatch javadocStarted = new CountDownLatch(1);
+        List<String> made = Collections.synchronizedList(new LinkedList<>());
+        JkStandardFileArtifactProducer<Void> producer = JkStandardFileArtifactProducer
+                .of(artifactId -> dir.resolve(artifactId.toFileName("my")))
+                .setParallel(true)
+                .putMainArtifact(path -> {
+                    await(javadocStarted);  // would block forever if javadoc were made after main artifact
+                    write(path, made);
+                })
+                .putArtifact(sources, path -> write(path, made))
+                .putArtifact(javadoc, path -> {
+                    javadocStarted.countDown();
+                    write(path, made);
+                })
+                .addPrerequisites(sources, JkArtifactId.ofMainArtifact("jar"));
+
+        try {
+            producer.makeAllArtifacts();
+
+            assertEquals(3, made.size());
+            assertTrue(made.toString(), made.indexOf("my.jar") < made.indexOf("my-sources.jar"));
+            assertTrue(Files.exists(dir.resolve("my-javadoc.jar")));
+        } finally {
+            JkPathTree.of(dir).deleteRoot();
+        }
+    }
+
+    @Test
+    public void makeAllArtifacts_parallel_outputsLogsInDeclarationOrder() throws Exception {
+        Path dir = Files.createTempDirectory("jeka-test");
+        CountDownLatch javadocMade = new CountDownLatch(1);
+        JkStandardFileArtifactProducer<Void> producer = JkStandardFileArtifactProducer
+                .of(artifactId -> dir.resolve(artifactId.toFileName("my")))
+                .setParallel(true)
+                .putMainArtifact(path -> {
+                    await(javadocMade);
+                    JkLog.info("main log");
+                })
+                .putArtifact(JkArtifactId.of("javadoc", "jar"), path -> {
+                    JkLog.info("javadoc log");
+                    javadocMade.countDown();
+                });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JkLog.setDecorator(JkLog.Style.INDENT);
+        JkLog.redirect(new PrintStream(out, true), new PrintStream(out, true));
+        try {
+            producer.makeAllArtifacts();
+        } finally {
+            JkLog.restoreToInitialState();
+            JkPathTree.of(dir).deleteRoot();
+        }
+
+        String log = out.toString();
+        assertTrue(log, log.indexOf("my.jar") < log.indexOf("main log"));
+        assertTrue(log, log.indexOf("main log") < log.indexOf("my-javadoc.jar"));
+        assertTrue(log, log.indexOf("my-javadoc.jar") < log.indexOf("javadoc log"));
+        assertEquals(0, JkLog.getCurrentNestedLevel());
+    }
+
+    @Test
+    public void makeAllArtifacts_parallel_failingPrerequisite_skipsDependentsAndRethrows() throws Exception {
+        Path dir = Files.createTempDirectory("jeka-test");
+        JkArtifactId sources = JkArtifactId.of("sources", "jar");
+        JkStandardFileArtifactProducer<Void> producer = JkStandardFileArtifactProducer
+                .of(artifactId -> dir.resolve(artifactId.toFileName("my")))
+                .setParallel(true)
+                .putMainArtifact(path -> {
+                    throw new IllegalStateException("compilation failed");
+                })
+                .putArtifact(sources, path -> JkUtilsPath.write(path, new byte[0]))
+                .addPrerequisites(sources, JkArtifactId.ofMainArtifact("jar"));
+        try {
+            producer.makeAllArtifacts();
+            fail("Failure of main artifact should have been rethrown");
+        } catch (IllegalStateException e) {
+            assertEquals("compilation failed", e.getMessage());
+        } finally {
+            assertFalse(Files.exists(dir.resolve("my-sources.jar")));
+            JkPathTree.of(dir).deleteRoot();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue("Javadoc has not been made concurrently", latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void write(Path path, List<String> made) {
+        JkUtilsPath.write(path, new byte[0]);
+        made.add(path.getFileName().toString());
+    }
+
+}
@@ -0,0 +1,155 @@
+package dev.jeka.core.api.depmanagement.embedded.ivy;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.jeka.core.api.file.JkPathTree;
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.LogOptions;
+import org.apache.ivy.core.module.descriptor.DefaultDependencyDescriptor;
+import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.DownloadStatus;
+import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.resolve.DownloadOptions;
+import org.apache.ivy.core.resolve.ResolveOptions;
+import org.apache.ivy.core.settings.IvySettings;
+import org.apache.ivy.plugins.repository.Repository;
+import org.apache.ivy.plugins.resolver.IBiblioResolver;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IvyArtifactDownloaderTest {
+
+    private static final List<String> MODULES = Arrays.asList("a", "b", "c", "d", "e", "f");
+
+    private final AtomicInteger concurrentJarDownloads = new AtomicInteger();
+
+    private final AtomicInteger maxConcurrentJarDownloads = new AtomicInteger();
+
+    @Test
+    public void downloadArtifacts_severalArtifactsOfSameRepo_downloadsAllConcurrently() throws Exception {
+        Path cacheDir = Files.createTempDirectory("jeka-test");
+        ExecutorService serverExecutor = Executors.newCachedThreadPool();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::serve);
+        server.setExecutor(serverExecutor);
+        server.start();
+        try {
+            IBiblioResolver resolver = new IBiblioResolver();
+            resolver.setName("test");
+            resolver.setM2compatible(true);
+            resolver.setUsepoms(true);
+            resolver.setRoot("http://localhost:" + server.getAddress().getPort() + "/");
+            Repository repository = resolver.getRepository();
+            IvySettings settings = new IvySettings();
+            settings.addResolver(resolver);
+            settings.setDefaultResolver("test");
+            settings.setDefaultCache(cacheDir.toFile());
+            Ivy ivy = Ivy.newInstance(settings);
+            DefaultModuleDescriptor moduleDescriptor = DefaultModuleDescriptor.newDefaultInstance(
+                    ModuleRevisionId.newInstance("org.test", "root", "1.0"));
+            for (String module : MODULES) {
+                DefaultDependencyDescriptor dependency = new DefaultDependencyDescriptor(moduleDescriptor,
+                        ModuleRevisionId.newInstance("org.test", module, "1.0"), false, false, true);
+                dependency.addDependencyConfiguration("default", "default");
+                moduleDescriptor.addDependency(dependency);
+            }
+            ResolveOptions resolveOptions = new ResolveOptions();
+            resolveOptions.setConfs(new String[] {"default"});
+            resolveOptions.setDownload(false);
+            resolveOptions.setOutputReport(false);
+            resolveOptions.setLog(LogOptions.LOG_QUIET);
+            ResolveReport report = ivy.resolve(moduleDescriptor, resolveOptions);
+
+            DownloadOptions downloadOptions = new DownloadOptions();
+            downloadOptions.setLog(LogOptions.LOG_QUIET);
+            IvyArtifactDownloader.downloadArtifacts(ivy, report, resolveOptions.getArtifactFilter(),
+                    downloadOptions);
+
+            ArtifactDownloadReport[] downloadReports = report.getAllArtifactsReports();
+            assertEquals(MODULES.size(), downloadReports.length);
+            for (ArtifactDownloadReport downloadReport : downloadReports) {
+                assertEquals(downloadReport.toString(), DownloadStatus.SUCCESSFUL,
+                        downloadReport.getDownloadStatus());
+                String module = downloadReport.getArtifact().getName();
+                assertArrayEquals(jarContent(module), Files.readAllBytes(downloadReport.getLocalFile().toPath()));
+            }
+            assertTrue("Artifacts have not been downloaded concurrently", maxConcurrentJarDownloads.get() > 1);
+            assertSame(repository, resolver.getRepository());
+        } finally {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+            JkPathTree.of(cacheDir).deleteRoot();
+        }
+    }
+
+    // Serves org.test:[module]:1.0 poms and jars
+    private void serve(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String module = path.split("/").length > 3 ? path.split("/")[3] : "";
+        byte[] content = null;
+        if (MODULES.contains(module) && path.equals("/org/test/" + module + "/1.0/" + module + "-1.0.pom")) {
+            content = pomContent(module);
+        } else if (MODULES.contains(module) && path.equals("/org/test/" + module + "/1.0/" + module + "-1.0.jar")) {
+            content = jarContent(module);
+        }
+        if (content == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().add("Content-Length", Integer.toString(content.length));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        boolean jar = path.endsWith(".jar");
+        if (jar) {
+            maxConcurrentJarDownloads.accumulateAndGet(concurrentJarDownloads.incrementAndGet(), Math::max);
+        }
+        try {
+            if (jar) {
+                Thread.sleep(100);  // leaves time to other downloads to overlap
+            }
+            exchange.sendResponseHeaders(200, content.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(content);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (jar) {
+                concurrentJarDownloads.decrementAndGet();
+            }
+            exchange.close();
+        }
+    }
+
+    private static byte[] pomContent(String module) {
+        return ("<project><modelVersion>4.0.0</modelVersion><groupId>org.test</groupId><artifactId>" + module
+                + "</artifactId><version>1.0</version></project>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] jarContent(String module) {
+        return ("content of " + module).getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,138 @@
+package dev.jeka.core.api.depmanagement.embedded.ivy;
+
+import dev.jeka.core.api.depmanagement.artifact.JkArtifactId;
+import dev.jeka.core.api.depmanagement.artifact.JkArtifactLocator;
+import dev.jeka.core.api.file.JkPathTree;
+import dev.jeka.core.api.utils.JkUtilsPath;
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.plugins.repository.AbstractRepository;
+import org.apache.ivy.plugins.repository.BasicResource;
+import org.apache.ivy.plugins.repository.Resource;
+import org.apache.ivy.plugins.resolver.IBiblioResolver;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IvyPublisherForMavenTest {
+
+    @Test
+    public void publish_uniqueSnapshot_putsFilesOneAtATimeBeforeMetadata() throws Exception {
+        Path dir = Files.createTempDirectory("jeka-test");
+        JkArtifactId sources = JkArtifactId.of("sources", "jar");
+        JkArtifactId javadoc = JkArtifactId.of("javadoc", "jar");
+        List<JkArtifactId> artifactIds = Arrays.asList(JkArtifactId.ofMainArtifact("jar"), sources, javadoc);
+        JkArtifactLocator artifactLocator = new JkArtifactLocator() {
+
+            @Override
+            public Path getArtifactPath(JkArtifactId artifactId) {
+                return dir.resolve(artifactId.toFileName("my"));
+            }
+
+            @Override
+            public List<JkArtifactId> getArtifactIds() {
+                return artifactIds;
+            }
+        };
+        artifactIds.forEach(artifactId -> JkUtilsPath.write(artifactLocator.getArtifactPath(artifactId),
+                artifactId.toString().getBytes()));
+        RecordingRepository repository = new RecordingRepository();
+        IBiblioResolver resolver = new IBiblioResolver();
+        resolver.setName("test");
+        resolver.setRoot("http://localhost/repo/");
+        resolver.setRepository(repository);
+        Set<String> checksumAlgos = new LinkedHashSet<>(Arrays.asList("md5", "sha1"));
+        IvyPublisherForMaven publisher = new IvyPublisherForMaven(null, resolver, null, true, checksumAlgos);
+        DefaultModuleDescriptor moduleDescriptor = DefaultModuleDescriptor.newDefaultInstance(
+                ModuleRevisionId.newInstance("my.group", "my", "1.0-SNAPSHOT"));
+
+        try {
+            publisher.publish(moduleDescriptor, artifactLocator, null);
+        } finally {
+            JkPathTree.of(dir).deleteRoot();
+        }
+
+        List<String> puts = repository.puts.stream()
+                .map(dest -> dest.substring("http://localhost/repo/my/group/my/".length()))
+                .collect(Collectors.toList());
+        assertEquals(puts.toString(), 1, repository.maxConcurrentPuts.get());
+        assertEquals(puts.toString(), 1, repository.maxConcurrentPuts.get());
+        assertEquals(puts.toString(), 24, puts.size());
+
+        // Snapshot metadata are pushed before artifacts, once artifacts are pushed, then once the pom is pushed
+        List<Integer> snapshotMetadataIndexes = indexesOf(puts, "1.0-SNAPSHOT/maven-metadata.xml");
+        assertEquals(puts.toString(), 3, snapshotMetadataIndexes.size());
+        for (String suffix : Arrays.asList(".jar", "-sources.jar", "-javadoc.jar")) {
+            for (String checksumExt : Arrays.asList("", ".md5", ".sha1")) {
+                List<Integer> indexes = indexesOf(puts, suffix + checksumExt);
+                assertTrue(puts.toString(), !indexes.isEmpty());
+                assertTrue(puts.toString(), indexes.get(0) < snapshotMetadataIndexes.get(1));
+            }
+        }
+        for (String checksumExt : Arrays.asList("", ".md5", ".sha1")) {
+            List<Integer> indexes = indexesOf(puts, ".pom" + checksumExt);
+            assertEquals(puts.toString(), 1, indexes.size());
+            assertTrue(puts.toString(), snapshotMetadataIndexes.get(1) < indexes.get(0));
+            assertTrue(puts.toString(), indexes.get(0) < snapshotMetadataIndexes.get(2));
+        }
+        assertEquals(new HashSet<>(Arrays.asList("maven-metadata.xml", "maven-metadata.xml.md5",
+                "maven-metadata.xml.sha1")), new HashSet<>(puts.subList(21, 24)));
+    }
+
+    private static List<Integer> indexesOf(List<String> puts, String suffix) {
+        List<Integer> result = new LinkedList<>();
+        for (int i = 0; i < puts.size(); i++) {
+            if (puts.get(i).endsWith(suffix)) {
+                result.add(i);
+            }
+        }
+        return result;
+    }
+
+    private static class RecordingRepository extends AbstractRepository {
+
+        private final List<String> puts = Collections.synchronizedList(new LinkedList<>());
+
+        private final AtomicInteger concurrentPuts = new AtomicInteger();
+
+        private final AtomicInteger maxConcurrentPuts = new AtomicInteger();
+
+        @Override
+        public Resource getResource(String source) {
+            return new BasicResource(source, false, 0, 0, false);
+        }
+
+        @Override
+        public void get(String source, File destination) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<String> list(String parent) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void put(Artifact artifact, File source, String destination, boolean overwrite) {
+            int current = concurrentPuts.incrementAndGet();
+            maxConcurrentPuts.accumulateAndGet(current, Math::max);
+            try {
+                Thread.sleep(5);  // leaves time to other uploads to overlap, if not serialized
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            puts.add(destination);
+            concurrentPuts.decrementAndGet();
+        }
+    }
+
+}
@@ -1,10 +1,25 @@
 package dev.jeka.core.api.depmanagement.publication;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
 import dev.jeka.core.api.depmanagement.JkRepo;
 import dev.jeka.core.api.system.JkLog;
+import dev.jeka.core.api.utils.JkUtilsIO;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 public class JkNexusReposTest {
 
     @Test
@@ -15,4 +30,103 @@ public class JkNexusReposTest {
         JkNexusRepos.ofRepo(repo).closeAndRelease();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void closeAndRelease_stubServer_releasesEachRepoOnceClosed() throws Exception {
+        StubNexus nexus = new StubNexus();
+        nexus.repos.put("repo-1", 1);   // closed after 1 status request
+        nexus.repos.put("repo-2", 3);   // closed after 3 status requests
+        nexus.start();
+        try {
+            JkNexusRepos nexusRepos = JkNexusRepos.ofRepo(JkRepo.of(nexus.baseUrl() + "/content"))
+                    .setCloseWaitIntervals(10, 40);
+            nexusRepos.closeAndRelease();
+            List<JkNexusRepos.JkStagingRepoTiming> timings = nexusRepos.getLastTimings();
+
+            assertEquals(Arrays.asList("repo-1", "repo-2"), timings.stream()
+                    .map(JkNexusRepos.JkStagingRepoTiming::getRepositoryId).collect(Collectors.toList()));
+            assertEquals(1, timings.get(0).getPollCount());
+            assertEquals(3, timings.get(1).getPollCount());
+            assertEquals(Collections.singletonList("repo-1, repo-2"), nexus.closeRequests);
+            assertEquals(new HashSet<>(Arrays.asList("repo-1", "repo-2")), new HashSet<>(nexus.releaseRequests));
+            assertTrue("Connections should be reused : " + nexus.connections.size() + " connections for "
+                    + nexus.requestCount + " requests", nexus.connections.size() < nexus.requestCount.get());
+        } finally {
+            nexus.stop();
+        }
+    }
+
+    private static class StubNexus {
+
+        private final Map<String, Integer> repos = new LinkedHashMap<>();  // id -> polls before being closed
+
+        private final Map<String, AtomicInteger> polls = new ConcurrentHashMap<>();
+
+        private final List<String> closeRequests = Collections.synchronizedList(new LinkedList<>());
+
+        private final List<String> releaseRequests = Collections.synchronizedList(new LinkedList<>());
+
+        private final Set<Object> connections = ConcurrentHashMap.newKeySet();
+
+        private final AtomicInteger requestCount = new AtomicInteger();
+
+        private HttpServer server;
+
+        void start() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/service/local/staging/profile_repositories", exchange ->
+                    respond(exchange, "<stagingRepositories><data>" + repos.keySet().stream()
+                            .map(id -> repoXml("stagingProfileRepository", id))
+                            .collect(Collectors.joining()) + "</data></stagingRepositories>"));
+            server.createContext("/service/local/staging/repository/", exchange -> {
+                String path = exchange.getRequestURI().getPath();
+                String id = path.substring(path.lastIndexOf('/') + 1);
+                polls.computeIfAbsent(id, key -> new AtomicInteger()).incrementAndGet();
+                respond(exchange, repoXml("stagingProfileRepository", id));
+            });
+            server.createContext("/service/local/staging/bulk/close", exchange -> {
+                closeRequests.add(stagedIds(exchange));
+                respond(exchange, "");
+            });
+            server.createContext("/service/local/staging/bulk/promote", exchange -> {
+                releaseRequests.add(stagedIds(exchange));
+                respond(exchange, "");
+            });
+            server.start();
+        }
+
+        String baseUrl() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        private String repoXml(String tag, String id) {
+            boolean closeRequested = !closeRequests.isEmpty();
+            int pollCount = polls.getOrDefault(id, new AtomicInteger()).get();
+            boolean closed = closeRequested && pollCount >= repos.get(id);
+            return "<" + tag + "><repositoryId>" + id + "</repositoryId><updatedTimestamp>0</updatedTimestamp>"
+                    + "<repositoryURI>uri</repositoryURI><type>" + (closed ? "closed" : "open") + "</type>"
+                    + "<transitioning>" + (closeRequested && !closed) + "</transitioning>"
+                    + "<profileName>my.profile</profileName></" + tag + ">";
+        }
+
+        private String stagedIds(HttpExchange exchange) {
+            String body = JkUtilsIO.readAsString(exchange.getRequestBody());
+            String ids = body.substring(body.indexOf('[') + 1, body.indexOf(']'));
+            return ids.replace("\"", "");
+        }
+
+        private void respond(HttpExchange exchange, String body) throws IOException {
+            requestCount.incrementAndGet();
+            connections.add(exchange.getRemoteAddress());
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length == 0 ? -1 : bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package dev.jeka.core.api.depmanagement.resolution;
+
+import dev.jeka.core.api.depmanagement.JkCoordinate;
+import dev.jeka.core.api.depmanagement.JkModuleId;
+import dev.jeka.core.api.depmanagement.JkVersion;
+import dev.jeka.core.api.utils.JkUtilsIterable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class JkResolvedDependencyNodeTest {
+
+    @Test
+    public void queries_diamondTree_deepFirstWithoutDuplicates() {
+        // root -> a -> (c, d:evicted) ; root -> b -> c
+        JkResolvedDependencyNode c1 = node("c", "1.0", Collections.emptyList());
+        JkResolvedDependencyNode d = node("d", null, Collections.emptyList());
+        JkResolvedDependencyNode a = node("a", "1.0", Arrays.asList(c1, d));
+        JkResolvedDependencyNode c2 = node("c", "1.0", Collections.emptyList());
+        JkResolvedDependencyNode b = node("b", "2.0", Collections.singletonList(c2));
+        JkResolvedDependencyNode root = JkResolvedDependencyNode.ofModuleDep(
+                JkResolvedDependencyNode.JkModuleNodeInfo.ofRoot(JkCoordinate.of("my:root:1.0")),
+                Arrays.asList(a, b));
+
+        Assert.assertEquals(Arrays.asList(Paths.get("a.jar"), Paths.get("c.jar"), Paths.get("b.jar")),
+                root.getResolvedFiles());
+        Assert.assertEquals(Arrays.asList(Paths.get("b.jar"), Paths.get("c.jar")), b.getResolvedFiles());
+        Assert.assertEquals(Arrays.asList(a, c1, d, b, c2), root.toFlattenList());
+        Assert.assertSame(c1, root.getFirst(JkModuleId.of("my:c")));
+        Assert.assertSame(root, root.getFirst(JkModuleId.of("my:root")));
+        Assert.assertSame(d, root.getFirst(JkModuleId.of("my:d")));
+        Assert.assertTrue(root.contains(JkModuleId.of("my:c")));
+        Assert.assertFalse(root.contains(JkModuleId.of("my:d")));
+        Assert.assertFalse(b.contains(JkModuleId.of("my:a")));
+        List<String> childModules = root.getChildModules().stream().map(Object::toString).sorted()
+                .collect(Collectors.toList());
+        Assert.assertEquals(Arrays.asList("my:a:1.0", "my:b:2.0", "my:c:1.0"), childModules);
+        Assert.assertEquals("2.0", root.getResolvedVersions().getVersionOf(JkModuleId.of("my:b")).getValue());
+    }
+
+    private static JkResolvedDependencyNode node(String name, String resolvedVersion,
+                                                 List<JkResolvedDependencyNode> children) {
+        List<Path> files = resolvedVersion == null ? Collections.emptyList()
+                : Collections.singletonList(Paths.get(name + ".jar"));
+        JkResolvedDependencyNode.JkModuleNodeInfo info = JkResolvedDependencyNode.JkModuleNodeInfo.of(
+                JkModuleId.of("my:" + name), JkVersion.of("1.0"), JkUtilsIterable.setOf("compile"),
+                JkUtilsIterable.setOf("compile"), resolvedVersion == null ? null : JkVersion.of(resolvedVersion),
+                files);
+        return JkResolvedDependencyNode.ofModuleDep(info, children);
+    }
+
+}
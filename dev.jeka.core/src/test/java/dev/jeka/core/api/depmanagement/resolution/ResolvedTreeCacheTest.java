@@ -0,0 +1,93 @@
+package dev.jeka.core.api.depmanagement.resolution;
+
+import dev.jeka.core.api.depmanagement.*;
+import dev.jeka.core.api.file.JkPathTree;
+import dev.jeka.core.api.utils.JkUtilsIterable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedList;
+
+public class ResolvedTreeCacheTest {
+
+    @Test
+    public void get_storedTree_sameTree() throws Exception {
+        Path dir = Files.createTempDirectory("jeka-test");
+        Path jar = Files.createFile(dir.resolve("guava.jar"));
+        JkQualifiedDependencySet deps = JkQualifiedDependencySet.of(JkDependencySet.of().and("com.google.guava:guava:30.0-jre"));
+        String fingerprint = ResolvedTreeCache.fingerprint(null, deps, JkRepoSet.ofLocal(), JkResolutionParameters.of());
+        ResolvedTreeCache cache = new ResolvedTreeCache(dir.resolve("cache"));
+        Assert.assertNull(cache.get(fingerprint, Duration.ZERO));
+
+        cache.put(fingerprint, deps, tree("30.0-jre", jar));
+        JkResolvedDependencyNode cachedTree = cache.get(fingerprint, Duration.ZERO);
+        Assert.assertEquals(tree("30.0-jre", jar).toStringTree(), cachedTree.toStringTree());
+        Assert.assertEquals(Collections.singletonList(jar), cachedTree.getResolvedFiles());
+        Assert.assertEquals("30.0-jre", cachedTree.getResolvedVersions()
+                .getVersionOf(JkModuleId.of("com.google.guava:guava")).getValue());
+
+        String otherFingerprint = ResolvedTreeCache.fingerprint(null, deps, JkRepoSet.of(JkRepo.ofMavenCentral()),
+                JkResolutionParameters.of());
+        Assert.assertNull(cache.get(otherFingerprint, Duration.ZERO));
+
+        Files.delete(jar);
+        Assert.assertNull(cache.get(fingerprint, Duration.ZERO));
+        JkPathTree.of(dir).deleteRoot();
+    }
+
+    @Test
+    public void get_snapshotTree_expiresAfterTtl() throws Exception {
+        Path dir = Files.createTempDirectory("jeka-test");
+        Path jar = Files.createFile(dir.resolve("guava.jar"));
+        JkQualifiedDependencySet deps = JkQualifiedDependencySet.of(JkDependencySet.of().and("com.google.guava:guava:31.0-SNAPSHOT"));
+        String fingerprint = ResolvedTreeCache.fingerprint(null, deps, JkRepoSet.ofLocal(), JkResolutionParameters.of());
+        ResolvedTreeCache cache = new ResolvedTreeCache(dir.resolve("cache"));
+        cache.put(fingerprint, deps, tree("31.0-SNAPSHOT", jar));
+        Assert.assertNotNull(cache.get(fingerprint, Duration.ofHours(1)));
+        Thread.sleep(5);
+        Assert.assertNull(cache.get(fingerprint, Duration.ZERO));
+        JkPathTree.of(dir).deleteRoot();
+    }
+
+    @Test
+    public void get_transitiveVersionRangeTree_expiresAfterTtl() throws Exception {
+        Path dir = Files.createTempDirectory("jeka-test");
+        Path jar = Files.createFile(dir.resolve("guava.jar"));
+        Path failureAccessJar = Files.createFile(dir.resolve("failureaccess.jar"));
+        JkQualifiedDependencySet deps = JkQualifiedDependencySet.of(JkDependencySet.of().and("com.google.guava:guava:30.0-jre"));
+        String fingerprint = ResolvedTreeCache.fingerprint(null, deps, JkRepoSet.ofLocal(), JkResolutionParameters.of());
+        ResolvedTreeCache cache = new ResolvedTreeCache(dir.resolve("cache"));
+        JkResolvedDependencyNode.JkModuleNodeInfo failureAccessInfo = JkResolvedDependencyNode.JkModuleNodeInfo.of(
+                JkModuleId.of("com.google.guava:failureaccess"), JkVersion.of("[1.0,2.0)"),
+                JkUtilsIterable.setOf("compile"), JkUtilsIterable.setOf("compile", "runtime"), JkVersion.of("1.0.1"),
+                Collections.singletonList(failureAccessJar));
+        JkResolvedDependencyNode.JkModuleNodeInfo guavaInfo = JkResolvedDependencyNode.JkModuleNodeInfo.of(
+                JkModuleId.of("com.google.guava:guava"), JkVersion.of("30.0-jre"), JkUtilsIterable.setOf("compile"),
+                JkUtilsIterable.setOf("compile", "runtime"), JkVersion.of("30.0-jre"),
+                Collections.singletonList(jar));
+        JkResolvedDependencyNode guava = JkResolvedDependencyNode.ofModuleDep(guavaInfo, Collections.singletonList(
+                JkResolvedDependencyNode.ofModuleDep(failureAccessInfo, new LinkedList<>())));
+        JkResolvedDependencyNode tree = JkResolvedDependencyNode.ofModuleDep(JkResolvedDependencyNode.JkModuleNodeInfo
+                .ofRoot(JkModuleId.of("my:project").toCoordinate("1.0")), Collections.singletonList(guava));
+        cache.put(fingerprint, deps, tree);
+        Assert.assertNotNull(cache.get(fingerprint, Duration.ofHours(1)));
+        Thread.sleep(5);
+        Assert.assertNull(cache.get(fingerprint, Duration.ZERO));
+        JkPathTree.of(dir).deleteRoot();
+    }
+
+    private static JkResolvedDependencyNode tree(String version, Path jar) {
+        JkResolvedDependencyNode.JkModuleNodeInfo guavaInfo = JkResolvedDependencyNode.JkModuleNodeInfo.of(
+                JkModuleId.of("com.google.guava:guava"), JkVersion.of(version), JkUtilsIterable.setOf("compile"),
+                JkUtilsIterable.setOf("compile", "runtime"), JkVersion.of(version),
+                Collections.singletonList(jar));
+        JkResolvedDependencyNode guava = JkResolvedDependencyNode.ofModuleDep(guavaInfo, new LinkedList<>());
+        return JkResolvedDependencyNode.ofModuleDep(JkResolvedDependencyNode.JkModuleNodeInfo.ofRoot(
+                JkModuleId.of("my:project").toCoordinate("1.0")), Collections.singletonList(guava));
+    }
+
+}
@@ -1,5 +1,6 @@
 package dev.jeka.core.api.file;
 
+import dev.jeka.core.api.utils.JkUtilsString;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -7,6 +8,8 @@ import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,4 +33,25 @@ public class JkPathFileTest {
         System.out.println(to);
     }
 
+    @Test
+    public void testGetChecksums() throws Exception {
+        Path file = Files.createTempFile("test", ".bin");
+        byte[] content = new byte[200_000];  // larger than the read buffer
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        Files.write(file, content);
+        try {
+            Map<String, String> checksums = JkPathFile.of(file).getChecksums("SHA-1", "MD5", "SHA-256");
+            Assert.assertEquals(Arrays.asList("SHA-1", "MD5", "SHA-256"), Arrays.asList(checksums.keySet().toArray()));
+            for (Map.Entry<String, String> entry : checksums.entrySet()) {
+                String expected = JkUtilsString.toHexString(MessageDigest.getInstance(entry.getKey()).digest(content));
+                Assert.assertEquals(entry.getKey(), expected, entry.getValue());
+                Assert.assertEquals(expected, JkPathFile.of(file).getChecksum(entry.getKey()));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
 }
@@ -59,6 +59,32 @@ public class JkPathMatcherTest {
 
     }
 
+    @Test
+    public void testMayMatchUnder() {
+        JkPathMatcher matcher = JkPathMatcher.of(true, "src/*.java");
+        assertTrue(matcher.canPruneDirectories());
+        assertTrue(matcher.mayMatchUnder(Paths.get("")));
+        assertTrue(matcher.mayMatchUnder(Paths.get("src")));
+        assertFalse(matcher.mayMatchUnder(Paths.get("src/foo")));
+        assertFalse(matcher.mayMatchUnder(Paths.get("test")));
+
+        assertTrue(JkPathMatcher.of(true, "**/*.java").mayMatchUnder(Paths.get("foo/bar")));
+        assertTrue(JkPathMatcher.of(true, "src/**/*.java").mayMatchUnder(Paths.get("src/foo/bar")));
+        assertFalse(JkPathMatcher.of(true, "src/**/*.java").mayMatchUnder(Paths.get("test/foo")));
+
+        JkPathMatcher excluding = JkPathMatcher.of(false, "jeka/def/**");
+        assertTrue(excluding.mayMatchUnder(Paths.get("jeka")));
+        assertFalse(excluding.mayMatchUnder(Paths.get("jeka/def")));
+        assertFalse(excluding.mayMatchUnder(Paths.get("jeka/def/foo")));
+
+        JkPathMatcher combined = JkPathMatcher.of(true, "src/**").and(false, "src/gen/**");
+        assertTrue(combined.mayMatchUnder(Paths.get("src/main")));
+        assertFalse(combined.mayMatchUnder(Paths.get("src/gen")));
+        assertFalse(combined.mayMatchUnder(Paths.get("doc")));
+
+        assertFalse(JkPathMatcher.of(true, "src/**").reversed().canPruneDirectories());
+    }
+
     private void testDoMatchOk(String pathString) {
 
         Path path = Paths.get(pathString).normalize();
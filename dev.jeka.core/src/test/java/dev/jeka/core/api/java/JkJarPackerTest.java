@@ -0,0 +1,113 @@
+package dev.jeka.core.api.java;
+
+import dev.jeka.core.api.file.JkPathMatcher;
+import dev.jeka.core.api.file.JkPathTree;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.jar.JarInputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class JkJarPackerTest {
+
+    @Test
+    public void makeFatJar_mergesDependencies_mainFilesTakePrecedence() throws Exception {
+        Path dir = Files.createTempDirectory("jeka-test");
+        Path classDir = dir.resolve("classes");
+        write(classDir.resolve("com/Main.class"), "main");
+        write(classDir.resolve("shared.txt"), "from main");
+        Path depJar = dir.resolve("dep.jar");
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(depJar))) {
+            putEntry(zipOutputStream, "org/Dep.class", "dep", ZipEntry.DEFLATED);
+            putEntry(zipOutputStream, "org/stored.txt", "stored", ZipEntry.STORED);
+            putEntry(zipOutputStream, "shared.txt", "from dep", ZipEntry.DEFLATED);
+            putEntry(zipOutputStream, "META-INF/DEP.SF", "signature", ZipEntry.DEFLATED);
+            putEntry(zipOutputStream, "excluded.txt", "excluded", ZipEntry.DEFLATED);
+        }
+        Path fatJar = dir.resolve("out/fat.jar");
+        write(fatJar, "stale content");
+
+        JkJarPacker.of(classDir)
+                .withManifest(JkManifest.of().addMainClass("com.Main"))
+                .makeFatJar(fatJar, Arrays.asList(depJar),
+                        JkPathMatcher.of(false, "excluded.txt", "META-INF/*.SF"));
+
+        try (ZipFile zipFile = new ZipFile(fatJar.toFile())) {
+            assertEquals("main", read(zipFile, "com/Main.class"));
+            assertEquals("dep", read(zipFile, "org/Dep.class"));
+            assertEquals("stored", read(zipFile, "org/stored.txt"));
+            assertEquals("from main", read(zipFile, "shared.txt"));
+            assertNotNull(zipFile.getEntry("org/"));
+            assertNull(zipFile.getEntry("excluded.txt"));
+            assertNull(zipFile.getEntry("META-INF/DEP.SF"));
+        }
+        try (JarInputStream jarInputStream = new JarInputStream(Files.newInputStream(fatJar))) {
+            assertEquals("com.Main", jarInputStream.getManifest().getMainAttributes().getValue("Main-Class"));
+        }
+        JkPathTree.of(dir).deleteRoot();
+    }
+
+    @Test
+    public void makeJar_reproducible_sameBytes() throws Exception {
+        Path dir = Files.createTempDirectory("jeka-test");
+        Path classDir = dir.resolve("classes");
+        write(classDir.resolve("b/B.class"), "b");
+        write(classDir.resolve("a/A.class"), "a");
+        JkJarPacker packer = JkJarPacker.of(classDir)
+                .withManifest(JkManifest.of().addMainClass("a.A"))
+                .withReproducible(true);
+        Path jar1 = dir.resolve("out/first.jar");
+        packer.makeJar(jar1);
+        Files.setLastModifiedTime(classDir.resolve("a/A.class"), FileTime.fromMillis(0));
+        Path jar2 = dir.resolve("out/second.jar");
+        packer.makeJar(jar2);
+
+        assertArrayEquals(Files.readAllBytes(jar1), Files.readAllBytes(jar2));
+        try (JarInputStream jarInputStream = new JarInputStream(Files.newInputStream(jar1))) {
+            assertEquals("a.A", jarInputStream.getManifest().getMainAttributes().getValue("Main-Class"));
+            assertEquals("a/", jarInputStream.getNextJarEntry().getName());
+        }
+        JkPathTree.of(dir).deleteRoot();
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void putEntry(ZipOutputStream zipOutputStream, String name, String content, int method)
+            throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        ZipEntry zipEntry = new ZipEntry(name);
+        zipEntry.setMethod(method);
+        if (method == ZipEntry.STORED) {
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            zipEntry.setCrc(crc.getValue());
+            zipEntry.setSize(bytes.length);
+        }
+        zipOutputStream.putNextEntry(zipEntry);
+        zipOutputStream.write(bytes);
+        zipOutputStream.closeEntry();
+    }
+
+    private static String read(ZipFile zipFile, String entryName) throws IOException {
+        try (InputStream inputStream = zipFile.getInputStream(zipFile.getEntry(entryName))) {
+            byte[] buffer = new byte[100];
+            int length = inputStream.read(buffer);
+            return new String(buffer, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+}
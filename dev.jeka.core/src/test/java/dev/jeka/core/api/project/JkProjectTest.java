@@ -244,4 +244,27 @@ public class JkProjectTest {
 
 
     }
+
+    @Test
+    public void inputFingerprint_computedDependency_sameForEquivalentProjects() throws IOException {
+        Path baseDir = Files.createTempDirectory("jekatest");
+        Files.createFile(baseDir.resolve("generated.jar"));
+        try {
+            Assert.assertEquals(projectWithComputedDependency(baseDir).toDependency().getInputFingerprint().get(),
+                    projectWithComputedDependency(baseDir).toDependency().getInputFingerprint().get());
+        } finally {
+            JkPathTree.of(baseDir).deleteRoot();
+        }
+    }
+
+    private static JkProject projectWithComputedDependency(Path baseDir) {
+        Path generatedJar = baseDir.resolve("generated.jar");
+        return JkProject.of()
+                .setBaseDir(baseDir)
+                .flatFacade()
+                .configureCompileDependencies(deps -> deps
+                        .and("a:a:1.0")
+                        .and(JkComputedDependency.of(() -> {}, generatedJar)))
+                .getProject();
+    }
 }
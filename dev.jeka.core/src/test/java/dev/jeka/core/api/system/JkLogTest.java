@@ -1,8 +1,18 @@
 package dev.jeka.core.api.system;
 
+import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 public class JkLogTest {
 
     @Test
@@ -18,4 +28,88 @@ public class JkLogTest {
         thread.start();
         thread.join();
     }
+
+    @Test
+    public void runHeldBack_concurrentTasks_outputInReleaseOrder() throws Exception {
+        RecordingDecorator decorator = new RecordingDecorator();
+        JkLog.setDecorator(decorator);
+        try {
+            CountDownLatch bothStarted = new CountDownLatch(2);
+            CompletableFuture<JkLog.JkHeldBack<String>> first = CompletableFuture.supplyAsync(
+                    () -> JkLog.runHeldBack(() -> task("first", bothStarted)));
+            CompletableFuture<JkLog.JkHeldBack<String>> second = CompletableFuture.supplyAsync(
+                    () -> JkLog.runHeldBack(() -> task("second", bothStarted)));
+            JkLog.JkHeldBack<String> secondHeldBack = second.get(10, TimeUnit.SECONDS);
+            JkLog.JkHeldBack<String> firstHeldBack = first.get(10, TimeUnit.SECONDS);
+            Assert.assertEquals(Collections.emptyList(), decorator.messages);
+
+            Assert.assertEquals("first", firstHeldBack.release());
+            Assert.assertEquals("second", secondHeldBack.release());
+            Assert.assertEquals(Arrays.asList("START_TASK first", "INFO first", "END_TASK ",
+                    "START_TASK second", "INFO second", "END_TASK "), decorator.messages);
+            Assert.assertEquals(0, JkLog.getCurrentNestedLevel());
+        } finally {
+            JkLog.restoreToInitialState();
+        }
+    }
+
+    @Test
+    public void runHeldBack_failingTask_outputsLogsThenRethrows() {
+        RecordingDecorator decorator = new RecordingDecorator();
+        JkLog.setDecorator(decorator);
+        try {
+            JkLog.JkHeldBack<Object> heldBack = JkLog.runHeldBack(() -> {
+                JkLog.info("before failure");
+                throw new IllegalStateException("failure");
+            });
+            Assert.assertEquals(Collections.emptyList(), decorator.messages);
+            try {
+                heldBack.release();
+                Assert.fail("Failure should have been rethrown");
+            } catch (IllegalStateException e) {
+                Assert.assertEquals("failure", e.getMessage());
+            }
+            Assert.assertEquals(Collections.singletonList("INFO before failure"), decorator.messages);
+        } finally {
+            JkLog.restoreToInitialState();
+        }
+    }
+
+    private static String task(String name, CountDownLatch bothStarted) {
+        JkLog.startTask(name);
+        bothStarted.countDown();
+        try {
+            Assert.assertTrue(bothStarted.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        JkLog.info(name);
+        JkLog.endTask();
+        return name;
+    }
+
+    private static class RecordingDecorator extends JkLog.JkLogDecorator {
+
+        private final List<String> messages = new LinkedList<>();
+
+        @Override
+        protected void init(PrintStream out, PrintStream err) {
+        }
+
+        @Override
+        PrintStream getOut() {
+            return JkLog.INITIAL_OUT;
+        }
+
+        @Override
+        PrintStream getErr() {
+            return JkLog.INITIAL_ERR;
+        }
+
+        @Override
+        void handle(JkLog.JkLogEvent event) {
+            messages.add(event.getType() + " " + event.getMessage());
+        }
+    }
+
 }
@@ -0,0 +1,65 @@
+package dev.jeka.core.api.testing;
+
+import dev.jeka.core.api.testing.JkInternalTestEventWriter.JkStatus;
+import dev.jeka.core.api.testing.JkTestResult.JkTestIdentifier.JkType;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestEventCollectorTest {
+
+    @Test
+    public void read_writtenEvents_collectsCountsAndFailures() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (JkInternalTestEventWriter writer = JkInternalTestEventWriter.of(outputStream)) {
+            writer.planStarted(3);
+            writer.started("[engine:junit-jupiter]", JkType.CONTAINER, "JUnit Jupiter");
+            writer.started("[engine:junit-jupiter]/[method:a()]", JkType.TEST, "a()");
+            writer.finished("[engine:junit-jupiter]/[method:a()]", JkType.TEST, "a()", JkStatus.SUCCESSFUL,
+                    12, null);
+            writer.skipped("[engine:junit-jupiter]/[method:b()]", JkType.TEST, "b()", null);
+            writer.started("[engine:junit-jupiter]/[method:c()]", JkType.TEST, "c()");
+            writer.finished("[engine:junit-jupiter]/[method:c()]", JkType.TEST, "c()", JkStatus.FAILED,
+                    3, new IllegalStateException("boom"));
+            writer.finished("[engine:junit-jupiter]", JkType.CONTAINER, "JUnit Jupiter", JkStatus.SUCCESSFUL,
+                    20, null);
+        }
+        TestEventCollector collector = new TestEventCollector(null, 0);
+        JkInternalTestEventWriter.read(new ByteArrayInputStream(outputStream.toByteArray()), collector);
+        JkTestResult result = collector.toResult();
+
+        assertEquals(3, result.getTestCount().getFound());
+        assertEquals(2, result.getTestCount().getStarted());
+        assertEquals(1, result.getTestCount().getSkipped());
+        assertEquals(1, result.getTestCount().getSucceeded());
+        assertEquals(1, result.getTestCount().getFailed());
+        assertEquals(1, result.getContainerCount().getSucceeded());
+        assertEquals(1, result.getFailures().size());
+        JkTestResult.JkFailure failure = result.getFailures().get(0);
+        assertEquals("c()", failure.getTestId().getDisplayName());
+        assertEquals("boom", failure.getThrowableMessage());
+        assertTrue(failure.getStackTraces().length > 0);
+        assertFalse(collector.isAborted());
+    }
+
+    @Test
+    public void finished_maxFailuresReached_runsAbortActionsOnce() {
+        TestEventCollector collector = new TestEventCollector(null, 2);
+        AtomicInteger abortCount = new AtomicInteger();
+        collector.onAbort(abortCount::incrementAndGet);
+        collector.finished("a", JkType.TEST, "a", JkStatus.FAILED, 1, "failed", null);
+        assertFalse(collector.isAborted());
+        collector.finished("b", JkType.TEST, "b", JkStatus.FAILED, 1, "failed", null);
+        collector.finished("c", JkType.TEST, "c", JkStatus.FAILED, 1, "failed", null);
+        assertTrue(collector.isAborted());
+        assertEquals(1, abortCount.get());
+
+        collector.onAbort(abortCount::incrementAndGet);  // Registered after abort : run immediately
+        assertEquals(2, abortCount.get());
+    }
+
+}
@@ -0,0 +1,83 @@
+package dev.jeka.core.api.testing;
+
+import dev.jeka.core.api.file.JkPathSequence;
+import dev.jeka.core.api.file.JkPathTree;
+import org.junit.Test;
+
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class TestResultCacheTest {
+
+    @Test
+    public void upToDateTestClasses_changedDependencyInvalidatesDependents() throws Exception {
+        Path dir = Files.createTempDirectory("jeka-test");
+        Path srcDir = dir.resolve("src");
+        Path classDir = dir.resolve("classes");
+        write(srcDir.resolve("com/Helper.java"), "package com; public class Helper { static int get() { return 1; } }");
+        write(srcDir.resolve("com/FooTest.java"), "package com; public class FooTest { " +
+                "int test() { return Helper.get(); } class Inner {} }");
+        write(srcDir.resolve("com/BarTest.java"), "package com; public class BarTest { }");
+        Files.createDirectories(classDir);
+        int status = ToolProvider.getSystemJavaCompiler().run(null, null, null, "-d", classDir.toString(),
+                srcDir.resolve("com/Helper.java").toString(), srcDir.resolve("com/FooTest.java").toString(),
+                srcDir.resolve("com/BarTest.java").toString());
+        assertEquals(0, status);
+        Path cacheDir = dir.resolve("cache");
+        JkTestSelection<?> selection = JkTestSelection.of().addTestClassRoots(Collections.singleton(classDir));
+
+        TestResultCache cache = TestResultCache.of(cacheDir, JkPathSequence.of(), selection, "java");
+        assertTrue(cache.upToDateTestClasses().isEmpty());
+        cache.store(JkTestResult.of(), Collections.emptyList());
+
+        cache = TestResultCache.of(cacheDir, JkPathSequence.of(), selection, "java");
+        assertEquals(Arrays.asList("com.BarTest", "com.FooTest", "com.Helper"), cache.upToDateTestClasses());
+        assertTrue(cache.isUpToDate());
+        assertTrue(TestResultCache.of(cacheDir, JkPathSequence.of(), selection, "other-java")
+                .upToDateTestClasses().isEmpty());
+
+        Files.write(classDir.resolve("com/FooTest$Inner.class"), new byte[] {0}, StandardOpenOption.APPEND);
+        cache = TestResultCache.of(cacheDir, JkPathSequence.of(), selection, "java");
+        assertEquals(Arrays.asList("com.BarTest", "com.Helper"), cache.upToDateTestClasses());
+
+        Files.write(classDir.resolve("com/Helper.class"), new byte[] {0}, StandardOpenOption.APPEND);
+        cache = TestResultCache.of(cacheDir, JkPathSequence.of(), selection, "java");
+        assertEquals(Collections.singletonList("com.BarTest"), cache.upToDateTestClasses());
+        JkTestResult.JkTestIdentifier failedTest = JkTestResult.JkTestIdentifier.of(
+                JkTestResult.JkTestIdentifier.JkType.TEST,
+                "[engine:junit-jupiter]/[class:com.FooTest]/[method:test()]", "test()", Collections.emptySet());
+        JkTestResult result = JkTestResult.of(0, 0, null, null, Collections.singletonList(
+                JkTestResult.JkFailure.of(failedTest, "failed", new StackTraceElement[0])));
+        cache.store(result, cache.upToDateTestClasses());
+
+        cache = TestResultCache.of(cacheDir, JkPathSequence.of(), selection, "java");
+        assertEquals(Arrays.asList("com.BarTest", "com.Helper"), cache.upToDateTestClasses());
+        assertFalse(cache.isUpToDate());
+        JkPathTree.of(dir).deleteRoot();
+    }
+
+    @Test
+    public void testClassName() {
+        assertEquals("com.FooTest",
+                TestResultCache.testClassName("[engine:junit-jupiter]/[class:com.FooTest]/[method:test()]"));
+        assertEquals("com.FooTest", TestResultCache.testClassName(
+                "[engine:junit-jupiter]/[class:com.FooTest$Inner]/[method:test()]"));
+        assertEquals("com.BarTest",
+                TestResultCache.testClassName("[engine:junit-vintage]/[runner:com.BarTest]/[test:bar(com.BarTest)]"));
+        assertNull(TestResultCache.testClassName("[engine:junit-jupiter]"));
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
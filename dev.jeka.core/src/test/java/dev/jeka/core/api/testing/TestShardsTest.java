@@ -0,0 +1,63 @@
+package dev.jeka.core.api.testing;
+
+import dev.jeka.core.api.file.JkPathTree;
+import dev.jeka.core.api.utils.JkUtilsXml;
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestShardsTest {
+
+    @Test
+    public void split_balancesAccordingDurations() {
+        Map<String, Double> durations = new HashMap<>();
+        durations.put("A", 10d);
+        durations.put("B", 6d);
+        durations.put("C", 4d);
+        List<List<String>> shards = TestShards.split(Arrays.asList("A", "B", "C", "D"), durations, 2);
+        assertEquals(Arrays.asList(Arrays.asList("A", "C"), Arrays.asList("D", "B")), shards);  // D lasts the average
+
+        assertEquals(1, TestShards.split(Arrays.asList("A"), durations, 4).size());
+    }
+
+    @Test
+    public void mergeReports_sumsCounts() throws Exception {
+        Path dir = Files.createTempDirectory("jeka-test");
+        Path shard1 = dir.resolve("shard1");
+        Path shard2 = dir.resolve("shard2");
+        write(shard1.resolve("TEST-junit-jupiter.xml"), "<testsuite name=\"junit-jupiter\" tests=\"2\" " +
+                "skipped=\"0\" failures=\"1\" errors=\"0\" time=\"3.5\">" +
+                "<testcase name=\"a\" classname=\"com.FooTest\" time=\"1.5\"/>" +
+                "<testcase name=\"b\" classname=\"com.FooTest$Nested\" time=\"2\"/>" +
+                "<system-out>out</system-out></testsuite>");
+        write(shard2.resolve("TEST-junit-jupiter.xml"), "<testsuite name=\"junit-jupiter\" tests=\"1\" " +
+                "skipped=\"1\" failures=\"0\" errors=\"0\" time=\"1,200.25\">" +
+                "<testcase name=\"c\" classname=\"com.BarTest\" time=\"0.25\"/></testsuite>");
+        Path reportDir = dir.resolve("report");
+
+        TestShards.mergeReports(Arrays.asList(shard1, shard2), reportDir);
+
+        Element testsuite = JkUtilsXml.documentFrom(reportDir.resolve("TEST-junit-jupiter.xml"))
+                .getDocumentElement();
+        assertEquals("3", testsuite.getAttribute("tests"));
+        assertEquals("1", testsuite.getAttribute("skipped"));
+        assertEquals("1", testsuite.getAttribute("failures"));
+        assertEquals("1200.250", testsuite.getAttribute("time"));
+        assertEquals(3, JkUtilsXml.directChildren(testsuite, "testcase").size());
+
+        JkPathTree.of(dir).deleteRoot();
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,77 @@
+package dev.jeka.core.api.testing;
+
+import dev.jeka.core.api.testing.JkTestResult.JkTestIdentifier;
+import dev.jeka.core.api.testing.JkTestResult.JkTestIdentifier.JkType;
+import dev.jeka.core.api.testing.JkTestResult.JkTestTiming;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestTimingReportTest {
+
+    private static final String CLASS_ID = "[engine:junit-jupiter]/[class:com.FooTest]";
+
+    @Test
+    public void lines_slowestFirstWithTrendAgainstPreviousRun() throws Exception {
+        Path file = Files.createTempDirectory("jeka-test").resolve("test-timings.txt");
+        TestTimingReport.of(file).store(result(timing("a()", 100, -1), timing("b()", 50, -1)),
+                Collections.emptyList());
+
+        JkTestResult result = result(timing("a()", 120, -1), timing("b()", 40, -1), timing("c()", 300, 250),
+                JkTestTiming.of(JkTestIdentifier.of(JkType.CONTAINER, CLASS_ID, "FooTest",
+                        Collections.emptySet()), 1000, -1, -1));
+        List<String> lines = TestTimingReport.of(file).lines(result, 3);
+
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0), lines.get(0).matches(" +300 ms +new +com.FooTest > c\\(\\)  \\[cpu 250 ms.*"));
+        assertTrue(lines.get(1), lines.get(1).matches(" +120 ms +\\+20% +com.FooTest > a\\(\\)"));
+        assertTrue(lines.get(2), lines.get(2).matches(" +40 ms +-20% +com.FooTest > b\\(\\)"));
+        assertEquals(1, result.getClassTimings().size());
+        assertEquals("com.FooTest", result.getClassTimings().get(0).getTestClassName());
+    }
+
+    @Test
+    public void store_rewritesFileKeepingOnlySkippedClassesOfPreviousRuns() throws Exception {
+        Path file = Files.createTempDirectory("jeka-test").resolve("test-durations.txt");
+        String barClassId = "[engine:junit-jupiter]/[class:com.BarTest]";
+        String removedClassId = "[engine:junit-jupiter]/[class:com.RemovedTest]";
+        TestTimingReport.of(file).store(result(timing("a()", 100, -1), classTiming(CLASS_ID, 150),
+                classTiming(barClassId, 500), classTiming(removedClassId, 700)), Collections.emptyList());
+
+        // FooTest runs again while BarTest is skipped cause cached, and RemovedTest does not exist anymore
+        TestTimingReport.of(file).store(result(timing("a()", 80, -1), classTiming(CLASS_ID, 120)),
+                Collections.singletonList("com.BarTest"));
+
+        Map<String, Double> classDurations = TestTimingReport.of(file).classDurations();
+        assertEquals(2, classDurations.size());
+        assertEquals(120d, classDurations.get("com.FooTest"), 0.001);
+        assertEquals(500d, classDurations.get("com.BarTest"), 0.001);
+        assertEquals(3, Files.readAllLines(file).size());
+        assertTrue(Files.readAllLines(file).contains("80\t" + CLASS_ID + "/[method:a()]"));
+    }
+
+    private static JkTestTiming classTiming(String classId, long duration) {
+        return JkTestTiming.of(JkTestIdentifier.of(JkType.CONTAINER, classId, classId, Collections.emptySet()),
+                duration, -1, -1);
+    }
+
+    private static JkTestResult result(JkTestTiming... timings) {
+        return JkTestResult.of(0, 0, JkTestResult.JkCount.of(0, 0, 0, 0, 0, 0),
+                JkTestResult.JkCount.of(0, 0, 0, 0, 0, 0), Collections.emptyList(), Arrays.asList(timings));
+    }
+
+    private static JkTestTiming timing(String method, long duration, long cpuTime) {
+        JkTestIdentifier id = JkTestIdentifier.of(JkType.TEST, CLASS_ID + "/[method:" + method + "]", method,
+                Collections.emptySet());
+        return JkTestTiming.of(id, duration, cpuTime, cpuTime < 0 ? -1 : 2 * 1024 * 1024);
+    }
+
+}
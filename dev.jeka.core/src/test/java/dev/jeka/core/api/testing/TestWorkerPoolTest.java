@@ -0,0 +1,35 @@
+package dev.jeka.core.api.testing;
+
+import dev.jeka.core.api.file.JkPathTree;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class TestWorkerPoolTest {
+
+    @Test
+    public void classpathState_changesWhenContentChanges() throws Exception {
+        Path dir = Files.createTempDirectory("jeka-test");
+        Path classDir = dir.resolve("classes");
+        Files.createDirectories(classDir.resolve("com"));
+        Files.write(classDir.resolve("com/Foo.class"), new byte[] {1, 2});
+        List<Path> classpath = Arrays.asList(classDir, dir.resolve("missing.jar"));
+        String state = TestWorkerPool.classpathState(classpath);
+        assertEquals(state, TestWorkerPool.classpathState(classpath));
+
+        Files.write(classDir.resolve("com/Bar.class"), new byte[] {1});
+        String stateWithBar = TestWorkerPool.classpathState(classpath);
+        assertNotEquals(state, stateWithBar);
+
+        Files.write(classDir.resolve("com/Bar.class"), new byte[] {1, 2, 3});
+        assertNotEquals(stateWithBar, TestWorkerPool.classpathState(classpath));
+        JkPathTree.of(dir).deleteRoot();
+    }
+
+}
@@ -0,0 +1,86 @@
+package dev.jeka.core.api.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedList;
+import java.util.List;
+
+public class JkUtilsIOTest {
+
+    @Test
+    public void streamGobbler_copiesAllBytesToEachOutput() {
+        byte[] data = "line 1\nligne 2 àéè\nno line end".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out1 = new ByteArrayOutputStream();
+        ByteArrayOutputStream out2 = new ByteArrayOutputStream();
+        JkUtilsIO.newStreamGobbler(new ByteArrayInputStream(data), out1, out2).join();
+        Assert.assertArrayEquals(data, out1.toByteArray());
+        Assert.assertArrayEquals(data, out2.toByteArray());
+    }
+
+    @Test
+    public void lineFramedStreamGobbler_writesWholeLines() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append("line ").append(i).append('\n');
+        }
+        sb.append("last");
+        byte[] data = sb.toString().getBytes(StandardCharsets.UTF_8);
+        List<String> writes = new LinkedList<>();
+        OutputStream out = new OutputStream() {
+
+            @Override
+            public void write(int b) {
+                writes.add(String.valueOf((char) b));
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                writes.add(new String(b, off, len, StandardCharsets.UTF_8));
+            }
+        };
+        JkUtilsIO.newLineFramedStreamGobbler(new ByteArrayInputStream(data), out).join();
+        Assert.assertEquals(sb.toString(), String.join("", writes));
+        Assert.assertTrue(writes.size() > 1);
+        for (int i = 0; i < writes.size() - 1; i++) {
+            Assert.assertTrue(writes.get(i).endsWith("\n"));
+        }
+        Assert.assertTrue(writes.get(writes.size() - 1).endsWith("last"));
+    }
+
+    @Test
+    public void lineFramedStreamGobbler_readFailureOnTerminatedSource_endsSilently() {
+        JkUtilsIO.newLineFramedStreamGobbler(failingInputStream(), () -> true, new ByteArrayOutputStream()).join();
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void streamGobbler_readFailure_propagates() {
+        JkUtilsIO.newStreamGobbler(failingInputStream(), new ByteArrayOutputStream()).join();
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void lineFramedStreamGobbler_writeFailureOnTerminatedSource_propagates() {
+        OutputStream failingOut = new OutputStream() {
+
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Disk full");
+            }
+        };
+        InputStream in = new ByteArrayInputStream("line\n".getBytes(StandardCharsets.UTF_8));
+        JkUtilsIO.newLineFramedStreamGobbler(in, () -> true, failingOut).join();
+    }
+
+    private static InputStream failingInputStream() {
+        return new InputStream() {
+
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Stream closed");
+            }
+        };
+    }
+
+}
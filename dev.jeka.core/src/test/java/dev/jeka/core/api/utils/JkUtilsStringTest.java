@@ -25,4 +25,10 @@ public class JkUtilsStringTest {
         assertEquals("", JkUtilsString.substringAfterLast("toto=", ""));
         assertEquals("", JkUtilsString.substringAfterLast("toto=", "a"));
     }
+
+    @Test
+    public void toSha256Hex() {
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                JkUtilsString.toSha256Hex("abc"));
+    }
 }
\ No newline at end of file
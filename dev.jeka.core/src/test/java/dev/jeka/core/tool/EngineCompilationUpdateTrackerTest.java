@@ -0,0 +1,81 @@
+package dev.jeka.core.tool;
+
+import dev.jeka.core.api.file.JkPathFile;
+import dev.jeka.core.api.file.JkPathTree;
+import dev.jeka.core.api.utils.JkUtilsPath;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class EngineCompilationUpdateTrackerTest {
+
+    private static final List<String> OPTIONS = Collections.emptyList();
+
+    @Test
+    public void plan_changedSource_recompilesDependentsOnly() throws Exception {
+        Path baseDir = Files.createTempDirectory("jeka-test");
+        JkUtilsPath.createDirectories(baseDir.resolve(JkConstants.WORK_PATH));
+        Path defDir = baseDir.resolve(JkConstants.DEF_DIR);
+        write(defDir.resolve("foo/Base.java"), "package foo; public class Base { }");
+        write(defDir.resolve("foo/Sub.java"), "package foo; class Sub extends Base { }");
+        write(defDir.resolve("foo/Leaf.java"), "package foo; class Leaf { Sub sub; }");
+        write(defDir.resolve("Other.java"), "class Other { String base = \"Base\"; // Base \n }");
+        EngineCompilationUpdateTracker tracker = new EngineCompilationUpdateTracker(baseDir);
+        Assert.assertTrue(tracker.plan(OPTIONS, false).full);
+        tracker.updateState(OPTIONS);
+        Assert.assertTrue(tracker.plan(OPTIONS, false).upToDate);
+
+        write(defDir.resolve("foo/Base.java"), "package foo; public class Base { int i; }");
+        EngineCompilationUpdateTracker.CompilationPlan plan = tracker.plan(OPTIONS, false);
+        Assert.assertFalse(plan.full);
+        Assert.assertEquals(Arrays.asList("foo/Base.java", "foo/Leaf.java", "foo/Sub.java"), plan.sourcesToCompile);
+        Assert.assertTrue(plan.staleClassFiles.contains("foo/Base"));
+        Assert.assertFalse(plan.staleClassFiles.contains("Other"));
+
+        Assert.assertTrue(tracker.plan(OPTIONS, true).full);
+        Assert.assertTrue(tracker.plan(Collections.singletonList("-deprecation"), false).full);
+        JkPathTree.of(baseDir).deleteRoot();
+    }
+
+    @Test
+    public void plan_deletedSource_recompilesDependents() throws Exception {
+        Path baseDir = Files.createTempDirectory("jeka-test");
+        JkUtilsPath.createDirectories(baseDir.resolve(JkConstants.WORK_PATH));
+        Path defDir = baseDir.resolve(JkConstants.DEF_DIR);
+        write(defDir.resolve("Helper.java"), "class Helper { } class HelperExtra { }");
+        write(defDir.resolve("User.java"), "class User { HelperExtra helper; }");
+        EngineCompilationUpdateTracker tracker = new EngineCompilationUpdateTracker(baseDir);
+        tracker.updateState(OPTIONS);
+        JkUtilsPath.deleteFile(defDir.resolve("Helper.java"));
+        EngineCompilationUpdateTracker.CompilationPlan plan = tracker.plan(OPTIONS, false);
+        Assert.assertEquals(Collections.singletonList("User.java"), plan.sourcesToCompile);
+        Assert.assertTrue(plan.staleClassFiles.containsAll(Arrays.asList("Helper", "HelperExtra", "User")));
+        JkPathTree.of(baseDir).deleteRoot();
+    }
+
+    @Test
+    public void sourceInfo_ignoresNestedTypesCommentsAndLiterals() {
+        EngineCompilationUpdateTracker.SourceInfo sourceInfo = EngineCompilationUpdateTracker.SourceInfo.of(
+                "package a.b;\n" +
+                "/* class Commented */\n" +
+                "@Deprecated(since = \"class Literal\")\n" +
+                "public class Top<T> { class Nested {} Class<?> type = String.class; }\n" +
+                "interface Itf {}\n" +
+                "record Point(int x) {}\n");
+        Assert.assertEquals("a/b/", sourceInfo.packagePath);
+        Assert.assertEquals(Arrays.asList("Top", "Itf", "Point"), Arrays.asList(
+                sourceInfo.topLevelTypes.toArray()));
+        Assert.assertFalse(sourceInfo.identifiers.contains("Commented"));
+        Assert.assertFalse(sourceInfo.identifiers.contains("Literal"));
+    }
+
+    private static void write(Path file, String content) {
+        JkPathFile.of(file).deleteIfExist().write(content);
+    }
+
+}
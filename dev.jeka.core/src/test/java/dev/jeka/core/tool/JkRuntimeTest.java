@@ -0,0 +1,29 @@
+package dev.jeka.core.tool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class JkRuntimeTest {
+
+    @Test
+    public void getCurrentContextBaseDir_fromThreadStartedByProject_returnsProjectRuntime() throws Exception {
+        Path projectDir = Files.createTempDirectory("jekatest");
+        AtomicReference<Path> threadBaseDir = new AtomicReference<>();
+        JkRuntime.setBaseDirContext(projectDir);
+        try {
+            Thread thread = new Thread(() ->
+                    threadBaseDir.set(JkRuntime.getCurrentContextBaseDir().getProjectBaseDir()));
+            thread.start();
+            thread.join();
+        } finally {
+            JkRuntime.setBaseDirContext(null);
+            Files.delete(projectDir);
+        }
+        Assert.assertEquals(projectDir, threadBaseDir.get());
+    }
+
+}
@@ -0,0 +1,204 @@
+package dev.jeka.plugins.springboot;
+
+import dev.jeka.core.api.file.JkPathTree;
+import dev.jeka.core.api.java.JkManifest;
+import dev.jeka.core.api.system.JkLog;
+import dev.jeka.core.api.utils.JkUtilsPath;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Writes the exploded layout of a boot jar in a directory, as counterpart of {@link JarWriter}. The
+ * directory content from a previous run is kept : only files that have changed are written and files
+ * that are not part of the layout anymore are deleted when this writer is closed. <p>
+ *
+ * Files copied from the file system keep their last modified time, so they are compared on size and
+ * time. Entries extracted from jars are compared on size and CRC.
+ */
+class BootDirWriter {
+
+    private final Path dir;
+
+    private final Set<Path> entries = new HashSet<>();
+
+    private int fileCount;
+
+    private int writtenCount;
+
+    BootDirWriter(Path dir) {
+        this.dir = dir.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Write the specified manifest.
+     */
+    public void writeManifest(Manifest manifest) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        manifest.write(outputStream);
+        writeEntry(JkManifest.STANDARD_LOCATION, outputStream.toByteArray());
+    }
+
+    /**
+     * Write an entry having the specified content.
+     */
+    public void writeEntry(String entryName, byte[] content) throws IOException {
+        Path target = register(entryName);
+        if (target == null) {
+            return;
+        }
+        if (Files.exists(target) && Arrays.equals(content, Files.readAllBytes(target))) {
+            return;
+        }
+        JkUtilsPath.createDirectories(target.getParent());
+        Files.write(target, content);
+        writtenCount++;
+    }
+
+    /**
+     * Write a nested library.
+     */
+    public void writeNestedLibrary(String destination, Path library) throws IOException {
+        writeFile(destination + library.getFileName().toString(), library);
+    }
+
+    /**
+     * Write all entries from the specified jar file or class directory, prefixing their names.
+     */
+    public void writeEntries(Path jarFileOrDir, String entryPrefix) throws IOException {
+        if (Files.isDirectory(jarFileOrDir)) {
+            List<Path> relativeFiles = JkPathTree.of(jarFileOrDir).getRelativeFiles();
+            for (Path relativeFile : relativeFiles) {
+                writeFile(entryPrefix + relativeFile.toString().replace('\\', '/'),
+                        jarFileOrDir.resolve(relativeFile));
+            }
+        } else {
+            writeZipEntries(jarFileOrDir, entryPrefix, name -> true);
+        }
+    }
+
+    /**
+     * Write the required spring-boot-loader classes.
+     */
+    public void writeLoaderClasses(Path loaderJar) throws IOException {
+        writeZipEntries(loaderJar, "", name -> name.endsWith(".class"));
+    }
+
+    /**
+     * Deletes the files and directories that have not been written through this writer.
+     */
+    public void close() throws IOException {
+        int deletedCount = 0;
+        JkUtilsPath.createDirectories(dir);
+        List<Path> existing;
+        try (Stream<Path> stream = Files.walk(dir)) {
+            existing = stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path path : existing) {
+            if (path.equals(dir) || entries.contains(path)) {
+                continue;
+            }
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> children = Files.list(path)) {
+                    if (children.findAny().isPresent()) {
+                        continue;
+                    }
+                }
+            }
+            Files.delete(path);
+            deletedCount++;
+        }
+        JkLog.info("Boot dir %s updated : %s files written, %s deleted, %s unchanged.", dir, writtenCount,
+                deletedCount, fileCount - writtenCount);
+    }
+
+    /**
+     * Returns the number of files actually written so far, unchanged ones excluded.
+     */
+    int getWrittenCount() {
+        return writtenCount;
+    }
+
+    private void writeFile(String entryName, Path file) throws IOException {
+        Path target = register(entryName);
+        if (target == null) {
+            return;
+        }
+        FileTime lastModified = Files.getLastModifiedTime(file);
+        if (Files.exists(target) && Files.size(target) == Files.size(file)
+                && Files.getLastModifiedTime(target).equals(lastModified)) {
+            return;
+        }
+        JkUtilsPath.createDirectories(target.getParent());
+        Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(target, lastModified);
+        writtenCount++;
+    }
+
+    private void writeZipEntries(Path zipFile, String entryPrefix, Predicate<String> filter) throws IOException {
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry zipEntry = zipEntries.nextElement();
+                if (zipEntry.isDirectory() || !filter.test(zipEntry.getName())) {
+                    continue;
+                }
+                Path target = register(entryPrefix + zipEntry.getName());
+                if (target == null) {
+                    continue;
+                }
+                if (Files.exists(target) && Files.size(target) == zipEntry.getSize()
+                        && crc(target) == zipEntry.getCrc()) {
+                    continue;
+                }
+                JkUtilsPath.createDirectories(target.getParent());
+                try (InputStream inputStream = zip.getInputStream(zipEntry)) {
+                    Files.copy(inputStream, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                writtenCount++;
+            }
+        }
+    }
+
+    // Returns null if the entry has already been registered : first one wins, as for jar entries
+    private Path register(String entryName) {
+        Path target = dir.resolve(entryName).normalize();
+        if (!target.startsWith(dir) || target.equals(dir)) {
+            throw new IllegalArgumentException("Entry " + entryName + " is outside of " + dir);
+        }
+        if (!entries.add(target)) {
+            return null;
+        }
+        fileCount++;
+        Path parent = target.getParent();
+        while (!parent.equals(dir) && entries.add(parent)) {
+            parent = parent.getParent();
+        }
+        return target;
+    }
+
+    private static long crc(Path file) {
+        CRC32 crc = new CRC32();
+        try {
+            crc.update(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return crc.getValue();
+    }
+
+}
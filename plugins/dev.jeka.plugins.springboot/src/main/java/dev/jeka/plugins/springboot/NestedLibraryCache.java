@@ -0,0 +1,176 @@
+package dev.jeka.plugins.springboot;
+
+import dev.jeka.core.api.system.JkLocator;
+import dev.jeka.core.api.system.JkLog;
+import dev.jeka.core.api.utils.JkUtilsPath;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+
+/*
+ * File system cache of what is needed to store a nested library in a boot jar : CRC-32 of the library and time
+ * of the nested entry. Metadata are kept per library path along the size and last modified time of the library,
+ * so a library is read only once as long as it does not change.
+ */
+final class NestedLibraryCache {
+
+    private static final String FORMAT_VERSION = "1";
+
+    private static final String SEPARATOR = "\t";
+
+    private final Path file;
+
+    private final Map<Path, Metadata> entries = new ConcurrentHashMap<>();
+
+    private volatile boolean modified;
+
+    private NestedLibraryCache(Path file) {
+        this.file = file;
+    }
+
+    static NestedLibraryCache ofDefault() {
+        return load(JkLocator.getCacheDir().resolve("springboot").resolve("nested-libs.txt"));
+    }
+
+    static NestedLibraryCache load(Path file) {
+        NestedLibraryCache result = new NestedLibraryCache(file);
+        if (!Files.exists(file)) {
+            return result;
+        }
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !FORMAT_VERSION.equals(lines.get(0))) {
+                return result;
+            }
+            for (String line : lines.subList(1, lines.size())) {
+                String[] items = line.split(SEPARATOR, 5);
+                Metadata metadata = new Metadata(Long.parseLong(items[0]), Long.parseLong(items[1]),
+                        Long.parseLong(items[2]), Long.parseLong(items[3]));
+                result.entries.put(Paths.get(items[4]), metadata);
+            }
+        } catch (IOException | RuntimeException e) {
+            JkLog.trace("Cannot read nested library cache %s : %s", file, e.getMessage());
+            result.entries.clear();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the metadata of the specified library, computing them if the library is not in cache or has changed.
+     */
+    Metadata get(Path library) {
+        Path path = library.toAbsolutePath().normalize();
+        final long size;
+        final long lastModified;
+        try {
+            size = Files.size(path);
+            lastModified = Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Metadata metadata = entries.get(path);
+        if (metadata != null && metadata.size == size && metadata.lastModified == lastModified) {
+            return metadata;
+        }
+        metadata = new Metadata(size, lastModified, crc(path), nestedEntryTime(path));
+        entries.put(path, metadata);
+        modified = true;
+        return metadata;
+    }
+
+    /**
+     * Removes the metadata of the specified libraries, so they are computed again on next access.
+     */
+    void forget(Collection<Path> libraries) {
+        libraries.forEach(library -> entries.remove(library.toAbsolutePath().normalize()));
+        modified = true;
+    }
+
+    /**
+     * Writes this cache to the file system, forgetting about libraries that do not exist anymore.
+     */
+    void save() {
+        if (!modified) {
+            return;
+        }
+        List<String> lines = new LinkedList<>();
+        lines.add(FORMAT_VERSION);
+        entries.forEach((path, metadata) -> {
+            if (Files.exists(path)) {
+                lines.add(String.join(SEPARATOR, Long.toString(metadata.size), Long.toString(metadata.lastModified),
+                        Long.toString(metadata.crc), Long.toString(metadata.time), path.toString()));
+            }
+        });
+        try {
+            JkUtilsPath.createDirectories(file.getParent());
+            Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            Files.write(tempFile, lines, StandardCharsets.UTF_8);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            modified = false;
+        } catch (IOException e) {
+            JkLog.trace("Cannot store nested library cache in %s : %s", file, e.getMessage());
+        }
+    }
+
+    private static long crc(Path library) {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream inputStream = Files.newInputStream(library)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return crc.getValue();
+    }
+
+    // Time of the first file entry of the library, as Spring Boot tooling does
+    private static long nestedEntryTime(Path library) {
+        try {
+            try (JarFile jarFile = new JarFile(library.toFile())) {
+                Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    JarEntry entry = entries.nextElement();
+                    if (!entry.isDirectory()) {
+                        return entry.getTime();
+                    }
+                }
+            }
+            return Files.getLastModifiedTime(library).toMillis();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    static final class Metadata {
+
+        final long size;
+
+        final long lastModified;
+
+        final long crc;
+
+        final long time;
+
+        Metadata(long size, long lastModified, long crc, long time) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.crc = crc;
+            this.time = time;
+        }
+    }
+
+}
@@ -54,6 +54,10 @@ public final class SpringbootJkBean extends JkBean {
     @JkDoc("If true, create a bootable jar artifact.")
     public boolean createBootJar = true;
 
+    @JkDoc("If true, bootable jar contains a layers.idx file so container images can be built with one layer for " +
+            "dependencies, one for snapshot dependencies, one for the loader and one for the application.")
+    public boolean layeredJar = true;
+
     @JkDoc("If true, create original jar artifact for publication (jar without embedded dependencies")
     public boolean createOriginalJar;
 
@@ -141,26 +145,57 @@ public final class SpringbootJkBean extends JkBean {
      */
     private void createBootJar(JkProject project, Path target) {
         JkStandardFileArtifactProducer artifactProducer = project.artifactProducer;
-        JkDependencyResolver dependencyResolver = project.dependencyResolver;
-        JkDependencySet bootloaderDependency =
-                JkDependencySet.of(JkCoordinateDependency.of(JkSpringModules.Boot.LOADER))
-                .andBom(BOM_COORDINATE + springbootVersion);
-        Path bootloader = dependencyResolver.resolve(bootloaderDependency).getFiles().getEntry(0);
-        final JkPathSequence embeddedJars = dependencyResolver.resolve(
-                project.packaging.getRuntimeDependencies().normalised(project.getDuplicateConflictStrategy()))
-                .getFiles();
+        Path bootloader = resolveBootloader(project);
+        final JkPathSequence embeddedJars = resolveEmbeddedJars(project);
         Path originalJarPath = project.artifactProducer.getArtifactPath(ORIGINAL_ARTIFACT);
         if (!Files.exists(originalJarPath)) {
             project.packaging.createBinJar(originalJarPath);
         }
         createBootJar(originalJarPath, embeddedJars, bootloader,
-                artifactProducer.getMainArtifactPath(), springbootVersion);
+                artifactProducer.getMainArtifactPath(), springbootVersion, project.packaging.isReproducibleJars(),
+                layeredJar);
+    }
+
+    private Path resolveBootloader(JkProject project) {
+        JkDependencySet bootloaderDependency =
+                JkDependencySet.of(JkCoordinateDependency.of(JkSpringModules.Boot.LOADER))
+                .andBom(BOM_COORDINATE + springbootVersion);
+        return project.dependencyResolver.resolve(bootloaderDependency).getFiles().getEntry(0);
+    }
+
+    private JkPathSequence resolveEmbeddedJars(JkProject project) {
+        return project.dependencyResolver.resolve(
+                project.packaging.getRuntimeDependencies().normalised(project.getDuplicateConflictStrategy()))
+                .getFiles();
+    }
+
+    /**
+     * Creates or updates the exploded bootable jar in the specified directory, from compiled classes.
+     */
+    private void createBootDir(JkProject project, Path targetDir) {
+        project.prodCompilation.runIfNeeded();
+        Path classDir = project.prodCompilation.layout.resolveClassDir();
+        JkUtilsAssert.state(Files.exists(classDir), "No class dir found at %s", classDir);
+        SpringbootPacker.of(resolveEmbeddedJars(project), resolveBootloader(project), findMainClassName(classDir),
+                springbootVersion)
+                .withLayered(layeredJar)
+                .withManifestToMerge(project.packaging.manifest)
+                .makeExplodedDir(classDir, targetDir);
     }
 
     public void createBootJar() {
         createBootJar(projectBean.getProject());
     }
 
+    @JkDoc("Creates or updates the exploded bootable jar in [output dir]/boot-dir, from compiled classes and " +
+            "without running tests. Only changed classes and libraries are copied, so it is meant for fast " +
+            "local iterations. Launch it with 'java -cp [output dir]/boot-dir " +
+            "org.springframework.boot.loader.JarLauncher'.")
+    public void createBootDir() {
+        JkProject project = projectBean.getProject();
+        createBootDir(project, project.getOutputDir().resolve("boot-dir"));
+    }
+
     public ProjectJkBean projectBean() {
         return projectBean;
     }
@@ -179,7 +214,32 @@ public final class SpringbootJkBean extends JkBean {
 
     public static void createBootJar(Path original, JkPathSequence libsToInclude, Path bootLoaderJar, Path targetJar,
                                      String springbootVersion) {
+        createBootJar(original, libsToInclude, bootLoaderJar, targetJar, springbootVersion, false);
+    }
+
+    /**
+     * Same as {@link #createBootJar(Path, JkPathSequence, Path, Path, String)} but producing a byte-for-byte
+     * reproducible jar if <code>reproducible</code> is true.
+     */
+    public static void createBootJar(Path original, JkPathSequence libsToInclude, Path bootLoaderJar, Path targetJar,
+                                     String springbootVersion, boolean reproducible) {
+        createBootJar(original, libsToInclude, bootLoaderJar, targetJar, springbootVersion, reproducible, true);
+    }
+
+    /**
+     * Same as {@link #createBootJar(Path, JkPathSequence, Path, Path, String, boolean)} but containing a
+     * <code>BOOT-INF/layers.idx</code> file only if <code>layered</code> is true.
+     */
+    public static void createBootJar(Path original, JkPathSequence libsToInclude, Path bootLoaderJar, Path targetJar,
+                                     String springbootVersion, boolean reproducible, boolean layered) {
         JkUtilsAssert.argument(Files.exists(original), "Original jar not found at " + original);
+        SpringbootPacker.of(libsToInclude, bootLoaderJar, findMainClassName(original), springbootVersion)
+                .withReproducible(reproducible)
+                .withLayered(layered)
+                .makeExecJar(original, targetJar);
+    }
+
+    private static String findMainClassName(Path original) {
         JkClassLoader classLoader = JkUrlClassLoader.of(original, ClassLoader.getSystemClassLoader().getParent())
                 .toJkClassLoader();
         List<String> mainClasses = classLoader.findClassesHavingMainMethod();
@@ -187,9 +247,7 @@ public final class SpringbootJkBean extends JkBean {
                 annotationNames -> annotationNames.contains(SPRINGBOOT_APPLICATION_ANNOTATION_NAME));
         for (String name : mainClasses) {
             if (classWithSpringbootAppAnnotation.contains(name)) {
-                SpringbootPacker.of(libsToInclude, bootLoaderJar, name,
-                        springbootVersion).makeExecJar(original, targetJar);
-                return;
+                return name;
             }
         }
 
@@ -198,9 +256,7 @@ public final class SpringbootJkBean extends JkBean {
             if (name.endsWith("Kt")) {
                 String originalName = JkUtilsString.substringBeforeLast(name, "Kt");
                 if (classWithSpringbootAppAnnotation.contains(originalName)) {
-                    SpringbootPacker.of(libsToInclude, bootLoaderJar, name,
-                            springbootVersion).makeExecJar(original, targetJar);
-                    return;
+                    return name;
                 }
             }
         }
@@ -231,6 +287,7 @@ public final class SpringbootJkBean extends JkBean {
         JkLog.info("Springboot version : " + springbootVersion);
         JkLog.info("Create Bootable Jar : " + this.createBootJar);
         JkLog.info("Create original Jar : " + this.createOriginalJar);
+        JkLog.info("Layered bootable Jar : " + this.layeredJar);
         JkLog.info("Create .war file : " + this.createWarFile);
     }
 
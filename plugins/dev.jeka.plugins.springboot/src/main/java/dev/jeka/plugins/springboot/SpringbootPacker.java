@@ -3,14 +3,16 @@ package dev.jeka.plugins.springboot;
 import dev.jeka.core.api.file.JkPathSequence;
 import dev.jeka.core.api.file.JkZipTree;
 import dev.jeka.core.api.java.JkManifest;
+import dev.jeka.core.api.system.JkLog;
 import dev.jeka.core.api.utils.JkUtilsObject;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.stream.Stream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 class SpringbootPacker {
 
@@ -22,75 +24,162 @@ class SpringbootPacker {
 
     private final String mainClassName;
 
-    private SpringbootPacker(JkPathSequence nestedLibs, Path loader, String mainClassNeme, JkManifest manifestToMerge) {
+    private static final String LIB_DIR = "BOOT-INF/lib/";
+
+    private static final String CLASSES_DIR = "BOOT-INF/classes/";
+
+    private static final String CLASSPATH_INDEX = "BOOT-INF/classpath.idx";
+
+    private static final String LAYERS_INDEX = "BOOT-INF/layers.idx";
+
+    private final boolean reproducible;
+
+    private final boolean layered;
+
+    private SpringbootPacker(JkPathSequence nestedLibs, Path loader, String mainClassNeme, JkManifest manifestToMerge,
+                             boolean reproducible, boolean layered) {
         super();
         this.nestedLibs = nestedLibs;
         this.bootLoaderJar = loader;
         this.manifestToMerge = manifestToMerge;
         this.mainClassName = mainClassNeme;
+        this.reproducible = reproducible;
+        this.layered = layered;
     }
 
     public static final SpringbootPacker of(JkPathSequence nestedLibs, Path loader, String mainClassName,
                                             String springbootVersion) {
-        return new SpringbootPacker(nestedLibs, loader, mainClassName, null);
+        return new SpringbootPacker(nestedLibs, loader, mainClassName, null, false, true);
+    }
+
+    public SpringbootPacker withReproducible(boolean reproducible) {
+        return new SpringbootPacker(nestedLibs, bootLoaderJar, mainClassName, manifestToMerge, reproducible, layered);
+    }
+
+    /**
+     * Returns a packer merging the specified manifest in the one of the boot jar.
+     */
+    public SpringbootPacker withManifestToMerge(JkManifest manifestToMerge) {
+        return new SpringbootPacker(nestedLibs, bootLoaderJar, mainClassName, manifestToMerge, reproducible, layered);
+    }
+
+    /**
+     * If true, the boot jar contains a <code>BOOT-INF/layers.idx</code> file splitting its content in
+     * layers, as expected by Spring Boot tooling to build container images.
+     */
+    public SpringbootPacker withLayered(boolean layered) {
+        return new SpringbootPacker(nestedLibs, bootLoaderJar, mainClassName, manifestToMerge, reproducible, layered);
     }
 
     public void makeExecJar(Path original, Path target) {
+        makeExecJar(original, target, NestedLibraryCache.ofDefault());
+    }
+
+    void makeExecJar(Path original, Path target, NestedLibraryCache nestedLibraryCache) {
         try {
-            makeBootJarChecked(original, target);
+            makeBootJarChecked(original, target, nestedLibraryCache);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
 
-    private void makeBootJarChecked(Path original, Path target) throws IOException {
+    /**
+     * Creates or updates the exploded layout of the boot jar in the specified directory. Only changed
+     * classes and libraries are written. The original can be either a jar or a class directory.
+     */
+    public void makeExplodedDir(Path original, Path targetDir) {
+        try {
+            makeExplodedDirChecked(original, targetDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        JarWriter jarWriter = new JarWriter(target);
+    private void makeBootJarChecked(Path original, Path target, NestedLibraryCache nestedLibraryCache)
+            throws IOException {
+        List<Path> libs = this.nestedLibs.withoutDuplicates().getEntries();
+        try {
+            writeBootJar(original, target, libs, nestedLibraryCache);
+        } catch (UncheckedIOException e) {
+
+            // A library may have changed keeping the same size and time, so its cached CRC is stale
+            JkLog.trace("Writing %s failed (%s), retrying with nested library metadata computed again.",
+                    target, e.getMessage());
+            nestedLibraryCache.forget(libs);
+            writeBootJar(original, target, libs, nestedLibraryCache);
+        }
+    }
+
+    private void writeBootJar(Path original, Path target, List<Path> libs, NestedLibraryCache nestedLibraryCache)
+            throws IOException {
+
+        JarWriter jarWriter = new JarWriter(target, reproducible);
 
         // Manifest
-        try (JkZipTree zipTree = JkZipTree.of(original)) {
-            Path path = zipTree.goTo("META-INF").get("MANIFEST.MF");
-            final JkManifest manifest = Files.exists(path) ? JkManifest.of().loadFromFile(path) : JkManifest.of();
-            jarWriter.writeManifest(createManifest(manifest, mainClassName).getManifest());
+        jarWriter.writeManifest(createManifest(originalManifest(original), mainClassName).getManifest());
+
+        // Add nested jars. Their CRC are computed concurrently when not already in cache.
+        Map<Path, NestedLibraryCache.Metadata> metadata = new ConcurrentHashMap<>();
+        libs.parallelStream().forEach(lib -> metadata.put(lib, nestedLibraryCache.get(lib)));
+        nestedLibraryCache.save();
+        Set<String> libEntries = new LinkedHashSet<>();
+        for (Path nestedJar : libs) {
+            jarWriter.writeNestedLibrary(LIB_DIR, nestedJar, metadata.get(nestedJar));
+            libEntries.add(LIB_DIR + nestedJar.getFileName());
         }
-
-        // Add nested jars
-        for (Path nestedJar : this.nestedLibs.withoutDuplicates()) {
-            jarWriter.writeNestedLibrary("BOOT-INF/lib/", nestedJar);
+        jarWriter.writeEntry(CLASSPATH_INDEX, classpathIndex(libEntries));
+        if (layered) {
+            jarWriter.writeEntry(LAYERS_INDEX, layersIndex(libEntries));
         }
 
         // Add loader
-        jarWriter.writeLoaderClasses(bootLoaderJar.toUri().toURL());
+        jarWriter.writeLoaderClasses(bootLoaderJar);
 
         // Add original jar
-        writeClasses(original, jarWriter);
+        jarWriter.writeEntries(original, CLASSES_DIR);
 
         jarWriter.close();
         jarWriter.setExecutableFilePermission(target);
     }
 
-    private void writeClasses(Path original, JarWriter jarWriter) {
-        JkZipTree originalJar = JkZipTree.of(original);
-        Stream<Path> stream = originalJar.stream();
-        stream
-                .filter(path -> !path.toString().endsWith("/"))
-                .filter(path -> !Files.isDirectory(path))
-                .forEach(path -> {
-                    String entryName = "BOOT-INF/classes" + path.toString();
-                    try (InputStream inputStream = Files.newInputStream(path)){
-                        jarWriter.writeEntry(entryName, inputStream);
-                    } catch (IOException e) {
-                        throw new UncheckedIOException(e);
-                    }
-                });
+    private void makeExplodedDirChecked(Path original, Path targetDir) throws IOException {
+        BootDirWriter dirWriter = new BootDirWriter(targetDir);
+        dirWriter.writeManifest(createManifest(originalManifest(original), mainClassName).getManifest());
+        Set<String> libEntries = new LinkedHashSet<>();
+        for (Path nestedJar : this.nestedLibs.withoutDuplicates()) {
+            dirWriter.writeNestedLibrary(LIB_DIR, nestedJar);
+            libEntries.add(LIB_DIR + nestedJar.getFileName());
+        }
+        dirWriter.writeEntry(CLASSPATH_INDEX, classpathIndex(libEntries));
+        if (layered) {
+            dirWriter.writeEntry(LAYERS_INDEX, layersIndex(libEntries));
+        }
+        dirWriter.writeLoaderClasses(bootLoaderJar);
+        dirWriter.writeEntries(original, CLASSES_DIR);
+        dirWriter.close();
+    }
+
+    private static JkManifest originalManifest(Path original) {
+        if (Files.isDirectory(original)) {
+            Path path = original.resolve(JkManifest.STANDARD_LOCATION);
+            return Files.exists(path) ? JkManifest.of().loadFromFile(path) : JkManifest.of();
+        }
+        try (JkZipTree zipTree = JkZipTree.of(original)) {
+            Path path = zipTree.goTo("META-INF").get("MANIFEST.MF");
+            return Files.exists(path) ? JkManifest.of().loadFromFile(path) : JkManifest.of();
+        }
     }
 
     private JkManifest createManifest(JkManifest original, String startClassName) {
         JkManifest result = JkUtilsObject.firstNonNull(original, JkManifest.of())
             .addMainClass("org.springframework.boot.loader.JarLauncher")
             .addMainAttribute("Start-Class", startClassName)
-            .addMainAttribute("Spring-Boot-Classes", "BOOT-INF/classes/")
-            .addMainAttribute("Spring-Boot-Lib", "BOOT-INF/lib/");
+            .addMainAttribute("Spring-Boot-Classes", CLASSES_DIR)
+            .addMainAttribute("Spring-Boot-Lib", LIB_DIR)
+            .addMainAttribute("Spring-Boot-Classpath-Index", CLASSPATH_INDEX);
+        if (layered) {
+            result.addMainAttribute("Spring-Boot-Layers-Index", LAYERS_INDEX);
+        }
         result.addContextualInfo();
         if (this.manifestToMerge != null) {
             result.merge(manifestToMerge.getManifest());
@@ -98,4 +187,32 @@ class SpringbootPacker {
         return result;
     }
 
+    private static byte[] classpathIndex(Set<String> libEntries) {
+        StringBuilder sb = new StringBuilder();
+        libEntries.forEach(entry -> sb.append("- \"").append(entry).append("\"\n"));
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /*
+     * Same layers as Spring Boot default ones. Libraries having a snapshot version are separated from others
+     * so the 'dependencies' layer stays identical while only application or snapshots change.
+     */
+    private static byte[] layersIndex(Set<String> libEntries) {
+        Map<String, List<String>> layers = new LinkedHashMap<>();
+        layers.put("dependencies", new LinkedList<>());
+        layers.put("spring-boot-loader", Collections.singletonList("org/"));
+        layers.put("snapshot-dependencies", new LinkedList<>());
+        layers.put("application", Arrays.asList(CLASSES_DIR, CLASSPATH_INDEX, LAYERS_INDEX, "META-INF/"));
+        for (String libEntry : libEntries) {
+            String layer = libEntry.contains("SNAPSHOT") ? "snapshot-dependencies" : "dependencies";
+            layers.get(layer).add(libEntry);
+        }
+        StringBuilder sb = new StringBuilder();
+        layers.forEach((layer, entries) -> {
+            sb.append("- \"").append(layer).append("\":\n");
+            entries.forEach(entry -> sb.append("  - \"").append(entry).append("\"\n"));
+        });
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
 }
@@ -0,0 +1,118 @@
+package dev.jeka.plugins.springboot;
+
+import dev.jeka.core.api.file.JkPathTree;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BootDirWriterTest {
+
+    private Path dir;
+
+    private Path bootDir;
+
+    private Path classDir;
+
+    private Path lib;
+
+    private Path loader;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jeka-test");
+        bootDir = dir.resolve("boot-dir");
+        classDir = dir.resolve("classes");
+        write(classDir.resolve("app/App.class"), "App");
+        write(classDir.resolve("app/util/Util.class"), "Util");
+        lib = SpringbootPackerTest.jar(dir.resolve("lib-1.0.jar"), "lib/Lib.class");
+        loader = SpringbootPackerTest.jar(dir.resolve("loader.jar"), "META-INF/MANIFEST.MF",
+                "org/springframework/boot/loader/JarLauncher.class", "org/springframework/boot/loader/readme.txt");
+    }
+
+    @After
+    public void tearDown() {
+        JkPathTree.of(dir).deleteRoot();
+    }
+
+    @Test
+    public void close_secondRunOnUnchangedInputs_writesNothing() throws Exception {
+        assertEquals(5, writeBootDir(lib).getWrittenCount());
+
+        assertEquals(0, writeBootDir(lib).getWrittenCount());
+
+        Path appClass = classDir.resolve("app/App.class");
+        write(appClass, "App changed");
+        assertEquals(1, writeBootDir(lib).getWrittenCount());
+        assertEquals("App changed", read(bootDir.resolve("BOOT-INF/classes/app/App.class")));
+    }
+
+    @Test
+    public void close_filesOfPreviousRunNotWrittenAnymore_areDeleted() throws Exception {
+        Path otherLib = SpringbootPackerTest.jar(dir.resolve("other-1.0.jar"), "other/Other.class");
+        writeBootDir(lib, otherLib);
+        assertTrue(Files.exists(bootDir.resolve("BOOT-INF/lib/other-1.0.jar")));
+        assertTrue(Files.exists(bootDir.resolve("BOOT-INF/classes/app/util/Util.class")));
+        Files.delete(classDir.resolve("app/util/Util.class"));
+        Files.delete(classDir.resolve("app/util"));
+
+        writeBootDir(lib);
+
+        assertFalse(Files.exists(bootDir.resolve("BOOT-INF/lib/other-1.0.jar")));
+        assertFalse(Files.exists(bootDir.resolve("BOOT-INF/classes/app/util")));
+        assertTrue(Files.exists(bootDir.resolve("BOOT-INF/lib/lib-1.0.jar")));
+        assertTrue(Files.exists(bootDir.resolve("BOOT-INF/classes/app/App.class")));
+    }
+
+    @Test
+    public void writeLoaderClasses_extractsOnlyClasses() throws Exception {
+        writeBootDir(lib);
+
+        assertEquals("org/springframework/boot/loader/JarLauncher.class",
+                read(bootDir.resolve("org/springframework/boot/loader/JarLauncher.class")));
+        assertFalse(Files.exists(bootDir.resolve("org/springframework/boot/loader/readme.txt")));
+        assertFalse(Files.exists(bootDir.resolve("META-INF/MANIFEST.MF")));
+    }
+
+    @Test
+    public void writeNestedLibrary_keepsLibraryLastModifiedTime() throws Exception {
+        Files.setLastModifiedTime(lib, FileTime.fromMillis(1_000_000_000_000L));
+
+        writeBootDir(lib);
+
+        Path nestedLib = bootDir.resolve("BOOT-INF/lib/lib-1.0.jar");
+        assertEquals(Files.getLastModifiedTime(lib), Files.getLastModifiedTime(nestedLib));
+        assertEquals(SpringbootPackerTest.crc(lib), SpringbootPackerTest.crc(nestedLib));
+    }
+
+    private BootDirWriter writeBootDir(Path... libs) throws IOException {
+        BootDirWriter writer = new BootDirWriter(bootDir);
+        writer.writeEntry("BOOT-INF/classpath.idx", "index".getBytes(StandardCharsets.UTF_8));
+        for (Path nestedLib : libs) {
+            writer.writeNestedLibrary("BOOT-INF/lib/", nestedLib);
+        }
+        writer.writeLoaderClasses(loader);
+        writer.writeEntries(classDir, "BOOT-INF/classes/");
+        writer.close();
+        return writer;
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+}
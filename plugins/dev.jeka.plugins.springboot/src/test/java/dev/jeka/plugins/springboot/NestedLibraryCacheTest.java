@@ -0,0 +1,96 @@
+package dev.jeka.plugins.springboot;
+
+import dev.jeka.core.api.file.JkPathTree;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class NestedLibraryCacheTest {
+
+    private Path dir;
+
+    private Path cacheFile;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jeka-test");
+        cacheFile = dir.resolve("cache.txt");
+    }
+
+    @After
+    public void tearDown() {
+        JkPathTree.of(dir).deleteRoot();
+    }
+
+    @Test
+    public void get_notInCache_computesMetadataAndSavesThem() throws Exception {
+        Path lib = SpringbootPackerTest.jar(dir.resolve("lib.jar"), "lib/Lib.class");
+        NestedLibraryCache cache = NestedLibraryCache.load(cacheFile);
+
+        NestedLibraryCache.Metadata metadata = cache.get(lib);
+        cache.save();
+
+        assertEquals(SpringbootPackerTest.crc(lib), metadata.crc);
+        assertEquals(Files.size(lib), metadata.size);
+        assertEquals(Files.getLastModifiedTime(lib).toMillis(), metadata.lastModified);
+        assertEquals(metadata.crc, NestedLibraryCache.load(cacheFile).get(lib).crc);
+    }
+
+    @Test
+    public void get_unchangedLibrary_returnsCachedMetadataWithoutReadingLibrary() throws Exception {
+        Path lib = SpringbootPackerTest.jar(dir.resolve("lib.jar"), "lib/Lib.class");
+        writeCache(cacheFile, lib, 42);  // a CRC the library does not have, so a read would be noticed
+
+        assertEquals(42, NestedLibraryCache.load(cacheFile).get(lib).crc);
+    }
+
+    @Test
+    public void get_librarySizeChanged_computesMetadataAgain() throws Exception {
+        Path lib = SpringbootPackerTest.jar(dir.resolve("lib.jar"), "lib/Lib.class");
+        writeCache(cacheFile, lib, 42);
+        FileTime lastModified = Files.getLastModifiedTime(lib);
+        SpringbootPackerTest.jar(lib, "lib/Lib.class", "lib/Other.class");
+        Files.setLastModifiedTime(lib, lastModified);
+
+        assertEquals(SpringbootPackerTest.crc(lib), NestedLibraryCache.load(cacheFile).get(lib).crc);
+    }
+
+    @Test
+    public void get_libraryLastModifiedChanged_computesMetadataAgain() throws Exception {
+        Path lib = SpringbootPackerTest.jar(dir.resolve("lib.jar"), "lib/Lib.class");
+        writeCache(cacheFile, lib, 42);
+        Files.setLastModifiedTime(lib, FileTime.fromMillis(Files.getLastModifiedTime(lib).toMillis() - 60_000));
+
+        assertEquals(SpringbootPackerTest.crc(lib), NestedLibraryCache.load(cacheFile).get(lib).crc);
+    }
+
+    @Test
+    public void get_forgottenLibrary_computesMetadataAgain() throws Exception {
+        Path lib = SpringbootPackerTest.jar(dir.resolve("lib.jar"), "lib/Lib.class");
+        writeCache(cacheFile, lib, 42);
+        NestedLibraryCache cache = NestedLibraryCache.load(cacheFile);
+
+        cache.forget(Collections.singletonList(lib));
+
+        assertEquals(SpringbootPackerTest.crc(lib), cache.get(lib).crc);
+    }
+
+    // Writes a cache file holding the actual size and time of the specified library, but the specified CRC
+    static void writeCache(Path cacheFile, Path lib, long crc) throws IOException {
+        Path path = lib.toAbsolutePath().normalize();
+        String line = String.join("\t", Long.toString(Files.size(path)),
+                Long.toString(Files.getLastModifiedTime(path).toMillis()), Long.toString(crc), "0", path.toString());
+        Files.write(cacheFile, Arrays.asList("1", line), StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,151 @@
+package dev.jeka.plugins.springboot;
+
+import dev.jeka.core.api.file.JkPathSequence;
+import dev.jeka.core.api.file.JkPathTree;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class SpringbootPackerTest {
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jeka-test");
+    }
+
+    @After
+    public void tearDown() {
+        JkPathTree.of(dir).deleteRoot();
+    }
+
+    @Test
+    public void makeExecJar_writesClasspathAndLayersIndexes() throws Exception {
+        Path lib = jar(dir.resolve("lib-1.0.jar"), "lib/Lib.class");
+        Path snapshotLib = jar(dir.resolve("other-1.0-SNAPSHOT.jar"), "other/Other.class");
+        Path bootJar = dir.resolve("boot.jar");
+
+        packer(lib, snapshotLib).makeExecJar(original(), bootJar,
+                NestedLibraryCache.load(dir.resolve("cache.txt")));
+
+        try (ZipFile zipFile = new ZipFile(bootJar.toFile())) {
+            assertEquals("- \"BOOT-INF/lib/lib-1.0.jar\"\n"
+                    + "- \"BOOT-INF/lib/other-1.0-SNAPSHOT.jar\"\n", content(zipFile, "BOOT-INF/classpath.idx"));
+            assertEquals("- \"dependencies\":\n"
+                    + "  - \"BOOT-INF/lib/lib-1.0.jar\"\n"
+                    + "- \"spring-boot-loader\":\n"
+                    + "  - \"org/\"\n"
+                    + "- \"snapshot-dependencies\":\n"
+                    + "  - \"BOOT-INF/lib/other-1.0-SNAPSHOT.jar\"\n"
+                    + "- \"application\":\n"
+                    + "  - \"BOOT-INF/classes/\"\n"
+                    + "  - \"BOOT-INF/classpath.idx\"\n"
+                    + "  - \"BOOT-INF/layers.idx\"\n"
+                    + "  - \"META-INF/\"\n", content(zipFile, "BOOT-INF/layers.idx"));
+            assertArrayEquals(Files.readAllBytes(lib), bytes(zipFile, "BOOT-INF/lib/lib-1.0.jar"));
+            assertNotNull(zipFile.getEntry("BOOT-INF/classes/app/App.class"));
+            assertNotNull(zipFile.getEntry("org/springframework/boot/loader/JarLauncher.class"));
+        }
+    }
+
+    @Test
+    public void makeExecJar_staleCachedCrc_retriesWithCrcComputedAgain() throws Exception {
+        Path lib = jar(dir.resolve("lib-1.0.jar"), "lib/Lib.class");
+        Path cacheFile = dir.resolve("cache.txt");
+        long crc = crc(lib);
+        NestedLibraryCacheTest.writeCache(cacheFile, lib, crc + 1);
+        Path bootJar = dir.resolve("boot.jar");
+
+        packer(lib).makeExecJar(original(), bootJar, NestedLibraryCache.load(cacheFile));
+
+        try (ZipFile zipFile = new ZipFile(bootJar.toFile())) {
+            assertArrayEquals(Files.readAllBytes(lib), bytes(zipFile, "BOOT-INF/lib/lib-1.0.jar"));
+            assertEquals(crc, zipFile.getEntry("BOOT-INF/lib/lib-1.0.jar").getCrc());
+        }
+        assertEquals(crc, NestedLibraryCache.load(cacheFile).get(lib).crc);
+    }
+
+    @Test
+    public void makeExplodedDir_fromClassDir_writesBootLayout() throws Exception {
+        Path lib = jar(dir.resolve("lib-1.0.jar"), "lib/Lib.class");
+        Path classDir = Files.createDirectories(dir.resolve("classes/app"));
+        Files.write(classDir.resolve("App.class"), "App".getBytes(StandardCharsets.UTF_8));
+        Path bootDir = dir.resolve("boot-dir");
+
+        packer(lib).makeExplodedDir(dir.resolve("classes"), bootDir);
+
+        assertArrayEquals(Files.readAllBytes(lib), Files.readAllBytes(bootDir.resolve("BOOT-INF/lib/lib-1.0.jar")));
+        assertEquals("App", new String(Files.readAllBytes(bootDir.resolve("BOOT-INF/classes/app/App.class")),
+                StandardCharsets.UTF_8));
+        assertEquals("- \"BOOT-INF/lib/lib-1.0.jar\"\n", new String(Files.readAllBytes(
+                bootDir.resolve("BOOT-INF/classpath.idx")), StandardCharsets.UTF_8));
+        assertTrue(Files.exists(bootDir.resolve("BOOT-INF/layers.idx")));
+        assertTrue(Files.exists(bootDir.resolve("org/springframework/boot/loader/JarLauncher.class")));
+        assertTrue(new String(Files.readAllBytes(bootDir.resolve("META-INF/MANIFEST.MF")), StandardCharsets.UTF_8)
+                .contains("Start-Class: app.App"));
+    }
+
+    private SpringbootPacker packer(Path... libs) throws IOException {
+        Path loader = jar(dir.resolve("loader.jar"), "org/springframework/boot/loader/JarLauncher.class");
+        return SpringbootPacker.of(JkPathSequence.of(Arrays.asList(libs)), loader, "app.App", "2.5.0");
+    }
+
+    private Path original() throws IOException {
+        return jar(dir.resolve("original.jar"), "app/App.class");
+    }
+
+    // Creates a jar containing the specified entries, whose content is their name
+    static Path jar(Path file, String... entryNames) throws IOException {
+        try (OutputStream outputStream = Files.newOutputStream(file);
+             ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+            for (String entryName : entryNames) {
+                zipOutputStream.putNextEntry(new ZipEntry(entryName));
+                zipOutputStream.write(entryName.getBytes(StandardCharsets.UTF_8));
+                zipOutputStream.closeEntry();
+            }
+        }
+        return file;
+    }
+
+    static long crc(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(file));
+        return crc.getValue();
+    }
+
+    private static String content(ZipFile zipFile, String entryName) throws IOException {
+        return new String(bytes(zipFile, entryName), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(ZipFile zipFile, String entryName) throws IOException {
+        ZipEntry entry = zipFile.getEntry(entryName);
+        assertNotNull(entryName, entry);
+        try (InputStream inputStream = zipFile.getInputStream(entry)) {
+            byte[] result = new byte[(int) entry.getSize()];
+            int offset = 0;
+            while (offset < result.length) {
+                offset += inputStream.read(result, offset, result.length - offset);
+            }
+            return result;
+        }
+    }
+
+}